@@ -14,6 +14,10 @@ public final class ReadFilterArgumentDefinitions {
     public static final String READ_FILTER_SHORT_NAME = "RF";
     public static final String DISABLE_READ_FILTER_SHORT_NAME = "DF";
 
+    // Engine read filter arguments
+
+    public static final String READ_FILTER_PROFILING_READS_LONG_NAME = "read-filter-profiling-reads";
+
     // ReadFilter arguments
 
     public static final String AMBIGUOUS_FILTER_FRACTION_NAME = "ambig-filter-frac";
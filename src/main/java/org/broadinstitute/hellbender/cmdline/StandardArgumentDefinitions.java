@@ -43,6 +43,7 @@ public final class StandardArgumentDefinitions {
     public static final String SAMPLE_NAME_LONG_NAME = "sample-name";
     public static final String PEDIGREE_FILE_LONG_NAME = "pedigree";
     public static final String SITES_ONLY_LONG_NAME = "sites-only-vcf-output";
+    public static final String VARIANT_WRITER_THREADS_LONG_NAME = "variant-writer-threads";
     public static final String INVALIDATE_PREVIOUS_FILTERS_LONG_NAME = "invalidate-previous-filters";
     public static final String SORT_ORDER_LONG_NAME = "sort-order";
 
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IGVUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.downsampling.MemoryBoundedPositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
 
@@ -139,6 +140,11 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
     }
 
     protected ReadsDownsampler createDownsampler() {
+        if ( assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb > 0 ) {
+            final int targetCoverage = assemblyRegionArgs.maxReadsPerAlignmentStart > 0 ? assemblyRegionArgs.maxReadsPerAlignmentStart : Integer.MAX_VALUE;
+            final int windowSize = assemblyRegionArgs.maxAssemblyRegionSize + 2 * assemblyRegionArgs.assemblyRegionPadding;
+            return new MemoryBoundedPositionalDownsampler(targetCoverage, assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb * 1024L * 1024L, windowSize, getHeaderForReads());
+        }
         return assemblyRegionArgs.maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(assemblyRegionArgs.maxReadsPerAlignmentStart, getHeaderForReads()) : null;
     }
 
@@ -160,18 +166,36 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
+        long downsamplingBudgetHits = 0;
         for ( final MultiIntervalLocalReadShard readShard : readShards ) {
             // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
             // instead of filtering the reads directly here
+            final ReadsDownsampler downsampler = createDownsampler();
             readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
             readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(createDownsampler());
+            readShard.setDownsampler(downsampler);
             readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
 
             processReadShard(readShard, reference, features);
+
+            if ( downsampler instanceof MemoryBoundedPositionalDownsampler ) {
+                downsamplingBudgetHits += reportDownsamplingBudgetHits((MemoryBoundedPositionalDownsampler) downsampler);
+            }
         }
 
         logger.info(countedFilter.getSummaryLine());
+        if ( assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb > 0 ) {
+            logger.info(String.format("Downsampling memory budget of %d MB per sample was hit %d times", assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb, downsamplingBudgetHits));
+        }
+    }
+
+    private long reportDownsamplingBudgetHits( final MemoryBoundedPositionalDownsampler downsampler ) {
+        for ( final MemoryBoundedPositionalDownsampler.SampleBudgetStatistics stats : downsampler.getSampleBudgetStatistics() ) {
+            if ( stats.getNumberOfBudgetHits() > 0 ) {
+                logger.warn(stats.toString());
+            }
+        }
+        return downsampler.getNumberOfBudgetHits();
     }
 
     /**
@@ -2,14 +2,17 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMTag;
 import org.apache.commons.lang3.tuple.Pair;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.consensus.MoleculeID;
 import org.broadinstitute.hellbender.tools.walkers.consensus.ReadsWithSameUMI;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,14 +22,27 @@ import java.util.List;
  *
  * This tool assumes that the input bam has been sorted by UMI (the {@link SAMTag.MI} tag to be specific) with FGBio GroupReadsByUmi:
  * http://fulcrumgenomics.github.io/fgbio/tools/latest/GroupReadsByUmi.html
+ *
+ * Subclasses whose per-set work is independent across molecules may opt into parallel processing by overriding
+ * {@link #supportsParallelDuplicateSetProcessing()}, {@link #processDuplicateSet} and {@link #acceptProcessedDuplicateSet}.
+ * When run with --{@value #DUPLICATE_SET_THREADS_NAME} greater than 1, {@link #processDuplicateSet} is called on a pool of
+ * worker threads while {@link #acceptProcessedDuplicateSet} is called on the traversal thread in input order, so the output
+ * is the same as in serial mode.
+ *
+ * @param <T> type of the result of processing a duplicate set, which {@link #processDuplicateSet} passes to
+ *            {@link #acceptProcessedDuplicateSet}
  */
-public abstract class DuplicateSetWalker extends ReadWalker {
+public abstract class DuplicateSetWalker<T> extends ReadWalker {
     public static final String MIN_REQUIRED_READS_NAME = "min-reads";
     public static final String MIN_REQUIRED_READS_PER_STRAND_NAME = "min-per-strand-reads";
+    public static final String DUPLICATE_SET_THREADS_NAME = "duplicate-set-threads";
 
     private static final int DEFAULT_MINIMUM_READS_PER_SET = 1;
     private static final int DEFAULT_MINIMUM_READS_PER_STRAND = 0;
 
+    // Number of duplicate sets in flight per worker thread, which bounds the memory held by pending sets
+    private static final int PENDING_SETS_PER_THREAD = 64;
+
     @Argument(fullName = MIN_REQUIRED_READS_NAME, doc = "The mininum total number of reads required in the set", optional = true, minValue = 0)
     private int minimumRequiredReadsPerUMI = DEFAULT_MINIMUM_READS_PER_SET;
 
@@ -34,12 +50,39 @@ public abstract class DuplicateSetWalker extends ReadWalker {
     @Argument(fullName = MIN_REQUIRED_READS_PER_STRAND_NAME, doc = "The mininum total number of reads in each strand", optional = true, minValue = 0)
     private int minimumRequiredReadsPerStrand = DEFAULT_MINIMUM_READS_PER_STRAND;
 
+    @Advanced
+    @Argument(fullName = DUPLICATE_SET_THREADS_NAME, doc = "Number of threads used to process duplicate sets. Only used by tools that support parallel processing of duplicate sets", optional = true, minValue = 1)
+    private int duplicateSetThreads = 1;
+
     protected ReadsWithSameUMI currentReadsWithSameUMI = null;
 
+    // in parallel mode, runs processDuplicateSet on worker threads and then acceptProcessedDuplicateSet on the traversal thread
+    private OrderedTaskExecutor<Runnable> duplicateSetExecutor = null;
+
     @Override
     public final void traverse(){
-        super.traverse();
-        processLastReadSet();
+        if (duplicateSetThreads > 1) {
+            if (supportsParallelDuplicateSetProcessing()) {
+                duplicateSetExecutor = new OrderedTaskExecutor<>("duplicateSet-thread-%d", duplicateSetThreads,
+                        PENDING_SETS_PER_THREAD, Runnable::run);
+            } else {
+                logger.warn(String.format("%s does not support parallel processing of duplicate sets; ignoring --%s and processing duplicate sets serially.",
+                        getClass().getSimpleName(), DUPLICATE_SET_THREADS_NAME));
+            }
+        }
+
+        try {
+            super.traverse();
+            processLastReadSet();
+            if (duplicateSetExecutor != null) {
+                duplicateSetExecutor.consumeAllResults();
+            }
+        } finally {
+            if (duplicateSetExecutor != null) {
+                duplicateSetExecutor.close();
+                duplicateSetExecutor = null;
+            }
+        }
     }
 
     /***
@@ -83,10 +126,8 @@ public abstract class DuplicateSetWalker extends ReadWalker {
                 return;
             }
 
-            // Call the apply() method to process the current set and start a new set.
-            apply(currentReadsWithSameUMI,
-                    new ReferenceContext(reference, currentReadsWithSameUMI.getInterval()), // Will create an empty ReferenceContext if reference or readInterval == null
-                    new FeatureContext(features, currentReadsWithSameUMI.getInterval()));
+            // Call the apply() method (or hand the set to the worker threads) to process the current set and start a new set.
+            dispatchDuplicateSet(currentReadsWithSameUMI);
             currentReadsWithSameUMI = new ReadsWithSameUMI(read);
             return;
         }
@@ -105,12 +146,57 @@ public abstract class DuplicateSetWalker extends ReadWalker {
      */
     public abstract void apply(ReadsWithSameUMI readsWithSameUMI, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Subclasses that override {@link #processDuplicateSet} and {@link #acceptProcessedDuplicateSet} should return true
+     * to allow the duplicate sets to be processed with multiple threads.
+     */
+    protected boolean supportsParallelDuplicateSetProcessing() {
+        return false;
+    }
+
+    /**
+     * The part of the processing of a duplicate set that is independent of other sets. In parallel mode this is called
+     * from a worker thread, so it must not modify the state of the walker or use any data sources.
+     *
+     * @param readsWithSameUMI A set of reads with the matching UMIs with the same fragment start and end
+     * @param referenceContext A reference context over the interval of the set, with its bases already loaded
+     * @return the result to be passed to {@link #acceptProcessedDuplicateSet}
+     */
+    protected T processDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final ReferenceContext referenceContext) {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not support parallel processing of duplicate sets");
+    }
+
+    /**
+     * Consume the result of {@link #processDuplicateSet}. In parallel mode this is called on the traversal thread, in the
+     * order in which the duplicate sets appear in the input.
+     */
+    protected void acceptProcessedDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final T result,
+                                               final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not support parallel processing of duplicate sets");
+    }
+
     private void processLastReadSet(){
-        if (currentReadsWithSameUMI.getReads().size() > 0){
-            apply(currentReadsWithSameUMI,
-                    new ReferenceContext(reference, currentReadsWithSameUMI.getInterval()),
-                    new FeatureContext(features, currentReadsWithSameUMI.getInterval()));
+        if (currentReadsWithSameUMI != null && currentReadsWithSameUMI.getReads().size() > 0){
+            dispatchDuplicateSet(currentReadsWithSameUMI);
+        }
+    }
+
+    private void dispatchDuplicateSet(final ReadsWithSameUMI readsWithSameUMI) {
+        final ReferenceContext referenceContext = new ReferenceContext(reference, readsWithSameUMI.getInterval()); // Will create an empty ReferenceContext if reference or readInterval == null
+        final FeatureContext featureContext = new FeatureContext(features, readsWithSameUMI.getInterval());
+        if (duplicateSetExecutor == null) {
+            apply(readsWithSameUMI, referenceContext, featureContext);
+            return;
+        }
+
+        // The reference data source is not thread-safe, so load the bases on this thread; the context caches them
+        if (referenceContext.hasBackingDataSource()) {
+            referenceContext.getBases();
         }
+        duplicateSetExecutor.submit(() -> {
+            final T result = processDuplicateSet(readsWithSameUMI, referenceContext);
+            return () -> acceptProcessedDuplicateSet(readsWithSameUMI, result, referenceContext, featureContext);
+        }, () -> "processing duplicate set with molecule number " + readsWithSameUMI.getMoleculeNumber());
     }
 
     /**
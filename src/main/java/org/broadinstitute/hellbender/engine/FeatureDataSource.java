@@ -6,6 +6,7 @@ import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.*;
 import htsjdk.variant.bcf2.BCF2Codec;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.AbstractVCFCodec;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.logging.log4j.LogManager;
@@ -35,6 +36,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBUtils.createExportConfiguration;
 import static org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.BCI_FILE_EXTENSION;
@@ -124,6 +126,23 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final boolean supportsRandomAccess;
 
+    /**
+     * True if the name of the FeatureInput was set on the codec (see the constructors)
+     */
+    private final boolean setNameOnCodec;
+
+    /**
+     * Caching/prefetching wrapper for the data, if on Google Cloud, also used when the data is read by a
+     * {@link ParallelVariantDecodingIterator}
+     */
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper;
+
+    /**
+     * Number of threads used to decode records during full traversals of VCF files; 1 to decode them on the
+     * traversal thread with tribble. See {@link #setDecodingThreads}.
+     */
+    private int decodingThreads = 1;
+
     /**
      * Default value for queryLookaheadBases, if none is specified. This is designed to be large enough
      * so that in typical usage (ie., query intervals with gradually increasing start locations) there will
@@ -316,8 +335,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
         // a query by interval is attempted.
+        this.cloudWrapper = BucketUtils.getPrefetchingWrapper(cloudPrefetchBuffer);
         this.featureReader = getFeatureReader(featureInput, targetFeatureType,
-                BucketUtils.getPrefetchingWrapper(cloudPrefetchBuffer),
+                cloudWrapper,
                 BucketUtils.getPrefetchingWrapper(cloudIndexPrefetchBuffer),
                 genomicsDBOptions, setNameOnCodec);
 
@@ -343,6 +363,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         this.intervalsForTraversal = null;
         this.queryCache = new FeatureCache<>();
         this.queryLookaheadBases = queryLookaheadBases;
+        this.setNameOnCodec = setNameOnCodec;
     }
 
     final void printCacheStats() {
@@ -511,6 +532,28 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     }
 
 
+    /**
+     * Decode records on multiple threads during full traversals (ie., iterations that are not restricted by
+     * intervals) of VCF files. Records are returned in the same order as with a single thread. Has no effect on
+     * traversals by intervals, on queries, or on other kinds of inputs.
+     *
+     * @param numThreads number of threads used to decode records; 1 to decode them on the traversal thread
+     */
+    public void setDecodingThreads(final int numThreads) {
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        this.decodingThreads = numThreads;
+    }
+
+    /**
+     * @return true if full traversals of this data source should use a {@link ParallelVariantDecodingIterator}
+     */
+    private boolean useParallelDecoding() {
+        return decodingThreads > 1 && intervalsForTraversal == null &&
+                !IOUtils.isGenomicsDBPath(featureInput) &&
+                featureInput.getFeatureCodecClass() != null &&
+                AbstractVCFCodec.class.isAssignableFrom(featureInput.getFeatureCodecClass());
+    }
+
     /**
      * Gets an iterator over all Features in this data source, restricting traversal to Features
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
@@ -527,14 +570,25 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         try {
             // Save the iterator returned so that we can close it properly later
-            currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
-                    : featureReader.iterator();
+            if (useParallelDecoding()) {
+                currentIterator = makeParallelDecodingIterator();
+            } else {
+                currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
+                        : featureReader.iterator();
+            }
             return currentIterator;
         } catch (final IOException e) {
             throw new GATKException("Error creating iterator over file " + featureInput.getFeaturePath(), e);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private CloseableTribbleIterator<T> makeParallelDecodingIterator() {
+        final Supplier<AbstractVCFCodec> codecFactory = () ->
+                (AbstractVCFCodec) getCodecForFeatureInput(featureInput, VariantContext.class, setNameOnCodec);
+        return (CloseableTribbleIterator<T>) new ParallelVariantDecodingIterator(featureInput.toPath(), cloudWrapper, codecFactory, decodingThreads);
+    }
+
     /**
      * Gets an iterator over all Features in this data source that overlap the provided interval.
      * <p>
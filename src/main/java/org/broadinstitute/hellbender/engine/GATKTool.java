@@ -16,12 +16,14 @@ import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Stream;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKAnnotationPluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
+import org.broadinstitute.hellbender.cmdline.ReadFilterArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.*;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
@@ -127,6 +129,18 @@ public abstract class GATKTool extends CommandLineProgram {
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
 
+    @Advanced
+    @Argument(fullName = ReadFilterArgumentDefinitions.READ_FILTER_PROFILING_READS_LONG_NAME, minValue = 0, optional = true,
+            doc = "If non-zero, measure the cost and selectivity of each read filter over this many reads, then evaluate the filters " +
+                    "in the cheapest order. The reads kept and the filter counts are unchanged.")
+    public int readFilterProfilingReads = 0;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.VARIANT_WRITER_THREADS_LONG_NAME, minValue = 1, optional = true,
+            doc = "Number of threads used to encode and compress VCF output. Only block-compressed VCFs and unindexed VCFs " +
+                    "are written on several threads; the output is the same as with a single thread.")
+    public int variantWriterThreads = 1;
+
     /**
      * Master sequence dictionary to be used instead of all other dictionaries (if provided).
      */
@@ -277,9 +291,13 @@ public abstract class GATKTool extends CommandLineProgram {
      public CountingReadFilter makeReadFilter(){
         final GATKReadFilterPluginDescriptor readFilterPlugin =
                 getCommandLineParser().getPluginDescriptor(GATKReadFilterPluginDescriptor.class);
-        return hasReads() ?
-                readFilterPlugin.getMergedCountingReadFilter(getHeaderForReads()) :
-                new CountingReadFilter(ReadFilterLibrary.ALLOW_ALL_READS);
+        if (!hasReads()) {
+            return new CountingReadFilter(ReadFilterLibrary.ALLOW_ALL_READS);
+        }
+        return readFilterProfilingReads > 0 ?
+                readFilterPlugin.getMergedReadFilter(getHeaderForReads(),
+                        (filters, header) -> CountingReadFilter.fromListWithAdaptiveOrdering(filters, header, readFilterProfilingReads)) :
+                readFilterPlugin.getMergedCountingReadFilter(getHeaderForReads());
     }
 
     /**
@@ -421,6 +439,14 @@ public abstract class GATKTool extends CommandLineProgram {
         return getIntervals;
     }
 
+    /**
+     * @return the maximum number of records in each shard of the VCF outputs of {@link #createVCFWriter}, or 0 if they
+     *         are not sharded
+     */
+    protected final int getMaxVariantsPerShard() {
+        return maxVariantsPerShard;
+    }
+
     /**
      * Get the GenomicsDB read settings for the current tool
      * @return By default, just return the vanilla options
@@ -924,6 +950,7 @@ public abstract class GATKTool extends CommandLineProgram {
                 outPath,
                 sequenceDictionary,
                 createOutputVariantMD5,
+                variantWriterThreads,
                 options.toArray(new Options[options.size()]));
     }
 
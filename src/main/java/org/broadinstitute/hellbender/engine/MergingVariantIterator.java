@@ -0,0 +1,159 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges the variants from many coordinate-sorted iterators into a single coordinate-sorted iteration.
+ *
+ * The inputs are kept in a binary heap keyed by their next variant, so that each record costs O(log k) comparisons
+ * for k inputs. Unlike the htsjdk MergingIterator, the heap keeps only the head record of each input (no peeking
+ * wrapper per input), the contig index of each head record is looked up once rather than on every comparison, and
+ * the input that produced the last record is sifted back into place instead of being removed and re-inserted.
+ * Only the contig and start of each record are examined, so lazily-decoded genotypes stay undecoded.
+ *
+ * Records that start at the same position are returned in the order in which their inputs were (re)inserted into
+ * the heap, which is the same order as the htsjdk MergingIterator with a VariantContextComparator.
+ */
+final class MergingVariantIterator implements CloseableIterator<VariantContext> {
+
+    /**
+     * The current state of one input: its iterator, and its next record with the position of that record
+     */
+    private static final class Input {
+        private final String name;
+        private Iterator<VariantContext> iterator;
+        private VariantContext head;
+        private int headContigIndex;
+        private long sequence;
+
+        private Input(final String name, final Iterator<VariantContext> iterator) {
+            this.name = name;
+            this.iterator = iterator;
+        }
+    }
+
+    private final Map<String, Integer> contigIndices;
+    private final Input[] heap;
+    private int heapSize = 0;
+    // incremented each time an input is (re)inserted, to break ties between records at the same position
+    private long sequenceCounter = 0;
+
+    /**
+     * @param dictionary dictionary that defines the order of the contigs in the inputs
+     * @param names names of the inputs, used in error messages
+     * @param iterators coordinate-sorted iterators over the inputs, in the same order as the names
+     */
+    MergingVariantIterator(final SAMSequenceDictionary dictionary, final List<String> names, final List<? extends Iterator<VariantContext>> iterators) {
+        Utils.nonNull(dictionary);
+        Utils.nonNull(names);
+        Utils.nonNull(iterators);
+        Utils.validateArg(names.size() == iterators.size(), "there must be one name per iterator");
+
+        contigIndices = new HashMap<>(dictionary.size() * 2);
+        for (final SAMSequenceRecord sequence : dictionary.getSequences()) {
+            contigIndices.put(sequence.getSequenceName(), sequence.getSequenceIndex());
+        }
+
+        heap = new Input[iterators.size()];
+        for (int i = 0; i < iterators.size(); i++) {
+            final Input input = new Input(names.get(i), Utils.nonNull(iterators.get(i)));
+            if (advance(input)) {
+                heap[heapSize++] = input;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Load the next record of the input, if there is one
+     *
+     * @return true if the input has a record
+     */
+    private boolean advance(final Input input) {
+        if (input.iterator == null || !input.iterator.hasNext()) {
+            input.head = null;
+            return false;
+        }
+        input.head = input.iterator.next();
+        final Integer contigIndex = contigIndices.get(input.head.getContig());
+        if (contigIndex == null) {
+            throw new UserException(String.format("The variant at %s:%d in %s is on a contig that is not present in the sequence dictionary",
+                    input.head.getContig(), input.head.getStart(), input.name));
+        }
+        input.headContigIndex = contigIndex;
+        input.sequence = sequenceCounter++;
+        return true;
+    }
+
+    private static int compare(final Input first, final Input second) {
+        int result = Integer.compare(first.headContigIndex, second.headContigIndex);
+        if (result == 0) {
+            result = Integer.compare(first.head.getStart(), second.head.getStart());
+        }
+        return result != 0 ? result : Long.compare(first.sequence, second.sequence);
+    }
+
+    private void siftDown(int index) {
+        final Input input = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compare(input, heap[child]) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = input;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    public VariantContext next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("hasNext should be called before next");
+        }
+        final Input top = heap[0];
+        final VariantContext result = top.head;
+        if (!advance(top)) {
+            heap[0] = heap[--heapSize];
+            heap[heapSize] = null;
+        }
+        if (heapSize > 0) {
+            siftDown(0);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < heapSize; i++) {
+            heap[i].iterator = null;
+            heap[i].head = null;
+            heap[i] = null;
+        }
+        heapSize = 0;
+    }
+}
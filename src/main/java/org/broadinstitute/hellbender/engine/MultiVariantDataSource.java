@@ -3,9 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.samtools.util.MergingIterator;
 import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.variantcontext.VariantContextComparator;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFUtils;
@@ -37,10 +35,27 @@ import java.util.stream.Collectors;
  * -Targeted queries by one interval at a time. This also requires the files to have been indexed using
  *  the bundled tool IndexFeatureFile. Targeted queries by one interval at a time are unaffected by
  *  any intervals for full traversal set via {@link #setIntervalsForTraversal(List)}.
+ *
+ * The variants from the individual sources are merged with a {@link MergingVariantIterator}, which does not decode
+ * the genotypes of the records. To keep memory bounded with many inputs, the query lookahead and cloud prefetch
+ * buffers requested for each source are scaled down when there are more than {@link #MAX_INPUTS_WITH_FULL_BUFFERS}
+ * sources.
  */
 public final class MultiVariantDataSource implements GATKDataSource<VariantContext>, AutoCloseable {
     private static final Logger logger = LogManager.getLogger(MultiVariantDataSource.class);
 
+    /**
+     * Up to this many inputs, each input gets the requested query lookahead and cloud prefetch buffers. With more
+     * inputs (eg., hundreds of GVCFs), the per-input values are scaled down so that the total stays the same as
+     * for this many inputs.
+     */
+    static final int MAX_INPUTS_WITH_FULL_BUFFERS = 20;
+
+    /**
+     * Per-input query lookahead is never scaled below this number of bases (unless a smaller lookahead was requested)
+     */
+    static final int MIN_QUERY_LOOKAHEAD_BASES_PER_INPUT = 100;
+
     /**
      * List of FeatureDataSource objects aggregated by this MultiVariantDataSource
      */
@@ -85,9 +100,19 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         Utils.validateArg(featureInputs != null && featureInputs.size() > 0, "FeatureInputs list must be non-null and non-empty");
 
+        // keep the memory used by the per-input caches and prefetch buffers bounded when there are many inputs
+        final int numInputs = featureInputs.size();
+        final int lookaheadBasesPerInput = scaleForInputs(queryLookaheadBases, numInputs, MIN_QUERY_LOOKAHEAD_BASES_PER_INPUT);
+        final int cloudPrefetchBufferPerInput = scaleForInputs(cloudPrefetchBuffer, numInputs, 1);
+        final int cloudIndexPrefetchBufferPerInput = scaleForInputs(cloudIndexPrefetchBuffer, numInputs, 1);
+        if (numInputs > MAX_INPUTS_WITH_FULL_BUFFERS) {
+            logger.info(String.format("Using a query lookahead of %d bases and cloud prefetch buffers of %d/%d MB per input for %d variant inputs",
+                    lookaheadBasesPerInput, cloudPrefetchBufferPerInput, cloudIndexPrefetchBufferPerInput, numInputs));
+        }
+
         featureInputs.forEach(
                 featureInput -> featureDataSources.add(
-                        new FeatureDataSource<>(featureInput, queryLookaheadBases, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                        new FeatureDataSource<>(featureInput, lookaheadBasesPerInput, VariantContext.class, cloudPrefetchBufferPerInput, cloudIndexPrefetchBufferPerInput,
                                                 reference, true)));
 
         // Ensure that the merged header and sequence dictionary that we use are in sync with each
@@ -195,17 +220,37 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
         closeOpenIterationIfNecessary();
 
         if (featureDataSources.size() > 1) {
-            final List<CloseableIterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
-            featureDataSources.forEach(ds -> iterators.add(getCloseableIteratorWrapper(iteratorFromSource.apply((ds)))));
-
-            final VariantContextComparator varComparator = new VariantContextComparator(getSequenceDictionary());
-            currentIterator = new MergingIterator<>(varComparator, iterators);
+            final List<String> names = new ArrayList<>(featureDataSources.size());
+            final List<Iterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
+            featureDataSources.forEach(ds -> {
+                names.add(ds.getName());
+                iterators.add(iteratorFromSource.apply(ds));
+            });
+            currentIterator = new MergingVariantIterator(getSequenceDictionary(), names, iterators);
         } else {
             currentIterator = getCloseableIteratorWrapper(iteratorFromSource.apply(featureDataSources.get(0)));
         }
         return currentIterator;
     }
 
+    /**
+     * Scale a per-input buffer size so that the total over all of the inputs is no more than the total for
+     * {@link #MAX_INPUTS_WITH_FULL_BUFFERS} inputs.
+     *
+     * @param requested the requested size for each input
+     * @param numInputs the number of inputs
+     * @param minimum the scaled size is never smaller than this, unless the requested size is
+     * @return the size to use for each input
+     */
+    static int scaleForInputs(final int requested, final int numInputs, final int minimum) {
+        Utils.validateArg(requested >= 0, "requested size must be >= 0");
+        Utils.validateArg(numInputs > 0, "numInputs must be positive");
+        if (numInputs <= MAX_INPUTS_WITH_FULL_BUFFERS || requested <= minimum) {
+            return requested;
+        }
+        return (int) Math.max(minimum, (long) requested * MAX_INPUTS_WITH_FULL_BUFFERS / numInputs);
+    }
+
     /**
      * Get the logical name of this data source.
      *
@@ -385,7 +430,7 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     }
 
     /**
-     * Wrap the sourceIterator in a CloseableIterator to make it usable as a MergingIterator source.
+     * Wrap the sourceIterator in a CloseableIterator, for use as the iterator over a single data source.
      */
     private CloseableIterator<VariantContext> getCloseableIteratorWrapper(final Iterator<VariantContext> sourceIterator) {
         Utils.nonNull(sourceIterator);
@@ -0,0 +1,229 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.AsyncBlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.TribbleException;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.AbstractVCFCodec;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An iterator over all of the records in a VCF file that decodes them on several threads.
+ *
+ * Block-compressed files are inflated block by block in the background by an {@link AsyncBlockCompressedInputStream}.
+ * Files compressed with plain gzip, which cannot be split into blocks, are inflated on the calling thread.
+ * The decompressed text is split into batches of whole lines on the calling thread. Each batch is decoded on a worker
+ * thread with its own codec, and the genotypes are decoded there as well instead of lazily on the traversal thread.
+ * Batches are decoded by an {@link OrderedTaskExecutor} and returned in file order, so the records are the same, in the same order, as with the tribble iterator.
+ *
+ * Used by {@link FeatureDataSource} to traverse a whole VCF when parallel decoding has been requested.
+ */
+final class ParallelVariantDecodingIterator implements CloseableTribbleIterator<VariantContext> {
+    // number of lines decoded per task
+    private static final int LINES_PER_BATCH = 200;
+    // number of batches in flight per thread, which bounds the memory used by decoded records that are not consumed yet
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final Path path;
+    private final BufferedReader reader;
+    private final OrderedTaskExecutor<List<VariantContext>> executor;
+    private final ThreadLocal<AbstractVCFCodec> codecs;
+    private final int maxBatchesInFlight;
+    // batches that have been decoded but not returned yet, in file order
+    private final Deque<List<VariantContext>> decodedBatches = new ArrayDeque<>();
+
+    private Iterator<VariantContext> currentBatch = Collections.emptyIterator();
+    private String firstRecordLine;
+    private boolean endOfFile = false;
+
+    /**
+     * @param path the VCF file to read, plain text, block-compressed or gzipped
+     * @param cloudWrapper caching/prefetching wrapper for the file, if it is on Google Cloud
+     * @param codecFactory creates a new codec of the same type, and with the same configuration, as the one used to
+     *                     read the file with tribble
+     * @param numThreads number of decoding threads; must be at least 1
+     */
+    ParallelVariantDecodingIterator(final Path path, final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
+                                    final Supplier<AbstractVCFCodec> codecFactory, final int numThreads) {
+        Utils.nonNull(path);
+        Utils.nonNull(cloudWrapper);
+        Utils.nonNull(codecFactory);
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        this.path = path;
+        this.maxBatchesInFlight = numThreads * BATCHES_PER_THREAD;
+
+        try {
+            // open remote files through the same wrapper as the tribble reader
+            final InputStream rawStream = BucketUtils.isEligibleForPrefetching(path) ?
+                    Channels.newInputStream(cloudWrapper.apply(Files.newByteChannel(path))) :
+                    Files.newInputStream(path);
+            final InputStream fileStream = new BufferedInputStream(rawStream);
+            final InputStream textStream;
+            // check the contents rather than the extension, since a .gz file may be plain gzip rather than BGZF
+            if (BlockCompressedInputStream.isValidFile(fileStream)) {
+                textStream = new AsyncBlockCompressedInputStream(fileStream);
+            } else if (IOUtil.isGZIPInputStream(fileStream)) {
+                textStream = new GZIPInputStream(fileStream);
+            } else {
+                textStream = fileStream;
+            }
+            this.reader = new BufferedReader(new InputStreamReader(textStream, StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+
+        // every codec reads the same header lines, so that they decode records exactly like the tribble codec
+        final String headerText = readHeaderText();
+        this.codecs = ThreadLocal.withInitial(() -> {
+            final AbstractVCFCodec codec = codecFactory.get();
+            codec.readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(headerText))));
+            return codec;
+        });
+        this.executor = new OrderedTaskExecutor<>("variantDecoder-thread-%d", numThreads, BATCHES_PER_THREAD, decodedBatches::addLast);
+        // start decoding before the first record is requested
+        while (!endOfFile && executor.getNumPendingTasks() < maxBatchesInFlight) {
+            submitNextBatch();
+        }
+    }
+
+    /**
+     * Read the header lines, and keep the first record line (if any) for the first batch
+     */
+    private String readHeaderText() {
+        final StringBuilder header = new StringBuilder();
+        String line;
+        while ((line = readLine()) != null) {
+            if (!line.startsWith("#")) {
+                firstRecordLine = line;
+                break;
+            }
+            header.append(line).append('\n');
+        }
+        endOfFile = line == null;
+        return header.toString();
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+    }
+
+    /**
+     * Read the next batch of lines and submit it for decoding. When the maximum number of batches is in flight, the
+     * earliest batch is collected first.
+     */
+    private void submitNextBatch() {
+        final List<String> lines = new ArrayList<>(LINES_PER_BATCH);
+        if (firstRecordLine != null) {
+            lines.add(firstRecordLine);
+            firstRecordLine = null;
+        }
+        while (lines.size() < LINES_PER_BATCH) {
+            final String line = readLine();
+            if (line == null) {
+                endOfFile = true;
+                break;
+            }
+            lines.add(line);
+        }
+        if (!lines.isEmpty()) {
+            executor.submit(() -> decode(lines), () -> "decoding variants from " + path);
+        }
+    }
+
+    private List<VariantContext> decode(final List<String> lines) {
+        final AbstractVCFCodec codec = codecs.get();
+        final List<VariantContext> decoded = new ArrayList<>(lines.size());
+        for (final String line : lines) {
+            final VariantContext vc;
+            try {
+                vc = codec.decode(line);
+            } catch (final NumberFormatException e) {
+                // same treatment as the tribble iterator
+                throw new TribbleException.MalformedFeatureFile("Error parsing line: " + line, path.toString(), e);
+            }
+            if (vc != null) {
+                // decode the genotypes here rather than lazily on the traversal thread
+                vc.getGenotypes().iterator();
+                decoded.add(vc);
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentBatch.hasNext()) {
+            if (!decodedBatches.isEmpty()) {
+                currentBatch = decodedBatches.pollFirst().iterator();
+            } else if (!endOfFile) {
+                // keeps the pipeline full, and collects the earliest batch
+                submitNextBatch();
+            } else if (executor.getNumPendingTasks() > 0) {
+                executor.consumeAllResults();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public VariantContext next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more variants in " + path);
+        }
+        return currentBatch.next();
+    }
+
+    @Override
+    public Iterator<VariantContext> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        decodedBatches.clear();
+        currentBatch = Collections.emptyIterator();
+        endOfFile = true;
+        try {
+            reader.close();
+        } catch (final IOException e) {
+            throw new GATKException("Error closing " + path, e);
+        }
+    }
+}
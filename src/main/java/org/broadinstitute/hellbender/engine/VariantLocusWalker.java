@@ -4,18 +4,25 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
 import org.broadinstitute.hellbender.utils.iterators.ShardedIntervalIterator;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,8 +34,32 @@ import java.util.stream.Stream;
  *
  * VariantLocusWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
  * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ *
+ * Subclasses whose per-locus work is independent across loci may opt into parallel processing by overriding
+ * {@link #supportsParallelPartitions()} and {@link #makePartitionHandler}. When run with
+ * --{@value #VARIANT_LOCUS_THREADS_LONG_NAME} greater than 1, the traversal intervals are cut into partitions that are
+ * processed on a pool of worker threads, each with its own query of the driving variants and its own reference and
+ * feature data sources, while {@link PartitionHandler#acceptOutput} is called on the traversal thread in traversal
+ * order, so the output is the same as in serial mode.
  */
 public abstract class VariantLocusWalker extends VariantWalkerBase {
+    public static final String VARIANT_LOCUS_THREADS_LONG_NAME = "variant-locus-threads";
+    public static final String PARTITION_SIZE_LONG_NAME = "variant-locus-partition-size";
+
+    public static final int DEFAULT_PARTITION_SIZE = 1_000_000;
+
+    // Number of partitions in flight per worker thread, which bounds the memory held by output that is not accepted yet
+    private static final int PENDING_PARTITIONS_PER_THREAD = 2;
+
+    @Advanced
+    @Argument(fullName = VARIANT_LOCUS_THREADS_LONG_NAME, doc = "Number of threads used to process partitions of the traversal intervals. " +
+            "Only used by tools that support parallel processing of partitions", optional = true, minValue = 1)
+    private int variantLocusThreads = 1;
+
+    @Advanced
+    @Argument(fullName = PARTITION_SIZE_LONG_NAME, doc = "Size in bases of the partitions of the traversal intervals that are processed in parallel " +
+            "when --" + VARIANT_LOCUS_THREADS_LONG_NAME + " is greater than 1", optional = true, minValue = 1)
+    private int partitionSize = DEFAULT_PARTITION_SIZE;
 
     // NOTE: using String rather than FeatureInput<VariantContext> here so that we can keep this driving source
     //       of variants separate from any other potential sources of Features
@@ -121,6 +152,15 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     @Override
     public void traverse() {
+        if (variantLocusThreads > 1) {
+            if (supportsParallelPartitions()) {
+                traversePartitionsInParallel(makePartitionHandler());
+                return;
+            }
+            logger.warn(String.format("%s does not support parallel processing of partitions; ignoring --%s and traversing serially.",
+                    getClass().getSimpleName(), VARIANT_LOCUS_THREADS_LONG_NAME));
+        }
+
         final CountingReadFilter readFilter = makeReadFilter();
         final CountingVariantFilter variantFilter = makeVariantFilter();
         final VariantTransformer preTransformer  = makePreVariantFilterTransformer();
@@ -141,36 +181,102 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
                         progressMeter.update(variantInterval);
                     });
         } else {
-            // Traverse loci in shards. For any shard with overlapping variants, drop down to per-locus iteration,
-            // calling apply for a single locus, only if there are overlapping variants, passing all such variants
-            // as a group.
-            Utils.stream(new ShardedIntervalIterator(getTraversalIntervals().iterator(), getDrivingVariantCacheLookAheadBases()))
-                    .forEachOrdered (shard -> {
-                        if (drivingVariants.query(shard).hasNext()) {
-                            getLocusStream(new SimpleInterval(shard))
-                                    .forEachOrdered(locus -> {
-                                        final Iterator<VariantContext> overlappingVariants = drivingVariants.query(locus);
-                                        if (overlappingVariants.hasNext()) {
-                                            final List<VariantContext> filteredVariants = getTransformedVariantStream(
-                                                    Spliterators.spliteratorUnknownSize(overlappingVariants, 0),
-                                                    preTransformer,
-                                                    variantFilter,
-                                                    postTransformer)
-                                                    .collect(Collectors.toList());
-                                            if (!filteredVariants.isEmpty()) {
-                                                apply(locus,
-                                                        filteredVariants,
-                                                        new ReadsContext(reads, locus, readFilter),
-                                                        new ReferenceContext(reference, locus),
-                                                        new FeatureContext(features, locus));
-
-                                                progressMeter.update(locus);
-                                            }
-                                        }
-                                    });
-                        }
+            traverseLoci(getTraversalIntervals(), drivingVariants, preTransformer, variantFilter, postTransformer,
+                    (locus, filteredVariants) -> {
+                        apply(locus,
+                                filteredVariants,
+                                new ReadsContext(reads, locus, readFilter),
+                                new ReferenceContext(reference, locus),
+                                new FeatureContext(features, locus));
+
+                        progressMeter.update(locus);
                     });
         }
+        logger.info(variantFilter.getSummaryLine());
+        logger.info(readFilter.getSummaryLine());
+    }
+
+    /**
+     * Traverse loci in shards. For any shard with overlapping variants, drop down to per-locus iteration,
+     * calling locusConsumer for a single locus, only if there are overlapping variants, passing all such variants
+     * as a group.
+     */
+    private void traverseLoci(final List<SimpleInterval> intervals,
+                              final FeatureDataSource<VariantContext> variantSource,
+                              final VariantTransformer preTransformer,
+                              final CountingVariantFilter variantFilter,
+                              final VariantTransformer postTransformer,
+                              final BiConsumer<SimpleInterval, List<VariantContext>> locusConsumer) {
+        Utils.stream(new ShardedIntervalIterator(intervals.iterator(), getDrivingVariantCacheLookAheadBases()))
+                .forEachOrdered (shard -> {
+                    if (variantSource.query(shard).hasNext()) {
+                        getLocusStream(new SimpleInterval(shard))
+                                .forEachOrdered(locus -> {
+                                    final Iterator<VariantContext> overlappingVariants = variantSource.query(locus);
+                                    if (overlappingVariants.hasNext()) {
+                                        final List<VariantContext> filteredVariants = getTransformedVariantStream(
+                                                Spliterators.spliteratorUnknownSize(overlappingVariants, 0),
+                                                preTransformer,
+                                                variantFilter,
+                                                postTransformer)
+                                                .collect(Collectors.toList());
+                                        if (!filteredVariants.isEmpty()) {
+                                            locusConsumer.accept(locus, filteredVariants);
+                                        }
+                                    }
+                                });
+                    }
+                });
+    }
+
+    /**
+     * Cut the traversal intervals into partitions, process them on a pool of worker threads, and pass their output to
+     * {@link PartitionHandler#acceptOutput} in traversal order. The counts of the variant filters of the worker threads
+     * are reported together at the end. There is no reads context in parallel mode, so no reads are filtered.
+     */
+    private <T> void traversePartitionsInParallel(final PartitionHandler<T> handler) {
+        final List<SimpleInterval> partitions = IntervalUtils.cutToShards(getTraversalIntervals(), partitionSize);
+        logger.info(String.format("Processing %d partitions of the traversal intervals on %d threads", partitions.size(), variantLocusThreads));
+
+        // one set of data sources per thread, made here since they are created from the state of the walker
+        final BlockingQueue<PartitionResources<T>> availableResources = new ArrayBlockingQueue<>(variantLocusThreads);
+        final List<PartitionResources<T>> allResources = new ArrayList<>(variantLocusThreads);
+        try (final OrderedTaskExecutor<PartitionOutput<T>> executor = new OrderedTaskExecutor<>("variantLocus-thread-%d",
+                variantLocusThreads, PENDING_PARTITIONS_PER_THREAD, partitionOutput -> acceptPartition(handler, partitionOutput))) {
+            for (int i = 0; i < variantLocusThreads; i++) {
+                final PartitionResources<T> resources = new PartitionResources<>(handler.makeProcessor());
+                allResources.add(resources);
+                availableResources.add(resources);
+            }
+
+            for (int i = 0; i < partitions.size(); i++) {
+                final int partitionIndex = i;
+                final SimpleInterval partition = partitions.get(i);
+                executor.submit(() -> {
+                    final PartitionResources<T> resources = availableResources.take();
+                    try {
+                        return resources.process(partitions, partitionIndex);
+                    } finally {
+                        availableResources.put(resources);
+                    }
+                }, () -> "processing partition " + partition + " of " + drivingVariantFile);
+            }
+            executor.consumeAllResults();
+
+            final CountingVariantFilter variantFilter = makeVariantFilter();
+            allResources.forEach(resources -> variantFilter.addFilteredCounts(resources.variantFilter));
+            logger.info(variantFilter.getSummaryLine());
+        } finally {
+            // the executor has been closed by now
+            allResources.forEach(PartitionResources::close);
+        }
+    }
+
+    private <T> void acceptPartition(final PartitionHandler<T> handler, final PartitionOutput<T> partitionOutput) {
+        partitionOutput.outputs.forEach(handler::acceptOutput);
+        if (partitionOutput.lastLocus != null) {
+            progressMeter.update(partitionOutput.lastLocus, partitionOutput.lociProcessed);
+        }
     }
 
     // Return a Stream of SimpleInterval covering the entire territory sketched out by requestedInterval
@@ -204,6 +310,169 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     public abstract void apply(Locatable loc, List<VariantContext> variants, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Subclasses that override {@link #makePartitionHandler} should return true to allow partitions of the traversal intervals to be processed with multiple threads.
+     */
+    protected boolean supportsParallelPartitions() {
+        return false;
+    }
+
+    /**
+     * Subclasses whose {@link PartitionProcessor} keeps state from one locus to the next about records that reach
+     * downstream loci, such as the deletions remembered by the genotyping engine of {@link org.broadinstitute.hellbender.tools.walkers.GenotypeGVCFs},
+     * should return true. Before each partition, the processor is then given the loci of the traversal intervals from
+     * the start of the earliest record reaching into the partition, and their output is discarded, so that the
+     * processor is in the same state at the start of the partition as in a serial traversal. Only used when traversing
+     * by locus.
+     */
+    protected boolean requiresPartitionWarmUp() {
+        return false;
+    }
+
+    /**
+     * Make the handler of the partitions in parallel mode. It is called once, on the traversal thread, when the
+     * traversal starts.
+     */
+    protected PartitionHandler<?> makePartitionHandler() {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " must override makePartitionHandler to support parallel partitions");
+    }
+
+    /**
+     * Makes the processors of the loci of the partitions in parallel mode, and accepts their output; see
+     * {@link #makePartitionHandler}.
+     *
+     * @param <T> type of the output of the processors
+     */
+    protected interface PartitionHandler<T> {
+        /**
+         * Make a processor for the loci of the partitions handled by one worker thread. It is called on the traversal
+         * thread, once per worker thread, and the processor is then only used by that worker thread, so it must not
+         * modify the state of the walker.
+         */
+        PartitionProcessor<T> makeProcessor();
+
+        /**
+         * Called on the traversal thread, in traversal order, with each output of the processors.
+         */
+        void acceptOutput(T output);
+    }
+
+    /**
+     * Processes loci in parallel mode; see {@link PartitionHandler#makeProcessor}.
+     *
+     * @param <T> type of the output
+     */
+    @FunctionalInterface
+    protected interface PartitionProcessor<T> {
+        /**
+         * Same as {@link VariantLocusWalker#apply}, except that there is no reads context, and that any output must be
+         * passed to {@code output} rather than written, to be given to {@link PartitionHandler#acceptOutput} in
+         * traversal order.
+         */
+        void process(Locatable loc, List<VariantContext> variants, ReferenceContext referenceContext, FeatureContext featureContext, Consumer<T> output);
+    }
+
+    /**
+     * The data sources and the processor used by one worker thread in parallel mode
+     */
+    private final class PartitionResources<T> implements AutoCloseable {
+        private final ReferenceDataSource partitionReference;
+        private final FeatureManager partitionFeatures;
+        private final FeatureDataSource<VariantContext> partitionVariants;
+        private final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+        private final CountingVariantFilter variantFilter = makeVariantFilter();
+        private final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+        private final PartitionProcessor<T> processor;
+
+        PartitionResources(final PartitionProcessor<T> processor) {
+            this.processor = processor;
+            partitionReference = referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+            // same configuration as the data sources of the walker, see initializeFeatures() and initializeDrivingVariants()
+            partitionFeatures = new FeatureManager(VariantLocusWalker.this, DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    getGenomicsDBOptions());
+            partitionFeatures.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    getGenomicsDBOptions());
+            partitionVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    getGenomicsDBOptions());
+        }
+
+        PartitionOutput<T> process(final List<SimpleInterval> partitions, final int partitionIndex) {
+            final SimpleInterval partition = partitions.get(partitionIndex);
+            final PartitionOutput<T> partitionOutput = new PartitionOutput<>();
+            if (traverseByVariant) {
+                // a variant is emitted by the partition containing its start, or, as when iterating over the traversal
+                // intervals, by the first partition it overlaps if it starts outside of them
+                final SimpleInterval previousPartition = partitionIndex == 0 ? null : partitions.get(partitionIndex - 1);
+                final Iterator<VariantContext> newVariants = Utils.stream(partitionVariants.query(partition))
+                        .filter(variant -> variant.getStart() >= partition.getStart() || previousPartition == null || !previousPartition.overlaps(variant))
+                        .iterator();
+                getTransformedVariantStream(Spliterators.spliteratorUnknownSize(newVariants, 0), preTransformer, variantFilter, postTransformer)
+                        .forEachOrdered(variant -> process(new SimpleInterval(variant), Collections.singletonList(variant), partitionOutput));
+            } else {
+                if (requiresPartitionWarmUp()) {
+                    traverseLoci(getWarmUpIntervals(partitions, partitionIndex), partitionVariants, preTransformer, variantFilter, postTransformer,
+                            (locus, filteredVariants) -> processor.process(locus, filteredVariants, new ReferenceContext(partitionReference, locus),
+                                    new FeatureContext(partitionFeatures, locus), output -> {}));
+                }
+                traverseLoci(Collections.singletonList(partition), partitionVariants, preTransformer, variantFilter, postTransformer,
+                        (locus, filteredVariants) -> process(locus, filteredVariants, partitionOutput));
+            }
+            return partitionOutput;
+        }
+
+        /**
+         * The parts of the preceding partitions from the start of the earliest record whose reference allele reaches
+         * into the partition, following the records that reach into those in turn.
+         */
+        private List<SimpleInterval> getWarmUpIntervals(final List<SimpleInterval> partitions, final int partitionIndex) {
+            final SimpleInterval partition = partitions.get(partitionIndex);
+            int warmUpStart = partition.getStart();
+            while (true) {
+                final int start = warmUpStart;
+                final int earliestStart = Utils.stream(partitionVariants.query(new SimpleInterval(partition.getContig(), start, start)))
+                        .filter(variant -> variant.getStart() < start && variant.getStart() + variant.getReference().length() - 1 >= start)
+                        .mapToInt(VariantContext::getStart)
+                        .min().orElse(start);
+                if (earliestStart == start) {
+                    break;
+                }
+                warmUpStart = earliestStart;
+            }
+
+            final List<SimpleInterval> warmUpIntervals = new ArrayList<>();
+            for (int i = partitionIndex - 1; i >= 0; i--) {
+                final SimpleInterval previous = partitions.get(i);
+                if (!previous.getContig().equals(partition.getContig()) || previous.getEnd() < warmUpStart) {
+                    break;
+                }
+                warmUpIntervals.add(0, new SimpleInterval(previous.getContig(), Math.max(previous.getStart(), warmUpStart), previous.getEnd()));
+            }
+            return warmUpIntervals;
+        }
+
+        private void process(final SimpleInterval locus, final List<VariantContext> variants, final PartitionOutput<T> partitionOutput) {
+            processor.process(locus, variants, new ReferenceContext(partitionReference, locus), new FeatureContext(partitionFeatures, locus),
+                    partitionOutput.outputs::add);
+            partitionOutput.lastLocus = locus;
+            partitionOutput.lociProcessed++;
+        }
+
+        @Override
+        public void close() {
+            if (partitionReference != null) {
+                partitionReference.close();
+            }
+            partitionFeatures.close();
+            partitionVariants.close();
+        }
+    }
+
+    private static final class PartitionOutput<T> {
+        private final List<T> outputs = new ArrayList<>();
+        private SimpleInterval lastLocus = null;
+        private long lociProcessed = 0;
+    }
+
     /**
      * Close all data sources.
      *
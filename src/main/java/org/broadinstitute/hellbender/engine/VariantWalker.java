@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
@@ -26,6 +27,12 @@ public abstract class VariantWalker extends VariantWalkerBase {
     @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME, doc = "A VCF file containing variants", common = false, optional = false)
     public GATKPath drivingVariantFile;
 
+    public static final String VARIANT_DECODING_THREADS_LONG_NAME = "variant-decoding-threads";
+
+    @Advanced
+    @Argument(fullName = VARIANT_DECODING_THREADS_LONG_NAME, doc = "Number of threads used to decode the driving variants when they are traversed without intervals. Only applies to VCF inputs", optional = true, minValue = 1)
+    public int variantDecodingThreads = 1;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager in GATKTool
     // we do add the driving source to the Feature manager but we do need to treat it differently and thus this field.
     private FeatureDataSource<VariantContext> drivingVariants;
@@ -56,6 +63,7 @@ public abstract class VariantWalker extends VariantWalkerBase {
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
                                                   getGenomicsDBOptions());
+        drivingVariants.setDecodingThreads(variantDecodingThreads);
 
         // Also add the driving variants FeatureInput to FeatureManager as well so that it can be queried,
         // but use a lookahead value of 0 to avoid caching because of windowed queries that need to "look behind" as well.
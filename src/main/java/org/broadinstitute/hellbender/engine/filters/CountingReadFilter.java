@@ -3,12 +3,17 @@ package org.broadinstitute.hellbender.engine.filters;
 import com.google.common.annotations.VisibleForTesting;
 
 import htsjdk.samtools.SAMFileHeader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Stack;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -61,6 +66,34 @@ public class CountingReadFilter extends ReadFilter {
         return compositeFilter;
     }
 
+    /**
+     * Return a composite (and) {@code CountingReadFilter} constructed from a list of
+     * {@link org.broadinstitute.hellbender.engine.filters.ReadFilter} that chooses its own evaluation order. The cost
+     * and selectivity of each filter are measured over the first {@code profilingReads} reads, after which the filters
+     * are evaluated cheapest-per-rejection first.
+     *
+     * The set of reads accepted, and the filtered count reported for each filter, are the same as for the filter
+     * returned by {@link #fromList}: a rejected read is always attributed to the first filter in list order that rejects
+     * it, which may require evaluating some of the remaining filters for rejected reads only. If a filter throws when
+     * evaluated out of list order (for instance because it relies on an earlier filter to exclude malformed reads), the
+     * filter reverts to list order for the rest of the traversal.
+     *
+     * @param readFilters If null or empty, the ALLOW_ALL_READS read filter will be returned
+     * @param samHeader {@code SAMFileHeader} used to initialize each filter. May not be null
+     * @param profilingReads number of reads over which to profile the filters before reordering them. Must be > 0
+     * @return Composite CountingReadFilter
+     */
+    public static CountingReadFilter fromListWithAdaptiveOrdering(final List<ReadFilter> readFilters, final SAMFileHeader samHeader, final int profilingReads) {
+        Utils.nonNull(samHeader, "SAMFileHeader must not be null");
+        Utils.validateArg(profilingReads > 0, "profilingReads must be > 0");
+        if (readFilters == null || readFilters.size() < 2) {
+            return fromList(readFilters, samHeader);
+        }
+        readFilters.forEach(f -> f.setHeader(samHeader));
+        return new CountingAdaptiveAndReadFilter(
+                readFilters.stream().map(CountingReadFilter::new).collect(Collectors.toList()), profilingReads);
+    }
+
     // Used only by the nested CountingBinopReadFilter subclass and its derivatives, which must
     // override the test method with an implementation that does not depend on delegateFilter.
     private CountingReadFilter() {
@@ -285,4 +318,162 @@ public class CountingReadFilter extends ReadFilter {
             return "(" + lhs.getName() + " OR " + rhs.getName() + ")";
         }
     }
+
+    /**
+     * Private class for a Counting AND of several simple filters whose evaluation order is chosen from profiling
+     * data. See {@link #fromListWithAdaptiveOrdering}.
+     */
+    @VisibleForTesting
+    protected static final class CountingAdaptiveAndReadFilter extends CountingReadFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final Logger logger = LogManager.getLogger(CountingAdaptiveAndReadFilter.class);
+
+        // component filters, in list (declaration) order
+        private final CountingReadFilter[] filters;
+
+        // evaluationOrder[i] is the index in filters of the i-th filter to evaluate; positionInOrder is its inverse
+        private final int[] evaluationOrder;
+        private final int[] positionInOrder;
+
+        private final long[] profiledNanos;
+        private final long[] profiledRejections;
+        private int profilingReadsRemaining;
+        private long profiledReads = 0;
+
+        private CountingAdaptiveAndReadFilter(final List<CountingReadFilter> filters, final int profilingReads) {
+            Utils.nonEmpty(filters);
+            this.filters = filters.toArray(new CountingReadFilter[0]);
+            this.evaluationOrder = IntStream.range(0, this.filters.length).toArray();
+            this.positionInOrder = IntStream.range(0, this.filters.length).toArray();
+            this.profiledNanos = new long[this.filters.length];
+            this.profiledRejections = new long[this.filters.length];
+            this.profilingReadsRemaining = profilingReads;
+        }
+
+        @Override
+        public boolean test(final GATKRead read) {
+            int rejectingFilter;
+            try {
+                rejectingFilter = profilingReadsRemaining > 0 ? testAndProfile(read) : testInEvaluationOrder(read);
+            } catch (final RuntimeException e) {
+                if (profilingReadsRemaining == 0 && isDeclarationOrder()) {
+                    throw e;
+                }
+                logger.warn("A read filter failed when evaluated out of order; evaluating read filters in their original order from now on", e);
+                profilingReadsRemaining = 0;
+                setEvaluationOrder(IntStream.range(0, filters.length).toArray());
+                rejectingFilter = testInEvaluationOrder(read);
+            }
+
+            if (rejectingFilter < 0) {
+                return true;
+            }
+            filters[rejectingFilter].filteredCount++;
+            filteredCount++;
+            return false;
+        }
+
+        /**
+         * Evaluate every filter on the read, recording its cost and whether it rejected the read.
+         * @return index of the first filter in declaration order that rejects the read, or -1 if none do
+         */
+        private int testAndProfile(final GATKRead read) {
+            int firstRejecting = -1;
+            for (int i = 0; i < filters.length; i++) {
+                final long start = System.nanoTime();
+                final boolean accept = filters[i].delegateFilter.test(read);
+                profiledNanos[i] += System.nanoTime() - start;
+                if (!accept) {
+                    profiledRejections[i]++;
+                    if (firstRejecting < 0) {
+                        firstRejecting = i;
+                    }
+                }
+            }
+            profiledReads++;
+            if (--profilingReadsRemaining == 0) {
+                chooseEvaluationOrder();
+            }
+            return firstRejecting;
+        }
+
+        /**
+         * @return index of the first filter in declaration order that rejects the read, or -1 if none do
+         */
+        private int testInEvaluationOrder(final GATKRead read) {
+            for (int i = 0; i < evaluationOrder.length; i++) {
+                final int filterIndex = evaluationOrder[i];
+                if (!filters[filterIndex].delegateFilter.test(read)) {
+                    // Filters evaluated before this one accepted the read, but filters that come earlier in declaration
+                    // order and have not been evaluated yet might also reject it, and they take precedence for counting.
+                    for (int earlier = 0; earlier < filterIndex; earlier++) {
+                        if (positionInOrder[earlier] > i && !filters[earlier].delegateFilter.test(read)) {
+                            return earlier;
+                        }
+                    }
+                    return filterIndex;
+                }
+            }
+            return -1;
+        }
+
+        private void chooseEvaluationOrder() {
+            // For independent filters, evaluating in increasing order of (cost / probability of rejection) minimizes the
+            // expected cost of the AND. Filters that never rejected anything keep their relative order at the end.
+            final Comparator<Integer> byCostPerRejection = Comparator.comparingDouble(i ->
+                    profiledRejections[i] == 0 ? Double.POSITIVE_INFINITY : (double) profiledNanos[i] / profiledRejections[i]);
+            setEvaluationOrder(IntStream.range(0, filters.length).boxed().sorted(byCostPerRejection).mapToInt(i -> i).toArray());
+
+            logger.info(String.format("Read filter evaluation order chosen after profiling %d reads: %s", profiledReads,
+                    Arrays.stream(evaluationOrder)
+                            .mapToObj(i -> String.format("%s (%.1f%% rejected, %d ns/read)", filters[i].getName(),
+                                    100.0 * profiledRejections[i] / profiledReads, profiledNanos[i] / profiledReads))
+                            .collect(Collectors.joining(", "))));
+        }
+
+        private void setEvaluationOrder(final int[] newOrder) {
+            for (int i = 0; i < newOrder.length; i++) {
+                evaluationOrder[i] = newOrder[i];
+                positionInOrder[newOrder[i]] = i;
+            }
+        }
+
+        private boolean isDeclarationOrder() {
+            return IntStream.range(0, evaluationOrder.length).allMatch(i -> evaluationOrder[i] == i);
+        }
+
+        /**
+         * @return names of the component filters in the order in which they are currently evaluated
+         */
+        public List<String> getEvaluationOrder() {
+            return Arrays.stream(evaluationOrder).mapToObj(i -> filters[i].getName()).collect(Collectors.toList());
+        }
+
+        @Override
+        protected String getSummaryLineForLevel(final int indentLevel) {
+            final StringBuilder summaryLine = new StringBuilder();
+            if (indentLevel == 0) {
+                // same as the simplified summary of an all-AND CountingAndReadFilter
+                Arrays.stream(filters).forEach(f -> summaryLine.append(f.getSummaryLineForLevel(0)));
+                summaryLine.append(filteredCount + " total reads filtered");
+            } else {
+                summaryLine.append(getIndentString(indentLevel) + filteredCount + " read(s) filtered by: " + getName() + "\n");
+                Arrays.stream(filters).filter(f -> f.getFilteredCount() > 0).forEach(f -> summaryLine.append(f.getSummaryLineForLevel(indentLevel + 1)));
+            }
+            return summaryLine.toString();
+        }
+
+        @Override
+        public void resetFilteredCount() {
+            super.resetFilteredCount();
+            Arrays.stream(filters).forEach(CountingReadFilter::resetFilteredCount);
+        }
+
+        @Override
+        public String getName() {
+            return Arrays.stream(filters).map(CountingReadFilter::getName).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
 }
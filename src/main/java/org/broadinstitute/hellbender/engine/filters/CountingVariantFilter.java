@@ -68,6 +68,17 @@ public class CountingVariantFilter implements VariantFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Add the counts of another filter made from the same filters, such as one used by another thread, to the counts
+     * of this filter, at every level.
+     */
+    public void addFilteredCounts(final CountingVariantFilter other) {
+        Utils.nonNull(other);
+        Utils.validateArg(other.getClass() == getClass() && other.getName().equals(getName()),
+                () -> "Cannot add the counts of " + other.getName() + " to those of " + getName());
+        filteredCount += other.filteredCount;
+    }
+
     public String getName() {return delegateFilter.getClass().getSimpleName();}
 
     // Returns a summary line with filter counts organized by level
@@ -141,6 +152,12 @@ public class CountingVariantFilter implements VariantFilter {
             return accept;
         }
 
+        @Override
+        public void addFilteredCounts(final CountingVariantFilter other) {
+            super.addFilteredCounts(other);
+            delegateCountingFilter.addFilteredCounts(((CountingNegateVariantFilter) other).delegateCountingFilter);
+        }
+
         @Override
         public String getName() {
             return "Not " + delegateCountingFilter.getName();
@@ -187,6 +204,13 @@ public class CountingVariantFilter implements VariantFilter {
             rhs.resetFilteredCount();
         }
 
+        @Override
+        public void addFilteredCounts(final CountingVariantFilter other) {
+            super.addFilteredCounts(other);
+            lhs.addFilteredCounts(((CountingBinopVariantFilter) other).lhs);
+            rhs.addFilteredCounts(((CountingBinopVariantFilter) other).rhs);
+        }
+
         @Override
         public abstract String getName();
     }
@@ -11,6 +11,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.ReadFilterArgumentDefinitions;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerEngine;
 import org.broadinstitute.hellbender.utils.help.HelpConstants;
+import org.broadinstitute.hellbender.utils.jexl.CompiledJexlExpression;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
@@ -41,6 +42,30 @@ public final class JexlExpressionReadTagValueFilter extends ReadFilter {
         return l;
     });
 
+    // compiled forms of the expressions (null where an expression is outside the compiled subset), in the same order
+    private Lazy<List<CompiledJexlExpression<GATKRead>>> compiledExprs = new Lazy<>(() -> {
+        final List<CompiledJexlExpression<GATKRead>> l = new ArrayList<>(filterExpressions.size());
+        for ( final String expr : filterExpressions ) {
+            l.add(CompiledJexlExpression.compile(expr, READ_ATTRIBUTE_BINDER));
+        }
+        return l;
+    });
+
+    /**
+     * Resolves variables the same way as {@link GATKReadJexlContext}; missing attributes are left to JEXL
+     */
+    private static final CompiledJexlExpression.Binder<GATKRead> READ_ATTRIBUTE_BINDER = new CompiledJexlExpression.Binder<GATKRead>() {
+        @Override
+        public CompiledJexlExpression.ValueGetter<GATKRead> bindVariable(final String name) {
+            return read -> read.hasAttribute(name) ? read.getAttributeAsString(name) : null;
+        }
+
+        @Override
+        public CompiledJexlExpression.ValueGetter<GATKRead> bindPredicate(final String target, final String method) {
+            return null;
+        }
+    };
+
     private static class GATKReadJexlContext implements JexlContext {
 
         final private GATKRead        read;
@@ -82,7 +107,17 @@ public final class JexlExpressionReadTagValueFilter extends ReadFilter {
     public boolean test(final GATKRead read) {
 
         // loop over expressions. At this point expressions are ANDed
+        final List<CompiledJexlExpression<GATKRead>> compiled = compiledExprs.get();
+        int i = 0;
         for ( Expression expr : jexlExprs.get() ) {
+            final CompiledJexlExpression<GATKRead> compiledExpr = compiled.get(i++);
+            final Boolean compiledResult = compiledExpr == null ? null : compiledExpr.evaluate(read);
+            if ( compiledResult != null ) {
+                if ( !compiledResult ) {
+                    return false;
+                }
+                continue;
+            }
             Object v = expr.evaluate(new GATKReadJexlContext(read));
             if (!v.equals(Boolean.TRUE)) {
                 return false;
@@ -16,6 +16,7 @@ public class AssemblyRegionArgumentCollection implements Serializable {
     public static final String MAX_ASSEMBLY_LONG_NAME = "max-assembly-region-size";
     public static final String ASSEMBLY_PADDING_LONG_NAME = "assembly-region-padding";
     public static final String MAX_STARTS_LONG_NAME = "max-reads-per-alignment-start";
+    public static final String MAX_DOWNSAMPLING_MEMORY_LONG_NAME = "max-downsampling-memory-per-sample";
     public static final String THRESHOLD_LONG_NAME = "active-probability-threshold";
     public static final String PROPAGATION_LONG_NAME = "max-prob-propagation-distance";
 
@@ -123,6 +124,15 @@ public class AssemblyRegionArgumentCollection implements Serializable {
     @Argument(fullName = MAX_STARTS_LONG_NAME, doc = "Maximum number of reads to retain per alignment start position. Reads above this threshold will be downsampled. Set to 0 to disable.", optional = true)
     public int maxReadsPerAlignmentStart = defaultMaxReadsPerAlignmentStart();
 
+    /**
+     * When set, downsampling additionally limits the estimated memory used by each sample's reads within an assembly
+     * region window, lowering the number of reads kept per alignment start at loci that would otherwise exceed it.
+     * How often and where the limit was hit is reported in the log.
+     */
+    @Advanced
+    @Argument(fullName = MAX_DOWNSAMPLING_MEMORY_LONG_NAME, doc = "Maximum estimated memory, in megabytes, used by the reads of each sample within an assembly region window. Set to 0 to disable.", optional = true)
+    public int maxDownsamplingMemoryPerSampleMb = 0;
+
     @Hidden
     @Argument(fullName = "enable-legacy-assembly-region-trimming", doc = "Revert changes to the assembly region windows, this will result in less consistent results for assembly window boundaries", optional = true)
     public boolean enableLegacyAssemblyRegionTrimming = false;
@@ -174,6 +184,10 @@ public class AssemblyRegionArgumentCollection implements Serializable {
             throw new CommandLineException.BadArgumentValue("maxReadsPerAlignmentStart must be >= 0");
         }
 
+        if ( maxDownsamplingMemoryPerSampleMb < 0 ) {
+            throw new CommandLineException.BadArgumentValue("maxDownsamplingMemoryPerSampleMb must be >= 0");
+        }
+
         if ( snpPaddingForGenotyping < 0 ) {
             throw new CommandLineException.BadArgumentValue("paddingAroundSNPs", "" + snpPaddingForGenotyping + "< 0");
         }
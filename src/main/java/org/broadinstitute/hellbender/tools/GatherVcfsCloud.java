@@ -10,6 +10,7 @@ import htsjdk.samtools.util.BlockCompressedStreamConstants;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.CollectionUtil;
+import htsjdk.samtools.util.FileExtensions;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.PeekableIterator;
 import htsjdk.samtools.util.RuntimeIOException;
@@ -42,8 +43,12 @@ import picard.cmdline.programgroups.VariantManipulationProgramGroup;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.SortedSet;
@@ -181,10 +186,11 @@ public final class GatherVcfsCloud extends CommandLineProgram {
         switch (gatherType) {
             case BLOCK:
                 log.info("Gathering by copying gzip blocks. Will not be able to validate position non-overlap of files.");
-                if (createIndex) {
-                    log.warn("Index creation not currently supported when gathering block compressed VCFs.");
+                final boolean indexFromInputIndices = createIndex && allHaveTabixIndices(inputPaths);
+                if (createIndex && !indexFromInputIndices) {
+                    log.warn("Index creation is only supported when gathering block compressed VCFs if every input has a tabix index.");
                 }
-                gatherWithBlockCopying(inputPaths, output, cloudPrefetchBuffer);
+                gatherWithBlockCopying(inputPaths, output, cloudPrefetchBuffer, indexFromInputIndices);
                 break;
             case CONVENTIONAL:
                 log.info("Gathering by conventional means.");
@@ -367,10 +373,14 @@ public final class GatherVcfsCloud extends CommandLineProgram {
      * Assumes that all inputs and outputs are block compressed VCF files and copies them without decompressing and parsing
      * most of the gzip blocks. Will decompress and parse blocks up to the one containing the end of the header in each file
      * (often the first block) and re-compress any data remaining in that block into a new block in the output file. Subsequent
-     * blocks (excluding a terminator block if present) are copied directly from input to output.
+     * blocks (excluding a terminator block if present) are copied directly from input to output, with
+     * {@link FileChannel#transferTo} for local files. If {@code createIndex} is true, the tabix index of the output is
+     * built from the tabix indices of the inputs, from where their blocks were copied to.
      */
-    private static void gatherWithBlockCopying(final List<Path> vcfs, final File output, final int cloudPrefetchBuffer) {
-         try (final FileOutputStream out = new FileOutputStream(output)) {
+    private static void gatherWithBlockCopying(final List<Path> vcfs, final File output, final int cloudPrefetchBuffer, final boolean createIndex) {
+        final TabixIndexConcatenator indexConcatenator = createIndex ? new TabixIndexConcatenator() : null;
+        try (final FileOutputStream out = new FileOutputStream(output)) {
+            final FileChannel outChannel = out.getChannel();
             boolean isFirstFile = true;
 
             for (final Path f : vcfs) {
@@ -383,12 +393,20 @@ public final class GatherVcfsCloud extends CommandLineProgram {
                         throw new UserException.MalformedFile(f.toUri() + " does not have a valid GZIP block at the end of the file.");
                     }
 
+                    // where the data of the header block that was re-compressed came from and went to, if any
+                    long recompressedFromAddress = -1;
+                    long recompressedToAddress = -1;
+                    int firstNonHeaderByteIndex = -1;
                     if (!isFirstFile) {
                         final BlockCompressedInputStream blockIn = new BlockCompressedInputStream(in, false);
                         boolean lastByteNewline = true;
 
-                        int firstNonHeaderByteIndex = -1;
-                        while (blockIn.available() > 0) {
+                        while (true) {
+                            // the stream is not buffered, so it is at the start of the next block
+                            final long blockAddress = in.position();
+                            if (blockIn.available() <= 0) {
+                                break;
+                            }
                             // Read a block - blockIn.available() is guaranteed to return the bytes remaining in the block that has been
                             // read, and since we haven't consumed any yet, that is the block size.
                             final int blockLength = blockIn.available();
@@ -414,6 +432,8 @@ public final class GatherVcfsCloud extends CommandLineProgram {
                             // If we found the end of the header then write the remainder of this block out as a
                             // new gzip block and then break out of the while loop
                             if (firstNonHeaderByteIndex >= 0) {
+                                recompressedFromAddress = blockAddress;
+                                recompressedToAddress = outChannel.position();
                                 final BlockCompressedOutputStream blockOut = new BlockCompressedOutputStream(out, (Path)null);
                                 blockOut.write(blockContents, firstNonHeaderByteIndex, blockContents.length - firstNonHeaderByteIndex);
                                 blockOut.flush();
@@ -429,12 +449,26 @@ public final class GatherVcfsCloud extends CommandLineProgram {
 
                     // Copy remainder of input stream into output stream
                     final long currentPos = in.position();
+                    final long copyToAddress = outChannel.position();
                     final long length = in.length();
                     final long skipLast = (term == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK) ?
                             BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length : 0;
                     final long bytesToWrite = length - skipLast - currentPos;
 
-                    IOUtil.transferByStream(in, out, bytesToWrite);
+                    if (bytesToWrite > 0) {
+                        if (f.getFileSystem() == FileSystems.getDefault()) {
+                            transferLocalFile(f, currentPos, bytesToWrite, outChannel);
+                        } else {
+                            IOUtil.transferByStream(in, out, bytesToWrite);
+                        }
+                    }
+
+                    if (indexConcatenator != null) {
+                        indexConcatenator.add(getTabixIndexPath(f), recompressedFromAddress >= 0 ?
+                                TabixIndexConcatenator.BlockMapping.recompressedThenCopied(recompressedFromAddress, recompressedToAddress,
+                                        firstNonHeaderByteIndex, currentPos, copyToAddress) :
+                                TabixIndexConcatenator.BlockMapping.copied(currentPos, copyToAddress));
+                    }
                     isFirstFile = false;
                 }
             }
@@ -446,6 +480,38 @@ public final class GatherVcfsCloud extends CommandLineProgram {
             throw new RuntimeIOException(ioe);
         }
 
+        if (indexConcatenator != null) {
+            indexConcatenator.write(getTabixIndexPath(output.toPath()));
+        }
+    }
+
+    /**
+     * Copy bytes of a local file with {@link FileChannel#transferTo}, which lets the operating system copy them without
+     * going through the JVM where the file systems support it.
+     */
+    private static void transferLocalFile(final Path file, final long position, final long count, final FileChannel out) throws IOException {
+        try (final FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < count) {
+                final long n = in.transferTo(position + transferred, count - transferred, out);
+                if (n <= 0) {
+                    throw new IOException("Could not copy " + file.toUri() + ": expected " + count + " bytes from position " + position
+                            + " but only " + transferred + " could be copied");
+                }
+                transferred += n;
+            }
+        }
+    }
+
+    private static Path getTabixIndexPath(final Path vcf) {
+        return vcf.resolveSibling(vcf.getFileName().toString() + FileExtensions.TABIX_INDEX);
+    }
+
+    /**
+     * @return true if every input has a tabix index, so that the index of a block copied output can be made from them
+     */
+    private static boolean allHaveTabixIndices(final List<Path> vcfs) {
+        return vcfs.stream().allMatch(vcf -> Files.exists(getTabixIndexPath(vcf)));
     }
 
 }
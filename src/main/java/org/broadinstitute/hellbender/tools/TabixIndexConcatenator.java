@@ -0,0 +1,267 @@
+package org.broadinstitute.hellbender.tools;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the tabix index of a block compressed file made by concatenating the compressed blocks of other files, from
+ * the tabix indices of those files, without reading the records.
+ *
+ * Each file is added with a {@link BlockMapping} from the addresses of its blocks to the addresses of the same data in
+ * the concatenated file. The bins and chunks of each contig are the union of those of the files, with their virtual
+ * offsets mapped, and each entry of the linear index is the smallest mapped entry of the files, so contigs that are
+ * split across files are merged correctly, as long as the files are added in the order they are concatenated.
+ *
+ * See the tabix section of the SAM/BAM specification for the format.
+ */
+public final class TabixIndexConcatenator {
+    private static final byte[] MAGIC = {'T', 'B', 'I', 1};
+    // bin holding the virtual offsets of the start and end of the records of a contig, and the counts of its records
+    private static final int METADATA_PSEUDO_BIN = 37450;
+
+    private int[] formatFields = null;
+    private final Map<String, ContigIndex> contigs = new LinkedHashMap<>();
+    private long unplacedRecords = 0;
+    private boolean hasUnplacedRecordCount = false;
+
+    /**
+     * Maps the virtual offsets of a file into a concatenated file.
+     *
+     * Blocks from {@code copiedFromAddress} on were copied as they are to {@code copiedToAddress}. Optionally, the data
+     * from {@code skippedBytes} to the end of the block at {@code recompressedFromAddress} (usually the last block of a
+     * header) was compressed into a new block at {@code recompressedToAddress}.
+     */
+    public static final class BlockMapping {
+        private final long copiedFromAddress;
+        private final long copiedToAddress;
+        private final long recompressedFromAddress;
+        private final long recompressedToAddress;
+        private final int skippedBytes;
+
+        private BlockMapping(final long copiedFromAddress, final long copiedToAddress,
+                             final long recompressedFromAddress, final long recompressedToAddress, final int skippedBytes) {
+            this.copiedFromAddress = copiedFromAddress;
+            this.copiedToAddress = copiedToAddress;
+            this.recompressedFromAddress = recompressedFromAddress;
+            this.recompressedToAddress = recompressedToAddress;
+            this.skippedBytes = skippedBytes;
+        }
+
+        /**
+         * @return a mapping for a file whose blocks were all copied from {@code copiedFromAddress} on
+         */
+        public static BlockMapping copied(final long copiedFromAddress, final long copiedToAddress) {
+            return new BlockMapping(copiedFromAddress, copiedToAddress, -1, -1, 0);
+        }
+
+        /**
+         * @return a mapping for a file whose data after {@code skippedBytes} in the block at
+         *         {@code recompressedFromAddress} was compressed into a new block, and whose following blocks were copied
+         */
+        public static BlockMapping recompressedThenCopied(final long recompressedFromAddress, final long recompressedToAddress, final int skippedBytes,
+                                                          final long copiedFromAddress, final long copiedToAddress) {
+            Utils.validateArg(recompressedFromAddress < copiedFromAddress, "the recompressed block must come before the copied blocks");
+            return new BlockMapping(copiedFromAddress, copiedToAddress, recompressedFromAddress, recompressedToAddress, skippedBytes);
+        }
+
+        long mapVirtualOffset(final long virtualOffset) {
+            final long address = virtualOffset >>> 16;
+            final int offset = (int) (virtualOffset & 0xFFFF);
+            if (address >= copiedFromAddress) {
+                return ((address - copiedFromAddress + copiedToAddress) << 16) | offset;
+            }
+            Utils.validate(address == recompressedFromAddress && offset >= skippedBytes,
+                    () -> "virtual offset " + virtualOffset + " is not in the data that was copied");
+            return (recompressedToAddress << 16) | (offset - skippedBytes);
+        }
+    }
+
+    /**
+     * Add the index of the next file in the concatenated file
+     *
+     * @param index tabix index of the file
+     * @param mapping where the blocks of the file are in the concatenated file
+     */
+    public void add(final Path index, final BlockMapping mapping) {
+        final ByteBuffer buffer = read(index);
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new UserException.MalformedFile(index, "not a tabix index");
+        }
+        final int numContigs = buffer.getInt();
+        // format, sequence, begin and end columns, meta character and number of lines to skip
+        final int[] fields = new int[6];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = buffer.getInt();
+        }
+        if (formatFields == null) {
+            formatFields = fields;
+        } else if (!Arrays.equals(formatFields, fields)) {
+            throw new UserException.MalformedFile(index, "the format of the index is not the same as that of the indices of the other inputs");
+        }
+        final byte[] names = new byte[buffer.getInt()];
+        buffer.get(names);
+        final String[] contigNames = numContigs == 0 ? new String[0] : new String(names, StandardCharsets.US_ASCII).split("\0");
+        Utils.validate(contigNames.length == numContigs, () -> "wrong number of contig names in " + index);
+
+        for (final String contigName : contigNames) {
+            contigs.computeIfAbsent(contigName, name -> new ContigIndex()).add(buffer, mapping);
+        }
+        if (buffer.remaining() >= Long.BYTES) {
+            unplacedRecords += buffer.getLong();
+            hasUnplacedRecordCount = true;
+        }
+    }
+
+    /**
+     * Write the index of the concatenated file
+     */
+    public void write(final Path output) {
+        Utils.validate(formatFields != null, "no index has been added");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(MAGIC, 0, MAGIC.length);
+        writeInt(bytes, contigs.size());
+        for (final int field : formatFields) {
+            writeInt(bytes, field);
+        }
+        final byte[] names = contigs.isEmpty() ? new byte[0] : (String.join("\0", contigs.keySet()) + "\0").getBytes(StandardCharsets.US_ASCII);
+        writeInt(bytes, names.length);
+        bytes.write(names, 0, names.length);
+        contigs.values().forEach(contig -> contig.write(bytes));
+        if (hasUnplacedRecordCount) {
+            writeLong(bytes, unplacedRecords);
+        }
+
+        try (final OutputStream out = new BlockCompressedOutputStream(Files.newOutputStream(output), output)) {
+            bytes.writeTo(out);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(output.toUri().toString(), "could not write the index", e);
+        }
+    }
+
+    private static ByteBuffer read(final Path index) {
+        try (final InputStream in = new BlockCompressedInputStream(Files.newInputStream(index))) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(index, e);
+        }
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            out.write(value >>> (8 * i));
+        }
+    }
+
+    private static void writeLong(final ByteArrayOutputStream out, final long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    /**
+     * The bins and the linear index of one contig, merged over the files in which it appears
+     */
+    private static final class ContigIndex {
+        // chunks of each bin, as pairs of virtual offsets
+        private final Map<Integer, List<long[]>> bins = new TreeMap<>();
+        private long[] linearIndex = new long[0];
+        private long[] metadata = null;
+
+        void add(final ByteBuffer buffer, final BlockMapping mapping) {
+            final int numBins = buffer.getInt();
+            for (int i = 0; i < numBins; i++) {
+                final int bin = buffer.getInt();
+                final int numChunks = buffer.getInt();
+                final long[][] chunks = new long[numChunks][];
+                for (int j = 0; j < numChunks; j++) {
+                    chunks[j] = new long[] {buffer.getLong(), buffer.getLong()};
+                }
+                if (bin == METADATA_PSEUDO_BIN && numChunks == 2) {
+                    addMetadata(chunks, mapping);
+                } else {
+                    final List<long[]> binChunks = bins.computeIfAbsent(bin, b -> new ArrayList<>());
+                    for (final long[] chunk : chunks) {
+                        binChunks.add(new long[] {mapping.mapVirtualOffset(chunk[0]), mapping.mapVirtualOffset(chunk[1])});
+                    }
+                }
+            }
+
+            final int numIntervals = buffer.getInt();
+            if (numIntervals > linearIndex.length) {
+                linearIndex = Arrays.copyOf(linearIndex, numIntervals);
+            }
+            for (int i = 0; i < numIntervals; i++) {
+                // zero means that no record of this file starts at or before the window
+                final long offset = buffer.getLong();
+                if (offset != 0) {
+                    final long mapped = mapping.mapVirtualOffset(offset);
+                    linearIndex[i] = linearIndex[i] == 0 ? mapped : Math.min(linearIndex[i], mapped);
+                }
+            }
+        }
+
+        // the first chunk has the virtual offsets of the first and last records, and the second the numbers of
+        // placed and unplaced records
+        private void addMetadata(final long[][] chunks, final BlockMapping mapping) {
+            final long start = mapping.mapVirtualOffset(chunks[0][0]);
+            final long end = mapping.mapVirtualOffset(chunks[0][1]);
+            if (metadata == null) {
+                metadata = new long[] {start, end, chunks[1][0], chunks[1][1]};
+            } else {
+                metadata[0] = Math.min(metadata[0], start);
+                metadata[1] = Math.max(metadata[1], end);
+                metadata[2] += chunks[1][0];
+                metadata[3] += chunks[1][1];
+            }
+        }
+
+        void write(final ByteArrayOutputStream out) {
+            writeInt(out, bins.size() + (metadata == null ? 0 : 1));
+            bins.forEach((bin, chunks) -> {
+                writeInt(out, bin);
+                writeInt(out, chunks.size());
+                for (final long[] chunk : chunks) {
+                    writeLong(out, chunk[0]);
+                    writeLong(out, chunk[1]);
+                }
+            });
+            if (metadata != null) {
+                writeInt(out, METADATA_PSEUDO_BIN);
+                writeInt(out, 2);
+                for (final long value : metadata) {
+                    writeLong(out, value);
+                }
+            }
+            writeInt(out, linearIndex.length);
+            for (final long offset : linearIndex) {
+                writeLong(out, offset);
+            }
+        }
+    }
+}
@@ -1,11 +1,8 @@
 package org.broadinstitute.hellbender.tools.copynumber;
 
-import com.google.common.collect.HashMultiset;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multiset;
 import htsjdk.samtools.SAMSequenceDictionary;
-import htsjdk.samtools.util.Locatable;
-import htsjdk.samtools.util.OverlapDetector;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.argparser.WorkflowOutput;
@@ -19,7 +16,6 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.HDF5SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
@@ -28,16 +24,16 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.MetadataU
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
 import org.broadinstitute.hellbender.utils.IntervalMergingRule;
-import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Collects read counts at specified intervals.  The count for each interval is calculated by counting
@@ -126,14 +122,10 @@ public final class CollectReadCounts extends ReadWalker {
 
     private List<SimpleInterval> intervals;
 
-    private String currentContig = null;
-
     /**
-     * Overlap detector used to determine when read starts overlap with input intervals.
+     * Counts of the read starts in each of the {@link #intervals}.
      */
-    private CachedOverlapDetector<SimpleInterval> intervalCachedOverlapDetector;
-
-    private Multiset<SimpleInterval> intervalMultiset;
+    private SortedIntervalCounter intervalCounter;
 
     @Override
     public boolean requiresIntervals() {
@@ -163,7 +155,7 @@ public final class CollectReadCounts extends ReadWalker {
         }
 
         intervals = intervalArgumentCollection.getIntervals(sequenceDictionary);
-        intervalMultiset = HashMultiset.create(intervals.size());
+        intervalCounter = new SortedIntervalCounter(intervals);
 
         logger.info("Collecting read counts...");
     }
@@ -175,22 +167,8 @@ public final class CollectReadCounts extends ReadWalker {
 
     @Override
     public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
-        if (currentContig == null || !read.getContig().equals(currentContig)) {
-            //if we are on a new contig, create an OverlapDetector covering the contig
-            currentContig = read.getContig();
-            final List<SimpleInterval> intervalsOnCurrentContig = intervals.stream()
-                    .filter(i -> i.getContig().equals(currentContig))
-                    .collect(Collectors.toList());
-            intervalCachedOverlapDetector = new CachedOverlapDetector<>(intervalsOnCurrentContig);
-        }
-        final SimpleInterval overlappingInterval = intervalCachedOverlapDetector.getOverlap(
-                new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
-
-        //if read doesn't overlap any of the provided intervals, do nothing
-        if (overlappingInterval == null) {
-            return;
-        }
-        intervalMultiset.add(overlappingInterval);
+        //if read start doesn't overlap any of the provided intervals, this does nothing
+        intervalCounter.add(read.getContig(), read.getStart());
     }
 
     @Override
@@ -198,8 +176,8 @@ public final class CollectReadCounts extends ReadWalker {
         logger.info(String.format("Writing read counts to %s...", outputCountsFile.getAbsolutePath()));
         final SimpleCountCollection readCounts = new SimpleCountCollection(
                 metadata,
-                ImmutableList.copyOf(intervals.stream()     //making this an ImmutableList avoids a defensive copy in SimpleCountCollection
-                        .map(i -> new SimpleCount(i, intervalMultiset.count(i)))
+                ImmutableList.copyOf(IntStream.range(0, intervals.size())     //making this an ImmutableList avoids a defensive copy in SimpleCountCollection
+                        .mapToObj(i -> new SimpleCount(intervals.get(i), intervalCounter.getCount(i)))
                         .iterator()));
 
         if (format == Format.HDF5) {
@@ -214,43 +192,110 @@ public final class CollectReadCounts extends ReadWalker {
     }
 
     /**
-     * A simple wrapper around {@link OverlapDetector} to provide naive caching and ensure that overlap sets
-     * only contain a single interval.
+     * Counts positions (read starts) in sorted, non-overlapping intervals.  Assuming that positions are added in
+     * sorted order, as reads are traversed, the interval containing each position is found by sweeping forward from
+     * the interval of the previous position, with a binary search only when a position jumps past the next interval.
+     * The counts are kept in an array indexed by the ordinal of the interval, so that counting a position takes a few
+     * integer comparisons, rather than a lookup of an interval and a lookup of its count.  Positions added out of
+     * order are still counted correctly, with a binary search.
      */
-    private final class CachedOverlapDetector<T extends Locatable> {
-        private final OverlapDetector<T> overlapDetector;
-        private T cachedResult;
-
-        CachedOverlapDetector(final List<T> intervals) {
-            Utils.nonEmpty(intervals);
-            this.overlapDetector = OverlapDetector.create(intervals);
-            //double check that intervals do not overlap
-            Utils.validateArg(intervals.stream().noneMatch(i -> overlapDetector.getOverlaps(i).size() > 1),
-                    "Input intervals may not be overlapping.");
-            cachedResult = intervals.get(0);
+    @VisibleForTesting
+    static final class SortedIntervalCounter {
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] counts;
+
+        /**
+         * Ordinals of the first and (one past the) last interval on each contig.
+         */
+        private final Map<String, int[]> contigOrdinalRanges = new HashMap<>();
+
+        private String currentContig = null;
+        private int currentContigFirst = 0;
+        private int currentContigEnd = 0;
+
+        /**
+         * Ordinal of the first interval on the current contig that does not end before the last added position.
+         */
+        private int current = 0;
+
+        SortedIntervalCounter(final List<SimpleInterval> intervals) {
+            Utils.nonNull(intervals);
+            starts = new int[intervals.size()];
+            ends = new int[intervals.size()];
+            counts = new int[intervals.size()];
+
+            int contigFirst = 0;
+            for (int i = 0; i < intervals.size(); i++) {
+                final SimpleInterval interval = intervals.get(i);
+                starts[i] = interval.getStart();
+                ends[i] = interval.getEnd();
+                if (i > 0 && interval.getContig().equals(intervals.get(i - 1).getContig())) {
+                    Utils.validateArg(starts[i] > ends[i - 1],
+                            "Input intervals must be sorted and may not be overlapping.");
+                } else {
+                    if (i > 0) {
+                        contigOrdinalRanges.put(intervals.get(i - 1).getContig(), new int[]{contigFirst, i});
+                    }
+                    Utils.validateArg(!contigOrdinalRanges.containsKey(interval.getContig()),
+                            "Input intervals must be sorted and may not be overlapping.");
+                    contigFirst = i;
+                }
+            }
+            if (!intervals.isEmpty()) {
+                contigOrdinalRanges.put(intervals.get(intervals.size() - 1).getContig(), new int[]{contigFirst, intervals.size()});
+            }
         }
 
         /**
-         * We check the previously cached result first.  Assuming that queries will be made in sorted order,
-         * this may slightly save on lookup time.
-         * @return {@code null} if no interval overlaps {@code locatable}
+         * Counts the given position in the interval that contains it, if any.
          */
-        T getOverlap(final Locatable locatable) {
-            if (IntervalUtils.overlaps(cachedResult, locatable)) {
-                return cachedResult;
+        void add(final String contig, final int position) {
+            if (!contig.equals(currentContig)) {
+                currentContig = contig;
+                final int[] contigOrdinalRange = contigOrdinalRanges.getOrDefault(contig, new int[]{0, 0});
+                currentContigFirst = contigOrdinalRange[0];
+                currentContigEnd = contigOrdinalRange[1];
+                current = currentContigFirst;
             }
-            final Set<T> overlaps = overlapDetector.getOverlaps(locatable);
-            if (overlaps.size() > 1) {
-                //should not reach here since intervals are checked for overlaps;
-                //performing a redundant check to protect against future code changes
-                throw new GATKException.ShouldNeverReachHereException("Intervals should be non-overlapping, " +
-                        "so at most one interval should intersect with the start of a read.");
+
+            if (current < currentContigEnd && ends[current] < position) {
+                //the position is past the current interval, so sweep forward to the next one,
+                //or search for it if the position is past that as well
+                current++;
+                if (current < currentContigEnd && ends[current] < position) {
+                    current = findFirstEndingAtOrAfter(current + 1, currentContigEnd, position);
+                }
+            } else if (current > currentContigFirst && ends[current - 1] >= position) {
+                //the position is before the previous one
+                current = findFirstEndingAtOrAfter(currentContigFirst, current - 1, position);
             }
-            final T firstOverlap = overlaps.stream().findFirst().orElse(null);
-            if (firstOverlap != null) {
-                cachedResult = firstOverlap;
+
+            if (current < currentContigEnd && starts[current] <= position) {
+                counts[current]++;
+            }
+        }
+
+        /**
+         * @return the count of the interval with the given ordinal
+         */
+        int getCount(final int ordinal) {
+            return counts[ordinal];
+        }
+
+        /**
+         * @return the first ordinal in [from, to) of an interval that ends at or after the given position, or {@code to} if there is none
+         */
+        private int findFirstEndingAtOrAfter(int from, int to, final int position) {
+            while (from < to) {
+                final int middle = (from + to) >>> 1;
+                if (ends[middle] < position) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
             }
-            return firstOverlap;
+            return from;
         }
     }
 }
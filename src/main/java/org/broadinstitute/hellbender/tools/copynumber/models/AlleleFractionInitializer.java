@@ -174,7 +174,7 @@ final class AlleleFractionInitializer {
 
     private double estimateMinorFraction(final int segment) {
         final Function<Double, Double> objective = minorFraction ->
-            AlleleFractionLikelihoods.segmentLogLikelihood(globalParameters, minorFraction, data.getIndexedAllelicCountsInSegment(segment));
+            AlleleFractionLikelihoods.segmentLogLikelihood(globalParameters, minorFraction, data, segment);
         return OptimizationUtils.argmax(objective, 0.0, MAX_MINOR_ALLELE_FRACTION, minorFractions.get(segment));
     }
 
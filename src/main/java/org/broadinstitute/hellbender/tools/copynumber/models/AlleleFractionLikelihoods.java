@@ -4,7 +4,7 @@ import org.apache.commons.math3.special.Gamma;
 import org.apache.commons.math3.util.FastMath;
 import org.broadinstitute.hellbender.utils.NaturalLogUtils;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import static org.apache.commons.math3.util.FastMath.sqrt;
@@ -51,6 +51,17 @@ final class AlleleFractionLikelihoods {
     static double hetLogLikelihood(final AlleleFractionGlobalParameters parameters,
                                    final double minorFraction,
                                    final AlleleFractionSegmentedData.IndexedAllelicCount allelicCount) {
+        return hetLogLikelihood(parameters, minorFraction, allelicCount.getAltReadCount(), allelicCount.getRefReadCount());
+    }
+
+    /**
+     * As {@link #hetLogLikelihood(AlleleFractionGlobalParameters, double, AlleleFractionSegmentedData.IndexedAllelicCount)},
+     * given the alt and ref read counts of the site.
+     */
+    static double hetLogLikelihood(final AlleleFractionGlobalParameters parameters,
+                                   final double minorFraction,
+                                   final int altReadCount,
+                                   final int refReadCount) {
         final double alpha = parameters.getAlpha();
         final double beta = parameters.getBeta();
         final double pi = parameters.getOutlierProbability();
@@ -59,12 +70,80 @@ final class AlleleFractionLikelihoods {
         final double logPi = logCache.computeIfAbsent(pi);
         final double logNotPi = logCache.computeIfAbsent((1 - pi) / 2);
         final double logcCommon = alpha * logCache.computeIfAbsent(beta) - logGammaCache.computeIfAbsent(alpha);
-        final double majorFraction = 1 - minorFraction;
         final double logMinorFraction = logCache.computeIfAbsent(minorFraction);
-        final double logMajorFraction = logCache.computeIfAbsent(majorFraction);
+        final double logMajorFraction = logCache.computeIfAbsent(1 - minorFraction);
+
+        return hetLogLikelihood(alpha, beta, logPi, logNotPi, logcCommon, minorFraction, logMinorFraction, logMajorFraction,
+                altReadCount, refReadCount);
+    }
 
-        final int a = allelicCount.getAltReadCount();
-        final int r = allelicCount.getRefReadCount();
+    /**
+     * The log likelihood of all allelic counts in a segment.  Quantities that depend only on the parameters and the
+     * minor fraction are computed once for the segment rather than once per allelic count.
+     */
+    static double segmentLogLikelihood(final AlleleFractionGlobalParameters parameters,
+                                       final double minorFraction,
+                                       final AlleleFractionSegmentedData data,
+                                       final int segmentIndex) {
+        final double alpha = parameters.getAlpha();
+        final double beta = parameters.getBeta();
+        final double pi = parameters.getOutlierProbability();
+        return segmentLogLikelihood(alpha, beta, log(pi), log((1 - pi) / 2), alpha * log(beta) - Gamma.logGamma(alpha),
+                minorFraction, data, segmentIndex);
+    }
+
+    /**
+     * The total log likelihood of all segments.  Segments are evaluated in parallel; the per-segment log likelihoods
+     * are then summed sequentially (with compensated summation), so that the result does not depend on the number of threads.
+     */
+    static double logLikelihood(final AlleleFractionGlobalParameters parameters,
+                                final AlleleFractionState.MinorFractions minorFractions,
+                                final AlleleFractionSegmentedData data) {
+        final double alpha = parameters.getAlpha();
+        final double beta = parameters.getBeta();
+        final double pi = parameters.getOutlierProbability();
+        final double logPi = log(pi);
+        final double logNotPi = log((1 - pi) / 2);
+        final double logcCommon = alpha * log(beta) - Gamma.logGamma(alpha);
+
+        final double[] segmentLogLikelihoods = new double[data.getNumSegments()];
+        IntStream.range(0, data.getNumSegments()).parallel()
+                .forEach(segment -> segmentLogLikelihoods[segment] = segmentLogLikelihood(
+                        alpha, beta, logPi, logNotPi, logcCommon, minorFractions.get(segment), data, segment));
+        return Arrays.stream(segmentLogLikelihoods).sum();
+    }
+
+    //does not use the caches above, which are not thread-safe, so that segments may be evaluated concurrently;
+    //DoubleStream.sum uses compensated summation, as did the summation over the list of allelic counts that this replaces
+    private static double segmentLogLikelihood(final double alpha,
+                                               final double beta,
+                                               final double logPi,
+                                               final double logNotPi,
+                                               final double logcCommon,
+                                               final double minorFraction,
+                                               final AlleleFractionSegmentedData data,
+                                               final int segmentIndex) {
+        final double logMinorFraction = log(minorFraction);
+        final double logMajorFraction = log(1 - minorFraction);
+        final int[] altReadCounts = data.getAltReadCounts();
+        final int[] refReadCounts = data.getRefReadCounts();
+        return IntStream.range(data.getStartIndexInSegment(segmentIndex), data.getEndIndexInSegment(segmentIndex))
+                .mapToDouble(index -> hetLogLikelihood(alpha, beta, logPi, logNotPi, logcCommon, minorFraction, logMinorFraction, logMajorFraction,
+                        altReadCounts[index], refReadCounts[index]))
+                .sum();
+    }
+
+    private static double hetLogLikelihood(final double alpha,
+                                           final double beta,
+                                           final double logPi,
+                                           final double logNotPi,
+                                           final double logcCommon,
+                                           final double minorFraction,
+                                           final double logMinorFraction,
+                                           final double logMajorFraction,
+                                           final int a,
+                                           final int r) {
+        final double majorFraction = 1 - minorFraction;
         final int n = a + r;
 
         //alt-minor calculation
@@ -94,25 +173,6 @@ final class AlleleFractionLikelihoods {
         return NaturalLogUtils.logSumExp(altMinorLogLikelihood, refMinorLogLikelihood, outlierLogLikelihood);
     }
 
-    static double segmentLogLikelihood(final AlleleFractionGlobalParameters parameters,
-                                       final double minorFraction,
-                                       final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment) {
-        return allelicCountsInSegment.stream()
-                .mapToDouble(allelicCount -> hetLogLikelihood(parameters, minorFraction, allelicCount))
-                .sum();
-    }
-
-    /**
-     * The total log likelihood of all segments.
-     */
-    static double logLikelihood(final AlleleFractionGlobalParameters parameters,
-                                final AlleleFractionState.MinorFractions minorFractions,
-                                final AlleleFractionSegmentedData data) {
-        return IntStream.range(0, data.getNumSegments())
-                .mapToDouble(segment -> segmentLogLikelihood(parameters, minorFractions.get(segment), data.getIndexedAllelicCountsInSegment(segment)))
-                .sum();
-    }
-
     /**
      * Calculates the mode of the exact allelic-bias posterior at given values of the hyperparameters for the
      * * allelic-bias Gamma-distribution prior, the minor-allele fraction parameter, and the observed
@@ -9,8 +9,8 @@ import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Sampler classes for the allele-fraction model.
@@ -45,13 +45,17 @@ final class AlleleFractionSamplers {
                              final AlleleFractionState state,
                              final AlleleFractionSegmentedData data) {
             logger.debug("Sampling mean bias...");
-            final BiFunction<AlleleFractionSegmentedData.IndexedAllelicCount, Double, Double> logConditionalPDF = (iac, newMeanBias) ->
+            final int[] altReadCounts = data.getAltReadCounts();
+            final int[] refReadCounts = data.getRefReadCounts();
+            final int[] segmentIndices = data.getSegmentIndices();
+            final double[] minorFractions = IntStream.range(0, data.getNumSegments()).mapToDouble(state::segmentMinorFraction).toArray();
+            final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (index, newMeanBias) ->
                     AlleleFractionLikelihoods.hetLogLikelihood(
                             state.globalParameters().copyWithNewMeanBias(newMeanBias),
-                            state.segmentMinorFraction(iac.getSegmentIndex()),
-                            iac);
+                            minorFractions[segmentIndices[index]],
+                            altReadCounts[index], refReadCounts[index]);
             return new MinibatchSliceSampler<>(
-                    rng, data.getIndexedAllelicCounts(), UNIFORM_LOG_PRIOR, logConditionalPDF,
+                    rng, altReadCounts.length, UNIFORM_LOG_PRIOR, logConditionalPDF,
                     MIN_MEAN_BIAS, maxMeanBias, meanBiasSliceSamplingWidth,
                     GLOBAL_MINIBATCH_SIZE, APPROX_THRESHOLD).sample(state.globalParameters().getMeanBias());
         }
@@ -74,13 +78,17 @@ final class AlleleFractionSamplers {
                              final AlleleFractionState state,
                              final AlleleFractionSegmentedData data) {
             logger.debug("Sampling bias variance...");
-            final BiFunction<AlleleFractionSegmentedData.IndexedAllelicCount, Double, Double> logConditionalPDF = (iac, newBiasVariance) ->
+            final int[] altReadCounts = data.getAltReadCounts();
+            final int[] refReadCounts = data.getRefReadCounts();
+            final int[] segmentIndices = data.getSegmentIndices();
+            final double[] minorFractions = IntStream.range(0, data.getNumSegments()).mapToDouble(state::segmentMinorFraction).toArray();
+            final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (index, newBiasVariance) ->
                     AlleleFractionLikelihoods.hetLogLikelihood(
                             state.globalParameters().copyWithNewBiasVariance(newBiasVariance),
-                            state.segmentMinorFraction(iac.getSegmentIndex()),
-                            iac);
+                            minorFractions[segmentIndices[index]],
+                            altReadCounts[index], refReadCounts[index]);
             return new MinibatchSliceSampler<>(
-                    rng, data.getIndexedAllelicCounts(), UNIFORM_LOG_PRIOR, logConditionalPDF,
+                    rng, altReadCounts.length, UNIFORM_LOG_PRIOR, logConditionalPDF,
                     MIN_BIAS_VARIANCE, maxBiasVariance, biasVarianceSliceSamplingWidth,
                     GLOBAL_MINIBATCH_SIZE, APPROX_THRESHOLD).sample(state.globalParameters().getBiasVariance());
         }
@@ -103,13 +111,17 @@ final class AlleleFractionSamplers {
                              final AlleleFractionState state,
                              final AlleleFractionSegmentedData data) {
             logger.debug("Sampling outlier probability...");
-            final BiFunction<AlleleFractionSegmentedData.IndexedAllelicCount, Double, Double> logConditionalPDF = (iac, newOutlierProbability) ->
+            final int[] altReadCounts = data.getAltReadCounts();
+            final int[] refReadCounts = data.getRefReadCounts();
+            final int[] segmentIndices = data.getSegmentIndices();
+            final double[] minorFractions = IntStream.range(0, data.getNumSegments()).mapToDouble(state::segmentMinorFraction).toArray();
+            final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (index, newOutlierProbability) ->
                     AlleleFractionLikelihoods.hetLogLikelihood(
                             state.globalParameters().copyWithNewOutlierProbability(newOutlierProbability),
-                            state.segmentMinorFraction(iac.getSegmentIndex()),
-                            iac);
+                            minorFractions[segmentIndices[index]],
+                            altReadCounts[index], refReadCounts[index]);
             return new MinibatchSliceSampler<>(
-                    rng, data.getIndexedAllelicCounts(), UNIFORM_LOG_PRIOR, logConditionalPDF,
+                    rng, altReadCounts.length, UNIFORM_LOG_PRIOR, logConditionalPDF,
                     MIN_OUTLIER_PROBABILITY, maxOutlierProbability, outlierProbabilitySliceSamplingWidth,
                     GLOBAL_MINIBATCH_SIZE, APPROX_THRESHOLD).sample(state.globalParameters().getOutlierProbability());
         }
@@ -133,18 +145,22 @@ final class AlleleFractionSamplers {
         @Override
         public AlleleFractionState.MinorFractions sample(final RandomGenerator rng, final AlleleFractionState state, final AlleleFractionSegmentedData data) {
             final List<Double> minorFractions = new ArrayList<>(data.getNumSegments());
-            final BiFunction<AlleleFractionSegmentedData.IndexedAllelicCount, Double, Double> logConditionalPDF = (iac, newMinorFraction) ->
-                    AlleleFractionLikelihoods.hetLogLikelihood(state.globalParameters(), newMinorFraction, iac);
+            final int[] altReadCounts = data.getAltReadCounts();
+            final int[] refReadCounts = data.getRefReadCounts();
             for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
                 logger.debug(String.format("Sampling minor fraction for segment %d...", segmentIndex));
-                final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment =
-                        data.getIndexedAllelicCountsInSegment(segmentIndex);
-                if (allelicCountsInSegment.isEmpty()){
+                final int startIndex = data.getStartIndexInSegment(segmentIndex);
+                final int numAllelicCountsInSegment = data.getEndIndexInSegment(segmentIndex) - startIndex;
+                if (numAllelicCountsInSegment == 0){
                     minorFractions.add(Double.NaN);
                 } else {
-                    final MinibatchSliceSampler<AlleleFractionSegmentedData.IndexedAllelicCount> sampler =
+                    //the sampler indexes the allelic counts within the segment
+                    final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (index, newMinorFraction) ->
+                            AlleleFractionLikelihoods.hetLogLikelihood(state.globalParameters(), newMinorFraction,
+                                    altReadCounts[startIndex + index], refReadCounts[startIndex + index]);
+                    final MinibatchSliceSampler<?> sampler =
                             new MinibatchSliceSampler<>(
-                                    rng, allelicCountsInSegment, logPrior, logConditionalPDF,
+                                    rng, numAllelicCountsInSegment, logPrior, logConditionalPDF,
                                     MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segmentIndex),
                                     SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
                     minorFractions.add(sampler.sample(state.segmentMinorFraction(segmentIndex)));
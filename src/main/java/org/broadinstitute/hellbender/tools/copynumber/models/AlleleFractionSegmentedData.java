@@ -29,6 +29,11 @@ final class AlleleFractionSegmentedData implements DataCollection {
     private final List<IndexedAllelicCount> indexedAllelicCounts;
     private final List<IndexRange> indexRangesPerSegment;
 
+    //primitive copies of the counts in the order of indexedAllelicCounts, used for likelihood evaluation over whole segments
+    private final int[] altReadCounts;
+    private final int[] refReadCounts;
+    private final int[] segmentIndices;
+
     AlleleFractionSegmentedData(final AllelicCountCollection allelicCounts,
                                 final SimpleIntervalCollection segments) {
         this.allelicCounts = Utils.nonNull(allelicCounts);
@@ -56,6 +61,9 @@ final class AlleleFractionSegmentedData implements DataCollection {
 
         this.indexedAllelicCounts = Collections.unmodifiableList(indexedAllelicCounts);
         this.indexRangesPerSegment = Collections.unmodifiableList(indexRangesPerSegment);
+        altReadCounts = indexedAllelicCounts.stream().mapToInt(AllelicCount::getAltReadCount).toArray();
+        refReadCounts = indexedAllelicCounts.stream().mapToInt(AllelicCount::getRefReadCount).toArray();
+        segmentIndices = indexedAllelicCounts.stream().mapToInt(IndexedAllelicCount::getSegmentIndex).toArray();
     }
 
     AllelicCountCollection getAllelicCounts() {
@@ -83,6 +91,36 @@ final class AlleleFractionSegmentedData implements DataCollection {
                 indexRangesPerSegment.get(segmentIndex).getStart(), indexRangesPerSegment.get(segmentIndex).getEnd());
     }
 
+    //start (inclusive) and end (exclusive) of the indices of the allelic counts in a segment
+    int getStartIndexInSegment(final int segmentIndex) {
+        return indexRangesPerSegment.get(segmentIndex).getStart();
+    }
+
+    int getEndIndexInSegment(final int segmentIndex) {
+        return indexRangesPerSegment.get(segmentIndex).getEnd();
+    }
+
+    /**
+     * Returns the alt read counts indexed as in {@link #getIndexedAllelicCounts()}; the array is shared and must not be modified.
+     */
+    int[] getAltReadCounts() {
+        return altReadCounts;
+    }
+
+    /**
+     * Returns the ref read counts indexed as in {@link #getIndexedAllelicCounts()}; the array is shared and must not be modified.
+     */
+    int[] getRefReadCounts() {
+        return refReadCounts;
+    }
+
+    /**
+     * Returns the segment index of each of the allelic counts, indexed as in {@link #getIndexedAllelicCounts()}; the array is shared and must not be modified.
+     */
+    int[] getSegmentIndices() {
+        return segmentIndices;
+    }
+
     static final class IndexedAllelicCount extends AllelicCount {
         private final int index;
         private final int segmentIndex;
@@ -11,9 +11,7 @@ import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -60,15 +58,18 @@ final class CopyRatioSamplers {
                              final CopyRatioState state, 
                              final CopyRatioSegmentedData data) {
             logger.debug("Sampling variance...");
-            final List<CopyRatioSegmentedData.IndexedCopyRatio> nonOutlierIndexedCopyRatios =
-                    data.getIndexedCopyRatios().stream()
-                            .filter(icr -> !state.outlierIndicator(icr.getIndex()))
-                            .collect(Collectors.toList());
-            final BiFunction<CopyRatioSegmentedData.IndexedCopyRatio, Double, Double> logConditionalPDF = (icr, newVariance) ->
+            final double[] log2CopyRatioValues = data.getIndexedLog2CopyRatioValues();
+            final int[] segmentIndices = data.getSegmentIndices();
+            final double[] segmentMeans = IntStream.range(0, data.getNumSegments()).mapToDouble(state::segmentMean).toArray();
+            final int[] nonOutlierIndices = IntStream.range(0, log2CopyRatioValues.length)
+                    .filter(index -> !state.outlierIndicator(index))
+                    .toArray();
+            //the sampler indexes the non-outlier points
+            final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (i, newVariance) ->
                     -0.5 * logCache.computeIfAbsent(newVariance)
-                            - normalTerm(icr.getLog2CopyRatioValue(), state.segmentMean(icr.getSegmentIndex()), newVariance);
+                            - normalTerm(log2CopyRatioValues[nonOutlierIndices[i]], segmentMeans[segmentIndices[nonOutlierIndices[i]]], newVariance);
             return new MinibatchSliceSampler<>(
-                    rng, nonOutlierIndexedCopyRatios, UNIFORM_LOG_PRIOR, logConditionalPDF,
+                    rng, nonOutlierIndices.length, UNIFORM_LOG_PRIOR, logConditionalPDF,
                     varianceMin, varianceMax, varianceSliceSamplingWidth,
                     GLOBAL_MINIBATCH_SIZE, APPROX_THRESHOLD).sample(state.variance());
         }
@@ -120,18 +121,22 @@ final class CopyRatioSamplers {
                                                   final CopyRatioState state,
                                                   final CopyRatioSegmentedData data) {
             final List<Double> means = new ArrayList<>(data.getNumSegments());
-            final BiFunction<CopyRatioSegmentedData.IndexedCopyRatio, Double, Double> logConditionalPDF = (icr, newMean) ->
-                    state.outlierIndicator(icr.getIndex())
-                            ? 0.
-                            : -normalTerm(icr.getLog2CopyRatioValue(), newMean, state.variance());
+            final double[] log2CopyRatioValues = data.getIndexedLog2CopyRatioValues();
+            final double variance = state.variance();
             for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
-                final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segmentIndex);
-                if (indexedCopyRatiosInSegment.isEmpty()) {
+                final int startIndex = data.getStartIndexInSegment(segmentIndex);
+                final int numCopyRatiosInSegment = data.getEndIndexInSegment(segmentIndex) - startIndex;
+                if (numCopyRatiosInSegment == 0) {
                     means.add(Double.NaN);
                 } else {
                     logger.debug(String.format("Sampling mean for segment %d...", segmentIndex));
-                    final MinibatchSliceSampler<CopyRatioSegmentedData.IndexedCopyRatio> sampler = new MinibatchSliceSampler<>(
-                            rng, indexedCopyRatiosInSegment, UNIFORM_LOG_PRIOR, logConditionalPDF,
+                    //the sampler indexes the copy ratios within the segment
+                    final MinibatchSliceSampler.IndexedLogLikelihood logConditionalPDF = (index, newMean) ->
+                            state.outlierIndicator(startIndex + index)
+                                    ? 0.
+                                    : -normalTerm(log2CopyRatioValues[startIndex + index], newMean, variance);
+                    final MinibatchSliceSampler<?> sampler = new MinibatchSliceSampler<>(
+                            rng, numCopyRatiosInSegment, UNIFORM_LOG_PRIOR, logConditionalPDF,
                             meanMin, meanMax, meanSliceSamplingWidth,
                             SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
                     means.add(sampler.sample(state.segmentMean(segmentIndex)));
@@ -167,18 +172,24 @@ final class CopyRatioSamplers {
 //                    FastMath.log(1. - state.outlierProbability()) - 0.5 * FastMath.log(2 * Math.PI * state.variance());
             final double notOutlierUnnormalizedLogProbabilityPrefactor =
                     FastMath.log((1. - state.outlierProbability()) / FastMath.sqrt(2 * Math.PI * state.variance()));
-            final List<Boolean> indicators = new ArrayList<>(data.getNumPoints());
-            for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
-                final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segmentIndex);
-                for (final CopyRatioSegmentedData.IndexedCopyRatio indexedCopyRatio : indexedCopyRatiosInSegment) {
+            //conditional probabilities are computed for all segments in parallel;
+            //indicators are then drawn in order, so that the draws from rng do not depend on the number of threads
+            final double[] log2CopyRatioValues = data.getIndexedLog2CopyRatioValues();
+            final double[] conditionalProbabilities = new double[log2CopyRatioValues.length];
+            IntStream.range(0, data.getNumSegments()).parallel().forEach(segmentIndex -> {
+                final double segmentMean = state.segmentMean(segmentIndex);
+                for (int index = data.getStartIndexInSegment(segmentIndex); index < data.getEndIndexInSegment(segmentIndex); index++) {
                     final double notOutlierUnnormalizedLogProbability =
                             notOutlierUnnormalizedLogProbabilityPrefactor
-                                    - normalTerm(indexedCopyRatio.getLog2CopyRatioValue(), state.segmentMean(segmentIndex), state.variance());
-                    final double conditionalProbability =
+                                    - normalTerm(log2CopyRatioValues[index], segmentMean, state.variance());
+                    conditionalProbabilities[index] =
                             FastMath.exp(outlierUnnormalizedLogProbability -
                                     NaturalLogUtils.logSumLog(outlierUnnormalizedLogProbability, notOutlierUnnormalizedLogProbability));
-                    indicators.add(rng.nextDouble() < conditionalProbability);
                 }
+            });
+            final List<Boolean> indicators = new ArrayList<>(conditionalProbabilities.length);
+            for (final double conditionalProbability : conditionalProbabilities) {
+                indicators.add(rng.nextDouble() < conditionalProbability);
             }
             return new CopyRatioState.OutlierIndicators(indicators);
         }
@@ -1,6 +1,5 @@
 package org.broadinstitute.hellbender.tools.copynumber.models;
 
-import com.google.common.primitives.Doubles;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.samtools.util.OverlapDetector;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
@@ -34,6 +33,10 @@ final class CopyRatioSegmentedData implements DataCollection {
     private final List<IndexedCopyRatio> indexedCopyRatios;
     private final List<IndexRange> indexRangesPerSegment;
 
+    //primitive copy of the log2 copy ratios in the order of indexedCopyRatios, used for likelihood evaluation over whole segments
+    private final double[] indexedLog2CopyRatioValues;
+    private final int[] segmentIndices;
+
     CopyRatioSegmentedData(final CopyRatioCollection copyRatios,
                            final SimpleIntervalCollection segments) {
         this.copyRatios = Utils.nonNull(copyRatios);
@@ -67,6 +70,8 @@ final class CopyRatioSegmentedData implements DataCollection {
 
         this.indexedCopyRatios = Collections.unmodifiableList(indexedCopyRatios);
         this.indexRangesPerSegment = Collections.unmodifiableList(indexRangesPerSegment);
+        indexedLog2CopyRatioValues = indexedCopyRatios.stream().mapToDouble(CopyRatio::getLog2CopyRatioValue).toArray();
+        segmentIndices = indexedCopyRatios.stream().mapToInt(IndexedCopyRatio::getSegmentIndex).toArray();
     }
 
     CopyRatioCollection getCopyRatios() {
@@ -102,13 +107,34 @@ final class CopyRatioSegmentedData implements DataCollection {
                 indexRangesPerSegment.get(segmentIndex).getStart(), indexRangesPerSegment.get(segmentIndex).getEnd());
     }
 
+    //start (inclusive) and end (exclusive) of the indices of the copy ratios in a segment
+    int getStartIndexInSegment(final int segmentIndex) {
+        return indexRangesPerSegment.get(segmentIndex).getStart();
+    }
+
+    int getEndIndexInSegment(final int segmentIndex) {
+        return indexRangesPerSegment.get(segmentIndex).getEnd();
+    }
+
+    /**
+     * Returns the log2 copy ratios indexed as in {@link #getIndexedCopyRatios()}; the array is shared and must not be modified.
+     */
+    double[] getIndexedLog2CopyRatioValues() {
+        return indexedLog2CopyRatioValues;
+    }
+
+    /**
+     * Returns the segment index of each of the copy ratios, indexed as in {@link #getIndexedCopyRatios()}; the array is shared and must not be modified.
+     */
+    int[] getSegmentIndices() {
+        return segmentIndices;
+    }
+
     //estimate global variance empirically by taking average of all per-segment variances
     double estimateVariance() {
         return IntStream.range(0, segments.size())
-                .mapToDouble(s -> new Variance().evaluate(Doubles.toArray(
-                        getIndexedCopyRatiosInSegment(s).stream()
-                                .map(IndexedCopyRatio::getLog2CopyRatioValue)
-                                .collect(Collectors.toList()))))
+                .mapToDouble(s -> new Variance().evaluate(indexedLog2CopyRatioValues,
+                        getStartIndexInSegment(s), getEndIndexInSegment(s) - getStartIndexInSegment(s)))
                 .filter(v -> !Double.isNaN(v))
                 .average().orElse(Double.NaN);
     }
@@ -116,10 +142,8 @@ final class CopyRatioSegmentedData implements DataCollection {
     //estimate segment means empirically by taking averages of log2 copy ratios in each segment
     CopyRatioState.SegmentMeans estimateSegmentMeans() {
         final List<Double> means = IntStream.range(0, segments.size()).boxed()
-                .map(s -> new Mean().evaluate(Doubles.toArray(
-                        getIndexedCopyRatiosInSegment(s).stream()
-                                .map(IndexedCopyRatio::getLog2CopyRatioValue)
-                                .collect(Collectors.toList()))))
+                .map(s -> new Mean().evaluate(indexedLog2CopyRatioValues,
+                        getStartIndexInSegment(s), getEndIndexInSegment(s) - getStartIndexInSegment(s)))
                 .collect(Collectors.toList());
         return new CopyRatioState.SegmentMeans(means);
     }
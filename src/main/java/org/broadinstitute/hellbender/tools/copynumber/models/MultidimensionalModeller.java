@@ -1,9 +1,11 @@
 package org.broadinstitute.hellbender.tools.copynumber.models;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.util.OverlapDetector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AllelicCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CopyRatioCollection;
@@ -21,6 +23,10 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -99,13 +105,33 @@ public final class MultidimensionalModeller {
      * number of total samples and number of burn-in samples specified at construction.
      */
     private void fitModel() {
-        //perform MCMC to generate posterior samples
-        logger.info("Fitting copy-ratio model...");
-        copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments);
-        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
-        logger.info("Fitting allele-fraction model...");
-        alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior);
-        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+        //perform MCMC to generate posterior samples;
+        //the copy-ratio and allele-fraction models are independent, so the allele-fraction model is fit on a separate thread
+        final SimpleIntervalCollection segments = currentSegments;
+        final ExecutorService executor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("allele-fraction-modeller-%d").setDaemon(true).build());
+        try {
+            final Future<AlleleFractionModeller> alleleFractionFit = executor.submit(() -> {
+                logger.info("Fitting allele-fraction model...");
+                final AlleleFractionModeller modeller = new AlleleFractionModeller(allelicCounts, segments, alleleFractionPrior);
+                modeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+                return modeller;
+            });
+            logger.info("Fitting copy-ratio model...");
+            copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, segments);
+            copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
+            alleleFractionModeller = alleleFractionFit.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while fitting allele-fraction model", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error fitting allele-fraction model", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
 
         //update list of ModeledSegment with new PosteriorSummaries
         modeledSegments.clear();
@@ -0,0 +1,69 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.GATKPath;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeTranscriptStore;
+import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compiles the transcript FASTA file of a GENCODE data source for <b><i>{@link Funcotator}</i></b> into a binary
+ * transcript store, which holds the coding sequence and UTR positions and the sequence of every transcript.
+ *
+ * <p>
+ * When a GENCODE data source has an up-to-date store next to its transcript FASTA file, {@link Funcotator} and
+ * {@link FuncotateSegments} memory-map the store instead of reading the FASTA file, which makes startup faster and
+ * lets every annotation thread read the same copy of the transcripts.  A store is ignored if the FASTA file changes
+ * after it is created, or if it was created by a version of GATK with a different store format.
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk CreateGencodeTranscriptStore \
+ *     -I dataSources/gencode/hg38/gencode.v34.pc_transcripts.fa
+ * </pre>
+ * This produces gencode.v34.pc_transcripts.fa.gtxs next to the FASTA file.
+ */
+@CommandLineProgramProperties(
+        summary = "Compiles the transcript FASTA file of a GENCODE data source for Funcotator into a binary transcript store.",
+        oneLineSummary = "Creates a binary transcript store for a GENCODE Funcotator data source.",
+        programGroup = VariantEvaluationProgramGroup.class
+)
+@DocumentedFeature
+public final class CreateGencodeTranscriptStore extends CommandLineProgram {
+    private static final Logger logger = LogManager.getLogger(CreateGencodeTranscriptStore.class);
+
+    @Argument(shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME,
+              fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
+              doc = "Indexed transcript FASTA file of a GENCODE data source.")
+    public GATKPath transcriptFasta;
+
+    @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+              fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
+              doc = "The output store. If missing, the store is created next to the FASTA file, where Funcotator looks for it.",
+              optional = true)
+    public GATKPath outputPath;
+
+    @Override
+    protected Object doWork() {
+        final Path fastaPath = transcriptFasta.toPath();
+        if ( !Files.isReadable(fastaPath) ) {
+            throw new UserException.CouldNotReadInputFile(fastaPath);
+        }
+
+        final Path storePath = outputPath != null ? outputPath.toPath() : GencodeTranscriptStore.getStorePath(fastaPath);
+        GencodeTranscriptStore.compile(fastaPath, storePath);
+
+        logger.info("Successfully wrote GENCODE transcript store to " + storePath);
+        return storePath.toString();
+    }
+}
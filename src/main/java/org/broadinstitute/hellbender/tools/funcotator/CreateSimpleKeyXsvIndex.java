@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.DataSourceUtils;
+import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Indexes the data files of the simple-key XSV data sources (data sources of type
+ * {@link FuncotatorArgumentDefinitions.DataSourceType#SIMPLE_XSV}) for <b><i>{@link Funcotator}</i></b>.
+ *
+ * <p>
+ * Without an index, every run of {@link Funcotator} reads the whole data file of each simple-key XSV data source into
+ * memory, which for gene-level data sources of millions of rows takes gigabytes of heap and minutes of startup.  When
+ * a data file has an up-to-date index next to it, {@link Funcotator} and {@link FuncotateSegments} memory-map the index
+ * and look up rows in it instead.  An index is ignored if the data file changes after it is created, if the config
+ * file of its data source is changed to parse the data file differently, or if it was created by a version of GATK
+ * with a different index format.
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk CreateSimpleKeyXsvIndex \
+ *     --data-sources-path dataSources/ \
+ *     --ref-version hg38
+ * </pre>
+ * This produces an index with the extension .skxi next to the data file of each simple-key XSV data source for hg38.
+ */
+@CommandLineProgramProperties(
+        summary = "Indexes the data files of the simple-key XSV data sources for Funcotator, so that they do not have to be read into memory.",
+        oneLineSummary = "Creates indices for the simple-key XSV Funcotator data sources.",
+        programGroup = VariantEvaluationProgramGroup.class
+)
+@DocumentedFeature
+public final class CreateSimpleKeyXsvIndex extends CommandLineProgram {
+    private static final Logger logger = LogManager.getLogger(CreateSimpleKeyXsvIndex.class);
+
+    @Argument(
+            fullName =  FuncotatorArgumentDefinitions.DATA_SOURCES_PATH_LONG_NAME,
+            doc = "The path to a data source folder for Funcotator.  May be specified more than once to handle multiple data source folders."
+    )
+    public List<String> dataSourceDirectories;
+
+    @Argument(
+            fullName =  FuncotatorArgumentDefinitions.REFERENCE_VERSION_LONG_NAME,
+            doc = "The version of the Human Genome reference whose data sources are indexed (e.g. hg19, hg38, etc.)."
+    )
+    public String referenceVersion;
+
+    @Override
+    protected Object doWork() {
+        final Map<Path, Properties> configData = DataSourceUtils.getAndValidateDataSourcesFromPaths(referenceVersion, dataSourceDirectories);
+
+        final List<String> indexPaths = new ArrayList<>();
+        for ( final Map.Entry<Path, Properties> entry : configData.entrySet() ) {
+            final Properties properties = entry.getValue();
+            if ( FuncotatorArgumentDefinitions.DataSourceType.getEnum(properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_TYPE)) !=
+                    FuncotatorArgumentDefinitions.DataSourceType.SIMPLE_XSV ) {
+                continue;
+            }
+
+            final Path indexPath = DataSourceUtils.writeSimpleXsvIndex(entry.getKey(), properties);
+            logger.info("Successfully wrote index of data source " + properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_NAME) + " to " + indexPath.toUri());
+            indexPaths.add(indexPath.toUri().toString());
+        }
+
+        if ( indexPaths.isEmpty() ) {
+            logger.warn("No simple-key XSV data sources were found for reference version " + referenceVersion);
+        }
+        return indexPaths;
+    }
+}
@@ -25,6 +25,10 @@ import java.util.*;
  *  isSupportingSegmentFuncotation()
  *  createFuncotationsOnSegment(...)
  *
+ * Features are queried from a {@link FeatureContext} on the traversal thread with {@link #queryFeatures(FeatureContext)},
+ * while {@link #createFuncotations(VariantContext, ReferenceContext, List, List)} may be called on several threads at
+ * once.  Subclasses that hold readers or caches that are not thread-safe must keep one per thread.
+ *
  */
 public abstract class DataSourceFuncotationFactory implements Closeable {
 
@@ -199,12 +203,38 @@ public abstract class DataSourceFuncotationFactory implements Closeable {
         Utils.nonNull(referenceContext);
         Utils.nonNull(featureContext);
 
-        final List<Funcotation> outputFuncotations;
+        return createFuncotations(variant, referenceContext, queryFeatures(featureContext), gencodeFuncotations);
+    }
+
+    /**
+     * Queries the given {@link FeatureContext} for the features from which this {@link DataSourceFuncotationFactory}
+     * creates its funcotations.
+     * NOTE: This will only get features that are LOCATABLE, and none if {@link #requiresFeatures()} returns {@code false}.
+     * @param featureContext {@link FeatureContext} corresponding to the variant.  Never {@code null}.
+     * @return {@link List} of {@link Feature} to pass to {@link #createFuncotations(VariantContext, ReferenceContext, List, List)}.  Never {@code null}.
+     */
+    public List<Feature> queryFeatures(final FeatureContext featureContext) {
+        Utils.nonNull(featureContext);
+        return getFeaturesFromFeatureContext(featureContext);
+    }
+
+    /**
+     * Creates a {@link List} of {@link Funcotation} for the given {@code variant}, {@code referenceContext}, {@code featureList}, and {@code gencodeFuncotations}.
+     * This does not use the {@link FeatureContext}, so it may be called on a thread other than the traversal thread.
+     * @param variant {@link VariantContext} to annotate.  Never {@code null}.
+     * @param referenceContext {@link ReferenceContext} corresponding to the given {@code variant}.  Never {@code null}.
+     * @param featureList {@link List} of {@link Feature} given by {@link #queryFeatures(FeatureContext)} for the variant.  Never {@code null}.
+     * @param gencodeFuncotations {@link List} of {@link GencodeFuncotation} that have already been created for the given {@code variant}.
+     *   {@code null} is acceptable if there are no corresponding gencode funcotations.
+     * @return {@link List} of {@link Funcotation} given the {@code variant}, {@code referenceContext}, and {@code featureList}.  This should never be empty.
+     */
+    public List<Funcotation> createFuncotations(final VariantContext variant, final ReferenceContext referenceContext, final List<Feature> featureList, final List<GencodeFuncotation> gencodeFuncotations) {
+
+        Utils.nonNull(variant);
+        Utils.nonNull(referenceContext);
+        Utils.nonNull(featureList);
 
-        // Query this funcotation factory to get the list of overlapping features.
-        // NOTE: This will only get features that are LOCATABLE!
-        //       This corresponds to requiresFeatures() returning `True`.
-        final List<Feature> featureList = getFeaturesFromFeatureContext(featureContext);
+        final List<Funcotation> outputFuncotations;
 
         // If our featureList is compatible with this DataSourceFuncotationFactory, then we make our funcotations:
         if ( isFeatureListCompatible(featureList) ) {
@@ -290,6 +320,28 @@ public abstract class DataSourceFuncotationFactory implements Closeable {
     private List<Feature> queryFeaturesFromFeatureContext(final FeatureContext featureContext) {
         final List<Feature> features;
 
+        final SimpleInterval queryInterval = getFeatureQueryInterval(featureContext);
+
+        // If the interval has not changed, we should use the original one:
+        if ( queryInterval.equals(featureContext.getInterval() ) ) {    // Get the features:
+            features = (List<Feature>) featureContext.getValues(mainSourceFileAsFeatureInput);
+        }
+        else {
+            // Query as normal:
+            features = (List<Feature>) featureContext.getValues(mainSourceFileAsFeatureInput, queryInterval);
+        }
+
+        return features;
+    }
+
+    /**
+     * Gets the interval over which our features are queried for the given FeatureContext: its interval, converted to
+     * a B37 contig if {@link #dataSourceIsB37}, and transformed by {@link #transformFeatureQueryInterval(SimpleInterval)}.
+     *
+     * @param featureContext the FeatureContext to query
+     * @return the interval to query for Features from our FeatureInput {@link #mainSourceFileAsFeatureInput}
+     */
+    protected SimpleInterval getFeatureQueryInterval(final FeatureContext featureContext) {
         SimpleInterval queryInterval = featureContext.getInterval();
 
         // Do we need to do a fuzzy hg19 / b37 conversion for querying our features:
@@ -303,18 +355,7 @@ public abstract class DataSourceFuncotationFactory implements Closeable {
         }
 
         // Perform extra transformations on the query interval:
-        queryInterval = transformFeatureQueryInterval(queryInterval);
-
-        // If the interval has not changed, we should use the original one:
-        if ( queryInterval.equals(featureContext.getInterval() ) ) {    // Get the features:
-            features = (List<Feature>) featureContext.getValues(mainSourceFileAsFeatureInput);
-        }
-        else {
-            // Query as normal:
-            features = (List<Feature>) featureContext.getValues(mainSourceFileAsFeatureInput, queryInterval);
-        }
-
-        return features;
+        return transformFeatureQueryInterval(queryInterval);
     }
 
     /**
@@ -19,6 +19,7 @@ import org.broadinstitute.hellbender.engine.FeatureWalker;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.utils.annotatedinterval.AnnotatedInterval;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.DataSourceUtils;
@@ -27,6 +28,7 @@ import org.broadinstitute.hellbender.tools.funcotator.metadata.VcfFuncotationMet
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
 import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
 
 import java.io.File;
@@ -44,6 +46,8 @@ import java.util.stream.Collectors;
  * <p>FuncotateSegments can support hg38 seg files from the GATK.</p>
  * <p>FuncotateSegments does not support direct reading of cloud-based datasources.</p>
  * <p>For more information about Oncotator, on small variants, see Ramos AH, Lichtenstein L, et al. Oncotator: Cancer Variant Annotation Tool. Human Mutation (2015). http://dx.doi.org/10.1002/humu.22771</p>
+ * <p>With <code>--annotation-threads</code> greater than 1, segments are annotated on that many threads.  The features
+ * of each segment are still queried, and the output still written in the order of the input, on the main thread.</p>
  * <h3>Usage example</h3>
  * <pre>
  *   ./gatk FuncotateSegments \
@@ -84,6 +88,11 @@ public class FuncotateSegments extends FeatureWalker<AnnotatedInterval> {
 
     private static final String MAPPING_FULL_NAME = "alias-to-key-mapping";
 
+    /**
+     * Number of segments, per annotation thread, that may be annotated ahead of the last one written.
+     */
+    private static final int PENDING_SEGMENTS_PER_THREAD = 16;
+
     @Argument(
             doc = "Input segment file (tab-separated values).  Must have a call column.",
             fullName = CopyNumberStandardArgument.SEGMENTS_FILE_LONG_NAME
@@ -115,6 +124,18 @@ public class FuncotateSegments extends FeatureWalker<AnnotatedInterval> {
 
     private OutputRenderer outputRenderer;
 
+    /**
+     * Runs the annotation of segments when {@link FuncotatorSegmentArgumentCollection#annotationThreads} is more than 1, {@code null} otherwise.
+     */
+    private OrderedTaskExecutor<Runnable> annotationExecutor;
+
+    /**
+     * Reference reader of each annotation thread, since they are not thread-safe.
+     */
+    private ThreadLocal<ReferenceDataSource> annotationThreadReference;
+
+    private final List<ReferenceDataSource> annotationThreadReferences = Collections.synchronizedList(new ArrayList<>());
+
     @Override
     public void onTraversalStart() {
 
@@ -172,6 +193,18 @@ public class FuncotateSegments extends FeatureWalker<AnnotatedInterval> {
         // Create a composite output renderer -- happens in the engine as long as the output format is SEG.
         outputRenderer = funcotatorEngine.createOutputRenderer(annotationDefaultsMap, annotationOverridesMap,
                             new VCFHeader(), getDefaultToolVCFHeaderLines(), this);
+
+        if (funcotatorArgs.annotationThreads > 1) {
+            logger.info("Annotating segments on " + funcotatorArgs.annotationThreads + " threads");
+            annotationThreadReference = ThreadLocal.withInitial(() -> {
+                final ReferenceDataSource reference = ReferenceDataSource.of(referenceArguments.getReferencePath());
+                annotationThreadReferences.add(reference);
+                return reference;
+            });
+            // the annotation of each segment is prepared on a worker thread and written here, in the order of the input:
+            annotationExecutor = new OrderedTaskExecutor<>("funcotate-segments-thread-%d", funcotatorArgs.annotationThreads,
+                    PENDING_SEGMENTS_PER_THREAD, Runnable::run);
+        }
     }
 
     @Override
@@ -186,22 +219,44 @@ public class FuncotateSegments extends FeatureWalker<AnnotatedInterval> {
         // This is necessary because of the variant transformation that gets applied in VariantWalkerBase::apply.
         final ReferenceContext correctReferenceContext = funcotatorEngine.getCorrectReferenceContext(segmentVariantContext, referenceContext);
 
-        // funcotate
-        //  The resulting funcotation map should only have one transcript ID (which is the "no transcript" ID).
-        final FuncotationMap funcotationMap = funcotatorEngine.createFuncotationMapForSegment(segmentVariantContext, correctReferenceContext, featureContext);
+        if ( annotationExecutor == null ) {
+            // funcotate
+            //  The resulting funcotation map should only have one transcript ID (which is the "no transcript" ID).
+            final FuncotationMap funcotationMap = funcotatorEngine.createFuncotationMapForSegment(segmentVariantContext, correctReferenceContext, featureContext);
+
+            // write the variant context
+            outputRenderer.write(createOutputVariantContext(segment, segmentVariantContext), addSegmentAttributes(segmentVariantContext, funcotationMap));
+            return;
+        }
 
+        // Features must be queried here, on the traversal thread, and the reference read with the annotation thread's own reader:
+        final Map<DataSourceFuncotationFactory, List<Feature>> featuresByFactory = funcotatorEngine.queryFeatures(featureContext);
+        final SimpleInterval interval = correctReferenceContext.getInterval();
+        final SimpleInterval window = correctReferenceContext.getWindow();
+        annotationExecutor.submit(() ->
+                outputRenderer.prepareWrite(createOutputVariantContext(segment, segmentVariantContext),
+                        addSegmentAttributes(segmentVariantContext, funcotatorEngine.createFuncotationMapForSegment(segmentVariantContext,
+                                new ReferenceContext(annotationThreadReference.get(), interval, window), featuresByFactory))),
+                () -> "annotating segment " + segment.getInterval());
+    }
+
+    /**
+     * Adds the funcotations for the attributes of the input segment to the given funcotation map.
+     * @return the given {@code funcotationMap}
+     */
+    private FuncotationMap addSegmentAttributes(final VariantContext segmentVariantContext, final FuncotationMap funcotationMap) {
         // This will propagate input variant context attributes to the output
         for (final String txId : funcotationMap.getTranscriptList()) {
             funcotationMap.add(txId, FuncotatorUtils.createFuncotationsFromMetadata(segmentVariantContext, createMetadata(), "FUNCOTATE_SEGMENTS"));
         }
+        return funcotationMap;
+    }
 
+    private static VariantContext createOutputVariantContext(final AnnotatedInterval segment, final VariantContext segmentVariantContext) {
         // Force the final output to have the same contig convention as the input.
-        final VariantContext finalVC = new VariantContextBuilder(segmentVariantContext)
+        return new VariantContextBuilder(segmentVariantContext)
                 .chr(segment.getContig())
                 .make();
-
-        // write the variant context
-        outputRenderer.write(finalVC, funcotationMap);
     }
 
     @Override
@@ -211,11 +266,19 @@ public class FuncotateSegments extends FeatureWalker<AnnotatedInterval> {
 
     @Override
     public Object onTraversalSuccess() {
+        if ( annotationExecutor != null ) {
+            annotationExecutor.consumeAllResults();
+        }
         return true;
     }
 
     @Override
     public void closeTool() {
+        if ( annotationExecutor != null ) {
+            annotationExecutor.close();
+            annotationThreadReferences.forEach(ReferenceDataSource::close);
+        }
+
         if ( funcotatorEngine != null) {
             funcotatorEngine.close();
         }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.funcotator;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.tribble.Feature;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.logging.log4j.LogManager;
@@ -17,7 +18,9 @@ import org.broadinstitute.hellbender.tools.funcotator.dataSources.DataSourceUtil
 import org.broadinstitute.hellbender.tools.funcotator.metadata.VcfFuncotationMetadata;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.SequenceDictionaryUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
 import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
 
 import java.nio.file.Path;
@@ -698,10 +701,21 @@ import java.util.*;
  *   --ref-version hg19
  * </pre>
  *
+ * <h3>Multithreading</h3>
+ * <p>
+ *     With <code>--annotation-threads</code> greater than 1, variants are annotated on that many threads.  The features
+ *     for each variant are still queried on the main thread, and the annotated variants are written in the order of the
+ *     input, so the output is the same as with a single thread.  Each annotation thread has its own reference, GENCODE
+ *     transcript FASTA and COSMIC database readers.  MAF rows are also formatted on the annotation threads.
+ * </p>
+ *
  * <h3>Notes</h3>
  * <ul>
  *     <li>This tool is the spiritual successor to <a href="https://github.com/broadinstitute/oncotator">Oncotator</a>, with better support for germline data, numerous fixes for correctness, and many other features.</li>
  *     <li>REMEMBER: <strong>Funcotator is NOT Oncotator.</strong></li>
+ *     <li>Startup is faster if the GENCODE data source has a transcript store, created once with <b><i>{@link CreateGencodeTranscriptStore}</i></b>.</li>
+ *     <li>Startup is faster, and uses less memory, if the simple-key XSV data sources are indexed, once, with <b><i>{@link CreateSimpleKeyXsvIndex}</i></b>.</li>
+ *     <li>Local VCF data sources that are block-compressed and tabix-indexed are read directly, a lookahead window at a time.  For VCF data sources with many INFO fields (e.g. gnomAD), listing the INFO fields to annotate with (comma-separated) in the <i>vcfInfoFields</i> field of the config file both narrows the output and skips decoding the other fields.</li>
  * </ul>
  *
  * <h3>Known Issues</h3>
@@ -717,6 +731,11 @@ import java.util.*;
 public class Funcotator extends VariantWalker {
     private static final Logger logger = LogManager.getLogger(Funcotator.class);
 
+    /**
+     * Number of variants, per annotation thread, that may be annotated ahead of the last one written.
+     */
+    private static final int PENDING_VARIANTS_PER_THREAD = 64;
+
     //==================================================================================================================
     // Arguments:
 
@@ -729,6 +748,18 @@ public class Funcotator extends VariantWalker {
 
     private FuncotatorEngine funcotatorEngine;
 
+    /**
+     * Runs the annotation of variants when {@link FuncotatorVariantArgumentCollection#annotationThreads} is more than 1, {@code null} otherwise.
+     */
+    private OrderedTaskExecutor<Runnable> annotationExecutor;
+
+    /**
+     * Reference reader of each annotation thread, since they are not thread-safe.
+     */
+    private ThreadLocal<ReferenceDataSource> annotationThreadReference;
+
+    private final List<ReferenceDataSource> annotationThreadReferences = Collections.synchronizedList(new ArrayList<>());
+
     //==================================================================================================================
 
     /**
@@ -816,6 +847,18 @@ public class Funcotator extends VariantWalker {
                 getDefaultToolVCFHeaderLines(),
                 this
         );
+
+        if (funcotatorArgs.annotationThreads > 1) {
+            logger.info("Annotating variants on " + funcotatorArgs.annotationThreads + " threads");
+            annotationThreadReference = ThreadLocal.withInitial(() -> {
+                final ReferenceDataSource reference = ReferenceDataSource.of(referenceArguments.getReferencePath());
+                annotationThreadReferences.add(reference);
+                return reference;
+            });
+            // the annotation of each variant is prepared on a worker thread and written here, in the order of the input:
+            annotationExecutor = new OrderedTaskExecutor<>("funcotator-thread-%d", funcotatorArgs.annotationThreads,
+                    PENDING_VARIANTS_PER_THREAD, Runnable::run);
+        }
     }
 
     /**
@@ -881,6 +924,10 @@ public class Funcotator extends VariantWalker {
     @Override
     public Object onTraversalSuccess() {
 
+        if ( annotationExecutor != null ) {
+            annotationExecutor.consumeAllResults();
+        }
+
         // If we only saw IGRs, we most likely have a configuration issue.
         // Make sure the user knows this by making a HUGE stink about it.
         if ( funcotatorEngine.onlyProducedIGRs() ) {
@@ -902,6 +949,11 @@ public class Funcotator extends VariantWalker {
 
     @Override
     public void closeTool() {
+        if ( annotationExecutor != null ) {
+            annotationExecutor.close();
+            annotationThreadReferences.forEach(ReferenceDataSource::close);
+        }
+
         if ( funcotatorEngine != null) {
             funcotatorEngine.close();
         }
@@ -921,9 +973,21 @@ public class Funcotator extends VariantWalker {
      */
     private void enqueueAndHandleVariant(final VariantContext variant, final ReferenceContext referenceContext, final FeatureContext featureContext) {
 
-        final FuncotationMap funcotationMap = funcotatorEngine.createFuncotationMapForVariant(variant, referenceContext, featureContext);
+        if ( annotationExecutor == null ) {
+            final FuncotationMap funcotationMap = funcotatorEngine.createFuncotationMapForVariant(variant, referenceContext, featureContext);
+
+            // At this point there is only one transcript ID in the funcotation map if canonical or best effect are selected
+            outputRenderer.write(variant, funcotationMap);
+            return;
+        }
 
-        // At this point there is only one transcript ID in the funcotation map if canonical or best effect are selected
-        outputRenderer.write(variant, funcotationMap);
+        // Features must be queried here, on the traversal thread, and the reference read with the annotation thread's own reader:
+        final Map<DataSourceFuncotationFactory, List<Feature>> featuresByFactory = funcotatorEngine.queryFeatures(featureContext);
+        final SimpleInterval interval = referenceContext.getInterval();
+        final SimpleInterval window = referenceContext.getWindow();
+        annotationExecutor.submit(() ->
+                outputRenderer.prepareWrite(variant, funcotatorEngine.createFuncotationMapForVariant(variant,
+                        new ReferenceContext(annotationThreadReference.get(), interval, window), featuresByFactory)),
+                () -> "annotating variant " + variant);
     }
 }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.funcotator;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.tribble.Feature;
 import htsjdk.tribble.util.ParsingUtils;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -83,7 +84,7 @@ public final class FuncotatorEngine implements AutoCloseable {
      * Whether this {@link FuncotatorEngine} has only produced annotations on variants that have been labeled by the
      * {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotationFactory} as {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation.VariantClassification#IGR}.
      */
-    private boolean onlyProducedIGRs = true;
+    private volatile boolean onlyProducedIGRs = true;
 
     /**
      * Create a {@link FuncotatorEngine} using the given {@code metadata} and {@code funcotationFactories} representing
@@ -141,6 +142,46 @@ public final class FuncotatorEngine implements AutoCloseable {
         Utils.nonNull(referenceContext);
         Utils.nonNull(featureContext);
 
+        return createFuncotationMapForVariant(variantContext, referenceContext, queryFeatures(featureContext));
+    }
+
+    /**
+     * Queries the given {@code featureContext} for the features of every data source of this {@link FuncotatorEngine}.
+     *
+     * This must be done on the traversal thread, since {@link FeatureContext}s are not thread-safe.
+     *
+     * @param featureContext {@link FeatureContext} corresponding to a variant.  Never {@code null}.
+     * @return the features for each {@link DataSourceFuncotationFactory}, to pass to
+     * {@link #createFuncotationMapForVariant(VariantContext, ReferenceContext, Map)}.
+     */
+    public Map<DataSourceFuncotationFactory, List<Feature>> queryFeatures(final FeatureContext featureContext) {
+        Utils.nonNull(featureContext);
+        final Map<DataSourceFuncotationFactory, List<Feature>> featuresByFactory = new HashMap<>(dataSourceFactories.size());
+        for (final DataSourceFuncotationFactory funcotationFactory : dataSourceFactories) {
+            featuresByFactory.put(funcotationFactory, funcotationFactory.queryFeatures(featureContext));
+        }
+        return featuresByFactory;
+    }
+
+    /**
+     * Creates a {@link FuncotationMap} for the given {@code variantContext} from features that have already been queried.
+     *
+     * This does not use any {@link FeatureContext}, so several variants may be annotated at once on different threads,
+     * as long as each uses a {@code referenceContext} backed by its own reference reader.
+     *
+     * @param variantContext   {@link VariantContext} to annotate.  Never {@code null}.
+     * @param referenceContext {@link ReferenceContext} corresponding to the given {@code variantContext}.  Never {@code null}.
+     * @param featuresByFactory the features for each data source, as given by {@link #queryFeatures(FeatureContext)}.  Never {@code null}.
+     * @return an instance of FuncotationMap that maps transcript IDs to lists of funcotations for the given variantContext context.
+     */
+    public FuncotationMap createFuncotationMapForVariant(final VariantContext variantContext,
+                                                         final ReferenceContext referenceContext,
+                                                         final Map<DataSourceFuncotationFactory, List<Feature>> featuresByFactory) {
+
+        Utils.nonNull(variantContext);
+        Utils.nonNull(referenceContext);
+        Utils.nonNull(featuresByFactory);
+
         //==============================================================================================================
         // First create only the transcript (Gencode) funcotations:
 
@@ -149,7 +190,7 @@ public final class FuncotatorEngine implements AutoCloseable {
         }
 
         final List<GencodeFuncotation> transcriptFuncotations = retrieveGencodeFuncotationFactoryStream()
-                .map(gf -> gf.createFuncotations(variantContext, referenceContext, featureContext))
+                .map(gf -> gf.createFuncotations(variantContext, referenceContext, featuresByFactory.get(gf), null))
                 .flatMap(List::stream)
                 .map(f -> {
                         final GencodeFuncotation gf = (GencodeFuncotation) f;
@@ -176,7 +217,7 @@ public final class FuncotatorEngine implements AutoCloseable {
 
                 for (final String txId: txIds) {
                     funcotationMap.add(txId, funcotationFactory.createFuncotations(variantContext, referenceContext,
-                            featureContext, funcotationMap.getGencodeFuncotations(txId)));
+                            featuresByFactory.get(funcotationFactory), funcotationMap.getGencodeFuncotations(txId)));
                 }
             }
         }
@@ -210,6 +251,29 @@ public final class FuncotatorEngine implements AutoCloseable {
         Utils.nonNull(referenceContext);
         Utils.nonNull(featureContext);
 
+        return createFuncotationMapForSegment(segmentAsVariantContext, referenceContext, queryFeatures(featureContext));
+    }
+
+    /**
+     * Creates a {@link FuncotationMap} for the given {@code segmentAsVariantContext} from features that have already
+     *  been queried.
+     *
+     * As with {@link #createFuncotationMapForVariant(VariantContext, ReferenceContext, Map)}, several segments may be
+     *  annotated at once on different threads, as long as each uses a {@code referenceContext} backed by its own reference reader.
+     *
+     * @param segmentAsVariantContext   {@link VariantContext} to annotate.  Never {@code null}.
+     * @param referenceContext {@link ReferenceContext} corresponding to the given {@code variantContext}.  Never {@code null}.
+     * @param featuresByFactory the features for each data source, as given by {@link #queryFeatures(FeatureContext)}.  Never {@code null}.
+     * @return an instance of FuncotationMap that maps transcript IDs to lists of funcotations for the given variantContext context.
+     */
+    FuncotationMap createFuncotationMapForSegment(final VariantContext segmentAsVariantContext,
+                                                  final ReferenceContext referenceContext,
+                                                  final Map<DataSourceFuncotationFactory, List<Feature>> featuresByFactory) {
+
+        Utils.nonNull(segmentAsVariantContext);
+        Utils.nonNull(referenceContext);
+        Utils.nonNull(featuresByFactory);
+
         //==============================================================================================================
         // We do not need to treat the Gencode funcotations as a special case
 
@@ -221,7 +285,7 @@ public final class FuncotatorEngine implements AutoCloseable {
         final List<Funcotation> funcotations = dataSourceFactories.stream()
                 .filter(DataSourceFuncotationFactory::isSupportingSegmentFuncotation)
                 .map(ff -> ff.createFuncotations(segmentAsVariantContext, referenceContext,
-                        featureContext))
+                        featuresByFactory.get(ff), null))
                 .flatMap(List::stream)
                 .collect(Collectors.toList());
 
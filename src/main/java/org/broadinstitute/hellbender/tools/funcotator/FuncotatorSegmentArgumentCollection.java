@@ -1,5 +1,17 @@
 package org.broadinstitute.hellbender.tools.funcotator;
 
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+
 public class FuncotatorSegmentArgumentCollection extends BaseFuncotatorArgumentCollection {
     private static final long serialVersionUID = 11L;
+
+    @Advanced
+    @Argument(
+            fullName = FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME,
+            optional = true,
+            minValue = 1,
+            doc = "Number of threads on which to annotate segments.  Features are still queried, and the output still written, in the order of the input on the main thread."
+    )
+    public int annotationThreads = 1;
 }
@@ -1169,7 +1169,7 @@ public final class FuncotatorUtils {
      * @param extraLoggingInfo A {@link String} containing extra info for logging purposes.
      * @return A {@link String} containing a sequence of single-letter amino acids.
      */
-    static String createAminoAcidSequence(final String codingSequence, final boolean isFrameshift, final String extraLoggingInfo) {
+    public static String createAminoAcidSequence(final String codingSequence, final boolean isFrameshift, final String extraLoggingInfo) {
         return createAminoAcidSequenceHelper(codingSequence, isFrameshift, false, extraLoggingInfo);
     }
 
@@ -1183,7 +1183,7 @@ public final class FuncotatorUtils {
      * @param extraLoggingInfo A {@link String} containing extra info for logging purposes.
      * @return A {@link String} containing a sequence of single-letter amino acids.
      */
-    static String createMitochondrialAminoAcidSequence(final String codingSequence, final boolean isFrameshift, final String extraLoggingInfo) {
+    public static String createMitochondrialAminoAcidSequence(final String codingSequence, final boolean isFrameshift, final String extraLoggingInfo) {
         return createAminoAcidSequenceHelper(codingSequence, isFrameshift, true, extraLoggingInfo);
     }
 
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.funcotator;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation;
@@ -53,4 +54,13 @@ public class FuncotatorVariantArgumentCollection extends BaseFuncotatorArgumentC
             doc = "When input VCF has already been annotated, still annotate again."
     )
     public boolean reannotateVCF = false;
+
+    @Advanced
+    @Argument(
+            fullName = FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME,
+            optional = true,
+            minValue = 1,
+            doc = "Number of threads on which to annotate variants.  Features are still queried, and the output still written, in the order of the input on the main thread."
+    )
+    public int annotationThreads = 1;
 }
@@ -79,6 +79,21 @@ public abstract class OutputRenderer implements AutoCloseable {
      */
     public abstract void write(final VariantContext variant, final FuncotationMap txToFuncotationMap);
 
+    /**
+     * Prepare to write the given {@code variant} and {@code txToFuncotationMap} to the output file, without writing them.
+     *
+     * This may be called on several threads at once, so that the output for several variants can be prepared in
+     * parallel.  The returned {@link Runnable}s must then be run on one thread, in the order of the output.  By default,
+     * all of the work is left to the returned {@link Runnable}, which calls {@link #write(VariantContext, FuncotationMap)}.
+     *
+     * @param variant {@link VariantContext} to write to the file.
+     * @param txToFuncotationMap {@link FuncotationMap} to add to the given {@code variant} on output.
+     * @return A {@link Runnable} that writes the output for the given {@code variant}.
+     */
+    public Runnable prepareWrite(final VariantContext variant, final FuncotationMap txToFuncotationMap) {
+        return () -> write(variant, txToFuncotationMap);
+    }
+
     /**
      * Utility for output renderers.
      *
@@ -46,6 +46,7 @@ public final class ProteinChangeInfo {
                                final int codingSequenceAlleleStart,
                                final int alignedCodingSequenceAlleleStart,
                                final String codingSequence,
+                               final String knownReferenceProteinSequence,
                                final Strand strand,
                                final boolean isMitochondria) {
 
@@ -53,7 +54,7 @@ public final class ProteinChangeInfo {
         final boolean isFrameshift =  GATKVariantContextUtils.isFrameshift( refAllele, altAllele );
 
         // Get our protein sequences:
-        final Pair<String, String> proteinSequences = createProteinSequences(refAllele, altAllele, codingSequenceAlleleStart, codingSequence, isFrameshift, isMitochondria);
+        final Pair<String, String> proteinSequences = createProteinSequences(refAllele, altAllele, codingSequenceAlleleStart, codingSequence, knownReferenceProteinSequence, isFrameshift, isMitochondria);
         final String referenceProteinSequence = proteinSequences.getLeft();
         final String alternateProteinSequence = proteinSequences.getRight();
 
@@ -113,26 +114,39 @@ public final class ProteinChangeInfo {
                                                         final Allele altAllele,
                                                         final int codingSequenceAlleleStart,
                                                         final String codingSequence,
+                                                        final String knownReferenceProteinSequence,
                                                         final boolean isFrameshift,
                                                         final boolean isMitochondria) {
-        final String referenceProteinSequence;
-        final String alternateProteinSequence;
+        final String referenceProteinSequence = (knownReferenceProteinSequence != null) ? knownReferenceProteinSequence :
+                createAminoAcidSequence(codingSequence, false, isMitochondria, "(size=" + codingSequence.length() + ", ref allele: " + refAllele.getBaseString() + ")");
 
+        // The codons before the variant are the same in the alternate coding sequence, so only the codons from the one
+        // containing the start of the variant onwards are translated.
         // Subtract 1 to account for 1-based genomic positions:
-        final String altCodingSequence =
-                codingSequence.substring(0, codingSequenceAlleleStart - 1) +
-                altAllele.getBaseString() +
-                codingSequence.substring(codingSequenceAlleleStart + refAllele.length() -1);
-
-        if ( isMitochondria ) {
-            // Mitochondrial protein sequences differ from the Standard Code, so we must treat them separately:
-            referenceProteinSequence = FuncotatorUtils.createMitochondrialAminoAcidSequence(codingSequence, false, "(size=" + codingSequence.length() + ", ref allele: " + refAllele.getBaseString() + ")");
-            alternateProteinSequence = FuncotatorUtils.createMitochondrialAminoAcidSequence( altCodingSequence, isFrameshift, "(size=" + codingSequence.length() + ", alt allele: " + altAllele.getBaseString() + ")");
+        final int firstChangedCodon = (codingSequenceAlleleStart - 1) / AminoAcid.CODON_LENGTH;
+        final int lastRefCodon      = (codingSequenceAlleleStart - 1 + refAllele.length() - 1) / AminoAcid.CODON_LENGTH;
+        final int lengthChange      = altAllele.length() - refAllele.length();
+
+        final String alternateProteinSequence;
+        if ( (lengthChange % AminoAcid.CODON_LENGTH == 0) && (lastRefCodon < referenceProteinSequence.length()) ) {
+            // In frame, so the codons after those containing the reference allele are also the same:
+            final String altCodons =
+                    codingSequence.substring(firstChangedCodon * AminoAcid.CODON_LENGTH, codingSequenceAlleleStart - 1) +
+                    altAllele.getBaseString() +
+                    codingSequence.substring(codingSequenceAlleleStart + refAllele.length() - 1, (lastRefCodon + 1) * AminoAcid.CODON_LENGTH);
+            alternateProteinSequence =
+                    referenceProteinSequence.substring(0, firstChangedCodon) +
+                    createAminoAcidSequence(altCodons, isFrameshift, isMitochondria, "(size=" + codingSequence.length() + ", alt allele: " + altAllele.getBaseString() + ")") +
+                    referenceProteinSequence.substring(lastRefCodon + 1);
         }
         else {
-            // Create a protein sequence using the Standard Code:
-            referenceProteinSequence = FuncotatorUtils.createAminoAcidSequence(codingSequence, false, "(size=" + codingSequence.length() + ", ref allele: " + refAllele.getBaseString() + ")");
-            alternateProteinSequence = FuncotatorUtils.createAminoAcidSequence(altCodingSequence, isFrameshift, "(size=" + codingSequence.length() + ", alt allele: " + altAllele.getBaseString() + ")");
+            final String altCodingSequenceTail =
+                    codingSequence.substring(firstChangedCodon * AminoAcid.CODON_LENGTH, codingSequenceAlleleStart - 1) +
+                    altAllele.getBaseString() +
+                    codingSequence.substring(codingSequenceAlleleStart + refAllele.length() - 1);
+            alternateProteinSequence =
+                    referenceProteinSequence.substring(0, firstChangedCodon) +
+                    createAminoAcidSequence(altCodingSequenceTail, isFrameshift, isMitochondria, "(size=" + codingSequence.length() + ", alt allele: " + altAllele.getBaseString() + ")");
         }
 
         // This part is actually some work to iterate through the string.
@@ -142,6 +156,11 @@ public final class ProteinChangeInfo {
                 logger.warn("Ref protein sequence is undecodable: " + codingSequence);
             }
             else if ( alternateProteinSequence.contains(AminoAcid.UNDECODABLE.getLetter()) ) {
+                // Subtract 1 to account for 1-based genomic positions:
+                final String altCodingSequence =
+                        codingSequence.substring(0, codingSequenceAlleleStart - 1) +
+                        altAllele.getBaseString() +
+                        codingSequence.substring(codingSequenceAlleleStart + refAllele.length() -1);
                 logger.warn("Alt protein sequence is undecodable: " + altCodingSequence);
             }
         }
@@ -149,6 +168,12 @@ public final class ProteinChangeInfo {
         return Pair.of(referenceProteinSequence, alternateProteinSequence);
     }
 
+    private static String createAminoAcidSequence(final String codingSequence, final boolean isFrameshift, final boolean isMitochondria, final String extraLoggingInfo) {
+        // Mitochondrial protein sequences differ from the Standard Code, so we must treat them separately:
+        return isMitochondria ? FuncotatorUtils.createMitochondrialAminoAcidSequence(codingSequence, isFrameshift, extraLoggingInfo) :
+                FuncotatorUtils.createAminoAcidSequence(codingSequence, isFrameshift, extraLoggingInfo);
+    }
+
     private void initializeForOnp(final String referenceProteinSequence, final String alternateProteinSequence, final int proteinChangeStartIndex) {
         // ONP - get the length of the change and render the changed bases:
         int i = proteinChangeStartIndex;
@@ -396,7 +421,37 @@ public final class ProteinChangeInfo {
         Utils.nonNull(codingSequence);
         Utils.nonNull(strand);
 
-        return new ProteinChangeInfo(refAllele, altAllele, codingSequenceAlleleStart, alignedCodingSequenceAlleleStart, codingSequence, strand, isMitochondria);
+        return create(refAllele, altAllele, codingSequenceAlleleStart, alignedCodingSequenceAlleleStart, codingSequence, null, strand, isMitochondria);
+    }
+
+    /**
+     * Create a {@link ProteinChangeInfo} object which will represent the change in the protein sequence
+     * which would be caused by a variant, given the protein sequence coded for by the reference coding sequence, so
+     * that callers that annotate many variants in the same transcript do not translate it for each of them.
+     * @param refAllele The strand-corrected (i.e. if on the - strand, it has been reverse-complemented) reference {@link Allele} for the variant.  Must not be {@code null}.
+     * @param altAllele The strand-corrected (i.e. if on the - strand, it has been reverse-complemented) alternate {@link Allele} for the variant.  Must not be {@code null}.
+     * @param codingSequenceAlleleStart The position (1-based, inclusive) in the _coding sequence_ at which the variant begins.
+     * @param alignedCodingSequenceAlleleStart The codon-aligned position (1-based, inclusive) in the _coding sequence_ at which the variant begins.
+     * @param codingSequence The strand-corrected sequence of bases containing the _coding sequence_ for a particular transcript of a gene.  Must not be {@code null}.
+     * @param referenceProteinSequence The amino acid sequence coded for by {@code codingSequence}, as created by {@link FuncotatorUtils#createAminoAcidSequence} (or {@link FuncotatorUtils#createMitochondrialAminoAcidSequence} if {@code isMitochondria}), or {@code null} to create it here.
+     * @param strand The {@link Strand} on which the transcript for this protein change occurs.  Must not be {@link Strand#NONE}.  Must not be {@code null}.
+     * @param isMitochondria If {@code true}, will use Mitochondrial protein decoding, rather than the standard eukaryotic amino acid decoding.
+     * @return A new {@link ProteinChangeInfo} object representing the change in the protein sequence for the given input data.
+     */
+    public static ProteinChangeInfo create( final Allele refAllele,
+                                            final Allele altAllele,
+                                            final int codingSequenceAlleleStart,
+                                            final int alignedCodingSequenceAlleleStart,
+                                            final String codingSequence,
+                                            final String referenceProteinSequence,
+                                            final Strand strand,
+                                            final boolean isMitochondria) {
+        Utils.nonNull(refAllele);
+        Utils.nonNull(altAllele);
+        Utils.nonNull(codingSequence);
+        Utils.nonNull(strand);
+
+        return new ProteinChangeInfo(refAllele, altAllele, codingSequenceAlleleStart, alignedCodingSequenceAlleleStart, codingSequence, referenceProteinSequence, strand, isMitochondria);
     }
 
     /**
@@ -111,6 +111,8 @@ final public class DataSourceUtils {
     // Optional config options:
     public static final String CONFIG_FILE_FIELD_NAME_IS_B37_DATA_SOURCE   = "isB37DataSource";
     public static final String CONFIG_FILE_FIELD_NAME_LOOKAHEAD_CACHE_BP   = "lookAheadCacheBp";
+    public static final String CONFIG_FILE_FIELD_NAME_PRELOAD_DATA_SOURCE  = "preloadDataSource";
+    public static final String CONFIG_FILE_FIELD_NAME_VCF_INFO_FIELDS      = "vcfInfoFields";
 
     //==================================================================================================================
     // Public Static Methods:
@@ -357,7 +359,7 @@ final public class DataSourceUtils {
                     break;
                 case VCF:
                     featureInput = createAndRegisterFeatureInputs(path, properties, gatkToolInstance, lookaheadFeatureCachingInBp, VariantContext.class, false);
-                    funcotationFactory = DataSourceUtils.createVcfDataSource(path, properties, annotationOverridesMap, featureInput, minBasesForValidSegment);
+                    funcotationFactory = DataSourceUtils.createVcfDataSource(path, properties, annotationOverridesMap, featureInput, lookaheadFeatureCachingInBp, minBasesForValidSegment);
                     break;
                 default:
                     throw new GATKException("Unknown type of DataSourceFuncotationFactory encountered: " + stringType );
@@ -385,8 +387,7 @@ final public class DataSourceUtils {
                     ? configFilePath.toUri().toString()
                     : resolveFilePathStringFromKnownPath( dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE), configFilePath ).toUri().toString();
 
-        final int lookaheadCacheSizePropertyValue = getLookAheadCacheBpPropertyValue(dataSourceProperties);
-        final int lookaheadCacheSizeFinal = lookaheadCacheSizePropertyValue == -1 ? lookaheadFeatureCachingInBp : lookaheadCacheSizePropertyValue;
+        final int lookaheadCacheSizeFinal = getLookAheadCacheBp(dataSourceProperties, lookaheadFeatureCachingInBp);
 
         logger.info( "Setting lookahead cache for data source: " + name + " : " + lookaheadCacheSizeFinal );
 
@@ -462,6 +463,45 @@ final public class DataSourceUtils {
         return -1;
     }
 
+    /**
+     * Get the number of bases to cache when querying the features of a data source.
+     * @param dataSourceProperties {@link Properties} object from which to read the {@link #CONFIG_FILE_FIELD_NAME_LOOKAHEAD_CACHE_BP} setting.
+     * @param lookaheadFeatureCachingInBp Number of bases to cache if the data source does not specify it.
+     * @return The value of the {@link #CONFIG_FILE_FIELD_NAME_LOOKAHEAD_CACHE_BP} property.  If absent, {@code lookaheadFeatureCachingInBp}.
+     */
+    private static int getLookAheadCacheBp(final Properties dataSourceProperties, final int lookaheadFeatureCachingInBp) {
+        final int lookaheadCacheSizePropertyValue = getLookAheadCacheBpPropertyValue(dataSourceProperties);
+        return lookaheadCacheSizePropertyValue == -1 ? lookaheadFeatureCachingInBp : lookaheadCacheSizePropertyValue;
+    }
+
+    /**
+     * Get the INFO fields specified by the `vcfInfoFields` field {@link #CONFIG_FILE_FIELD_NAME_VCF_INFO_FIELDS}
+     * as a comma-separated list.  If it is absent, all INFO fields of a VCF data source are used.
+     * @param dataSourceProperties {@link Properties} object from which to read the setting.
+     * @return The INFO field names in the {@link #CONFIG_FILE_FIELD_NAME_VCF_INFO_FIELDS} property.  If absent, {@code null}.
+     */
+    private static Set<String> getVcfInfoFieldsPropertyValue(final Properties dataSourceProperties) {
+        if ( dataSourceProperties.containsKey( CONFIG_FILE_FIELD_NAME_VCF_INFO_FIELDS ) ) {
+            return Utils.split(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_VCF_INFO_FIELDS).replace(" ", ""), ",").stream()
+                    .filter(field -> !field.isEmpty())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+        return null;
+    }
+
+    /**
+     * Get if the properties has specified the `preloadDataSource` field {@link #CONFIG_FILE_FIELD_NAME_PRELOAD_DATA_SOURCE} as true.
+     * If it is absent, it will default to {@code false}.  Currently only COSMIC data sources can be preloaded.
+     * @param dataSourceProperties {@link Properties} object from which to read the setting.
+     * @return The value of the {@link #CONFIG_FILE_FIELD_NAME_PRELOAD_DATA_SOURCE} property.  If absent, {@code false}.
+     */
+    private static boolean getPreloadDataSourcePropertyValue(final Properties dataSourceProperties) {
+        if ( dataSourceProperties.containsKey( CONFIG_FILE_FIELD_NAME_PRELOAD_DATA_SOURCE ) ) {
+            return Boolean.valueOf(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_PRELOAD_DATA_SOURCE).replace(" ", ""));
+        }
+        return false;
+    }
+
     /**
      * Create a path indicated by the given {@code dirPathString} that resolves to a directory even on Google Cloud.
      * This assumes that the given {@code dirPathString}  already points to a directory and must simply be reformatted for the cloud, if
@@ -516,6 +556,31 @@ final public class DataSourceUtils {
                 );
     }
 
+    /**
+     * Write a {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv.SimpleKeyXsvIndex} of the data file
+     * of a simple-key XSV data source next to the data file, with the parameters in its config file, without reading
+     * the data file into memory.
+     * @param dataSourceFile {@link Path} to the data source file.  Must not be {@code null}.
+     * @param dataSourceProperties {@link Properties} consisting of the contents of the config file for the data source.  Must not be {@code null}.
+     * @return The {@link Path} of the index.
+     */
+    public static Path writeSimpleXsvIndex(final Path dataSourceFile, final Properties dataSourceProperties) {
+
+        Utils.nonNull(dataSourceFile);
+        Utils.nonNull(dataSourceProperties);
+
+        // Same parameters as in createSimpleXsvDataSource:
+        return SimpleKeyXsvFuncotationFactory.writeIndex(
+                    dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_NAME),
+                    resolveFilePathStringFromKnownPath(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE), dataSourceFile),
+                    dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_XSV_DELIMITER),
+                    Integer.valueOf(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_XSV_KEY_COLUMN)),
+                    SimpleKeyXsvFuncotationFactory.XsvDataKeyType.valueOf(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_XSV_KEY)),
+                    0,
+                    Boolean.valueOf(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_XSV_PERMISSIVE_COLS))
+                );
+    }
+
     /**
      * Create a {@link CosmicFuncotationFactory} from filesystem resources and field overrides.
      * @param dataSourceFile {@link Path} to the data source file.  Must not be {@code null}.
@@ -534,13 +599,15 @@ final public class DataSourceUtils {
 
         final String version   = dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_VERSION);
         final boolean isB37    = getIsB37PropertyValue(dataSourceProperties);
+        final boolean preload  = getPreloadDataSourcePropertyValue(dataSourceProperties);
 
         return new CosmicFuncotationFactory(
                         resolveFilePathStringFromKnownPath(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE), dataSourceFile),
                         annotationOverridesMap,
                         version,
                         isB37,
-                minBasesForValidSegment
+                minBasesForValidSegment,
+                        preload
                 );
     }
 
@@ -606,6 +673,7 @@ final public class DataSourceUtils {
      * @param dataSourceProperties {@link Properties} consisting of the contents of the config file for the data source.  Must not be {@code null}.
      * @param annotationOverridesMap {@link LinkedHashMap}{@code <String->String>} containing any annotation overrides to be included in the resulting data source.  Must not be {@code null}.
      * @param featureInput The {@link FeatureInput<? extends Feature>} object for the VCF data source we are creating.
+     * @param lookaheadFeatureCachingInBp Number of base-pairs to cache when querying variants, if the data source does not specify it.
      * @param minBasesForValidSegment The minimum number of bases for a segment to be considered valid.
      * @return A new {@link GencodeFuncotationFactory} based on the given data source file information, field overrides map, and transcript information.
      */
@@ -613,6 +681,7 @@ final public class DataSourceUtils {
                                                              final Properties dataSourceProperties,
                                                              final LinkedHashMap<String, String> annotationOverridesMap,
                                                              final FeatureInput<? extends Feature> featureInput,
+                                                             final int lookaheadFeatureCachingInBp,
                                                              final int minBasesForValidSegment) {
 
         Utils.nonNull(dataSourceFile);
@@ -624,6 +693,7 @@ final public class DataSourceUtils {
         final String srcFile    = dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE);
         final String version    = dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_VERSION);
         final boolean isB37     = getIsB37PropertyValue(dataSourceProperties);
+        final Set<String> infoFieldNames = getVcfInfoFieldsPropertyValue(dataSourceProperties);
 
         // Create our VCF factory:
         return new VcfFuncotationFactory(
@@ -633,7 +703,9 @@ final public class DataSourceUtils {
                 annotationOverridesMap,
                 featureInput,
                 isB37,
-                minBasesForValidSegment
+                minBasesForValidSegment,
+                infoFieldNames,
+                getLookAheadCacheBp(dataSourceProperties, lookaheadFeatureCachingInBp)
         );
     }
 
@@ -0,0 +1,156 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Utilities shared by the binary files that data sources are compiled into so that they can be memory-mapped and
+ * queried in place ({@link org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeTranscriptStore}
+ * and {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv.SimpleKeyXsvIndex}).
+ *
+ * Such a file starts with a header of a fixed length that begins with a magic number and a version (int), and
+ * records, as two consecutive longs, the size and the last-modified time in milliseconds of the file it was compiled
+ * from.  Its variable-length records are mapped in windows that start every {@link #WINDOW_SIZE} bytes and overlap by
+ * the longest record, so that every record lies entirely in the window in which it starts.  It is written to a
+ * temporary file that is then moved into place, so that a file that is being written is never read.
+ */
+public final class MappedDataSourceFiles {
+    private static final Logger logger = LogManager.getLogger(MappedDataSourceFiles.class);
+
+    private MappedDataSourceFiles() {}
+
+    /**
+     * Distance between the starts of consecutive windows of records.
+     */
+    public static final long WINDOW_SIZE = 1L << 30;
+
+    /**
+     * Read the header of a file.
+     *
+     * @param channel a channel positioned at the start of the file
+     * @param magic the magic number the file starts with
+     * @param version the current version of the format
+     * @param headerLength the length of the header, including the magic number and the version
+     * @return the header, positioned after the version, or {@code null} if the file is too short to have a header or
+     *         is not of the current version of the format
+     */
+    public static ByteBuffer readHeader(final SeekableByteChannel channel, final byte[] magic, final int version, final int headerLength) throws IOException {
+        Utils.nonNull(channel);
+        Utils.nonNull(magic);
+        final ByteBuffer header = ByteBuffer.allocate(headerLength);
+        while (header.hasRemaining() && channel.read(header) > 0) {
+            // read until the header is full or the file ends
+        }
+        if (header.hasRemaining()) {
+            return null;
+        }
+        header.flip();
+        for (final byte b : magic) {
+            if (header.get() != b) {
+                return null;
+            }
+        }
+        return header.getInt() == version ? header : null;
+    }
+
+    /**
+     * @param header the header of a file
+     * @param sourceSizeOffset the offset in the header of the size of the file it was compiled from, which is followed
+     *                         by its last-modified time
+     * @param source the file it should have been compiled from
+     * @return {@code true} if the header records the size and the last-modified time of {@code source}
+     */
+    public static boolean isCompiledFrom(final ByteBuffer header, final int sourceSizeOffset, final Path source) throws IOException {
+        Utils.nonNull(header);
+        Utils.nonNull(source);
+        return header.getLong(sourceSizeOffset) == Files.size(source)
+                && header.getLong(sourceSizeOffset + Long.BYTES) == Files.getLastModifiedTime(source).toMillis();
+    }
+
+    /**
+     * Map variable-length records in overlapping windows.
+     *
+     * @param channel the file
+     * @param recordsOffset the offset of the first record in the file
+     * @param recordsLength the total length of the records
+     * @param maxRecordLength the length of the longest record
+     * @return the windows, to be read with {@link #getRecord}
+     */
+    public static MappedByteBuffer[] mapWindows(final FileChannel channel, final long recordsOffset, final long recordsLength, final int maxRecordLength) throws IOException {
+        Utils.nonNull(channel);
+        final int numWindows = (int) ((recordsLength + WINDOW_SIZE - 1) / WINDOW_SIZE);
+        final MappedByteBuffer[] windows = new MappedByteBuffer[numWindows];
+        for (int i = 0; i < numWindows; i++) {
+            final long windowStart = i * WINDOW_SIZE;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, recordsOffset + windowStart,
+                    Math.min(WINDOW_SIZE + maxRecordLength, recordsLength - windowStart));
+        }
+        return windows;
+    }
+
+    /**
+     * @param windows windows created by {@link #mapWindows}
+     * @param recordOffset the offset of a record relative to the first record
+     * @return a buffer of its own positioned at the record
+     */
+    public static ByteBuffer getRecord(final MappedByteBuffer[] windows, final long recordOffset) {
+        final int window = (int) (recordOffset / WINDOW_SIZE);
+        final ByteBuffer record = windows[window].duplicate();
+        record.position((int) (recordOffset - window * WINDOW_SIZE));
+        return record;
+    }
+
+    /**
+     * @param path where a file is to be written
+     * @return the temporary file to write it to before it is moved into place by {@link #moveIntoPlace}
+     */
+    public static Path getTemporaryPath(final Path path) {
+        Utils.nonNull(path);
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Atomically move a completely written temporary file to its final path, replacing any file there.  The temporary
+     * file is deleted if it cannot be moved.
+     *
+     * @param path the final path of the file
+     * @param description what the file is, for error messages
+     */
+    public static void moveIntoPlace(final Path path, final String description) {
+        Utils.nonNull(path);
+        final Path tmpPath = getTemporaryPath(path);
+        try {
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            deleteTemporaryFile(path, description);
+            throw new UserException.CouldNotCreateOutputFile(path.toString(), "could not move the " + description + " into place", e);
+        }
+    }
+
+    /**
+     * Delete the temporary file of a file that could not be written, logging a warning if it cannot be deleted.
+     *
+     * @param path the final path of the file
+     * @param description what the file is, for log messages
+     */
+    public static void deleteTemporaryFile(final Path path, final String description) {
+        Utils.nonNull(path);
+        final Path tmpPath = getTemporaryPath(path);
+        try {
+            Files.deleteIfExists(tmpPath);
+        } catch (final IOException e) {
+            logger.warn("Could not delete incomplete " + description + " " + tmpPath + ": " + e.getMessage());
+        }
+    }
+}
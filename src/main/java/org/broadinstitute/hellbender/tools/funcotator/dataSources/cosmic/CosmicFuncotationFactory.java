@@ -1,6 +1,9 @@
 package org.broadinstitute.hellbender.tools.funcotator.dataSources.cosmic;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import htsjdk.tribble.Feature;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -36,6 +39,10 @@ import java.util.stream.Collectors;
  * The raw datasource (http://cancer.sanger.ac.uk/cosmic/download - CosmicCompleteTargetedScreensMutantExport.tsv.gz)
  * must be unzipped and preprocessed with the script `createSqliteCosmicDb.sh`.
  *
+ * The records of a gene are read from the database (and their positions parsed) once, when a variant in the gene is
+ * first annotated, and are kept in a cache of the most recently used genes, so that the variants in a gene share a
+ * single query.  Alternatively, the records of all genes can be preloaded into memory when the factory is created.
+ *
  *
  * This is a high-level object that interfaces with the internals of {@link org.broadinstitute.hellbender.tools.funcotator.Funcotator}.
  * Created by jonn on 12/16/17.
@@ -45,6 +52,11 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
     //==================================================================================================================
     // Public Static Members:
 
+    /**
+     * Default number of genes whose records are cached.
+     */
+    public static final int DEFAULT_MAX_CACHED_GENES = 2000;
+
     //==================================================================================================================
     // Private Static Members:
 
@@ -96,10 +108,16 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
     private static final String FIELD_NAME_QUERY = "SELECT * FROM " + TABLE_NAME + " LIMIT 1;";
 
     /**
-     * Template for results query for matching genes in the database.
+     * Query for the records of a gene in the database.
+     */
+    private static final String GENE_QUERY = "SELECT \"" + GENOME_POSITION_COLUMN_NAME + "\", \"" + PROTEIN_POSITION_COLUMN_NAME
+            + "\" FROM " + TABLE_NAME + " WHERE \"" + GENE_NAME_COLUMN + "\" == ? ORDER BY rowid;";
+
+    /**
+     * Query for the records of all genes in the database, in the same order as {@link #GENE_QUERY} for each gene.
      */
-    private static final String RESULT_QUERY_TEMPLATE = "SELECT * FROM " + TABLE_NAME + " WHERE \""
-            + GENE_NAME_COLUMN + "\" == ";
+    private static final String ALL_GENES_QUERY = "SELECT \"" + GENE_NAME_COLUMN + "\", \"" + GENOME_POSITION_COLUMN_NAME + "\", \""
+            + PROTEIN_POSITION_COLUMN_NAME + "\" FROM " + TABLE_NAME + " ORDER BY rowid;";
 
     //==================================================================================================================
     // Private Members:
@@ -119,8 +137,29 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
 
     /**
      * The connection to the SQLite database for this {@link CosmicFuncotationFactory}.
+     * Each thread that creates funcotations has its own connection, since they are not thread-safe.
+     */
+    private final ThreadLocal<Connection> dbConnection = ThreadLocal.withInitial(this::openConnection);
+
+    /**
+     * All of the {@link #dbConnection}s opened so far, to be closed with this factory.
+     */
+    private final List<Connection> openConnections = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * The query for the records of a gene on the {@link #dbConnection} of each thread.
      */
-    private final Connection dbConnection;
+    private final ThreadLocal<PreparedStatement> geneQuery = ThreadLocal.withInitial(this::prepareGeneQuery);
+
+    /**
+     * The records of the most recently annotated genes, or {@code null} if {@link #preloadedRecords} is used.
+     */
+    private final Cache<String, List<CosmicRecord>> cachedRecords;
+
+    /**
+     * The records of every gene in the database, if they were preloaded, or {@code null}.
+     */
+    private final Map<String, List<CosmicRecord>> preloadedRecords;
 
     /**
      * The ordered set of fields that this {@link CosmicFuncotationFactory} supports.
@@ -152,6 +191,19 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
                                     final String version,
                                     final boolean isDataSourceB37,
                                     final int minBasesForValidSegment) {
+        this(pathToCosmicDb, annotationOverridesMap, version, isDataSourceB37, minBasesForValidSegment, false);
+    }
+
+    /**
+     * @param preloadRecords If {@code true}, the records of all genes are read into memory now.  Otherwise, the records
+     *                       of the {@link #DEFAULT_MAX_CACHED_GENES} most recently annotated genes are cached.
+     */
+    public CosmicFuncotationFactory(final Path pathToCosmicDb,
+                                    final LinkedHashMap<String, String> annotationOverridesMap,
+                                    final String version,
+                                    final boolean isDataSourceB37,
+                                    final int minBasesForValidSegment,
+                                    final boolean preloadRecords) {
 
         super(minBasesForValidSegment);
 
@@ -159,7 +211,27 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
         this.version = version;
         this.dataSourceIsB37 = isDataSourceB37;
 
-        // Connect to the DB:
+        // Connect to the DB now, so that a bad database is reported up front:
+        dbConnection.get();
+
+        if ( preloadRecords ) {
+            preloadedRecords = loadAllRecords();
+            cachedRecords = null;
+        }
+        else {
+            preloadedRecords = null;
+            cachedRecords = CacheBuilder.newBuilder().maximumSize(DEFAULT_MAX_CACHED_GENES).recordStats().build();
+        }
+
+        // Get the supported fields:
+        supportedFields = new LinkedHashSet<>(1);
+        supportedFields.add(name + "_overlapping_mutations");
+
+        // Initialize our annotation overrides:
+        initializeAnnotationOverrides(annotationOverridesMap);
+    }
+
+    private Connection openConnection() {
         try {
             Class.forName("org.sqlite.JDBC");
 
@@ -169,8 +241,10 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
             config.setReadOnly(true);
 
             logger.debug("Connecting to SQLite database at: " + this.pathToCosmicDb.toUri().toString());
-            dbConnection = DriverManager.getConnection("jdbc:sqlite:" + this.pathToCosmicDb.toUri().toString(), config.toProperties());
+            final Connection connection = DriverManager.getConnection("jdbc:sqlite:" + this.pathToCosmicDb.toUri().toString(), config.toProperties());
             logger.debug("Connected to SQLite database!");
+            openConnections.add(connection);
+            return connection;
         }
         catch (final SQLException ex) {
             throw new UserException("Unable to open SQLite DB for COSMIC at: " + this.pathToCosmicDb.toUri().toString(), ex);
@@ -178,13 +252,15 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
         catch (final ClassNotFoundException ex) {
             throw new UserException("Cannot load SQLite Java Package!", ex);
         }
+    }
 
-        // Get the supported fields:
-        supportedFields = new LinkedHashSet<>(1);
-        supportedFields.add(name + "_overlapping_mutations");
-
-        // Initialize our annotation overrides:
-        initializeAnnotationOverrides(annotationOverridesMap);
+    private PreparedStatement prepareGeneQuery() {
+        try {
+            return dbConnection.get().prepareStatement(GENE_QUERY);
+        }
+        catch (final SQLException ex) {
+            throw new GATKException("Unable to prepare the query for genes in the database: " + pathToCosmicDb.toUri().toString(), ex);
+        }
     }
 
     //==================================================================================================================
@@ -198,13 +274,24 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
 
     @Override
     public void close() {
-        if (dbConnection != null) {
+        if ( cachedRecords != null ) {
+            final CacheStats stats = cachedRecords.stats();
+            logger.info(getName() + " " + getVersion() + " gene cache hits/total: " + stats.hitCount() + "/" + stats.requestCount());
+        }
+
+        // Closing a connection also closes its prepared query:
+        synchronized (openConnections) {
             try {
-                dbConnection.close();
+                for (final Connection connection : openConnections) {
+                    connection.close();
+                }
             }
             catch (final SQLException ex) {
                 throw new GATKException("Unable to close the connection to DB: " + pathToCosmicDb.toUri().toString(), ex);
             }
+            finally {
+                openConnections.clear();
+            }
         }
     }
 
@@ -283,41 +370,25 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
                 proteinPosition = null;
             }
 
-            try {
-                try ( final Statement statement = dbConnection.createStatement() ) {
-                    try ( final ResultSet resultSet = statement.executeQuery(RESULT_QUERY_TEMPLATE + "\"" + geneName + "\";") ) {
-                        // iterate through our results:
-                        while ( resultSet.next() ) {
-
-                            // Get the genome position:
-                            final SimpleInterval cosmicGenomePosition = getGenomePositionFromResults(resultSet);
-
-                            // Try to match on genome position first:
-                            if ( cosmicGenomePosition != null ) {
-                                if ( genomePosition.overlaps(cosmicGenomePosition) ) {
-                                    // If we overlap the records, we get the protein change and add it to the map:
-                                    updateProteinChangeCountMap(proteinChangeCounts, resultSet);
-                                    continue;
-                                }
-                            }
-
-                            // Get the protein position:
-                            final SimpleInterval cosmicProteinPosition = getProteinPositionFromResults(resultSet);
-
-                            // Now try to match on protein position:
-                            if ( proteinPosition != null ) {
-                                // If we overlap the records, we update the counter:
-                                if ( proteinPosition.overlaps(cosmicProteinPosition) ) {
-                                    updateProteinChangeCountMap(proteinChangeCounts, resultSet);
-                                }
-                            }
-                            // NOTE: We can't annotate if the protein position is null.
-                        }
+            for ( final CosmicRecord record : getRecords(geneName) ) {
+
+                // Try to match on genome position first:
+                if ( record.genomePosition != null ) {
+                    if ( genomePosition.overlaps(record.genomePosition) ) {
+                        // If we overlap the records, we get the protein change and add it to the map:
+                        updateProteinChangeCountMap(proteinChangeCounts, record.proteinChange);
+                        continue;
                     }
                 }
-            }
-            catch (final SQLException ex) {
-                throw new GATKException("Unable to query the database for geneName: " + geneName, ex);
+
+                // Now try to match on protein position:
+                if ( proteinPosition != null ) {
+                    // If we overlap the records, we update the counter:
+                    if ( proteinPosition.overlaps(record.proteinPosition) ) {
+                        updateProteinChangeCountMap(proteinChangeCounts, record.proteinChange);
+                    }
+                }
+                // NOTE: We can't annotate if the protein position is null.
             }
         }
 
@@ -338,8 +409,7 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
         return outputFuncotations;
     }
 
-    private void updateProteinChangeCountMap(final Map<String, Integer> proteinChangeCounts, final ResultSet resultSet) {
-        final String proteinChange = getProteinChangeStringFromResults(resultSet);
+    private void updateProteinChangeCountMap(final Map<String, Integer> proteinChangeCounts, final String proteinChange) {
         if ( !proteinChange.isEmpty() ) {
             final int count = proteinChangeCounts.getOrDefault(proteinChange, 0);
             proteinChangeCounts.put(proteinChange, count + 1);
@@ -357,6 +427,62 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
     //==================================================================================================================
     // Instance Methods:
 
+    /**
+     * Get the records of the given gene, from the preloaded records or the cache, or by querying the database.
+     * @param geneName The name of a gene.
+     * @return The records of the given gene in the database, in database order.  Empty if there are none.
+     */
+    private List<CosmicRecord> getRecords(final String geneName) {
+        if ( geneName == null ) {
+            return Collections.emptyList();
+        }
+        if ( preloadedRecords != null ) {
+            return preloadedRecords.getOrDefault(geneName, Collections.emptyList());
+        }
+
+        // Threads that miss the same gene at once each query it, which is harmless:
+        List<CosmicRecord> records = cachedRecords.getIfPresent(geneName);
+        if ( records == null ) {
+            records = queryRecords(geneName);
+            cachedRecords.put(geneName, records);
+        }
+        return records;
+    }
+
+    private List<CosmicRecord> queryRecords(final String geneName) {
+        try {
+            final PreparedStatement statement = geneQuery.get();
+            statement.setString(1, geneName);
+            try ( final ResultSet resultSet = statement.executeQuery() ) {
+                final List<CosmicRecord> records = new ArrayList<>();
+                while ( resultSet.next() ) {
+                    records.add(new CosmicRecord(getGenomePositionFromResults(resultSet), getProteinChangeStringFromResults(resultSet)));
+                }
+                return records;
+            }
+        }
+        catch (final SQLException ex) {
+            throw new GATKException("Unable to query the database for geneName: " + geneName, ex);
+        }
+    }
+
+    private Map<String, List<CosmicRecord>> loadAllRecords() {
+        logger.info("Preloading all records from the COSMIC database: " + pathToCosmicDb.toUri().toString());
+        final Map<String, List<CosmicRecord>> records = new HashMap<>();
+        try ( final Statement statement = dbConnection.get().createStatement();
+              final ResultSet resultSet = statement.executeQuery(ALL_GENES_QUERY) ) {
+            while ( resultSet.next() ) {
+                records.computeIfAbsent(resultSet.getString(GENE_NAME_COLUMN), g -> new ArrayList<>())
+                        .add(new CosmicRecord(getGenomePositionFromResults(resultSet), getProteinChangeStringFromResults(resultSet)));
+            }
+        }
+        catch (final SQLException ex) {
+            throw new GATKException("Unable to preload the records of the database: " + pathToCosmicDb.toUri().toString(), ex);
+        }
+        logger.info("Preloaded the COSMIC records of " + records.size() + " genes.");
+        return records;
+    }
+
     private Path localizeCosmicDbFileIfRemote(final Path cosmicDbPathMaybeRemote ) {
 
         // Is the path local or in the cloud:
@@ -427,15 +553,6 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
         return null;
     }
 
-    /**
-     * Pulls a protein change / protein position out of the current record in the given {@link ResultSet}.
-     * @param resultSet The results of a query on the database with a current row (must not be {@code null}).
-     * @return A {@link SimpleInterval} representing the extents of the protein position in the current record in the given {@link ResultSet} or {@code null}.
-     */
-    private SimpleInterval getProteinPositionFromResults(final ResultSet resultSet) {
-        return parseProteinString( getProteinChangeStringFromResults(resultSet) );
-    }
-
     /**
      * Pulls a protein change string out of the current record in the given {@link ResultSet}.
      * @param resultSet The results of a query on the database with a current row (must not be {@code null}).
@@ -511,4 +628,24 @@ public class CosmicFuncotationFactory extends DataSourceFuncotationFactory {
     //==================================================================================================================
     // Helper Data Types:
 
+    /**
+     * The positions and protein change of a record in the database.
+     */
+    private final class CosmicRecord {
+        /** Genome position of the record, or {@code null}. */
+        private final SimpleInterval genomePosition;
+
+        /** Protein change of the record.  Never {@code null}. */
+        private final String proteinChange;
+
+        /** Protein position of the record, or {@code null}. */
+        private final SimpleInterval proteinPosition;
+
+        private CosmicRecord(final SimpleInterval genomePosition, final String proteinChange) {
+            this.genomePosition = genomePosition;
+            this.proteinChange = proteinChange;
+            this.proteinPosition = parseProteinString(proteinChange);
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Sets;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.ReferenceSequence;
@@ -14,6 +15,7 @@ import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
@@ -23,6 +25,7 @@ import org.broadinstitute.hellbender.tools.copynumber.utils.annotatedinterval.An
 import org.broadinstitute.hellbender.tools.funcotator.*;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.TableFuncotation;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.segment.SegmentExonUtils;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.segment.SegmentGeneIndex;
 import org.broadinstitute.hellbender.tools.funcotator.metadata.FuncotationMetadata;
 import org.broadinstitute.hellbender.tools.funcotator.metadata.FuncotationMetadataUtils;
 import org.broadinstitute.hellbender.tools.funcotator.metadata.VcfFuncotationMetadata;
@@ -40,6 +43,7 @@ import org.sqlite.util.StringUtils;
 
 import java.io.File;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -177,6 +181,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     /** For legacy reasons, the ref allele column is always blank in funcotations. */
     private static final String LEGACY_SEGMENT_REF_ALLELE_VALUE = "";
 
+    /**
+     * End of the query for all genes on a contig when funcotating segments.  Longer than any contig, but far enough
+     * from {@link Integer#MAX_VALUE} that the lookahead of the feature cache does not overflow.
+     */
+    private static final int SEGMENT_GENE_INDEX_CONTIG_END = Integer.MAX_VALUE / 2;
+
 
     //==================================================================================================================
     // Private Members:
@@ -187,15 +197,15 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     private final String name;
 
     /**
-     * ReferenceSequenceFile for the transcript reference file.
+     * The sequences of the transcripts, from the {@link GencodeTranscriptStore} of the transcript FASTA file if there is
+     * one, or else from the transcript FASTA file itself.
      */
-    private final ReferenceDataSource transcriptFastaReferenceDataSource;
+    private final GencodeTranscriptSequences transcriptSequences;
 
     /**
-     * Map between transcript IDs and the IDs from the FASTA file to look up the transcript.
-     * This is necessary because of the way the FASTA file contigs are named.
+     * The coding sequences of recently annotated transcripts, and the protein sequences they code for.
      */
-    private final Map<String, MappedTranscriptIdInfo> transcriptIdMap;
+    private final GencodeTranscriptSequenceCache transcriptSequenceCache;
 
     /**
      * The mode to select the "best" transcript (i.e. the transcript with detailed information) from the list of
@@ -213,11 +223,6 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      */
     private final Set<String> userRequestedTranscripts;
 
-    /**
-     * The {@link Path} from which we will read the sequences for the coding regions in given transcripts.
-     */
-    private final Path gencodeTranscriptFastaFile;
-
     /**
      * The ncbiBuildVersion for this {@link GencodeFuncotationFactory}.
      * Note: This value is passed in at construction time.
@@ -244,6 +249,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      */
     private boolean isSegmentFuncotationEnabled;
 
+    /**
+     * When annotating segments, the genes of the contig of the last segment whose features were queried.  Only used on
+     * the traversal thread, in {@link #queryFeatures(FeatureContext)}.
+     */
+    private SegmentGeneIndex segmentGeneIndex = null;
+
     //==================================================================================================================
     // Constructors:
 
@@ -356,14 +367,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         super(mainFeatureInput, minBasesForValidSegment);
 
-        // Set up our local transcript fasta file.
-        // We must localize it (if not on disk) to make read times fast enough to be manageable:
-        gencodeTranscriptFastaFile = localizeGencodeTranscriptFastaFile( gencodeTranscriptFastaFilePath );
         this.flankSettings = flankSettings;
 
-        // Initialize our transcript data source and ID map:
-        transcriptFastaReferenceDataSource = ReferenceDataSource.of(gencodeTranscriptFastaFile);
-        transcriptIdMap = createTranscriptIdMap(transcriptFastaReferenceDataSource);
+        // Initialize our transcript sequences.
+        // We must localize the file we read them from (if not on disk) to make read times fast enough to be manageable:
+        transcriptSequences = openTranscriptSequences(gencodeTranscriptFastaFilePath);
+        transcriptSequenceCache = new GencodeTranscriptSequenceCache(transcriptSequences, GencodeTranscriptSequenceCache.DEFAULT_MAX_TRANSCRIPTS);
 
         this.transcriptSelectionMode = transcriptSelectionMode;
 
@@ -436,6 +445,49 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         return localGencodeTranscriptFastaFilePath;
     }
 
+    private Path localizeGencodeTranscriptStore( final Path storePath ) {
+
+        // Is the path local or in the cloud:
+        if ( storePath.getFileSystem().equals(FileSystems.getDefault()) ) {
+            // local path, just return it:
+            return storePath;
+        }
+
+        // Not a local path!  We must localize it so that it can be memory-mapped:
+        final File tmpDir = IOUtils.createTempDir(LOCAL_GENCODE_TRANSCRIPT_TMP_DIR_PREFIX);
+        tmpDir.deleteOnExit();
+        final Path localStorePath = tmpDir.toPath().resolve(LOCAL_GENCODE_TRANSCRIPT_FILE_BASE_NAME + ".fa" + GencodeTranscriptStore.STORE_EXTENSION);
+
+        logger.info("Localizing GENCODE transcript store for faster lookup times...");
+        NioFileCopierWithProgressMeter.create(storePath, localStorePath, true).initiateCopy();
+        return localStorePath;
+    }
+
+    /**
+     * Open the {@link GencodeTranscriptStore} of the given transcript FASTA file if it has an up-to-date one, or else
+     * the FASTA file itself, localizing whichever is used if it is not on disk.
+     * The store is looked up and checked next to the FASTA file in the data source, before anything is localized, since
+     * a localized FASTA file has no store next to it and no longer has the modification time recorded in the store.
+     * @param gencodeTranscriptFastaFilePath {@link Path} to the FASTA file containing the sequences of all transcripts in the Gencode data source.
+     * @return The {@link GencodeTranscriptSequences} from which to get the sequences of transcripts.
+     */
+    private GencodeTranscriptSequences openTranscriptSequences( final Path gencodeTranscriptFastaFilePath ) {
+        final Path storePath = GencodeTranscriptStore.getStorePath(gencodeTranscriptFastaFilePath);
+        if ( GencodeTranscriptStore.isUpToDate(storePath, gencodeTranscriptFastaFilePath) ) {
+            logger.info("Using GENCODE transcript store: " + storePath.toUri());
+            return GencodeTranscriptStore.open(localizeGencodeTranscriptStore(storePath));
+        }
+        if ( Files.exists(storePath) ) {
+            logger.warn("Ignoring GENCODE transcript store " + storePath.toUri() + " because it was not created from the current " +
+                    "transcript FASTA file with this version of GATK.  Recreate it with CreateGencodeTranscriptStore from the " +
+                    "transcript FASTA file in the data source.");
+        }
+        else {
+            logger.info("No GENCODE transcript store found at " + storePath.toUri() + "; reading transcript sequences from the transcript FASTA file.");
+        }
+        return new TranscriptFastaSequences(localizeGencodeTranscriptFastaFile(gencodeTranscriptFastaFilePath));
+    }
+
     //==================================================================================================================
     // Override Methods:
 
@@ -451,7 +503,10 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
     @Override
     public void close() {
-        transcriptFastaReferenceDataSource.close();
+        final CacheStats transcriptSequenceCacheStats = transcriptSequenceCache.getStats();
+        logger.info(getName() + " " + getVersion() + " transcript sequence cache hits/total: " +
+                transcriptSequenceCacheStats.hitCount() + "/" + transcriptSequenceCacheStats.requestCount());
+        transcriptSequences.close();
     }
 
     @Override
@@ -619,6 +674,36 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         return new SimpleInterval( queryInterval.getContig(), newStart < 1 ? 1 : newStart, newEnd);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * When annotating segments, we override this method to decode the genes of each contig only once: the first query
+     * for a segment on a contig reads all of its genes into a {@link SegmentGeneIndex}, and the genes that overlap each
+     * segment are looked up in it.  Segments usually span many genes, and are usually adjacent, so otherwise most genes
+     * would be decoded (and kept in the feature cache) again for every segment that overlaps them.  Queries shorter
+     * than a valid segment are not worth indexing a contig for, and are done as usual.
+     */
+    @Override
+    public List<Feature> queryFeatures(final FeatureContext featureContext) {
+        Utils.nonNull(featureContext);
+        if ( !isSegmentFuncotationEnabled || (featureContext.getInterval() == null) ||
+                (featureContext.getInterval().size() < minBasesForValidSegment) ) {
+            return super.queryFeatures(featureContext);
+        }
+
+        final SimpleInterval queryInterval = getFeatureQueryInterval(featureContext);
+        if ( (segmentGeneIndex == null) || !segmentGeneIndex.getContig().equals(queryInterval.getContig()) ) {
+            final List<GencodeGtfGeneFeature> contigGenes = featureContext.getValues(mainSourceFileAsFeatureInput,
+                    new SimpleInterval(queryInterval.getContig(), 1, SEGMENT_GENE_INDEX_CONTIG_END)).stream()
+                    .filter(f -> f instanceof GencodeGtfGeneFeature)
+                    .map(f -> (GencodeGtfGeneFeature) f)
+                    .collect(Collectors.toList());
+            segmentGeneIndex = new SegmentGeneIndex(queryInterval.getContig(), contigGenes);
+            logger.debug("Indexed " + segmentGeneIndex.size() + " genes on contig " + queryInterval.getContig() + " for segments");
+        }
+        return new ArrayList<>(segmentGeneIndex.getOverlappingGenes(queryInterval));
+    }
+
     //==================================================================================================================
     // Static Methods:
 
@@ -669,7 +754,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * @param sequence The {@link SAMSequenceRecord} from which to create the {@link MappedTranscriptIdInfo}.
      * @return A populated {@link MappedTranscriptIdInfo} object based on the given {@link SAMSequenceRecord}.
      */
-    private static MappedTranscriptIdInfo createMappedTranscriptIdInfo( final SAMSequenceRecord sequence ) {
+    static MappedTranscriptIdInfo createMappedTranscriptIdInfo( final SAMSequenceRecord sequence ) {
 
         final MappedTranscriptIdInfo transcriptIdInfo = new MappedTranscriptIdInfo();
 
@@ -721,29 +806,25 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * Get the coding sequence from the GENCODE Transcript FASTA file for a given {@code transcriptId}.
      * This will get ONLY the coding sequence for the given {@code transcriptId} and will not include any UTRs.
      * @param transcriptId The ID of the transcript to get from the FASTA file.
-     * @param transcriptIdMap A map from transcriptId to MappedTranscriptIdInfo, which tells us how to pull information for the given {@code transcriptId} out of the given {@code transcriptFastaReferenceDataSource}.
-     * @param transcriptFastaReferenceDataSource A {@link ReferenceDataSource} for the GENCODE transcript FASTA file.
+     * @param transcriptSequences The {@link GencodeTranscriptSequences} of the GENCODE transcript FASTA file.
      * @param transcriptTailPaddingBaseString Bases to add to the end of the transcript base string to enable processing variants that overrrun the end of the transcript.
      * @return The coding sequence for the given {@code transcriptId} as represented in the GENCODE transcript FASTA file.
      */
-    private static String getCodingSequenceFromTranscriptFasta( final String transcriptId,
-                                                                final Map<String, MappedTranscriptIdInfo> transcriptIdMap,
-                                                                final ReferenceDataSource transcriptFastaReferenceDataSource,
+    static String getCodingSequenceFromTranscriptFasta( final String transcriptId,
+                                                                final GencodeTranscriptSequences transcriptSequences,
                                                                 final String transcriptTailPaddingBaseString) {
 
-        final MappedTranscriptIdInfo transcriptMapIdAndMetadata = transcriptIdMap.get(transcriptId);
+        final MappedTranscriptIdInfo transcriptMapIdAndMetadata = transcriptSequences.getTranscriptInfo(transcriptId);
 
         if ( transcriptMapIdAndMetadata == null ) {
             throw new UserException.BadInput( "Unable to find the given Transcript ID in our transcript list for our coding sequence (not in given transcript FASTA file): " + transcriptId );
         }
 
-        final SimpleInterval transcriptInterval = new SimpleInterval(
-                transcriptMapIdAndMetadata.mapKey,
+        return transcriptSequences.getBases(
+                transcriptId,
                 transcriptMapIdAndMetadata.codingSequenceStart,
                 transcriptMapIdAndMetadata.codingSequenceEnd
-        );
-
-        return transcriptFastaReferenceDataSource.queryAndPrefetch( transcriptInterval ).getBaseString() + transcriptTailPaddingBaseString;
+        ) + transcriptTailPaddingBaseString;
     }
 
     /**
@@ -751,17 +832,15 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * This will get ONLY the 5' UTR sequence for the given {@code transcriptId} and will NOT include the coding sequence or the 3' UTR.
      * If the given transcript has no 5' UTR, this will return an empty {@link String}.
      * @param transcriptId The ID of the transcript to get from the FASTA file.
-     * @param transcriptIdMap A map from transcriptId to MappedTranscriptIdInfo, which tells us how to pull information for the given {@code transcriptId} out of the given {@code transcriptFastaReferenceDataSource}.
-     * @param transcriptFastaReferenceDataSource A {@link ReferenceDataSource} for the GENCODE transcript FASTA file.
+     * @param transcriptSequences The {@link GencodeTranscriptSequences} of the GENCODE transcript FASTA file.
      * @param extraBases The number of extra bases from the coding region to include in the results after the 5' UTR region.
      * @return The coding sequence for the given {@code transcriptId} as represented in the GENCODE transcript FASTA file, or an empty {@link String}.
      */
     private static String getFivePrimeUtrSequenceFromTranscriptFasta( final String transcriptId,
-                                                                      final Map<String, MappedTranscriptIdInfo> transcriptIdMap,
-                                                                      final ReferenceDataSource transcriptFastaReferenceDataSource,
+                                                                      final GencodeTranscriptSequences transcriptSequences,
                                                                       final int extraBases) {
 
-        final MappedTranscriptIdInfo transcriptMapIdAndMetadata = transcriptIdMap.get(transcriptId);
+        final MappedTranscriptIdInfo transcriptMapIdAndMetadata = transcriptSequences.getTranscriptInfo(transcriptId);
 
         if ( transcriptMapIdAndMetadata == null ) {
             throw new UserException.BadInput( "Unable to find the given Transcript ID in our transcript list for our 5'UTR (not in given transcript FASTA file): " + transcriptId );
@@ -769,13 +848,11 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         if ( transcriptMapIdAndMetadata.has5pUtr ) {
 
-            final SimpleInterval transcriptInterval = new SimpleInterval(
-                    transcriptMapIdAndMetadata.mapKey,
+            return transcriptSequences.getBases(
+                    transcriptId,
                     transcriptMapIdAndMetadata.fivePrimeUtrStart,
                     transcriptMapIdAndMetadata.fivePrimeUtrEnd + extraBases
             );
-
-            return transcriptFastaReferenceDataSource.queryAndPrefetch(transcriptInterval).getBaseString();
         }
         else {
             return "";
@@ -1232,7 +1309,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         // Set up our SequenceComparison object so we can calculate some useful fields more easily
         // These fields can all be set without knowing the alternate allele:
-        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, transcriptIdMap, transcriptFastaReferenceDataSource, true);
+        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, transcriptSequenceCache, true);
 
         // Set our transcript positions:
         setTranscriptPosition(variant, altAllele, sequenceComparison.getTranscriptAlleleStart(), gencodeFuncotationBuilder);
@@ -1302,9 +1379,8 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     @VisibleForTesting
     static List<? extends Locatable> getSortedCdsAndStartStopPositions(final GencodeGtfTranscriptFeature transcript) {
 
-        // Sort by exon number first:
-        transcript.getExons().sort((lhs, rhs) -> lhs.getExonNumber() < rhs.getExonNumber() ? -1 : (lhs.getExonNumber() > rhs.getExonNumber() ) ? 1 : 0 );
-
+        // The exons are already sorted by exon number.  They must not be sorted here, since the transcript may be
+        // shared by threads annotating other variants:
         final List<GencodeGtfFeature> regionList = new ArrayList<>(transcript.getExons().size());
         for ( final GencodeGtfExonFeature exon : transcript.getExons() ) {
 
@@ -1609,14 +1685,14 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
             // Now we can check for de novo starts:
 
             // Only try to get the sequence if our transcript occurs in the FASTA file:
-            if ( transcriptIdMap.containsKey(transcript.getTranscriptId()) ) {
+            if ( transcriptSequences.getTranscriptInfo(transcript.getTranscriptId()) != null ) {
 
                 // Get the 5' UTR sequence here.
                 // Note: We grab 3 extra bases at the end (from the coding sequence) so that we can check for denovo starts
                 //       even if the variant occurs in the last base of the UTR.
                 final int numExtraTrailingBases = variant.getReference().length() < defaultNumTrailingBasesForUtrAnnotationSequenceConstruction ? defaultNumTrailingBasesForUtrAnnotationSequenceConstruction : variant.getReference().length() + 1;
                 final String fivePrimeUtrCodingSequence =
-                        getFivePrimeUtrSequenceFromTranscriptFasta( transcript.getTranscriptId(), transcriptIdMap, transcriptFastaReferenceDataSource, numExtraTrailingBases);
+                        getFivePrimeUtrSequenceFromTranscriptFasta( transcript.getTranscriptId(), transcriptSequences, numExtraTrailingBases);
 
                 // Get our start position in our coding sequence:
                 final int codingStartPos = FuncotatorUtils.getStartPositionInTranscript(variant, transcript.getExons(), strand);
@@ -1884,8 +1960,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * @param reference The {@link ReferenceContext} for the current sample set.
      * @param transcript The {@link GencodeGtfTranscriptFeature} for the current gene feature / alt allele.
      * @param exonPositionList A {@link List} of {@link htsjdk.samtools.util.Locatable} objects representing exon positions in the transcript.
-     * @param transcriptIdMap The {@link Map} of TranscriptID to {@link MappedTranscriptIdInfo} for all transcripts in the current Gencode data source.
-     * @param transcriptFastaReferenceDataSource The {@link ReferenceDataSource} of the transcript FASTA file containing the sequence information for all Transcripts in the current Gencode data source.
+     * @param transcriptSequenceCache The {@link GencodeTranscriptSequenceCache} of the sequence information for all Transcripts in the current Gencode data source.
      * @param processSequenceInformation If {@code true} will attempt to process and create sequence information for the given {@code variant}.
      * @return A populated {@link org.broadinstitute.hellbender.tools.funcotator.SequenceComparison} object.
      */
@@ -1895,8 +1970,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                                        final ReferenceContext reference,
                                                        final GencodeGtfTranscriptFeature transcript,
                                                        final List<? extends htsjdk.samtools.util.Locatable> exonPositionList,
-                                                       final Map<String, MappedTranscriptIdInfo> transcriptIdMap,
-                                                       final ReferenceDataSource transcriptFastaReferenceDataSource,
+                                                       final GencodeTranscriptSequenceCache transcriptSequenceCache,
                                                        final boolean processSequenceInformation) {
 
         // TODO: Somewhere down the line we should adjust the positions at creation-time to account for the leading bases in VCF input files.  (issue 5349 - https://github.com/broadinstitute/gatk/issues/5349)
@@ -1998,33 +2072,41 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         // Get the coding sequence for the transcript if we have a transcript sequence for this variant:
 
         if ( processSequenceInformation ) {
-            if ( transcriptIdMap.containsKey(transcript.getTranscriptId()) ) {
+            if ( transcriptSequenceCache.hasSequence(transcript.getTranscriptId()) ) {
+
+                // Figure out if we are in a mitochondrial contig:
+                // TODO: Make this more robust by detecting the mito contig based on the reference used.  (issue https://github.com/broadinstitute/gatk/issues/5364).
+                final boolean isMitochondria = FuncotatorConstants.MITOCHONDRIAL_CONTIG_NAMES.contains(variant.getContig());
 
                 // Get padding bases just in case this variant is an indel and trails off the end of our transcript:
                 final String transcriptTailPaddingBaseString = getTranscriptEndPaddingBases(variant, altAllele, exonPositionList, reference);
 
                 // NOTE: This can't be null because of the Funcotator input args.
-                final String rawCodingSequence = getCodingSequenceFromTranscriptFasta(
-                        transcript.getTranscriptId(),
-                        transcriptIdMap,
-                        transcriptFastaReferenceDataSource,
-                        transcriptTailPaddingBaseString
-                );
+                final GencodeTranscriptSequenceCache.CodingSequence codingSequence =
+                        transcriptSequenceCache.getCodingSequence(transcript.getTranscriptId(), isMitochondria);
+                final String rawCodingSequence = codingSequence.getBases() + transcriptTailPaddingBaseString;
 
                 // Now that we have our transcript sequence, we must make sure that our reference allele is in it
                 // correctly.
                 // This is because if the user specifies a ref allele that is NOT the same as what is in the reference,
                 // their specified allele takes precedence and overrides the allele from the reference genome.
                 final String correctedCodingSequence;
+                final String referenceProteinSequence;
 
                 // We can't yet handle sequences that overrun the end of the coding sequence (Issue 4307 - https://github.com/broadinstitute/gatk/issues/4307):
                 if ( (sequenceComparison.getCodingSequenceAlleleStart() - 1 + refAllele.getBaseString().length()) > rawCodingSequence.length() ) {
                     throw new FuncotatorUtils.TranscriptCodingSequenceException("Reference allele runs off end of coding sequence.  Cannot yet handle this case.");
                 }
+                else if ( rawCodingSequence.startsWith(refAllele.getBaseString(), sequenceComparison.getCodingSequenceAlleleStart() - 1) ) {
+                    // The reference allele is already in the coding sequence, so the cached protein sequence can be used:
+                    correctedCodingSequence = rawCodingSequence;
+                    referenceProteinSequence = codingSequence.getProteinSequence(transcriptTailPaddingBaseString);
+                }
                 else {
                     correctedCodingSequence = rawCodingSequence.substring(0, sequenceComparison.getCodingSequenceAlleleStart() - 1) +
                             refAllele.getBaseString() +
                             rawCodingSequence.substring(sequenceComparison.getCodingSequenceAlleleStart() + refAllele.length() - 1);
+                    referenceProteinSequence = null;
                 }
                 // Get the transcript sequence as described by the given exonPositionList:
                 sequenceComparison.setTranscriptCodingSequence(new ReferenceSequence(transcript.getTranscriptId(), transcript.getStart(), correctedCodingSequence.getBytes()));
@@ -2057,10 +2139,9 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                         sequenceComparison.getCodingSequenceAlleleStart(),
                         sequenceComparison.getAlignedCodingSequenceAlleleStart(),
                         correctedCodingSequence,
+                        referenceProteinSequence,
                         sequenceComparison.getStrand(),
-                        // Figure out if we are in a mitochondrial contig:
-                        // TODO: Make this more robust by detecting the mito contig based on the reference used.  (issue https://github.com/broadinstitute/gatk/issues/5364).
-                        FuncotatorConstants.MITOCHONDRIAL_CONTIG_NAMES.contains(variant.getContig())
+                        isMitochondria
                 );
 
                 // Set our protein change:
@@ -2807,6 +2888,56 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         int fivePrimeUtrEnd;
     }
 
+    /**
+     * {@link GencodeTranscriptSequences} read directly from a GENCODE transcript FASTA file.
+     * Each thread that reads sequences gets its own FASTA reader, since they are not thread-safe.
+     */
+    @VisibleForTesting
+    static final class TranscriptFastaSequences implements GencodeTranscriptSequences {
+
+        private final ThreadLocal<ReferenceDataSource> transcriptFastaReferenceDataSource;
+
+        /**
+         * All of the {@link #transcriptFastaReferenceDataSource}s opened so far, to be closed with these sequences.
+         */
+        private final List<ReferenceDataSource> openTranscriptFastaReferenceDataSources = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Map between transcript IDs and the IDs from the FASTA file to look up the transcript.
+         * This is necessary because of the way the FASTA file contigs are named.
+         */
+        private final Map<String, MappedTranscriptIdInfo> transcriptIdMap;
+
+        TranscriptFastaSequences( final Path gencodeTranscriptFastaFile ) {
+            transcriptFastaReferenceDataSource = ThreadLocal.withInitial(() -> {
+                final ReferenceDataSource dataSource = ReferenceDataSource.of(gencodeTranscriptFastaFile);
+                openTranscriptFastaReferenceDataSources.add(dataSource);
+                return dataSource;
+            });
+            transcriptIdMap = createTranscriptIdMap(transcriptFastaReferenceDataSource.get());
+        }
+
+        @Override
+        public MappedTranscriptIdInfo getTranscriptInfo( final String transcriptId ) {
+            return transcriptIdMap.get(transcriptId);
+        }
+
+        @Override
+        public String getBases( final String transcriptId, final int start, final int end ) {
+            final MappedTranscriptIdInfo transcriptInfo = transcriptIdMap.get(transcriptId);
+            Utils.validateArg(transcriptInfo != null, () -> "transcript " + transcriptId + " is not in the transcript FASTA file");
+            return transcriptFastaReferenceDataSource.get().queryAndPrefetch( new SimpleInterval(transcriptInfo.mapKey, start, end) ).getBaseString();
+        }
+
+        @Override
+        public void close() {
+            synchronized (openTranscriptFastaReferenceDataSources) {
+                openTranscriptFastaReferenceDataSources.forEach(ReferenceDataSource::close);
+                openTranscriptFastaReferenceDataSources.clear();
+            }
+        }
+    }
+
     //==================================================================================================================
     // Segment annotation specific Methods
 
@@ -0,0 +1,112 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.broadinstitute.hellbender.tools.funcotator.AminoAcid;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * Least-recently-used cache of the coding sequences of transcripts and of the protein sequences they code for.
+ *
+ * Annotating a variant in a coding region needs the whole coding sequence of the transcript and its translation, from
+ * which the protein change is found.  Neighboring variants in a transcript (as in dense somatic call sets or cohort
+ * VCFs) would otherwise each read and translate them again.  The cache holds up to a given number of transcripts and
+ * can be used from several threads at once.
+ */
+final class GencodeTranscriptSequenceCache {
+
+    /**
+     * Default number of transcripts whose sequences are cached.
+     */
+    static final int DEFAULT_MAX_TRANSCRIPTS = 1000;
+
+    private final GencodeTranscriptSequences transcriptSequences;
+    private final Cache<String, CodingSequence> codingSequences;
+
+    /**
+     * @param transcriptSequences the sequences of the transcripts
+     * @param maxTranscripts the number of transcripts whose sequences are cached
+     */
+    GencodeTranscriptSequenceCache(final GencodeTranscriptSequences transcriptSequences, final int maxTranscripts) {
+        Utils.nonNull(transcriptSequences);
+        Utils.validateArg(maxTranscripts > 0, "maxTranscripts must be positive");
+        this.transcriptSequences = transcriptSequences;
+        codingSequences = CacheBuilder.newBuilder().maximumSize(maxTranscripts).recordStats().build();
+    }
+
+    /**
+     * @return {@code true} if there is sequence data for the transcript
+     */
+    boolean hasSequence(final String transcriptId) {
+        return transcriptSequences.getTranscriptInfo(transcriptId) != null;
+    }
+
+    /**
+     * @param transcriptId the ID of a transcript with sequence data
+     * @param isMitochondria whether the transcript is decoded with the vertebrate mitochondrial code
+     * @return the coding sequence of the transcript and the protein sequence it codes for
+     */
+    CodingSequence getCodingSequence(final String transcriptId, final boolean isMitochondria) {
+        CodingSequence codingSequence = codingSequences.getIfPresent(transcriptId);
+        if ( codingSequence == null || codingSequence.isMitochondria != isMitochondria ) {
+            codingSequence = new CodingSequence(
+                    GencodeFuncotationFactory.getCodingSequenceFromTranscriptFasta(transcriptId, transcriptSequences, ""),
+                    isMitochondria);
+            codingSequences.put(transcriptId, codingSequence);
+        }
+        return codingSequence;
+    }
+
+    /**
+     * @return the hit and miss counts of the cache
+     */
+    CacheStats getStats() {
+        return codingSequences.stats();
+    }
+
+    /**
+     * The coding sequence of a transcript, and the protein sequence coded for by its whole codons.
+     */
+    static final class CodingSequence {
+        private final String bases;
+        private final String proteinSequence;
+        private final boolean isMitochondria;
+
+        private CodingSequence(final String bases, final boolean isMitochondria) {
+            this.bases = bases;
+            this.isMitochondria = isMitochondria;
+            final String wholeCodons = bases.substring(0, bases.length() - bases.length() % AminoAcid.CODON_LENGTH);
+            proteinSequence = isMitochondria ?
+                    FuncotatorUtils.createMitochondrialAminoAcidSequence(wholeCodons, false, "") :
+                    FuncotatorUtils.createAminoAcidSequence(wholeCodons, false, "");
+        }
+
+        /**
+         * @return the bases of the coding sequence
+         */
+        String getBases() {
+            return bases;
+        }
+
+        /**
+         * The protein sequence coded for by the coding sequence followed by the given padding bases, as created by
+         * {@link FuncotatorUtils#createAminoAcidSequence} (or {@link FuncotatorUtils#createMitochondrialAminoAcidSequence}).
+         * Only the codons that contain padding bases (or the trailing bases of the coding sequence) are translated.
+         *
+         * @param paddingBases bases that follow the coding sequence
+         */
+        String getProteinSequence(final String paddingBases) {
+            final int translatedBases = proteinSequence.length() * AminoAcid.CODON_LENGTH;
+            if ( translatedBases == bases.length() && paddingBases.isEmpty() ) {
+                return proteinSequence;
+            }
+            final String tail = bases.substring(translatedBases) + paddingBases;
+            final String extraLoggingInfo = "(size=" + (bases.length() + paddingBases.length()) + ")";
+            return proteinSequence + (isMitochondria ?
+                    FuncotatorUtils.createMitochondrialAminoAcidSequence(tail, false, extraLoggingInfo) :
+                    FuncotatorUtils.createAminoAcidSequence(tail, false, extraLoggingInfo));
+        }
+    }
+}
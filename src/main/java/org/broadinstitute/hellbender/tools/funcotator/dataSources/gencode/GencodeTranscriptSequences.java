@@ -0,0 +1,28 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import java.io.Closeable;
+
+/**
+ * The sequences of the transcripts of a GENCODE data source, with the positions of their coding sequences and UTRs.
+ * Implementations can be queried from several threads at once.
+ */
+interface GencodeTranscriptSequences extends Closeable {
+
+    /**
+     * @param transcriptId the ID of a transcript, or any other name given for it in the transcript FASTA file
+     * @return the positions of the coding sequence and UTRs in the sequence of the transcript, or {@code null} if the
+     *         transcript is not in this data source
+     */
+    GencodeFuncotationFactory.MappedTranscriptIdInfo getTranscriptInfo(final String transcriptId);
+
+    /**
+     * @param transcriptId the ID of a transcript, which must be in this data source
+     * @param start the first base to get (1-based, inclusive)
+     * @param end the last base to get (1-based, inclusive)
+     * @return the bases from {@code start} to {@code end} of the sequence of the transcript
+     */
+    String getBases(final String transcriptId, final int start, final int end);
+
+    @Override
+    void close();
+}
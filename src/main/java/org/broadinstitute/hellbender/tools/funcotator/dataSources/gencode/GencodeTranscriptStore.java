@@ -0,0 +1,316 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.MappedDataSourceFiles;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A GENCODE transcript FASTA file compiled into a binary file that is memory-mapped and queried in place.
+ *
+ * Reading transcripts from the FASTA file requires parsing the positions of the coding sequence and UTRs of every
+ * transcript out of its sequence name at startup, and a (not thread-safe) FASTA reader for each query.  The store
+ * holds, for every transcript, those positions and its whole sequence, with a sorted table of the names by which the
+ * transcript can be looked up, so that opening it costs nothing and lookups are binary searches in mapped memory.
+ *
+ * The store is created once, next to the FASTA file, by
+ * {@link org.broadinstitute.hellbender.tools.funcotator.CreateGencodeTranscriptStore}, and records the size and the
+ * last-modified time of the FASTA file it was compiled from so that {@link GencodeFuncotationFactory} can ignore it if
+ * the FASTA file changes.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *     header:    magic "GTXS", version, number of transcripts, number of names, length of the longest sequence,
+ *                length of the name pool (ints), size and last-modified time in milliseconds of the FASTA file (longs)
+ *     names:     for each name, sorted: offset and length in the name pool, and index of its transcript (ints)
+ *     records:   for each transcript: offset of its sequence (long), length of its sequence, coding sequence start and
+ *                end, 5' UTR start and end, 3' UTR start and end, and UTR flags (ints)
+ *     name pool: the names, in UTF-8
+ *     sequences: the bases of all of the transcripts
+ * </pre>
+ */
+public final class GencodeTranscriptStore implements GencodeTranscriptSequences {
+    private static final Logger logger = LogManager.getLogger(GencodeTranscriptStore.class);
+
+    /**
+     * Extension of a store, added to the name of the FASTA file it was compiled from.
+     */
+    public static final String STORE_EXTENSION = ".gtxs";
+
+    private static final byte[] MAGIC = {'G', 'T', 'X', 'S'};
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = MAGIC.length + 5 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int FASTA_SIZE_OFFSET = HEADER_LENGTH - 2 * Long.BYTES;
+    private static final int NAME_LENGTH = 3 * Integer.BYTES;
+    private static final int RECORD_LENGTH = Long.BYTES + 8 * Integer.BYTES;
+    private static final int HAS_5P_UTR = 1;
+    private static final int HAS_3P_UTR = 2;
+    private static final String DESCRIPTION = "GENCODE transcript store";
+
+    private final Path path;
+    private final int numNames;
+    private final int recordsOffset;
+    private final int namePoolOffset;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer[] sequenceWindows;
+
+    private GencodeTranscriptStore(final Path path) throws IOException {
+        this.path = path;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = MappedDataSourceFiles.readHeader(channel, MAGIC, VERSION, HEADER_LENGTH);
+            if (header == null) {
+                throw new UserException.MalformedFile(path, "not a GENCODE transcript store of version " + VERSION);
+            }
+            final int numRecords = header.getInt();
+            numNames = header.getInt();
+            final int maxSequenceLength = header.getInt();
+            final int namePoolLength = header.getInt();
+
+            recordsOffset = HEADER_LENGTH + numNames * NAME_LENGTH;
+            namePoolOffset = recordsOffset + numRecords * RECORD_LENGTH;
+            final long sequencesOffset = (long) namePoolOffset + namePoolLength;
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, sequencesOffset);
+
+            sequenceWindows = MappedDataSourceFiles.mapWindows(channel, sequencesOffset, channel.size() - sequencesOffset, maxSequenceLength);
+        }
+    }
+
+    /**
+     * @param transcriptFasta a GENCODE transcript FASTA file
+     * @return where the store of {@code transcriptFasta} is by default
+     */
+    public static Path getStorePath(final Path transcriptFasta) {
+        Utils.nonNull(transcriptFasta);
+        return transcriptFasta.resolveSibling(transcriptFasta.getFileName() + STORE_EXTENSION);
+    }
+
+    /**
+     * Open a store.
+     *
+     * @param storePath a store created by {@link #compile}
+     * @return never {@code null}
+     */
+    public static GencodeTranscriptStore open(final Path storePath) {
+        Utils.nonNull(storePath);
+        try {
+            return new GencodeTranscriptStore(storePath);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(storePath, e);
+        }
+    }
+
+    /**
+     * @return {@code true} if there is a store at {@code storePath}, of the current version, compiled from a FASTA file
+     *         of the same size and last-modified time as {@code transcriptFasta}
+     */
+    public static boolean isUpToDate(final Path storePath, final Path transcriptFasta) {
+        Utils.nonNull(storePath);
+        Utils.nonNull(transcriptFasta);
+        if (!Files.isRegularFile(storePath)) {
+            return false;
+        }
+        // The store may not have been localized yet, so it is read through a channel of its own file system:
+        try (final SeekableByteChannel channel = Files.newByteChannel(storePath)) {
+            final ByteBuffer header = MappedDataSourceFiles.readHeader(channel, MAGIC, VERSION, HEADER_LENGTH);
+            return header != null && MappedDataSourceFiles.isCompiledFrom(header, FASTA_SIZE_OFFSET, transcriptFasta);
+        } catch (final IOException e) {
+            logger.warn("Could not read " + DESCRIPTION + " " + storePath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compile a GENCODE transcript FASTA file into a store.
+     *
+     * The store is written to a temporary file that is then moved to {@code storePath}, so that a store that is being
+     * written is never read.  The temporary file is deleted if the store cannot be written.
+     *
+     * @param transcriptFasta an indexed GENCODE transcript FASTA file
+     * @param storePath where to write the store
+     */
+    public static void compile(final Path transcriptFasta, final Path storePath) {
+        Utils.nonNull(transcriptFasta);
+        Utils.nonNull(storePath);
+
+        try (final ReferenceDataSource fasta = ReferenceDataSource.of(transcriptFasta);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(MappedDataSourceFiles.getTemporaryPath(storePath))))) {
+            write(fasta, Files.size(transcriptFasta), Files.getLastModifiedTime(transcriptFasta).toMillis(), out);
+        } catch (final IOException | RuntimeException e) {
+            MappedDataSourceFiles.deleteTemporaryFile(storePath, DESCRIPTION);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new UserException.CouldNotCreateOutputFile(storePath.toString(), "could not write the " + DESCRIPTION, e);
+        }
+
+        MappedDataSourceFiles.moveIntoPlace(storePath, DESCRIPTION);
+    }
+
+    private static void write(final ReferenceDataSource fasta, final long fastaSize, final long fastaLastModified, final DataOutputStream out) throws IOException {
+        final List<SAMSequenceRecord> sequences = fasta.getSequenceDictionary().getSequences();
+
+        // As in GencodeFuncotationFactory.createTranscriptIdMap, every field of a sequence name is a name of its
+        // transcript, and a name given to several transcripts refers to the last of them:
+        final Map<String, Integer> transcriptByName = new TreeMap<>();
+        int maxSequenceLength = 0;
+        for (int i = 0; i < sequences.size(); i++) {
+            for (final String name : Utils.split(sequences.get(i).getSequenceName(), "|")) {
+                transcriptByName.put(name, i);
+            }
+            maxSequenceLength = Math.max(maxSequenceLength, sequences.get(i).getSequenceLength());
+        }
+
+        final List<byte[]> names = new ArrayList<>(transcriptByName.size());
+        long namePoolLength = 0;
+        for (final String name : transcriptByName.keySet()) {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.add(bytes);
+            namePoolLength += bytes.length;
+        }
+        final long indexLength = HEADER_LENGTH + (long) names.size() * NAME_LENGTH + (long) sequences.size() * RECORD_LENGTH + namePoolLength;
+        Utils.validate(indexLength <= Integer.MAX_VALUE, "too many transcripts for a GENCODE transcript store");
+
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sequences.size());
+        out.writeInt(names.size());
+        out.writeInt(maxSequenceLength);
+        out.writeInt((int) namePoolLength);
+        out.writeLong(fastaSize);
+        out.writeLong(fastaLastModified);
+
+        int namePoolOffset = 0;
+        int nameIndex = 0;
+        for (final int transcript : transcriptByName.values()) {
+            out.writeInt(namePoolOffset);
+            out.writeInt(names.get(nameIndex).length);
+            out.writeInt(transcript);
+            namePoolOffset += names.get(nameIndex++).length;
+        }
+
+        long sequenceOffset = 0;
+        for (final SAMSequenceRecord sequence : sequences) {
+            final GencodeFuncotationFactory.MappedTranscriptIdInfo info = GencodeFuncotationFactory.createMappedTranscriptIdInfo(sequence);
+            out.writeLong(sequenceOffset);
+            out.writeInt(sequence.getSequenceLength());
+            out.writeInt(info.codingSequenceStart);
+            out.writeInt(info.codingSequenceEnd);
+            out.writeInt(info.fivePrimeUtrStart);
+            out.writeInt(info.fivePrimeUtrEnd);
+            out.writeInt(info.threePrimeUtrStart);
+            out.writeInt(info.threePrimeUtrEnd);
+            out.writeInt((info.has5pUtr ? HAS_5P_UTR : 0) | (info.has3pUtr ? HAS_3P_UTR : 0));
+            sequenceOffset += sequence.getSequenceLength();
+        }
+
+        for (final byte[] name : names) {
+            out.write(name);
+        }
+
+        for (final SAMSequenceRecord sequence : sequences) {
+            if (sequence.getSequenceLength() > 0) {
+                out.write(fasta.queryAndPrefetch(sequence.getSequenceName(), 1, sequence.getSequenceLength()).getBases());
+            }
+        }
+    }
+
+    //==================================================================================================================
+
+    /**
+     * @return the index of the transcript with the given name, or -1 if there is none
+     */
+    private int findTranscript(final String name) {
+        int low = 0;
+        int high = numNames - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int entry = HEADER_LENGTH + mid * NAME_LENGTH;
+            final int comparison = readName(index.getInt(entry), index.getInt(entry + Integer.BYTES)).compareTo(name);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return index.getInt(entry + 2 * Integer.BYTES);
+            }
+        }
+        return -1;
+    }
+
+    private String readName(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = index.get(namePoolOffset + offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public GencodeFuncotationFactory.MappedTranscriptIdInfo getTranscriptInfo(final String transcriptId) {
+        Utils.nonNull(transcriptId);
+        final int transcript = findTranscript(transcriptId);
+        if (transcript < 0) {
+            return null;
+        }
+        final int record = recordsOffset + transcript * RECORD_LENGTH + Long.BYTES + Integer.BYTES;
+        final GencodeFuncotationFactory.MappedTranscriptIdInfo info = new GencodeFuncotationFactory.MappedTranscriptIdInfo();
+        info.mapKey = transcriptId;
+        info.codingSequenceStart = index.getInt(record);
+        info.codingSequenceEnd = index.getInt(record + Integer.BYTES);
+        info.fivePrimeUtrStart = index.getInt(record + 2 * Integer.BYTES);
+        info.fivePrimeUtrEnd = index.getInt(record + 3 * Integer.BYTES);
+        info.threePrimeUtrStart = index.getInt(record + 4 * Integer.BYTES);
+        info.threePrimeUtrEnd = index.getInt(record + 5 * Integer.BYTES);
+        final int flags = index.getInt(record + 6 * Integer.BYTES);
+        info.has5pUtr = (flags & HAS_5P_UTR) != 0;
+        info.has3pUtr = (flags & HAS_3P_UTR) != 0;
+        return info;
+    }
+
+    @Override
+    public String getBases(final String transcriptId, final int start, final int end) {
+        Utils.nonNull(transcriptId);
+        final int transcript = findTranscript(transcriptId);
+        Utils.validateArg(transcript >= 0, () -> "transcript " + transcriptId + " is not in " + path);
+
+        final int record = recordsOffset + transcript * RECORD_LENGTH;
+        final long sequenceOffset = index.getLong(record);
+        final int sequenceLength = index.getInt(record + Long.BYTES);
+        Utils.validateArg(start >= 1 && start <= end + 1 && end <= sequenceLength,
+                () -> "bases " + start + "-" + end + " are not in transcript " + transcriptId + " of length " + sequenceLength);
+        if (end < start) {
+            return "";
+        }
+
+        final ByteBuffer bases = MappedDataSourceFiles.getRecord(sequenceWindows, sequenceOffset);
+        bases.position(bases.position() + start - 1);
+        final byte[] result = new byte[end - start + 1];
+        bases.get(result);
+        return new String(result, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The mapped memory is released when the store is garbage collected.
+     */
+    @Override
+    public void close() { }
+}
@@ -0,0 +1,96 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.segment;
+
+import htsjdk.samtools.util.IntervalTree;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.codecs.gtf.GencodeGtfGeneFeature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An interval tree of the genes on one contig of a Gencode data source, to look up the genes that overlap segments.
+ *
+ * Segments can span many megabases, so querying the genes of each segment from the data source decodes thousands of
+ * genes (with all of their transcripts and exons) again for every segment.  Instead, the genes of a contig are decoded
+ * once, and the genes that overlap each segment on the contig are looked up in the tree.
+ */
+public final class SegmentGeneIndex {
+
+    private final String contig;
+
+    /**
+     * The genes of the contig, in the order of the data source.
+     */
+    private final List<GencodeGtfGeneFeature> genes;
+
+    /**
+     * Indices in {@link #genes} of the genes with each extent.  Genes with the same extent share a node of the tree.
+     */
+    private final IntervalTree<List<Integer>> geneIndicesByExtent = new IntervalTree<>();
+
+    /**
+     * @param contig The contig of the genes.  Never {@code null}
+     * @param genes All genes of the data source on the given contig, in the order of the data source.  Never {@code null}
+     */
+    public SegmentGeneIndex(final String contig, final List<GencodeGtfGeneFeature> genes) {
+        Utils.nonNull(contig);
+        Utils.nonNull(genes);
+        this.contig = contig;
+        this.genes = new ArrayList<>(genes);
+
+        for (int i = 0; i < this.genes.size(); i++) {
+            final GencodeGtfGeneFeature gene = this.genes.get(i);
+            Utils.validateArg(contig.equals(gene.getContig()), "Gene " + gene.getGeneName() + " is not on contig " + contig);
+            final IntervalTree.Node<List<Integer>> node = geneIndicesByExtent.find(gene.getStart(), gene.getEnd());
+            if (node != null) {
+                node.getValue().add(i);
+            } else {
+                final List<Integer> indices = new ArrayList<>(1);
+                indices.add(i);
+                geneIndicesByExtent.put(gene.getStart(), gene.getEnd(), indices);
+            }
+        }
+    }
+
+    /**
+     * @return The contig of the genes in this index.  Never {@code null}
+     */
+    public String getContig() {
+        return contig;
+    }
+
+    /**
+     * @return The number of genes in this index.
+     */
+    public int size() {
+        return genes.size();
+    }
+
+    /**
+     * @param interval Never {@code null}
+     * @return The genes that overlap the given interval, in the order of the data source, as they would be queried
+     *  from the data source.  Empty if the interval is on another contig.  Never {@code null}
+     */
+    public List<GencodeGtfGeneFeature> getOverlappingGenes(final Locatable interval) {
+        Utils.nonNull(interval);
+        if (!contig.equals(interval.getContig())) {
+            return Collections.emptyList();
+        }
+
+        final List<Integer> overlappingIndices = new ArrayList<>();
+        final Iterator<IntervalTree.Node<List<Integer>>> overlappers = geneIndicesByExtent.overlappers(interval.getStart(), interval.getEnd());
+        while (overlappers.hasNext()) {
+            overlappingIndices.addAll(overlappers.next().getValue());
+        }
+        Collections.sort(overlappingIndices);
+
+        final List<GencodeGtfGeneFeature> overlappingGenes = new ArrayList<>(overlappingIndices.size());
+        for (final int i : overlappingIndices) {
+            overlappingGenes.add(genes.get(i));
+        }
+        return overlappingGenes;
+    }
+}
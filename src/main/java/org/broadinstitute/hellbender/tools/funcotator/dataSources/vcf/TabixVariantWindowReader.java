@@ -0,0 +1,216 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.vcf;
+
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.TribbleException;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.tribble.readers.TabixReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the variants that overlap queries from a block-compressed, tabix-indexed VCF file, a window at a time.
+ *
+ * Funcotator queries a VCF data source once for each variant it annotates, in order.  Rather than decoding the records
+ * of the file again for each query, the reader decodes all of the records in a window of the file that starts at a
+ * query once (one seek, and one pass over the compressed blocks of the window), and answers the following queries in
+ * the window from memory.  Optionally, only some of the INFO fields of the records are decoded: for data sources like
+ * gnomAD, whose records have hundreds of INFO fields, decoding the INFO fields is most of the cost of reading them.
+ *
+ * The variants are decoded by a {@link VCFCodec} that reads the header of the file, so apart from the INFO fields that
+ * are dropped, they are the same as those queried from the file through a {@link org.broadinstitute.hellbender.engine.FeatureDataSource}.
+ * A reader is not meant to be queried from several threads at once, but its methods are synchronized for safety.
+ */
+final class TabixVariantWindowReader implements Closeable {
+    private static final Logger logger = LogManager.getLogger(TabixVariantWindowReader.class);
+
+    // Index of the INFO column in a VCF record:
+    private static final int INFO_COLUMN = 7;
+
+    private final Path path;
+    private final TabixReader tabixReader;
+    private final VCFCodec codec;
+    private final Set<String> infoFieldNames;
+    private final int windowSize;
+
+    private String windowContig = null;
+    private int windowStart = 0;
+    private int windowEnd = -1;
+    private List<VariantContext> windowVariants = Collections.emptyList();
+    // Largest difference between the end and the start of a variant in the window:
+    private int windowMaxSpan = 0;
+
+    private long numQueries = 0;
+    private long numWindows = 0;
+
+    /**
+     * @param path a VCF file for which {@link #canRead} is {@code true}
+     * @param infoFieldNames the INFO fields to decode, or {@code null} to decode all of them.  The END field, which
+     *                       gives the extent of a record, is always decoded.
+     * @param windowSize the minimum number of bases whose records are read at once; must be positive
+     */
+    TabixVariantWindowReader(final Path path, final Set<String> infoFieldNames, final int windowSize) {
+        Utils.nonNull(path);
+        Utils.validateArg(windowSize > 0, "windowSize must be positive");
+        this.path = path;
+        this.infoFieldNames = infoFieldNames;
+        this.windowSize = windowSize;
+
+        try {
+            tabixReader = new TabixReader(path.toString());
+
+            // Before any query, the reader is at the start of the file, so we can read the header from it:
+            final StringBuilder header = new StringBuilder();
+            for ( String line = tabixReader.readLine(); line != null && line.startsWith("#"); line = tabixReader.readLine() ) {
+                header.append(line).append('\n');
+            }
+            codec = new VCFCodec();
+            codec.readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(header.toString()))));
+        }
+        catch (final IOException | TribbleException ex) {
+            throw new UserException.CouldNotReadInputFile(path, ex);
+        }
+    }
+
+    /**
+     * @return {@code true} if the given file is a local, block-compressed VCF file with a tabix index
+     */
+    static boolean canRead(final Path path) {
+        Utils.nonNull(path);
+        return path.getFileSystem() == FileSystems.getDefault() &&
+                IOUtil.hasBlockCompressedExtension(path.toString()) &&
+                Files.exists(path.resolveSibling(path.getFileName() + FileExtensions.TABIX_INDEX));
+    }
+
+    /**
+     * @param interval the interval to query
+     * @return the variants that overlap the given interval, in file order
+     */
+    synchronized List<VariantContext> query(final SimpleInterval interval) {
+        Utils.nonNull(interval);
+        ++numQueries;
+        if ( !interval.getContig().equals(windowContig) || interval.getStart() < windowStart || interval.getEnd() > windowEnd ) {
+            readWindow(interval);
+        }
+
+        // The records are sorted by start, and no variant that starts before interval.getStart() - windowMaxSpan can
+        // reach the interval:
+        final List<VariantContext> variants = new ArrayList<>();
+        for ( int i = firstStartingAtOrAfter((long) interval.getStart() - windowMaxSpan); i < windowVariants.size(); ++i ) {
+            final VariantContext variant = windowVariants.get(i);
+            if ( variant.getStart() > interval.getEnd() ) {
+                break;
+            }
+            if ( variant.getEnd() >= interval.getStart() ) {
+                variants.add(variant);
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * @return the index of the first variant in the window that starts at or after {@code position}, or the number of
+     *         variants in the window if there is none
+     */
+    private int firstStartingAtOrAfter(final long position) {
+        int low = 0;
+        int high = windowVariants.size();
+        while ( low < high ) {
+            final int mid = (low + high) >>> 1;
+            if ( windowVariants.get(mid).getStart() < position ) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decode the variants that overlap the window of at least {@link #windowSize} bases that starts at the given interval.
+     */
+    private void readWindow(final SimpleInterval interval) {
+        ++numWindows;
+        windowContig = interval.getContig();
+        windowStart = interval.getStart();
+        windowEnd = Math.max(interval.getEnd(), (int) Math.min(Integer.MAX_VALUE, (long) windowStart + windowSize - 1));
+
+        final List<VariantContext> variants = new ArrayList<>();
+        int maxSpan = 0;
+        try {
+            // Tabix queries take a 0-based start:
+            final TabixReader.Iterator iterator = tabixReader.query(windowContig, windowStart - 1, windowEnd);
+            for ( String line = iterator.next(); line != null; line = iterator.next() ) {
+                final VariantContext variant = codec.decode(infoFieldNames == null ? line : removeInfoFields(line));
+                variants.add(variant);
+                maxSpan = Math.max(maxSpan, variant.getEnd() - variant.getStart());
+            }
+        }
+        catch (final IOException | TribbleException ex) {
+            throw new UserException.CouldNotReadInputFile(path, ex);
+        }
+        windowVariants = variants;
+        windowMaxSpan = maxSpan;
+    }
+
+    /**
+     * @return the given VCF record with only the INFO fields in {@link #infoFieldNames} (and END)
+     */
+    private String removeInfoFields(final String line) {
+        // Find the INFO column:
+        int infoStart = 0;
+        for ( int i = 0; i < INFO_COLUMN; ++i ) {
+            infoStart = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, infoStart) + 1;
+            if ( infoStart == 0 ) {
+                // Too few columns, let the codec report it:
+                return line;
+            }
+        }
+        int infoEnd = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, infoStart);
+        if ( infoEnd < 0 ) {
+            infoEnd = line.length();
+        }
+
+        final StringBuilder info = new StringBuilder();
+        for ( final String field : Utils.split(line.substring(infoStart, infoEnd), VCFConstants.INFO_FIELD_SEPARATOR) ) {
+            final int equals = field.indexOf('=');
+            final String key = equals < 0 ? field : field.substring(0, equals);
+            if ( infoFieldNames.contains(key) || key.equals(VCFConstants.END_KEY) ) {
+                if ( info.length() != 0 ) {
+                    info.append(VCFConstants.INFO_FIELD_SEPARATOR);
+                }
+                info.append(field);
+            }
+        }
+        if ( info.length() == 0 ) {
+            info.append(VCFConstants.EMPTY_INFO_FIELD);
+        }
+
+        return line.substring(0, infoStart) + info + line.substring(infoEnd);
+    }
+
+    @Override
+    public synchronized void close() {
+        logger.info("Read " + numWindows + " windows of " + path.toUri() + " for " + numQueries + " queries");
+        tabixReader.close();
+    }
+}
@@ -8,6 +8,7 @@ import htsjdk.variant.vcf.*;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
@@ -71,10 +72,24 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
      */
     private final FuncotationMetadata supportedFieldMetadata;
 
+    /**
+     * The INFO fields of the VCF file from which annotations are created, or {@code null} to create annotations from
+     * all of them.
+     */
+    private final Set<String> infoFieldNames;
+
+    /**
+     * Reader that queries the features of this {@link VcfFuncotationFactory} from its (block-compressed, tabix-indexed)
+     * VCF file a window at a time, or {@code null} to query them from the {@link FeatureContext}.
+     */
+    private final TabixVariantWindowReader windowReader;
+
     /**
      * Cache for speed.  Please note that the cache is done on the reference.
+     * Each thread that creates funcotations has its own cache, since {@link LRUCache} is not thread-safe.
      */
-    private final LRUCache<Triple<VariantContext, ReferenceContext, List<Feature>>, List<Funcotation>> cache = new LRUCache<>();
+    private final ThreadLocal<LRUCache<Triple<VariantContext, ReferenceContext, List<Feature>>, List<Funcotation>>> cache =
+            ThreadLocal.withInitial(() -> new LRUCache<>());
 
     /**
      * If the VCF has multiple lines with the same position, ref, and alt.
@@ -98,6 +113,14 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
     @VisibleForTesting
     int cacheMisses = 0;
 
+    private synchronized void recordCacheLookup(final boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+
     //==================================================================================================================
     // Constructors:
 
@@ -152,12 +175,39 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
                                  final FeatureInput<? extends Feature> mainSourceFileAsFeatureInput,
                                  final boolean isDataSourceB37,
                                  final int minBasesForValidSegment) {
+        this(name, version, sourceFilePath, annotationOverridesMap, mainSourceFileAsFeatureInput, isDataSourceB37, minBasesForValidSegment, null, 0);
+    }
+
+    /**
+     * Create a {@link VcfFuncotationFactory}.
+     * @param name A {@link String} containing the name of this {@link VcfFuncotationFactory}.
+     * @param version  The version {@link String} of the backing data source from which {@link Funcotation}s will be made.
+     * @param sourceFilePath {@link Path} to the VCF file from which {@link VariantContext}s will be read in and used as Features from which to create {@link Funcotation}s.
+     * @param annotationOverridesMap A {@link LinkedHashMap<String,String>} containing user-specified overrides for specific {@link Funcotation}s.
+     * @param mainSourceFileAsFeatureInput The backing {@link FeatureInput} for this {@link VcfFuncotationFactory}, from which all {@link Funcotation}s will be created.
+     * @param isDataSourceB37 If {@code true}, indicates that the data source behind this {@link GencodeFuncotationFactory} contains B37 data.
+     * @param minBasesForValidSegment The minimum number of bases for a segment to be considered valid.
+     * @param infoFieldNames The INFO fields of the VCF file from which to create {@link Funcotation}s, or {@code null} for all of them.
+     * @param lookupWindowBases If positive and the VCF file is a local, block-compressed file with a tabix index, the
+     *                          features are read from it directly in windows of this many bases, decoding only the INFO
+     *                          fields in {@code infoFieldNames}.  Otherwise, they are queried from the {@link FeatureContext}.
+     */
+    public VcfFuncotationFactory(final String name,
+                                 final String version,
+                                 final Path sourceFilePath,
+                                 final LinkedHashMap<String, String> annotationOverridesMap,
+                                 final FeatureInput<? extends Feature> mainSourceFileAsFeatureInput,
+                                 final boolean isDataSourceB37,
+                                 final int minBasesForValidSegment,
+                                 final Set<String> infoFieldNames,
+                                 final int lookupWindowBases) {
 
         super(mainSourceFileAsFeatureInput, minBasesForValidSegment);
 
         this.name = name;
         this.version = version;
         this.sourceFilePath = sourceFilePath;
+        this.infoFieldNames = infoFieldNames == null ? null : new HashSet<>(infoFieldNames);
 
         this.dataSourceIsB37 = isDataSourceB37;
 
@@ -181,6 +231,14 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
                 }
             }
         }
+
+        if ( lookupWindowBases > 0 && TabixVariantWindowReader.canRead(sourceFilePath) ) {
+            logger.info("Reading data source " + name + " from " + sourceFilePath.toUri() + " in windows of " + lookupWindowBases + " bases");
+            windowReader = new TabixVariantWindowReader(sourceFilePath, this.infoFieldNames, lookupWindowBases);
+        }
+        else {
+            windowReader = null;
+        }
     }
 
     private FuncotationMetadata createFuncotationMetadata(final Path sourceFilePath) {
@@ -258,6 +316,22 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
         return supportedFieldNames;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * If this {@link VcfFuncotationFactory} reads its VCF file directly, the features are queried from the file rather
+     * than from the {@link FeatureContext}.
+     */
+    @Override
+    public List<Feature> queryFeatures(final FeatureContext featureContext) {
+        Utils.nonNull(featureContext);
+        if ( windowReader == null || featureContext.getInterval() == null ) {
+            return super.queryFeatures(featureContext);
+        }
+
+        return new ArrayList<>(windowReader.query(getFeatureQueryInterval(featureContext)));
+    }
+
     @Override
     protected List<Funcotation> createDefaultFuncotationsOnVariant( final VariantContext variant, final ReferenceContext referenceContext ) {
         if ( supportedFieldNames.size() != 0 ) {
@@ -282,9 +356,9 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
 
         // TODO: Caching logic can be refactored and shared in other funcotation factories:  https://github.com/broadinstitute/gatk/issues/4974
         final Triple<VariantContext, ReferenceContext, List<Feature>> cacheKey = createCacheKey(variant, referenceContext, featureList);
-        final List<Funcotation> cacheResult = cache.get(cacheKey);
+        final List<Funcotation> cacheResult = cache.get().get(cacheKey);
         if (cacheResult != null) {
-            cacheHits++;
+            recordCacheLookup(true);
             return cacheResult;
         }
 
@@ -317,6 +391,9 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
                         final LinkedHashMap<String, String> annotations = new LinkedHashMap<>(supportedFieldNamesAndDefaults);
 
                         for (final Map.Entry<String, Object> entry : featureVariant.getAttributes().entrySet()) {
+                            if ( infoFieldNames != null && !infoFieldNames.contains(entry.getKey()) ) {
+                                continue;
+                            }
                             populateAnnotationMap(featureVariant, variant, matchIndex, annotations, entry);
                         }
 
@@ -333,8 +410,8 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
             }
             variant.getAlternateAlleles().forEach(a -> outputFuncotations.add(outputOrderedMap.computeIfAbsent(a, allele -> createDefaultFuncotation(allele))));
         }
-        cacheMisses++;
-        cache.put(cacheKey, outputFuncotations);
+        recordCacheLookup(false);
+        cache.get().put(cacheKey, outputFuncotations);
 
         // The output number of funcotations should equal to the variant.getAlternateAlleles().size()
         return outputFuncotations;
@@ -500,11 +577,20 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
 
         // Get our list of keys and sort them:
         for ( final VCFInfoHeaderLine infoLine : header.getInfoHeaderLines() ) {
+            if ( infoFieldNames != null && !infoFieldNames.contains(infoLine.getID()) ) {
+                continue;
+            }
             infoLineKeys.add(infoLine.getID());
             infoFieldFlagMap.put(infoLine.getID(), infoLine.getType() == VCFHeaderLineType.Flag);
         }
         infoLineKeys.sort(Comparator.naturalOrder());
 
+        if ( infoFieldNames != null && infoLineKeys.size() != infoFieldNames.size() ) {
+            final Set<String> missingFieldNames = new TreeSet<>(infoFieldNames);
+            missingFieldNames.removeAll(infoLineKeys);
+            logger.warn("INFO fields requested for data source " + name + " are not in the header of " + sourceFilePath.toUri() + ": " + missingFieldNames);
+        }
+
         // Add our sorted names to the supported list:
         for ( final String key : infoLineKeys ) {
             if ( infoFieldFlagMap.get(key) ) {
@@ -537,6 +623,9 @@ public class VcfFuncotationFactory extends DataSourceFuncotationFactory {
     @Override
     public void close() {
         logger.info(getName() + " " + getVersion() + " cache hits/total: " + cacheHits + "/" + (cacheMisses + cacheHits));
+        if ( windowReader != null ) {
+            windowReader.close();
+        }
     }
 
     //==================================================================================================================
@@ -4,6 +4,8 @@ import com.google.common.annotations.VisibleForTesting;
 import htsjdk.tribble.Feature;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -18,6 +20,7 @@ import org.broadinstitute.hellbender.utils.nio.PathLineIterator;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +38,8 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     //==================================================================================================================
     // Private Static Members:
 
+    private static final Logger logger = LogManager.getLogger(SimpleKeyXsvFuncotationFactory.class);
+
     //==================================================================================================================
     // Private Members:
 
@@ -69,6 +74,11 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
      */
     private final int numHeaderLinesToIgnore;
 
+    /**
+     * Whether rows may have a different number of columns than the header.
+     */
+    private final boolean permissiveColumns;
+
     /**
      * The names of the columns containing values that will be added to the resulting {@link TableFuncotation}.
      */
@@ -81,10 +91,15 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     private final List<String> emptyAnnotationList;
 
     /**
-     * Map containing the annotations that we have to
+     * Map containing the annotations that we have to, if the data file has no up-to-date {@link SimpleKeyXsvIndex}.
      */
     private final Map<String, List<String>> annotationMap;
 
+    /**
+     * Index of the annotations in the data file, or {@code null} if it has no up-to-date index.
+     */
+    private final SimpleKeyXsvIndex annotationIndex;
+
     //==================================================================================================================
     // Constructors:
 
@@ -151,12 +166,10 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
         annotationOverrideMap = annotationOverrides;
 
         this.numHeaderLinesToIgnore = numHeaderLinesToIgnore;
+        this.permissiveColumns = permissiveColumns;
 
         this.dataSourceIsB37 = isDataSourceB37;
 
-        // Initialize our annotations map:
-        annotationMap = new HashMap<>();
-
         // Create our iterator:
         try ( final PathLineIterator pathLineIterator = new PathLineIterator(xsvInputPath) ) {
 
@@ -164,7 +177,7 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
             final Iterator<String> it = pathLineIterator.iterator();
 
             // Get our column names:
-            annotationColumnNames = createColumnNames(it, numHeaderLinesToIgnore);
+            annotationColumnNames = createColumnNames(it, name, xsvInputPath, delimiter, keyColumn, numHeaderLinesToIgnore);
 
             // Populate our empty annotation list:
             emptyAnnotationList = new ArrayList<>(annotationColumnNames.size());
@@ -172,8 +185,20 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
                 emptyAnnotationList.add("");
             }
 
-            // Populate our annotation map:
-            populateAnnotationMap(it, permissiveColumns);
+            // Use the index of the data file if there is one, and otherwise populate our annotation map:
+            final Path indexPath = SimpleKeyXsvIndex.getIndexPath(xsvInputPath);
+            if ( SimpleKeyXsvIndex.isUpToDate(indexPath, xsvInputPath,
+                    getIndexParameters(delimiter, keyColumn, keyType, numHeaderLinesToIgnore, annotationColumnNames.size(), permissiveColumns)) ) {
+                logger.info("Using index " + indexPath.toUri() + " for data source " + name);
+                annotationIndex = SimpleKeyXsvIndex.open(indexPath);
+                annotationMap = null;
+            }
+            else {
+                annotationIndex = null;
+                annotationMap = new HashMap<>();
+                parseDataRows(it, xsvInputPath, delimiter, keyColumn, keyType, numHeaderLinesToIgnore, annotationColumnNames.size(),
+                        permissiveColumns, annotationMap::put);
+            }
         }
 
         // Initialize overrides / defaults:
@@ -227,7 +252,7 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     /**
      * {@inheritDoc}
      * For each {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation}, the Transcript ID or Gene Name (Hugo Symbol)
-     * is checked for a match against the key of any annotation in {@link SimpleKeyXsvFuncotationFactory#annotationMap}.
+     * is checked for a match against the key of any annotation in the data file.
      * If a match is found, an {@link TableFuncotation} is added to the list to be returned.
      */
     protected List<Funcotation> createFuncotationsOnVariant(final VariantContext variant,
@@ -258,7 +283,7 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
             }
 
             // Get our annotations:
-            final List<String> annotations = annotationMap.get( key );
+            final List<String> annotations = (annotationIndex != null) ? annotationIndex.get( key ) : annotationMap.get( key );
             if ( annotations != null ) {
                 // Create 1 annotation for each alt allele and add our annotations to the list:
                 for ( final Allele altAllele : variant.getAlternateAlleles() ) {
@@ -285,9 +310,73 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     //==================================================================================================================
     // Static Methods:
 
+    /**
+     * Write a {@link SimpleKeyXsvIndex} of a data file next to it, where it is used by the data sources created from
+     * the data file with the same parameters.  The data file is read one row at a time, and its rows are not kept in memory.
+     * @param name The name of the data source.
+     * @param xsvPath {@link Path} to the data file.
+     * @param delim The delimiter of the data file.
+     * @param keyColumn The column (0-indexed) containing the key.
+     * @param keyType The type of the key.
+     * @param numHeaderLinesToIgnore The number of lines at the top of the data file to ignore before its header.
+     * @param permissiveColumns Whether rows may have a different number of columns than the header.
+     * @return The {@link Path} of the index.
+     */
+    public static Path writeIndex(final String name,
+                                  final Path xsvPath,
+                                  final String delim,
+                                  final int keyColumn,
+                                  final XsvDataKeyType keyType,
+                                  final int numHeaderLinesToIgnore,
+                                  final boolean permissiveColumns) {
+        Utils.nonNull(xsvPath);
+        final Path indexPath = SimpleKeyXsvIndex.getIndexPath(xsvPath);
+
+        try ( final PathLineIterator pathLineIterator = new PathLineIterator(xsvPath) ) {
+            final Iterator<String> it = pathLineIterator.iterator();
+
+            // Only the number of columns is needed from the header:
+            final int numColumns = createColumnNames(it, name, xsvPath, delim, keyColumn, numHeaderLinesToIgnore).size();
+
+            try ( final SimpleKeyXsvIndex.Writer writer = new SimpleKeyXsvIndex.Writer(indexPath, xsvPath,
+                    getIndexParameters(delim, keyColumn, keyType, numHeaderLinesToIgnore, numColumns, permissiveColumns)) ) {
+                parseDataRows(it, xsvPath, delim, keyColumn, keyType, numHeaderLinesToIgnore, numColumns, permissiveColumns, writer::add);
+                writer.commit();
+            }
+        }
+
+        return indexPath;
+    }
+
+    /**
+     * @return The parameters with which the data file is parsed, which an index must have been written with to be used.
+     */
+    private static String getIndexParameters(final String delimiter,
+                                             final int keyColumn,
+                                             final XsvDataKeyType keyType,
+                                             final int numHeaderLinesToIgnore,
+                                             final int numColumns,
+                                             final boolean permissiveColumns) {
+        return "delimiter=" + delimiter +
+                "\tkeyColumn=" + keyColumn +
+                "\tkeyType=" + keyType +
+                "\tnumHeaderLinesToIgnore=" + numHeaderLinesToIgnore +
+                "\tnumColumns=" + numColumns +
+                "\tpermissiveColumns=" + permissiveColumns;
+    }
+
     //==================================================================================================================
     // Instance Methods:
 
+    /**
+     * Write a {@link SimpleKeyXsvIndex} of the data file of this {@link SimpleKeyXsvFuncotationFactory} next to the data
+     * file, where it is used by data sources created later.  The data file is read again, one row at a time.
+     * @return The {@link Path} of the index.
+     */
+    public Path writeIndex() {
+        return writeIndex(name, xsvInputPath, delimiter, keyColumn, keyType, numHeaderLinesToIgnore, permissiveColumns);
+    }
+
     private List<Funcotation> createDefaultFuncotationsOnVariantHelper( final VariantContext variant, final ReferenceContext referenceContext, final Set<Allele> annotatedAltAlleles  ) {
 
         final List<Funcotation> funcotationList = new ArrayList<>();
@@ -306,10 +395,18 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     /**
      * Creates the annotation column names from the given iterator.
      * @param lineIterator An iterator at the start of an XSV file from which to get the header columns.
+     * @param name The name of the data source, with which the column names are prefixed.
+     * @param xsvPath {@link Path} to the XSV file.
+     * @param delimiter The delimiter of the XSV file.
+     * @param keyColumn The column (0-indexed) containing the key, which is not an annotation column.
      * @param numHeaderLinesToIgnore The number of lines at the start of the file to ignore before beginning parsing.
      */
-    private List<String> createColumnNames(final Iterator<String> lineIterator,
-                                            final int numHeaderLinesToIgnore) {
+    private static List<String> createColumnNames(final Iterator<String> lineIterator,
+                                                  final String name,
+                                                  final Path xsvPath,
+                                                  final String delimiter,
+                                                  final int keyColumn,
+                                                  final int numHeaderLinesToIgnore) {
         // Ignore the leading lines that we were told to ignore:
         for ( int i = 0; i < numHeaderLinesToIgnore ; ++i ) {
             lineIterator.next();
@@ -320,13 +417,13 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
         final List<String> annotationColumnNames =
                 Utils.split(lineIterator.next(), delimiter).stream()
                         .map(n -> n.replaceAll("^\\s+", "").replaceAll("\\s+$", ""))
-                        .map(n -> getName() + "_" + n.replaceAll(" ", "_"))
+                        .map(n -> name + "_" + n.replaceAll(" ", "_"))
                         .collect(Collectors.toCollection(ArrayList::new));
 
         // If the number of columns is < 2, we don't have any data (because we don't add in the column containing
         // the key).  This is an error:
         if ( annotationColumnNames.size() < 2 ) {
-            throw new UserException.MalformedFile("Data Source is badly formatted (" + xsvInputPath.toUri().toString() + ") - contains too few columns (" + annotationColumnNames.size() + ")!  Is the delimiter specified incorrectly?");
+            throw new UserException.MalformedFile("Data Source is badly formatted (" + xsvPath.toUri().toString() + ") - contains too few columns (" + annotationColumnNames.size() + ")!  Is the delimiter specified incorrectly?");
         }
 
         // Pull out the column containing the key so it doesn't appear in our data:
@@ -336,15 +433,29 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
     }
 
     /**
-     * Populates {@link SimpleKeyXsvFuncotationFactory#annotationMap} with data from the given iterator.
-     * Assumes that {@link SimpleKeyXsvFuncotationFactory#annotationColumnNames} is populated.
+     * Parses the data rows from the given iterator and passes the key and annotations of each to the given consumer.
+     * If {@code permissiveColumns} is true, mismatches between the number of columns in the header row and data rows
+     * are allowed.  In the event of a mismatch, the data row with either be padded to the number of columns in the header
+     * or it will be truncated to match the number of columns in the header.
      * @param it An {@link Iterator} of {@link String} starting at the first data line in the file to parse.
-     * @param permissiveColumnNumbers A flag which if true indicates to allow mismatches between the number of columns in the header row and data rows.
-     *                                In the event of a mismatch, the data row with either be padded to the number of columns in the header
-     *                                or it will be truncated to match the number of columns in the header.
+     * @param xsvPath {@link Path} to the XSV file.
+     * @param delimiter The delimiter of the XSV file.
+     * @param keyColumn The column (0-indexed) containing the key.
+     * @param keyType The type of the key.
+     * @param numHeaderLinesToIgnore The number of lines at the start of the file that were ignored before the header.
+     * @param numColumns The number of annotation columns in the header (without the key column).
+     * @param permissiveColumns Whether rows may have a different number of columns than the header.
+     * @param rowConsumer Accepts the key and annotations of each row.
      */
-    private void populateAnnotationMap(final Iterator<String> it,
-                                       final boolean permissiveColumnNumbers) {
+    private static void parseDataRows(final Iterator<String> it,
+                                      final Path xsvPath,
+                                      final String delimiter,
+                                      final int keyColumn,
+                                      final XsvDataKeyType keyType,
+                                      final int numHeaderLinesToIgnore,
+                                      final int numColumns,
+                                      final boolean permissiveColumns,
+                                      final BiConsumer<String, List<String>> rowConsumer) {
 
         boolean emptyLineFlag = false;
 
@@ -380,22 +491,22 @@ public class SimpleKeyXsvFuncotationFactory extends DataSourceFuncotationFactory
             }
 
             // Make sure we have the same number of columns:
-            if ( (dataRow.size() != annotationColumnNames.size()) ) {
-                if ( !permissiveColumnNumbers ) {
-                    throw new UserException.MalformedFile("Data Source is badly formatted (" + xsvInputPath.toUri().toString() + ") - row " + dataRowNum + " does not contain the same number of columns as header (" + dataRow.size() + " != " + annotationColumnNames.size() + ")!");
+            if ( (dataRow.size() != numColumns) ) {
+                if ( !permissiveColumns ) {
+                    throw new UserException.MalformedFile("Data Source is badly formatted (" + xsvPath.toUri().toString() + ") - row " + dataRowNum + " does not contain the same number of columns as header (" + dataRow.size() + " != " + numColumns + ")!");
                 }
-                else if ( dataRow.size() > annotationColumnNames.size() ) {
+                else if ( dataRow.size() > numColumns ) {
                     dataRow.remove(dataRow.size()-1);
                 }
                 else {
-                    while ( dataRow.size() < annotationColumnNames.size() ) {
+                    while ( dataRow.size() < numColumns ) {
                         dataRow.add( "" );
                     }
                 }
             }
 
-            // Store this in our map:
-            annotationMap.put(rowKey, dataRow);
+            // Store this in our map (or index):
+            rowConsumer.accept(rowKey, dataRow);
 
             // Increment our row counter:
             ++dataRowNum;
@@ -0,0 +1,322 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.MappedDataSourceFiles;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a simple-key XSV data source, keyed and sorted in a binary file that is memory-mapped and queried in place.
+ *
+ * {@link SimpleKeyXsvFuncotationFactory} would otherwise read the whole data file into a hash map every time it is
+ * created, which for data sources of millions of rows takes gigabytes of heap and minutes of startup.  Opening an
+ * index costs nothing, lookups are binary searches in mapped memory, and only the pages that are read are resident.
+ *
+ * An index is created once, next to the data file, by
+ * {@link org.broadinstitute.hellbender.tools.funcotator.CreateSimpleKeyXsvIndex}.  It records the size and the
+ * last-modified time of the data file and the parameters with which the data file was parsed (delimiter, key column,
+ * ...), so that it is ignored if the data file changes or is configured differently.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *     header:     magic "SKXI", version (int), size and last-modified time in milliseconds of the data file (longs),
+ *                 number of keys, length of the longest row (ints), offset of the keys and offset of the parameters
+ *                 (longs), length of the parameters (int)
+ *     rows:       for each row: length of its key, the key, number of values, and for each value its length and the
+ *                 value (lengths are ints, strings are in UTF-8)
+ *     keys:       for each key, sorted: offset of its row relative to the first row (long)
+ *     parameters: the parsing parameters of the data file, in UTF-8
+ * </pre>
+ */
+public final class SimpleKeyXsvIndex {
+    private static final Logger logger = LogManager.getLogger(SimpleKeyXsvIndex.class);
+
+    /**
+     * Extension of an index, added to the name of the data file it was created from.
+     */
+    public static final String INDEX_EXTENSION = ".skxi";
+
+    private static final byte[] MAGIC = {'S', 'K', 'X', 'I'};
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+    private static final int XSV_SIZE_OFFSET = MAGIC.length + Integer.BYTES;
+    private static final int XSV_LAST_MODIFIED_OFFSET = XSV_SIZE_OFFSET + Long.BYTES;
+    private static final int PARAMETERS_OFFSET = HEADER_LENGTH - Integer.BYTES - Long.BYTES;
+    private static final String DESCRIPTION = "simple-key XSV index";
+
+    private final Path path;
+    private final int numKeys;
+    private final MappedByteBuffer keys;
+    private final MappedByteBuffer[] rowWindows;
+
+    private SimpleKeyXsvIndex(final Path path) throws IOException {
+        this.path = path;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = readHeader(channel);
+            if (header == null) {
+                throw new UserException.MalformedFile(path, "not a simple-key XSV index of version " + VERSION);
+            }
+            header.position(XSV_LAST_MODIFIED_OFFSET + Long.BYTES);
+            numKeys = header.getInt();
+            final int maxRowLength = header.getInt();
+            final long keysOffset = header.getLong();
+
+            keys = channel.map(FileChannel.MapMode.READ_ONLY, keysOffset, (long) numKeys * Long.BYTES);
+
+            rowWindows = MappedDataSourceFiles.mapWindows(channel, HEADER_LENGTH, keysOffset - HEADER_LENGTH, maxRowLength);
+        }
+    }
+
+    /**
+     * @param xsvPath the data file of a simple-key XSV data source
+     * @return where the index of {@code xsvPath} is
+     */
+    public static Path getIndexPath(final Path xsvPath) {
+        Utils.nonNull(xsvPath);
+        return xsvPath.resolveSibling(xsvPath.getFileName() + INDEX_EXTENSION);
+    }
+
+    /**
+     * Open an index.
+     *
+     * @param indexPath an index created by a {@link Writer}
+     * @return never {@code null}
+     */
+    public static SimpleKeyXsvIndex open(final Path indexPath) {
+        Utils.nonNull(indexPath);
+        try {
+            return new SimpleKeyXsvIndex(indexPath);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(indexPath, e);
+        }
+    }
+
+    /**
+     * @param indexPath where an index might be
+     * @param xsvPath the data file
+     * @param parameters the parameters with which the data file is parsed
+     * @return {@code true} if there is an index at {@code indexPath} on the local file system, of the current version,
+     *         created from a data file of the same size and last-modified time as {@code xsvPath} parsed with the same
+     *         {@code parameters}
+     */
+    public static boolean isUpToDate(final Path indexPath, final Path xsvPath, final String parameters) {
+        Utils.nonNull(indexPath);
+        Utils.nonNull(xsvPath);
+        Utils.nonNull(parameters);
+        // Only local files can be memory-mapped:
+        if (indexPath.getFileSystem() != FileSystems.getDefault() || !Files.isRegularFile(indexPath)) {
+            return false;
+        }
+        try (final FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            final ByteBuffer header = readHeader(channel);
+            if (header == null || !MappedDataSourceFiles.isCompiledFrom(header, XSV_SIZE_OFFSET, xsvPath)) {
+                return false;
+            }
+            final long parametersOffset = header.getLong(PARAMETERS_OFFSET);
+            final int parametersLength = header.getInt(PARAMETERS_OFFSET + Long.BYTES);
+            final ByteBuffer indexParameters = ByteBuffer.allocate(parametersLength);
+            while (indexParameters.hasRemaining() && channel.read(indexParameters, parametersOffset + indexParameters.position()) > 0) {
+                // read until the parameters are complete or the file ends
+            }
+            return !indexParameters.hasRemaining() &&
+                    new String(indexParameters.array(), StandardCharsets.UTF_8).equals(parameters);
+        } catch (final IOException e) {
+            logger.warn("Could not read simple-key XSV index " + indexPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the header of the index, positioned after the version, or {@code null} if it is not an index of the
+     *         current version
+     */
+    private static ByteBuffer readHeader(final FileChannel channel) throws IOException {
+        return MappedDataSourceFiles.readHeader(channel, MAGIC, VERSION, HEADER_LENGTH);
+    }
+
+    /**
+     * @param key the key of a row
+     * @return the values of the row with the given key (without the key), or {@code null} if there is none
+     */
+    public List<String> get(final String key) {
+        Utils.nonNull(key);
+        int low = 0;
+        int high = numKeys - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final ByteBuffer row = MappedDataSourceFiles.getRecord(rowWindows, keys.getLong(mid * Long.BYTES));
+            final int comparison = readString(row).compareTo(key);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                final int numValues = row.getInt();
+                final List<String> values = new ArrayList<>(numValues);
+                for (int i = 0; i < numValues; i++) {
+                    values.add(readString(row));
+                }
+                return values;
+            }
+        }
+        return null;
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    //==================================================================================================================
+
+    /**
+     * Writes an index from the rows of a data file.
+     *
+     * Rows are written to the index as they are added, and only their keys and positions are kept in memory.  A key
+     * added several times refers to the last row added with it, as when the data file is read into a map.  The index
+     * is written to a temporary file that is moved to its final path by {@link #commit}, so that an index that is being
+     * written is never read; closing a writer that was not committed discards the temporary file.
+     */
+    public static final class Writer implements Closeable {
+        private final Path indexPath;
+        private final long xsvSize;
+        private final long xsvLastModified;
+        private final String parameters;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final Map<String, Long> rowOffsets = new HashMap<>();
+        private final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+        private final DataOutputStream row = new DataOutputStream(rowBytes);
+        private long rowsLength = 0;
+        private int maxRowLength = 0;
+        private boolean isCommitted = false;
+
+        /**
+         * @param indexPath where to write the index
+         * @param xsvPath the data file whose rows are added
+         * @param parameters the parameters with which the data file is parsed
+         */
+        public Writer(final Path indexPath, final Path xsvPath, final String parameters) {
+            this.indexPath = Utils.nonNull(indexPath);
+            this.parameters = Utils.nonNull(parameters);
+            Utils.nonNull(xsvPath);
+            try {
+                xsvSize = Files.size(xsvPath);
+                xsvLastModified = Files.getLastModifiedTime(xsvPath).toMillis();
+                channel = FileChannel.open(MappedDataSourceFiles.getTemporaryPath(indexPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                channel.position(HEADER_LENGTH);
+                out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(indexPath.toString(), "could not create the simple-key XSV index", e);
+            }
+        }
+
+        /**
+         * @param key the key of the row
+         * @param values the other values of the row
+         */
+        public void add(final String key, final List<String> values) {
+            Utils.nonNull(key);
+            Utils.nonNull(values);
+            rowBytes.reset();
+            try {
+                writeString(row, key);
+                row.writeInt(values.size());
+                for (final String value : values) {
+                    writeString(row, value);
+                }
+                rowBytes.writeTo(out);
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(indexPath.toString(), "could not write the simple-key XSV index", e);
+            }
+            rowOffsets.put(key, rowsLength);
+            rowsLength += rowBytes.size();
+            maxRowLength = Math.max(maxRowLength, rowBytes.size());
+        }
+
+        private static void writeString(final DataOutputStream out, final String s) throws IOException {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Write the sorted keys and the header, and move the index into place.
+         */
+        public void commit() {
+            Utils.validate(!isCommitted, "the simple-key XSV index has already been committed");
+            Utils.validate(rowOffsets.size() <= Integer.MAX_VALUE / Long.BYTES, "too many keys for a simple-key XSV index");
+            final List<String> sortedKeys = new ArrayList<>(rowOffsets.keySet());
+            sortedKeys.sort(null);
+
+            final byte[] parameterBytes = parameters.getBytes(StandardCharsets.UTF_8);
+            final long keysOffset = HEADER_LENGTH + rowsLength;
+            try {
+                for (final String key : sortedKeys) {
+                    out.writeLong(rowOffsets.get(key));
+                }
+                out.write(parameterBytes);
+                out.flush();
+
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                header.put(MAGIC);
+                header.putInt(VERSION);
+                header.putLong(xsvSize);
+                header.putLong(xsvLastModified);
+                header.putInt(sortedKeys.size());
+                header.putInt(maxRowLength);
+                header.putLong(keysOffset);
+                header.putLong(keysOffset + (long) sortedKeys.size() * Long.BYTES);
+                header.putInt(parameterBytes.length);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                out.close();
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(indexPath.toString(), "could not write the simple-key XSV index", e);
+            }
+
+            isCommitted = true;
+            MappedDataSourceFiles.moveIntoPlace(indexPath, DESCRIPTION);
+        }
+
+        @Override
+        public void close() {
+            if (!isCommitted) {
+                try {
+                    out.close();
+                } catch (final IOException e) {
+                    logger.warn("Could not close incomplete " + DESCRIPTION + " " + indexPath + ": " + e.getMessage());
+                }
+                MappedDataSourceFiles.deleteTemporaryFile(indexPath, DESCRIPTION);
+            }
+        }
+    }
+}
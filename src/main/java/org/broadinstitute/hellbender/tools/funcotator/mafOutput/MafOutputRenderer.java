@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools.funcotator.mafOutput;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -9,7 +11,6 @@ import htsjdk.variant.vcf.VCFHeaderLine;
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.funcotator.DataSourceFuncotationFactory;
 import org.broadinstitute.hellbender.tools.funcotator.Funcotation;
@@ -34,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -41,7 +43,9 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -65,6 +69,13 @@ public class MafOutputRenderer extends OutputRenderer {
 
     private static final Logger logger = LogManager.getLogger(MafOutputRenderer.class);
 
+    /**
+     * Maximum number of {@link RowLayout}s to keep.
+     */
+    private static final int MAX_CACHED_ROW_LAYOUTS = 100;
+
+    private static final Pattern OTHER_TRANSCRIPT_DELIMITER_PATTERN = Pattern.compile(VcfOutputRenderer.OTHER_TRANSCRIPT_DELIMITER);
+
     private static final Set<String> HG_19_CHR_SET = new HashSet<>(Arrays.asList("1","2","3","4","5","6","7","8","9","10","11","12","13","14","15","16","17","18","19","20","21","22","X","Y"));
 
     private static final List<String> ORDERED_GENCODE_VARIANT_CLASSIFICATIONS = new ArrayList<> (Arrays.asList(
@@ -166,6 +177,17 @@ public class MafOutputRenderer extends OutputRenderer {
     /** Fields that should be removed in the final MAF file. */
     private final Set<String> excludedOutputFields;
 
+    /**
+     * Layouts of MAF rows, by the names of the fields of the funcotations for a row (in order).
+     * The columns of a row, and which field fills each of them, only depend on these names, so they are resolved once.
+     */
+    private final Cache<List<String>, RowLayout> rowLayouts = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ROW_LAYOUTS).build();
+
+    /**
+     * Buffer in which to format rows, for each thread that formats them.
+     */
+    private final ThreadLocal<StringBuilder> rowBuilder = ThreadLocal.withInitial(StringBuilder::new);
+
     //==================================================================================================================
     // Constructors:
 
@@ -322,6 +344,16 @@ public class MafOutputRenderer extends OutputRenderer {
 
     @Override
     public void write(final VariantContext variant, final FuncotationMap txToFuncotationMap) {
+        prepareWrite(variant, txToFuncotationMap).run();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The MAF rows for the given {@code variant} are formatted here, so only writing them is left to the returned {@link Runnable}.
+     */
+    @Override
+    public Runnable prepareWrite(final VariantContext variant, final FuncotationMap txToFuncotationMap) {
 
         if (txToFuncotationMap.getTranscriptList().size() > 1) {
             logger.warn("MAF typically does not support multiple transcripts per variant, though this should be able to render (grouped by transcript).  No user action needed.");
@@ -341,6 +373,12 @@ public class MafOutputRenderer extends OutputRenderer {
             }
         }
 
+        final StringBuilder rows = rowBuilder.get();
+        rows.setLength(0);
+
+        // The columns of the first row, in case it is the first row of the file and the header must be written:
+        List<String> firstRowColumnNames = null;
+
         // Loop through each alt allele in our variant:
         for ( final Allele altAllele : variant.getAlternateAlleles() ) {
 
@@ -350,124 +388,194 @@ public class MafOutputRenderer extends OutputRenderer {
             }
 
             for (final String txId : txToFuncotationMap.getTranscriptList()) {
-
-                final List<Funcotation> funcotations = txToFuncotationMap.get(txId);
-                final LinkedHashMap<String, String> mafCompliantOutputMap = createMafCompliantOutputMap(altAllele, funcotations);
-
-                // Write our header if we have to:
-                if (!hasWrittenHeader) {
-                    // Please note that we are implicitly using the ordering of a LinkedHashMap under the hood.
-                    writeHeader(new ArrayList<>(mafCompliantOutputMap.keySet()));
+                final List<String> fieldNames = new ArrayList<>();
+                final List<String> fieldValues = new ArrayList<>();
+                collectFields(altAllele, txToFuncotationMap.get(txId), fieldNames, fieldValues);
+
+                final RowLayout layout = getRowLayout(fieldNames);
+                final String[] values = createMafRowValues(layout, fieldValues);
+                if (firstRowColumnNames == null) {
+                    firstRowColumnNames = layout.outputColumnNames;
                 }
 
-                try {
-                    // Write the output (with manual annotations at the end):
-                    final Iterator<Map.Entry<String, String>> entryIterator =
-                            mafCompliantOutputMap.entrySet().iterator();
-
-                    // We should always have at least 1 field here:
-                    Map.Entry<String, String> entry = entryIterator.next();
-                    writeString(entry.getValue());
-
-                    while (entryIterator.hasNext()) {
-                        entry = entryIterator.next();
-                        writeString(MafOutputRendererConstants.FIELD_DELIMITER);
-                        writeString(entry.getValue());
+                // Write the output (with manual annotations at the end).  We should always have at least 1 field here:
+                for (int i = 0; i < layout.outputColumns.length; ++i) {
+                    if (i > 0) {
+                        rows.append(MafOutputRendererConstants.FIELD_DELIMITER);
                     }
-                    writeLine("");
-                } catch (IOException e){
-                    throw new UserException.CouldNotCreateOutputFile("Error while writing maf file, cause by: " + e.getMessage(), e);
+                    rows.append(FuncotatorUtils.sanitizeFuncotationFieldForMaf(values[layout.outputColumns[i]]));
                 }
+                rows.append(System.lineSeparator());
             }
         }
+
+        final List<String> headerColumnNames = firstRowColumnNames;
+        final String formattedRows = rows.toString();
+        return () -> writeRows(headerColumnNames, formattedRows);
+    }
+
+    /**
+     * Write the given formatted rows, and the header first if it has not been written yet.
+     * @param headerColumnNames The columns of the first of the rows, or {@code null} if there are no rows.
+     * @param formattedRows The rows to write.
+     */
+    private void writeRows(final List<String> headerColumnNames, final String formattedRows) {
+        if (headerColumnNames == null) {
+            return;
+        }
+
+        // Write our header if we have to:
+        if (!hasWrittenHeader) {
+            writeHeader(headerColumnNames);
+        }
+
+        try {
+            writeString(formattedRows);
+        } catch (IOException e){
+            throw new UserException.CouldNotCreateOutputFile("Error while writing maf file, cause by: " + e.getMessage(), e);
+        }
     }
 
     @VisibleForTesting
     LinkedHashMap<String, String> createMafCompliantOutputMap(final Allele altAllele, final List<Funcotation> funcotations) {
-        // Create our output maps:
-        final LinkedHashMap<String, Object> outputMap = new LinkedHashMap<>(defaultMap);
-        final LinkedHashMap<String, Object> extraFieldOutputMap = new LinkedHashMap<>();
+        final List<String> fieldNames = new ArrayList<>();
+        final List<String> fieldValues = new ArrayList<>();
+        collectFields(altAllele, funcotations, fieldNames, fieldValues);
+
+        final RowLayout layout = getRowLayout(fieldNames);
+        final String[] values = createMafRowValues(layout, fieldValues);
+
+        // Only include fields that are not excluded and sanitize the field values:
+        final LinkedHashMap<String, String> mafCompliantOutputMap = new LinkedHashMap<>();
+        for (final int column : layout.outputColumns) {
+            mafCompliantOutputMap.put(layout.columnNames[column], FuncotatorUtils.sanitizeFuncotationFieldForMaf(values[column]));
+        }
+        return mafCompliantOutputMap;
+    }
 
-        // Get our funcotations for this allele and add them to the output maps:
+    /**
+     * Collects the fields of the given {@code funcotations} for the given {@code altAllele}, followed by the annotation overrides.
+     * @param altAllele The alt allele for which to collect fields.
+     * @param funcotations The funcotations from which to collect fields.
+     * @param fieldNames To which to add the field names, in order.  A field name may be added more than once, in which case the last value is used.
+     * @param fieldValues To which to add the value of each field in {@code fieldNames}.
+     */
+    private void collectFields(final Allele altAllele, final List<Funcotation> funcotations, final List<String> fieldNames, final List<String> fieldValues) {
+        // Get our funcotations for this allele:
         for (final Funcotation funcotation : funcotations) {
             if (funcotation.getAltAllele().equals(altAllele)) {
-                // Add all the fields from the other funcotations into the extra field output:
                 for (final String field : funcotation.getFieldNames()) {
-                    setField(extraFieldOutputMap, field, funcotation.getField(field));
+                    final String value = funcotation.getField(field);
+                    fieldNames.add(field);
+                    fieldValues.add(value != null ? value : FuncotatorConstants.UNKNOWN_VALUE_STRING);
                 }
             }
         }
 
         // Now add in our annotation overrides so they can be aliased correctly with the outputFieldNameMap:
-        extraFieldOutputMap.putAll(overrideAnnotations);
+        for (final Map.Entry<String, String> override : overrideAnnotations.entrySet()) {
+            fieldNames.add(override.getKey());
+            fieldValues.add(override.getValue());
+        }
+    }
+
+    /**
+     * @param fieldNames The names of the fields of a row, as given by {@link #collectFields}.
+     * @return The {@link RowLayout} for rows with the given fields.
+     */
+    private RowLayout getRowLayout(final List<String> fieldNames) {
+        RowLayout layout = rowLayouts.getIfPresent(fieldNames);
+        if (layout == null) {
+            layout = createRowLayout(fieldNames);
+            rowLayouts.put(fieldNames, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Resolves the columns of rows with the given fields.
+     * @param fieldNames The names of the fields of a row, as given by {@link #collectFields}.
+     * @return The {@link RowLayout} for rows with the given fields.
+     */
+    private RowLayout createRowLayout(final List<String> fieldNames) {
+        // Number the distinct fields, in the order in which they are first seen:
+        final LinkedHashMap<String, Integer> extraFieldIndices = new LinkedHashMap<>();
+        final int[] distinctFieldOfField = new int[fieldNames.size()];
+        for (int i = 0; i < fieldNames.size(); ++i) {
+            final Integer existingIndex = extraFieldIndices.putIfAbsent(fieldNames.get(i), extraFieldIndices.size());
+            distinctFieldOfField[i] = existingIndex != null ? existingIndex : extraFieldIndices.size() - 1;
+        }
+        final int numDistinctFields = extraFieldIndices.size();
+
+        // Start with the default columns, which take their default values:
+        final LinkedHashMap<String, Integer> columnFields = new LinkedHashMap<>();
+        defaultMap.keySet().forEach(column -> columnFields.put(column, -1));
 
-        // Go through all output fields and see if any of the names in the value list are in our extraFieldOutputMap.
-        // For any that match, we remove them from our extraFieldOutputMap and add them to the outputMap with the
-        // correct key.
+        // Go through all output fields and see if any of the names in the value list are extra fields.
+        // For any that match, we remove them from the extra fields and use them for the output field.
         for (final Map.Entry<String, List<String>> entry : outputFieldNameMap.entrySet()) {
             for (final String fieldName : entry.getValue()) {
-                if (extraFieldOutputMap.containsKey(fieldName)) {
-                    outputMap.put(entry.getKey(), extraFieldOutputMap.remove(fieldName));
+                if (extraFieldIndices.containsKey(fieldName)) {
+                    columnFields.put(entry.getKey(), extraFieldIndices.remove(fieldName));
                     break;
                 }
             }
         }
 
-        // Merge our output maps together:
-        outputMap.putAll(extraFieldOutputMap);
-
-        // Now translate fields/values to the field names/values that MAF likes:
-        final LinkedHashMap<String, String> mafCompliantMap = replaceFuncotationValuesWithMafCompliantValues(outputMap);
-
-        // Remove any fields that are excluded and sanitize any field values.
-        return mafCompliantMap.keySet().stream()
-            .filter(k -> !excludedOutputFields.contains(k))
-            .collect(Collectors.toMap(
-                    Function.identity(), k -> FuncotatorUtils.sanitizeFuncotationFieldForMaf(mafCompliantMap.get(k)),
-                    (u, v) -> {
-                        throw new GATKException.ShouldNeverReachHereException("Found duplicate keys for MAF output");
-                        },
-                    LinkedHashMap::new));
-    }
+        // The remaining extra fields fill their own columns:
+        columnFields.putAll(extraFieldIndices);
 
-    //==================================================================================================================
-    // Instance Methods:
-
-    /**
-     * @return The {@link #defaultMap} with currently populated fields.
-     */
-    @VisibleForTesting
-    LinkedHashMap<String, String> getDefaultMap() {
-        return defaultMap;
+        return new RowLayout(columnFields, defaultMap, excludedOutputFields, distinctFieldOfField, numDistinctFields);
     }
 
     /**
-     * Ensures each value in the given {@code outputMap} is compliant with MAF-expected values.
-     * @param outputMap The {@link Map} of output field -> values to be checked for MAF compliance.
-     * @return A {@link LinkedHashMap} of output field strings -> values to be written to the MAF file.
+     * Creates the MAF-compliant values of all of the columns of a row, including excluded columns, but not yet sanitized.
+     * @param layout The {@link RowLayout} for the fields of the row.
+     * @param fieldValues The value of each field of the row, as given by {@link #collectFields}.
+     * @return The value of each column in {@link RowLayout#columnNames}.
      */
-    @VisibleForTesting
-    LinkedHashMap<String, String> replaceFuncotationValuesWithMafCompliantValues( final Map<String, Object> outputMap ) {
+    private String[] createMafRowValues(final RowLayout layout, final List<String> fieldValues) {
+        final String[] distinctFieldValues = new String[layout.numDistinctFields];
+        for (int i = 0; i < fieldValues.size(); ++i) {
+            distinctFieldValues[layout.distinctFieldOfField[i]] = fieldValues.get(i);
+        }
 
-        final LinkedHashMap<String, String> finalOutMap = new LinkedHashMap<>(outputMap.size());
+        final String[] values = new String[layout.columnNames.length];
+        for (int column = 0; column < values.length; ++column) {
+            final int field = layout.columnFields[column];
+            values[column] = field < 0 ? layout.defaultValues[column] : distinctFieldValues[field];
+        }
 
-        // Massage individual Key/Value pairs:
-        for ( final String key : outputMap.keySet() ) {
-            finalOutMap.put(key, mafTransform(key, outputMap.get(key).toString(), referenceVersion) );
+        // Now translate values to the values that MAF likes:
+        for (final int column : layout.transformedColumns) {
+            values[column] = mafTransform(layout.columnNames[column], values[column], referenceVersion);
         }
 
         // Massage the OtherTranscripts field:
-        if ( finalOutMap.containsKey(MafOutputRendererConstants.FieldName_Other_Transcripts) ) {
-            finalOutMap.put(
-                    MafOutputRendererConstants.FieldName_Other_Transcripts, finalOutMap.get(MafOutputRendererConstants.FieldName_Other_Transcripts)
-                            .replaceAll(VcfOutputRenderer.OTHER_TRANSCRIPT_DELIMITER, MafOutputRendererConstants.OTHER_TRANSCRIPT_DELIMITER)
-            );
+        final Integer otherTranscriptsColumn = layout.columnIndices.get(MafOutputRendererConstants.FieldName_Other_Transcripts);
+        if (otherTranscriptsColumn != null) {
+            values[otherTranscriptsColumn] = OTHER_TRANSCRIPT_DELIMITER_PATTERN.matcher(values[otherTranscriptsColumn])
+                    .replaceAll(MafOutputRendererConstants.OTHER_TRANSCRIPT_DELIMITER);
         }
 
         // Fix the alleles in the case of INDELS:
-        adjustIndelAlleleInformationForMafOutput(finalOutMap);
+        adjustIndelAlleleInformationForMafOutput(
+                column -> layout.columnIndices.containsKey(column) ? values[layout.columnIndices.get(column)] : null,
+                (column, value) -> values[layout.columnIndices.get(column)] = value
+        );
 
-        return finalOutMap;
+        return values;
+    }
+
+    //==================================================================================================================
+    // Instance Methods:
+
+    /**
+     * @return The {@link #defaultMap} with currently populated fields.
+     */
+    @VisibleForTesting
+    LinkedHashMap<String, String> getDefaultMap() {
+        return defaultMap;
     }
 
     /**
@@ -477,14 +585,24 @@ public class MafOutputRenderer extends OutputRenderer {
      */
     @VisibleForTesting
     void adjustIndelAlleleInformationForMafOutput(final LinkedHashMap<String, String> outputMap) {
+        adjustIndelAlleleInformationForMafOutput(outputMap::get, outputMap::put);
+    }
+
+    /**
+     * Checks that a row has MAF-correct values for information relating to INDEL alleles.
+     * @param getField Gets the value of an output field of the row, or {@code null} if the row does not have the field.
+     * @param setField Sets the value of an output field of the row.
+     */
+    private static void adjustIndelAlleleInformationForMafOutput(final Function<String, String> getField, final BiConsumer<String, String> setField) {
         // Massage the start/end/alleles in the case of INDELs
         // (Because MAF has different conventions from VCF for start/end positions of INDELs)
-        if ( outputMap.containsKey(MafOutputRendererConstants.FieldName_Variant_Type) &&
-            (outputMap.get(MafOutputRendererConstants.FieldName_Variant_Type).equals(MafOutputRendererConstants.FieldValue_Variant_Type_Insertion) ||
-             outputMap.get(MafOutputRendererConstants.FieldName_Variant_Type).equals(MafOutputRendererConstants.FieldValue_Variant_Type_Deletion)) ) {
+        final String variantType = getField.apply(MafOutputRendererConstants.FieldName_Variant_Type);
+        if ( variantType != null &&
+            (variantType.equals(MafOutputRendererConstants.FieldValue_Variant_Type_Insertion) ||
+             variantType.equals(MafOutputRendererConstants.FieldValue_Variant_Type_Deletion)) ) {
 
-            final int refAlleleLength = outputMap.get(MafOutputRendererConstants.FieldName_Reference_Allele).length();
-            final int altAlleleLength = outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).length();
+            final int refAlleleLength = getField.apply(MafOutputRendererConstants.FieldName_Reference_Allele).length();
+            final int altAlleleLength = getField.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).length();
 
             // TODO: port these changes to GencodeFuncotationFactory (issue: https://github.com/broadinstitute/gatk/issues/4378)
             // Check to see if it's an insertion:
@@ -494,10 +612,10 @@ public class MafOutputRenderer extends OutputRenderer {
                 //    Replace the ref_allele with "-"
                 //    Replace the Tumor_Seq_Allele1 with "-"
                 //    Set the End_Position to be Start_Position + 1 (All Insertions should have length 1 to represent the bases between which the insertion occurs).
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).substring(refAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Reference_Allele,  MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
+                setField.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, getField.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).substring(refAlleleLength));
+                setField.accept(MafOutputRendererConstants.FieldName_Reference_Allele,  MafOutputRendererConstants.EmptyAllele);
+                setField.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, MafOutputRendererConstants.EmptyAllele);
+                setField.accept(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(getField.apply(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
             }
             // Check to see if it's a deletion:
             else if ( refAlleleLength > altAlleleLength ) {
@@ -507,16 +625,16 @@ public class MafOutputRenderer extends OutputRenderer {
                 //    Replace the alt_allele with "-"
                 //    Increment the Start_Position by 1 (start position should be inclusive of the first base deleted)
                 //    Set the End_Position to Start_Position + M - 2, where M = length(ref_allele) (end position should be inclusive of the last base deleted, explanation below)
-                outputMap.put(MafOutputRendererConstants.FieldName_Reference_Allele,  outputMap.get(MafOutputRendererConstants.FieldName_Reference_Allele).substring(altAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1).substring(altAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_Start_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
+                setField.accept(MafOutputRendererConstants.FieldName_Reference_Allele,  getField.apply(MafOutputRendererConstants.FieldName_Reference_Allele).substring(altAlleleLength));
+                setField.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, getField.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1).substring(altAlleleLength));
+                setField.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, MafOutputRendererConstants.EmptyAllele);
+                setField.accept(MafOutputRendererConstants.FieldName_Start_Position, String.valueOf(Integer.valueOf(getField.apply(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
 
                 // Use the new start position we just calculated for this end position.
                 // Then subtract 2 from ref allele length:
                 //    -1 for the removed first base
                 //    -1 for the inclusive nature of positions
-                outputMap.put(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_Start_Position)) + refAlleleLength - 2));
+                setField.accept(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(getField.apply(MafOutputRendererConstants.FieldName_Start_Position)) + refAlleleLength - 2));
             }
         }
     }
@@ -615,26 +733,6 @@ public class MafOutputRenderer extends OutputRenderer {
         return value;
     }
 
-    /**
-     * Set the field in the given {@code outputMap} specified by the given {@code key} to the given {@code value}.
-     * Checks the given {@code key} to see if the given {@code value} must be transformed to be a valid MAF field.
-     * Will only set this field if the given {@code value} is not {@code null}.
-     * @param outputMap {@link Map} of {@link String} to {@link Object} to hold output annotations.  Must not be {@code null}.
-     * @param key {@link String} key to add to the output map.  Must not be {@code null}.
-     * @param value {@link Object} value for the output map.
-     */
-    private void setField(final Map<String, Object> outputMap, final String key, final Object value) {
-        Utils.nonNull(outputMap);
-        Utils.nonNull(key);
-
-        if ( value != null ) {
-            outputMap.put(key, value);
-        }
-        else {
-            outputMap.put(key, FuncotatorConstants.UNKNOWN_VALUE_STRING);
-        }
-    }
-
     /**
      * Write the given line to the {@link #writer} and append a newline.
      * @param line The {@link String} to write as a line to the {@link #writer}.
@@ -909,6 +1007,76 @@ public class MafOutputRenderer extends OutputRenderer {
     //==================================================================================================================
     // Helper Data Types:
 
+    /**
+     * The columns of the MAF rows for a list of field names, and the field (if any) whose value fills each column.
+     */
+    private static final class RowLayout {
+        /** Names of all of the columns of a row, including excluded columns. */
+        private final String[] columnNames;
+
+        /** Index of each column in {@link #columnNames}. */
+        private final Map<String, Integer> columnIndices;
+
+        /** For each column, the index of the distinct field whose value it takes, or -1 if it takes its default value. */
+        private final int[] columnFields;
+
+        /** For each column, its default value, or {@code null} if it takes the value of a field. */
+        private final String[] defaultValues;
+
+        /** For each field name of a row, the index of the distinct field it sets.  If a name appears more than once, its last value is used. */
+        private final int[] distinctFieldOfField;
+
+        private final int numDistinctFields;
+
+        /** Columns whose values must be transformed by {@link #mafTransform}. */
+        private final int[] transformedColumns;
+
+        /** The columns that are written (not excluded), in order. */
+        private final int[] outputColumns;
+
+        /** Names of the columns in {@link #outputColumns}. */
+        private final List<String> outputColumnNames;
+
+        private RowLayout(final LinkedHashMap<String, Integer> columnFieldMap,
+                          final Map<String, String> defaultMap,
+                          final Set<String> excludedOutputFields,
+                          final int[] distinctFieldOfField,
+                          final int numDistinctFields) {
+            final int numColumns = columnFieldMap.size();
+            columnNames = new String[numColumns];
+            columnIndices = new HashMap<>(numColumns * 2);
+            columnFields = new int[numColumns];
+            defaultValues = new String[numColumns];
+
+            final List<Integer> transformedColumnList = new ArrayList<>();
+            final List<Integer> outputColumnList = new ArrayList<>();
+            int column = 0;
+            for (final Map.Entry<String, Integer> entry : columnFieldMap.entrySet()) {
+                final String name = entry.getKey();
+                columnNames[column] = name;
+                columnIndices.put(name, column);
+                columnFields[column] = entry.getValue();
+                defaultValues[column] = entry.getValue() < 0 ? defaultMap.get(name) : null;
+
+                if (name.equals(MafOutputRendererConstants.FieldName_Variant_Classification) ||
+                        name.equals(MafOutputRendererConstants.FieldName_Chromosome) ||
+                        name.equals(MafOutputRendererConstants.FieldName_Other_Transcripts)) {
+                    transformedColumnList.add(column);
+                }
+                if (!excludedOutputFields.contains(name)) {
+                    outputColumnList.add(column);
+                }
+                ++column;
+            }
+
+            this.distinctFieldOfField = distinctFieldOfField;
+            this.numDistinctFields = numDistinctFields;
+            transformedColumns = transformedColumnList.stream().mapToInt(Integer::intValue).toArray();
+            outputColumns = outputColumnList.stream().mapToInt(Integer::intValue).toArray();
+            outputColumnNames = Collections.unmodifiableList(outputColumnList.stream().map(c -> columnNames[c]).collect(Collectors.toList()));
+        }
+    }
+
     //------------------------------------------------------------------------------------------------------------------
     // Columns:
     
@@ -185,6 +185,11 @@ public final class GenomicsDBImport extends GATKTool {
     private static final long DEFAULT_VCF_BUFFER_SIZE_PER_SAMPLE = 16*1024L;
     private static final long DEFAULT_SEGMENT_SIZE = 1048576L;
     private static final int DEFAULT_ZERO_BATCH_SIZE = 0;
+    // estimated heap used by one feature reader (index, decompression buffers, codec and header), in addition to its
+    // GenomicsDB VCF buffer and cloud prefetch buffers
+    private static final long READER_OVERHEAD_BYTES = 1024 * 1024L;
+    // the VCF and its index
+    private static final int FILES_PER_READER = 2;
 
     public static final String WORKSPACE_ARG_LONG_NAME = "genomicsdb-workspace-path";
     public static final String INCREMENTAL_WORKSPACE_ARG_LONG_NAME = "genomicsdb-update-workspace-path";
@@ -196,6 +201,8 @@ public final class GenomicsDBImport extends GATKTool {
     public static final String VCF_BUFFER_SIZE_ARG_NAME = "genomicsdb-vcf-buffer-size";
 
     public static final String BATCHSIZE_ARG_LONG_NAME = "batch-size";
+    public static final String AUTO_BATCH_SIZE_ARG_LONG_NAME = "auto-batch-size";
+    public static final String PRELOAD_NEXT_BATCH_LONG_NAME = "preload-next-batch";
     public static final String CONSOLIDATE_ARG_NAME = "consolidate";
     public static final String SAMPLE_NAME_MAP_LONG_NAME = "sample-name-map";
     public static final String VALIDATE_SAMPLE_MAP_LONG_NAME = "validate-sample-name-map";
@@ -270,6 +277,15 @@ public final class GenomicsDBImport extends GATKTool {
               optional = true)
     private int batchSize = DEFAULT_ZERO_BATCH_SIZE;
 
+    @Advanced
+    @Argument(fullName = AUTO_BATCH_SIZE_ARG_LONG_NAME,
+              doc = "Choose the batch size from the Java heap and the file descriptors that are available when the import " +
+                    "starts, instead of using " + BATCHSIZE_ARG_LONG_NAME + ". Each sample in a batch is charged an estimate " +
+                    "of the memory used by its readers and its " + VCF_BUFFER_SIZE_ARG_NAME + " for every interval imported " +
+                    "in parallel, and the files they keep open. Cannot be used with a non-zero " + BATCHSIZE_ARG_LONG_NAME + ".",
+              optional = true)
+    private boolean autoBatchSize = false;
+
     @Argument(fullName = CONSOLIDATE_ARG_NAME,
               doc = "Boolean flag to enable consolidation. If importing data in batches, a new fragment is created for " +
                     "each batch. In case thousands of fragments are created, GenomicsDB feature readers will try " +
@@ -321,6 +337,15 @@ public final class GenomicsDBImport extends GATKTool {
             minValue = 1)
     private int vcfInitializerThreads = 1;
 
+    @Advanced
+    @Argument(fullName = PRELOAD_NEXT_BATCH_LONG_NAME,
+            doc = "Open the readers for the next batch, on the " + VCF_INITIALIZER_THREADS_LONG_NAME + " threads, while the " +
+                    "current batch is being imported. The next batch is only preloaded when there is enough free memory " +
+                    "and there are enough free file descriptors to keep the readers of both batches open. Only supported " +
+                    "with batching, a single interval, and without " + BYPASS_FEATURE_READER + ".",
+            optional = true)
+    private boolean preloadNextBatch = false;
+
     @Advanced
     @Argument(fullName = MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL,
             doc = "Max number of intervals to import in parallel; higher values may improve performance, but require more" +
@@ -362,9 +387,16 @@ public final class GenomicsDBImport extends GATKTool {
             optional = true)
     public boolean useGcsHdfsConnector = false;
 
-    //executor service used when vcfInitializerThreads > 1
+    //executor service used when vcfInitializerThreads > 1 or when preloading the next batch
     private ExecutorService inputPreloadExecutorService;
 
+    // estimates the resources used by the samples of a batch
+    private ImportBatchSizer batchSizer;
+
+    // readers being opened for the batch starting at preloadedBatchStart, or null if none
+    private Map<String, Future<FeatureReader<VariantContext>>> preloadedBatch = null;
+    private int preloadedBatchStart = -1;
+
     /**
      * Get the largest interval per contig that contains the intervals specified on the command line.
      * @param getIntervals intervals to be transformed
@@ -456,6 +488,7 @@ public final class GenomicsDBImport extends GATKTool {
         initializeWorkspaceAndToolMode();
         assertVariantPathsOrSampleNameFileWasSpecified();
         assertOverwriteWorkspaceAndIncrementalImportMutuallyExclusive();
+        assertBatchSizeAndAutoBatchSizeMutuallyExclusive();
         initializeHeaderAndSampleMappings();
         initializeIntervals();
         super.onStartup();
@@ -481,6 +514,13 @@ public final class GenomicsDBImport extends GATKTool {
         }
     }
 
+    private void assertBatchSizeAndAutoBatchSizeMutuallyExclusive() {
+        if (autoBatchSize && batchSize != DEFAULT_ZERO_BATCH_SIZE) {
+            throw new CommandLineException.BadArgumentValue(BATCHSIZE_ARG_LONG_NAME, String.valueOf(batchSize),
+                    "a batch size cannot be given when " + AUTO_BATCH_SIZE_ARG_LONG_NAME + " is set");
+        }
+    }
+
     private void assertVariantPathsOrSampleNameFileWasSpecified(){
         if ( (variantPaths == null || variantPaths.isEmpty()) && sampleNameMapFile == null && !getIntervalsFromExistingWorkspace) {
             throw new CommandLineException.MissingArgument(StandardArgumentDefinitions.VARIANT_LONG_NAME,
@@ -727,7 +767,12 @@ public final class GenomicsDBImport extends GATKTool {
     }
 
     private void initializeInputPreloadExecutorService() {
-        if( vcfInitializerThreads > 1) {
+        if (preloadNextBatch && (bypassFeatureReader || (batchSize == DEFAULT_ZERO_BATCH_SIZE && !autoBatchSize))) {
+            logger.warn(PRELOAD_NEXT_BATCH_LONG_NAME + " is only supported with batching and without " + BYPASS_FEATURE_READER
+                    + ", so the next batch will not be preloaded.");
+            preloadNextBatch = false;
+        }
+        if( vcfInitializerThreads > 1 || preloadNextBatch) {
             if( intervals != null && intervals.size() == 1) {
                 final ThreadFactory threadFactory = new ThreadFactoryBuilder()
                     .setNameFormat("readerInitializer-thread-%d")
@@ -736,9 +781,10 @@ public final class GenomicsDBImport extends GATKTool {
                 this.inputPreloadExecutorService = Executors.newFixedThreadPool(vcfInitializerThreads, threadFactory);
             }
             else {
-                logger.warn("GenomicsDBImport cannot use multiple VCF reader threads for initialization when the "
-                    + "number of intervals is greater than 1. Falling back to serial VCF reader initialization.");
+                logger.warn("GenomicsDBImport cannot use multiple VCF reader threads for initialization or preload the "
+                    + "next batch when the number of intervals is greater than 1. Falling back to serial VCF reader initialization.");
                 inputPreloadExecutorService = null;
+                preloadNextBatch = false;
             }
         } else {
             inputPreloadExecutorService = null;
@@ -873,6 +919,17 @@ public final class GenomicsDBImport extends GATKTool {
         return importConfig;
     }
 
+    /**
+     * Estimate the resources used by each sample in a batch: every interval imported in parallel opens its own
+     * reader, with its own buffers, for each sample.
+     */
+    private ImportBatchSizer makeBatchSizer() {
+        final long bytesPerReader = vcfBufferSizePerSample + READER_OVERHEAD_BYTES
+                + (long) (Math.max(0, cloudPrefetchBuffer) + Math.max(0, cloudIndexPrefetchBuffer)) * 1024 * 1024;
+        return new ImportBatchSizer(bytesPerReader * maxNumIntervalsToImportInParallel,
+                FILES_PER_READER * maxNumIntervalsToImportInParallel);
+    }
+
     /**
      * A complete traversal from start to finish. This method will import all samples
      * specified in the input GVCF files.
@@ -892,6 +949,12 @@ public final class GenomicsDBImport extends GATKTool {
         progressMeter.setRecordsBetweenTimeChecks(1L);
 
         final int sampleCount = sampleNameToVcfPath.size();
+        batchSizer = makeBatchSizer();
+        if (autoBatchSize) {
+            // the import keeps the batch size fixed, so choose it once from the resources available now
+            batchSize = batchSizer.chooseBatchSize(sampleCount, preloadNextBatch ? 2 : 1);
+            logger.info("Importing " + sampleCount + " samples in batches of " + batchSize + " samples");
+        }
         final int updatedBatchSize = (batchSize == DEFAULT_ZERO_BATCH_SIZE) ? sampleCount : batchSize;
         final ImportConfig importConfig = createImportConfig(updatedBatchSize);
 
@@ -946,6 +1009,48 @@ public final class GenomicsDBImport extends GATKTool {
             final SortedMap<String, URI> sampleNametoPath, final int batchSize, final int lowerSampleIndex) {
         final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = new TreeMap<>();
         logger.info("Starting batch input file preload");
+        final Map<String, Future<FeatureReader<VariantContext>>> futures;
+        if (preloadedBatch != null && preloadedBatchStart == lowerSampleIndex) {
+            futures = preloadedBatch;
+        } else {
+            closePreloadedBatch();
+            futures = submitReaderInitialization(sampleNametoPath, batchSize, lowerSampleIndex);
+        }
+        preloadedBatch = null;
+
+        futures.forEach((sampleName, future) -> {
+            try {
+                final FeatureReader<VariantContext> reader = future.get();
+                sampleToReaderMap.put(sampleName, reader);
+            } catch (InterruptedException | ExecutionException e) {
+                throw new UserException.CouldNotReadInputFile("Failure while waiting for FeatureReader to initialize ",
+                                                              e);
+            }
+        });
+        logger.info("Finished batch preload");
+
+        // open the readers of the next batch while this one is imported, if there is room for both
+        final int nextBatchStart = lowerSampleIndex + batchSize;
+        if (preloadNextBatch && nextBatchStart < sampleNametoPath.size()) {
+            final int nextBatchSize = Math.min(batchSize, sampleNametoPath.size() - nextBatchStart);
+            if (batchSizer.canOpenBatch(nextBatchSize)) {
+                preloadedBatch = submitReaderInitialization(sampleNametoPath, batchSize, nextBatchStart);
+                preloadedBatchStart = nextBatchStart;
+            } else {
+                logger.info("Not enough free memory or file descriptors to preload the next batch");
+            }
+        }
+        logger.info("Importing batch " + this.batchCount + " with " + sampleToReaderMap.size() + " samples");
+        return sampleToReaderMap;
+    }
+
+    /**
+     * Start opening the readers of the samples in a batch on the preload threads
+     *
+     * @return futures for the initialized readers, by sample name, in sample order
+     */
+    private Map<String, Future<FeatureReader<VariantContext>>> submitReaderInitialization(
+            final SortedMap<String, URI> sampleNametoPath, final int batchSize, final int lowerSampleIndex) {
         final Map<String, Future<FeatureReader<VariantContext>>> futures = new LinkedHashMap<>();
         final List<String> sampleNames = new ArrayList<>(sampleNametoPath.keySet());
         for(int i = lowerSampleIndex; i < sampleNametoPath.size() && i < lowerSampleIndex+batchSize; ++i) {
@@ -959,19 +1064,26 @@ public final class GenomicsDBImport extends GATKTool {
                 }
             }));
         }
+        return futures;
+    }
 
-        futures.forEach((sampleName, future) -> {
-            try {
-                final FeatureReader<VariantContext> reader = future.get();
-                sampleToReaderMap.put(sampleName, reader);
-            } catch (InterruptedException | ExecutionException e) {
-                throw new UserException.CouldNotReadInputFile("Failure while waiting for FeatureReader to initialize ",
-                                                              e);
+    /**
+     * Close the readers of a preloaded batch that will not be imported, if any
+     */
+    private void closePreloadedBatch() {
+        if (preloadedBatch == null) {
+            return;
+        }
+        preloadedBatch.values().forEach(future -> {
+            if (!future.cancel(true) && !future.isCancelled()) {
+                try {
+                    future.get().close();
+                } catch (final InterruptedException | ExecutionException | IOException e) {
+                    logger.warn("Error closing a preloaded reader", e);
+                }
             }
         });
-        logger.info("Finished batch preload");
-        logger.info("Importing batch " + this.batchCount + " with " + sampleToReaderMap.size() + " samples");
-        return sampleToReaderMap;
+        preloadedBatch = null;
     }
 
     private SortedMap<String, FeatureReader<VariantContext>> getFeatureReadersSerially(final Map<String, URI> sampleNameToPath,
@@ -1132,6 +1244,7 @@ public final class GenomicsDBImport extends GATKTool {
 
     @Override
     public void onShutdown(){
+        closePreloadedBatch();
         if(inputPreloadExecutorService != null) {
             inputPreloadExecutorService.shutdownNow();
         }
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Chooses the number of samples imported per batch by {@link GenomicsDBImport}, and decides whether the readers of
+ * the next batch can be opened while the current batch is being imported, from the heap and the file descriptors
+ * that are available.
+ *
+ * Each sample in a batch is charged an estimate of the heap used by its reader and import buffers, and the number of
+ * files it keeps open. A batch may use at most {@link #HEAP_FRACTION} of the heap that is free (counting heap that
+ * the JVM has not yet allocated) and {@link #FILE_DESCRIPTOR_FRACTION} of the file descriptors that are not open.
+ * File descriptor counts are only available on Unix-like systems; elsewhere only the heap is taken into account.
+ */
+final class ImportBatchSizer {
+    /**
+     * Fraction of the free heap that a batch may use
+     */
+    static final double HEAP_FRACTION = 0.5;
+
+    /**
+     * Fraction of the available file descriptors that a batch may use
+     */
+    static final double FILE_DESCRIPTOR_FRACTION = 0.8;
+
+    /**
+     * Value returned for file descriptor counts when they are not available
+     */
+    static final long UNKNOWN = -1;
+
+    private final long bytesPerSample;
+    private final int filesPerSample;
+
+    /**
+     * @param bytesPerSample estimated heap used by the reader and the import buffers of one sample in a batch
+     * @param filesPerSample number of files kept open for one sample in a batch
+     */
+    ImportBatchSizer(final long bytesPerSample, final int filesPerSample) {
+        Utils.validateArg(bytesPerSample > 0, "bytesPerSample must be positive");
+        Utils.validateArg(filesPerSample > 0, "filesPerSample must be positive");
+        this.bytesPerSample = bytesPerSample;
+        this.filesPerSample = filesPerSample;
+    }
+
+    /**
+     * Choose a batch size for the currently available heap and file descriptors.
+     *
+     * @param sampleCount total number of samples to import
+     * @param batchesOpenAtOnce number of batches whose readers may be open at the same time
+     * @return a batch size between 1 and {@code sampleCount}
+     */
+    int chooseBatchSize(final int sampleCount, final int batchesOpenAtOnce) {
+        Utils.validateArg(batchesOpenAtOnce > 0, "batchesOpenAtOnce must be positive");
+        final long availableFiles = getAvailableFileDescriptors();
+        return batchSizeForBudget(sampleCount, getAvailableHeap() / batchesOpenAtOnce, bytesPerSample,
+                availableFiles == UNKNOWN ? UNKNOWN : availableFiles / batchesOpenAtOnce, filesPerSample);
+    }
+
+    /**
+     * @return true if there is room to open the readers of a batch of {@code batchSize} samples now, in addition to
+     *         what is already in use
+     */
+    boolean canOpenBatch(final int batchSize) {
+        return samplesWithinBudget(batchSize, getAvailableHeap(), bytesPerSample,
+                getAvailableFileDescriptors(), filesPerSample) == batchSize;
+    }
+
+    /**
+     * The largest number of samples, up to {@code sampleCount}, whose estimated use fits within the given budgets.
+     * Never less than 1, so that the import can always make progress.
+     *
+     * @param availableHeap heap that is free, in bytes
+     * @param availableFiles file descriptors that can still be opened, or {@link #UNKNOWN}
+     */
+    @VisibleForTesting
+    static int batchSizeForBudget(final int sampleCount, final long availableHeap, final long bytesPerSample,
+                                  final long availableFiles, final int filesPerSample) {
+        Utils.validateArg(sampleCount > 0, "sampleCount must be positive");
+        return Math.max(1, samplesWithinBudget(sampleCount, availableHeap, bytesPerSample, availableFiles, filesPerSample));
+    }
+
+    private static int samplesWithinBudget(final int sampleCount, final long availableHeap, final long bytesPerSample,
+                                           final long availableFiles, final int filesPerSample) {
+        long samples = Math.min(sampleCount, (long) (Math.max(0, availableHeap) * HEAP_FRACTION / bytesPerSample));
+        if (availableFiles != UNKNOWN) {
+            samples = Math.min(samples, (long) (Math.max(0, availableFiles) * FILE_DESCRIPTOR_FRACTION / filesPerSample));
+        }
+        return (int) samples;
+    }
+
+    /**
+     * @return heap that can still be allocated: the free part of the current heap plus the part the JVM may still grow
+     */
+    static long getAvailableHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * @return number of file descriptors that this process can still open, or {@link #UNKNOWN} if not available
+     */
+    static long getAvailableFileDescriptors() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof UnixOperatingSystemMXBean) {
+            final UnixOperatingSystemMXBean unix = (UnixOperatingSystemMXBean) os;
+            return unix.getMaxFileDescriptorCount() - unix.getOpenFileDescriptorCount();
+        }
+        return UNKNOWN;
+    }
+}
@@ -40,7 +40,7 @@ public class MarkDuplicatesSparkUtils {
     public static final String OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME = "OD";
     // This comparator represents the tiebreaking for PairedEnds duplicate marking.
     // We compare first on score, followed by unclipped start position (which is reversed here because of the expected ordering)
-    private static final Comparator<TransientFieldPhysicalLocation> PAIRED_ENDS_SCORE_COMPARATOR = Comparator.comparing(TransientFieldPhysicalLocation::getScore)
+    public static final Comparator<TransientFieldPhysicalLocation> PAIRED_ENDS_SCORE_COMPARATOR = Comparator.comparing(TransientFieldPhysicalLocation::getScore)
             .thenComparing(TransientFieldPhysicalLocationComparator.INSTANCE.reversed());
 
     /**
@@ -217,7 +217,7 @@ public class MarkDuplicatesSparkUtils {
     /**
      * Method which generates a map of the readgroups from the header so they can be serialized as indexes
      */
-    private static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
+    public static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
         final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
         if (readGroups.size() > 65535) {
             throw new GATKException("Detected too many read groups in the header, currently MarkDuplicatesSpark only supports up to 65535 unique readgroup IDs but " + readGroups.size() + " were found");
@@ -442,9 +442,18 @@ public class MarkDuplicatesSparkUtils {
      * @param result metrics object, potentially pre-initialized with headers,
      */
     public static void saveMetricsRDD(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final JavaPairRDD<String, GATKDuplicationMetrics> metricsRDD, final String metricsOutputPath) {
+        saveMetrics(result, header, metricsRDD.collectAsMap(), metricsOutputPath);
+    }
+
+    /**
+     * Saves already collected per-library metrics to a file.
+     * Note: the SamFileHeader is needed in order to include libraries that didn't have any duplicates.
+     * @param result metrics object, potentially pre-initialized with headers,
+     * @param nonEmptyMetricsByLibrary metrics keyed by library name, with pair counts already divided by 2
+     */
+    public static void saveMetrics(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary, final String metricsOutputPath) {
         final LibraryIdGenerator libraryIdGenerator = new LibraryIdGenerator(header);
 
-        final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary = metricsRDD.collectAsMap();           //Unknown Library
         final Map<String, GATKDuplicationMetrics> emptyMapByLibrary = libraryIdGenerator.getMetricsByLibraryMap();//with null
 
         final List<String> sortedListOfLibraryNames = new ArrayList<>(Sets.union(emptyMapByLibrary.keySet(), nonEmptyMetricsByLibrary.keySet()));
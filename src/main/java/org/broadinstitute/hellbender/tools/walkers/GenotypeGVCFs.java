@@ -79,6 +79,11 @@ import java.util.*;
  *   <li>The amount of temporary disk storage required by GenomicsDBImport may exceed what is available in the default location: `/tmp`. The command line argument `--tmp-dir` can be used to specify an alternate temperary storage location with sufficient space.</li>
  * </ul>
  *
+ * <h3>Parallel genotyping</h3>
+ * <p>With --variant-locus-threads greater than 1, the intervals are cut into partitions of --variant-locus-partition-size
+ * bases that are genotyped concurrently, each with its own query of the input (for instance of the GenomicsDB workspace).
+ * The output is the same as when genotyping on a single thread.</p>
+ *
  * <h3>Special note on ploidy</h3>
  * <p>This tool is able to handle any ploidy (or mix of ploidies) intelligently; there is no need to specify ploidy
  * for non-diploid organisms.</p>
@@ -186,6 +191,8 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     private GenotypeGVCFsEngine gvcfEngine;
 
+    private Set<VCFHeaderLine> defaultToolVCFHeaderLines;
+
     /**
      * Get the largest interval per contig that contains the intervals specified on the command line.
      * @param getIntervals intervals to be transformed
@@ -264,7 +271,7 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput, false, true);
 
         //methods that cannot be called in engine bc its protected
-        Set<VCFHeaderLine> defaultToolVCFHeaderLines = getDefaultToolVCFHeaderLines();
+        defaultToolVCFHeaderLines = getDefaultToolVCFHeaderLines();
         vcfWriter = createVCFWriter(outputFile);
 
         //create engine object
@@ -277,18 +284,67 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     @Override
     public void apply(final Locatable loc, List<VariantContext> variants, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        final VariantContext regenotypedVC = genotypeLocus(gvcfEngine, merger, loc, variants, ref, features);
+        if (regenotypedVC != null) {
+            vcfWriter.add(regenotypedVC);
+        }
+    }
 
+    /**
+     * @return the call to output at this locus, or null if there is none
+     */
+    private VariantContext genotypeLocus(final GenotypeGVCFsEngine engine, final ReferenceConfidenceVariantContextMerger locusMerger,
+                                         final Locatable loc, final List<VariantContext> variants, final ReferenceContext ref, final FeatureContext features) {
         final boolean inForceOutputIntervals = forceOutputIntervalsPresent && forceOutputIntervals.overlapsAny(loc);
         final boolean forceOutput = includeNonVariants || inForceOutputIntervals;
-        final VariantContext regenotypedVC = gvcfEngine.callRegion(loc, variants, ref, features, merger, somaticInput, tlodThreshold, afTolerance, forceOutput);
+        final VariantContext regenotypedVC = engine.callRegion(loc, variants, ref, features, locusMerger, somaticInput, tlodThreshold, afTolerance, forceOutput);
 
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if ((forceOutput || !GATKVariantContextUtils.isSpanningDeletionOnly(regenotypedVC)) &&
                     (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains (variantStart)))) {
-                vcfWriter.add(regenotypedVC);
+                return regenotypedVC;
             }
         }
+        return null;
+    }
+
+    @Override
+    protected boolean supportsParallelPartitions() {
+        return true;
+    }
+
+    // the genotyping engine drops spanning deletion alleles that are not covered by a deletion it has emitted upstream,
+    // so it has to see the deletions that start before a partition and reach into it
+    @Override
+    protected boolean requiresPartitionWarmUp() {
+        return true;
+    }
+
+    @Override
+    protected PartitionHandler<VariantContext> makePartitionHandler() {
+        return new PartitionHandler<VariantContext>() {
+            @Override
+            public PartitionProcessor<VariantContext> makeProcessor() {
+                // the genotyping engines keep per-site state, so each worker thread gets its own annotation engine,
+                // genotyping engine and merger; the annotation objects themselves are shared, and keep no per-site state
+                final VariantAnnotatorEngine partitionAnnotationEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), dbsnp.dbsnp, Collections.emptyList(), false, keepCombined);
+                final GenotypeGVCFsEngine partitionEngine = new GenotypeGVCFsEngine(partitionAnnotationEngine, genotypeArgs, includeNonVariants, getHeaderForVariants());
+                partitionEngine.setupOutputHeader(defaultToolVCFHeaderLines, keepCombined, dbsnp);
+                final ReferenceConfidenceVariantContextMerger partitionMerger = new ReferenceConfidenceVariantContextMerger(partitionAnnotationEngine, getHeaderForVariants(), somaticInput, false, true);
+                return (loc, variants, ref, features, output) -> {
+                    final VariantContext regenotypedVC = genotypeLocus(partitionEngine, partitionMerger, loc, variants, ref, features);
+                    if (regenotypedVC != null) {
+                        output.accept(regenotypedVC);
+                    }
+                };
+            }
+
+            @Override
+            public void acceptOutput(final VariantContext output) {
+                vcfWriter.add(output);
+            }
+        };
     }
 
     @Override
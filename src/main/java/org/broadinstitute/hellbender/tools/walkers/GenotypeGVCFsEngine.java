@@ -388,6 +388,17 @@ public class GenotypeGVCFsEngine
 
      */
     public VariantContextWriter setupVCFWriter(Set<VCFHeaderLine> defaultToolVCFHeaderLines, boolean keepCombined, DbsnpArgumentCollection dbsnp, VariantContextWriter vcfWriter) {
+        vcfWriter.writeHeader(setupOutputHeader(defaultToolVCFHeaderLines, keepCombined, dbsnp));
+        return vcfWriter;
+    }
+
+    /**
+     * Create the output VCF header, without writing it. Engines that genotype sites for a writer set up by another
+     * engine must call this with the same arguments.
+     *
+     * @return the output header
+     */
+    public VCFHeader setupOutputHeader(Set<VCFHeaderLine> defaultToolVCFHeaderLines, boolean keepCombined, DbsnpArgumentCollection dbsnp) {
         final Set<VCFHeaderLine> headerLines = new LinkedHashSet<>(inputVCFHeader.getMetaDataInInputOrder());
         headerLines.addAll(defaultToolVCFHeaderLines);
 
@@ -413,9 +424,7 @@ public class GenotypeGVCFsEngine
 
         final Set<String> sampleNameSet = samples.asSetOfSamples();
         outputHeader = new VCFHeader(headerLines, new TreeSet<>(sampleNameSet));
-        vcfWriter.writeHeader(outputHeader);
-
-        return vcfWriter;
+        return outputHeader;
     }
 
 
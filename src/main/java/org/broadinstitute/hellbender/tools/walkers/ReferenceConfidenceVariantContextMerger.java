@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.Alle
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.ReducibleAnnotationData;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.AlleleSubsettingUtils;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAssignmentMethod;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeColumns;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculators;
 import org.broadinstitute.hellbender.tools.walkers.mutect.filtering.Mutect2FilteringEngine;
 import org.broadinstitute.hellbender.utils.GenotypeUtils;
@@ -125,13 +126,19 @@ public final class ReferenceConfidenceVariantContextMerger {
         int depth = 0;
         final Map<String, List<?>> annotationMap = new LinkedHashMap<>();
 
-        final GenotypesContext genotypes = GenotypesContext.create();
+        // germline genotypes are merged into columns, which are only turned into Genotype objects when they are accessed
+        final GenotypeColumns.Builder genotypeColumns = doSomaticMerge ? null : new GenotypeColumns.Builder();
+        final GenotypesContext somaticGenotypes = doSomaticMerge ? GenotypesContext.create() : null;
 
         for ( final VCWithNewAlleles vcWithNewAlleles : vcAndNewAllelePairs ) {
             final VariantContext vc = vcWithNewAlleles.getVc();
             final List<Allele> remappedAlleles = vcWithNewAlleles.getNewAlleles();
 
-            genotypes.addAll(mergeRefConfidenceGenotypes(vc, remappedAlleles, allelesList, samplesAreUniquified));
+            if (doSomaticMerge) {
+                somaticGenotypes.addAll(mergeSomaticGenotypes(vc, remappedAlleles, allelesList, samplesAreUniquified));
+            } else {
+                mergeRefConfidenceGenotypes(vc, remappedAlleles, allelesList, samplesAreUniquified, genotypeColumns);
+            }
             depth += calculateVCDepth(vc);
 
             if ( loc.getStart() != vc.getStart() ) {
@@ -159,9 +166,13 @@ public final class ReferenceConfidenceVariantContextMerger {
                 .chr(loc.getContig())
                 .start(loc.getStart())
                 .computeEndFromAlleles(nonSymbolicAlleles(allelesList), loc.getStart(), loc.getStart())
-                .genotypes(genotypes).unfiltered()
+                .unfiltered()
                 .attributes(new TreeMap<>(attributes)).log10PError(CommonInfo.NO_LOG10_PERROR);  // we will need to re-genotype later
-        if (doSomaticMerge) {
+        if (!doSomaticMerge) {
+            // validating the genotypes would build them; their alleles are all target alleles or no-calls
+            builder.genotypesNoValidation(genotypeColumns.make().asGenotypesContext());
+        } else {
+            builder.genotypes(somaticGenotypes);
             //if all samples are filtered, this will apply all those filters to the VCF
             if (aggregatedFilters.isEmpty() || sawPassSample) {
                     builder.passFilters();
@@ -510,98 +521,127 @@ public final class ReferenceConfidenceVariantContextMerger {
 
 
     /**
-     * Merge into the context a new genotype represented by the given VariantContext for the provided list of target alleles.
+     * Merge into columns the genotypes represented by the given VariantContext for the provided list of target alleles,
+     * remapping their PLs and ADs to the target alleles.
      * This method assumes that none of the alleles in the VC overlaps with any of the alleles in the set.
      *  @param vc                    the Variant Context for the sample
      * @param remappedAlleles       the list of remapped alleles for the sample
      * @param targetAlleles         the list of target alleles
      * @param samplesAreUniquified  true if sample names have been uniquified
+     * @param mergedGenotypes       the columns to add the merged genotypes to
      */
-    private GenotypesContext mergeRefConfidenceGenotypes(final VariantContext vc,
-                                                           final List<Allele> remappedAlleles,
-                                                           final List<Allele> targetAlleles,
-                                                           final boolean samplesAreUniquified) {
-        final GenotypesContext mergedGenotypes = GenotypesContext.create();
+    private void mergeRefConfidenceGenotypes(final VariantContext vc,
+                                             final List<Allele> remappedAlleles,
+                                             final List<Allele> targetAlleles,
+                                             final boolean samplesAreUniquified,
+                                             final GenotypeColumns.Builder mergedGenotypes) {
         final int maximumPloidy = vc.getMaxPloidy(GATKVariantContextUtils.DEFAULT_PLOIDY);
         // the map is different depending on the ploidy, so in order to keep this method flexible (mixed ploidies)
         // we need to get a map done (lazily inside the loop) for each ploidy, up to the maximum possible.
         final int[][] genotypeIndexMapsByPloidy = new int[maximumPloidy + 1][];
         final int maximumAlleleCount = Math.max(remappedAlleles.size(),targetAlleles.size());
+        // the allele mapping (and so the genotype index map) only depends on the sample when it has to choose between
+        // several spanning deletions
+        final boolean alleleMappingDependsOnSample = targetAlleles.contains(Allele.SPAN_DEL) && Collections.frequency(remappedAlleles, Allele.SPAN_DEL) > 1;
 
         for ( final Genotype g : vc.getGenotypes() ) {
-            final String name;
-            if (samplesAreUniquified) {
-                name = g.getSampleName() + "." + vc.getSource();
-            } else {
-                name = g.getSampleName();
-            }
             final int ploidy = g.getPloidy();
-            final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g);
-            if (!doSomaticMerge) {
-                if (g.hasPL()) {
-                    // lazy initialization of the genotype index map by ploidy.
-                    int[]  perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
-                    final int[] genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy] == null
-                            ? calculators.getInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators) //probably horribly slow
-                            : genotypeIndexMapsByPloidy[ploidy];
-                    final int[] PLs = generatePL(g, genotypeIndexMapByPloidy);
-                    final int[] AD = g.hasAD() ? AlleleSubsettingUtils.generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles) : null;
-                    genotypeBuilder.PL(PLs).AD(AD);
-                //clean up low confidence hom refs for better annotations later
-                } else if (GenotypeGVCFsEngine.excludeFromAnnotations(g)) {
-                    genotypeBuilder.alleles(Collections.nCopies(ploidy, Allele.NO_CALL));
-                }
-            }
-            else {  //doSomaticMerge
-                genotypeBuilder.noAttributes();
-                if (g.hasDP()) {
-                    genotypeBuilder.DP(g.getDP());
-                }
-
-                for (final String key : SOMATIC_FORMAT_ANNOTATIONS_TO_KEEP) {
-                    if(g.hasExtendedAttribute(key)) {
-                        genotypeBuilder.attribute(key, g.getExtendedAttribute(key));
+            // same calls as GATKVariantContextUtils.makeGenotypeCall with BEST_MATCH_TO_ORIGINAL and SET_TO_NO_CALL
+            final List<Allele> calledAlleles = callGTAlleles && GenotypeUtils.shouldBeCalled(g) ?
+                    GATKVariantContextUtils.bestMatchToOriginalGT(targetAlleles, g.getAlleles()) :
+                    GATKVariantContextUtils.noCallAlleles(ploidy);
+            mergedGenotypes.add(g, getMergedSampleName(vc, g, samplesAreUniquified), calledAlleles);
+            if (g.hasPL()) {
+                // lazy initialization of the genotype index map by ploidy.
+                final int[] perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
+                final int[] genotypeIndexMapByPloidy;
+                if (alleleMappingDependsOnSample || genotypeIndexMapsByPloidy[ploidy] == null) {
+                    genotypeIndexMapByPloidy = calculators.getInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators); //probably horribly slow
+                    if (!alleleMappingDependsOnSample) {
+                        genotypeIndexMapsByPloidy[ploidy] = genotypeIndexMapByPloidy;
                     }
+                } else {
+                    genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy];
                 }
-
-                // lazy initialization of the genotype index map by ploidy.
-                int[] perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
-                final int nonRefIndex = remappedAlleles.indexOf(Allele.NON_REF_ALLELE);
-                final int[] AD;
+                mergedGenotypes.PL(g.getPL(), genotypeIndexMapByPloidy);
                 if (g.hasAD()) {
-                    AD = AlleleSubsettingUtils.generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles);
-                    genotypeBuilder.AD(AD);
-                } else if (g.hasDP()) {
-                    AD = new int[targetAlleles.size()];
-                    AD[0] = g.getDP();
-                    genotypeBuilder.AD(AD);
-                }
-                if (g.hasExtendedAttribute(GATKVCFConstants.ALLELE_FRACTION_KEY)) {  //homRef calls don't have AF
-                    final double[] AF = AlleleSubsettingUtils.generateAF(VariantContextGetters.getAttributeAsDoubleArray(g, GATKVCFConstants.ALLELE_FRACTION_KEY, () -> new double[]{0.0}, 0.0), perSampleIndexesOfRelevantAlleles);
-                    genotypeBuilder.attribute(GATKVCFConstants.ALLELE_FRACTION_KEY, AF);
-                }
-                else if ((g.isHomRef() || g.isNoCall()) && vc.getAlternateAlleles().size() == 1) {  //homRef blocks don't get an AF so assign it here; multi-sample GVCFs will have no-call GTs for ref blocks
-                    genotypeBuilder.attribute(GATKVCFConstants.ALLELE_FRACTION_KEY, new double[targetAlleles.size()-1]);
+                    mergedGenotypes.AD(g.getAD(), perSampleIndexesOfRelevantAlleles);
                 }
+            } else if (g.hasAD()) {
+                mergedGenotypes.AD(g.getAD());
+            }
+            mergedGenotypes.DP(g.getDP()).GQ(g.getGQ());
+        }
+    }
 
-                for (final String key : SOMATIC_INFO_ANNOTATIONS_TO_MOVE) {
-                    setPerSampleSomaticAttributes(vc, perSampleIndexesOfRelevantAlleles, g, genotypeBuilder, key);
+    private static String getMergedSampleName(final VariantContext vc, final Genotype g, final boolean samplesAreUniquified) {
+        return samplesAreUniquified ? g.getSampleName() + "." + vc.getSource() : g.getSampleName();
+    }
+
+    /**
+     * Merge into the context a new somatic genotype represented by the given VariantContext for the provided list of target alleles.
+     * This method assumes that none of the alleles in the VC overlaps with any of the alleles in the set.
+     *  @param vc                    the Variant Context for the sample
+     * @param remappedAlleles       the list of remapped alleles for the sample
+     * @param targetAlleles         the list of target alleles
+     * @param samplesAreUniquified  true if sample names have been uniquified
+     */
+    private GenotypesContext mergeSomaticGenotypes(final VariantContext vc,
+                                                   final List<Allele> remappedAlleles,
+                                                   final List<Allele> targetAlleles,
+                                                   final boolean samplesAreUniquified) {
+        final GenotypesContext mergedGenotypes = GenotypesContext.create();
+
+        for ( final Genotype g : vc.getGenotypes() ) {
+            final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g);
+            genotypeBuilder.noAttributes();
+            if (g.hasDP()) {
+                genotypeBuilder.DP(g.getDP());
+            }
+
+            for (final String key : SOMATIC_FORMAT_ANNOTATIONS_TO_KEEP) {
+                if(g.hasExtendedAttribute(key)) {
+                    genotypeBuilder.attribute(key, g.getExtendedAttribute(key));
                 }
+            }
 
-                if (!dropSomaticFilteringAnnotations) {
-                    for (final String key : Mutect2FilteringEngine.STANDARD_MUTECT_INFO_FIELDS_FOR_FILTERING) {
-                        setPerSampleSomaticAttributes(vc, perSampleIndexesOfRelevantAlleles, g, genotypeBuilder, key);
-                    }
+            // lazy initialization of the genotype index map by ploidy.
+            int[] perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
+            final int nonRefIndex = remappedAlleles.indexOf(Allele.NON_REF_ALLELE);
+            final int[] AD;
+            if (g.hasAD()) {
+                AD = AlleleSubsettingUtils.generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles);
+                genotypeBuilder.AD(AD);
+            } else if (g.hasDP()) {
+                AD = new int[targetAlleles.size()];
+                AD[0] = g.getDP();
+                genotypeBuilder.AD(AD);
+            }
+            if (g.hasExtendedAttribute(GATKVCFConstants.ALLELE_FRACTION_KEY)) {  //homRef calls don't have AF
+                final double[] AF = AlleleSubsettingUtils.generateAF(VariantContextGetters.getAttributeAsDoubleArray(g, GATKVCFConstants.ALLELE_FRACTION_KEY, () -> new double[]{0.0}, 0.0), perSampleIndexesOfRelevantAlleles);
+                genotypeBuilder.attribute(GATKVCFConstants.ALLELE_FRACTION_KEY, AF);
+            }
+            else if ((g.isHomRef() || g.isNoCall()) && vc.getAlternateAlleles().size() == 1) {  //homRef blocks don't get an AF so assign it here; multi-sample GVCFs will have no-call GTs for ref blocks
+                genotypeBuilder.attribute(GATKVCFConstants.ALLELE_FRACTION_KEY, new double[targetAlleles.size()-1]);
+            }
+
+            for (final String key : SOMATIC_INFO_ANNOTATIONS_TO_MOVE) {
+                setPerSampleSomaticAttributes(vc, perSampleIndexesOfRelevantAlleles, g, genotypeBuilder, key);
+            }
+
+            if (!dropSomaticFilteringAnnotations) {
+                for (final String key : Mutect2FilteringEngine.STANDARD_MUTECT_INFO_FIELDS_FOR_FILTERING) {
+                    setPerSampleSomaticAttributes(vc, perSampleIndexesOfRelevantAlleles, g, genotypeBuilder, key);
                 }
-                //only copy filter status for single-sample VCs -- multi-sample VCs should already have GF updated
-                if (vc.filtersWereApplied() && vc.getSampleNames().size() == 1 && !g.isHomRef()) {
-                    //PASS has to have null filters, so we can't add an empty list
-                    if (!vc.getFilters().isEmpty()) {
-                        genotypeBuilder.filters(new ArrayList(vc.getFilters()));
-                    }
+            }
+            //only copy filter status for single-sample VCs -- multi-sample VCs should already have GF updated
+            if (vc.filtersWereApplied() && vc.getSampleNames().size() == 1 && !g.isHomRef()) {
+                //PASS has to have null filters, so we can't add an empty list
+                if (!vc.getFilters().isEmpty()) {
+                    genotypeBuilder.filters(new ArrayList(vc.getFilters()));
                 }
             }
-            genotypeBuilder.name(name);
+            genotypeBuilder.name(getMergedSampleName(vc, g, samplesAreUniquified));
             final GenotypeAssignmentMethod assignmentMethod;
             if (callGTAlleles && GenotypeUtils.shouldBeCalled(g)) {
                 assignmentMethod = GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL;
@@ -648,29 +688,6 @@ public final class ReferenceConfidenceVariantContextMerger {
         }
     }
 
-    /**
-     * Composes a new likelihood array given the original genotype and the genotype index map.
-     *
-     * @param g the original genotype.
-     * @param genotypeIndexMapByPloidy genotype index map. The ith element indicates what genotype in {@code g} corresponds
-     *                                 to the ith genotype in the return likelihoods array.
-     *
-     * @throws NullPointerException if {@code g} or {@code genotypeIndexMapByPloidy} is {@code null}, or if {@code g}
-     *    does not contain likelihoods.
-     * @throws IndexOutOfBoundsException if {@code genotypeIndexMapByPloidy} contain non valid
-     *  genotype indices given the likelihood array in {@code g}.
-     *
-     * @return never {@code null} but an array of exactly {@code genotypeIndexMapByPloidy.length} positions.
-     */
-    private static int[] generatePL(final Genotype g, final int[] genotypeIndexMapByPloidy) {
-        final int[] PLs = new int[genotypeIndexMapByPloidy.length];
-        final int[] oldPLs = g.getPL();
-        for (int i = 0; i < PLs.length; i++) {
-            PLs[i] = oldPLs[genotypeIndexMapByPloidy[i]];
-        }
-        return PLs;
-    }
-
     /**
      * Generates a new annotation value array by adding zeros for missing alleles given the set of indexes of the Genotype's current
      * alleles from the original annotation value array.
@@ -36,24 +36,24 @@ import java.util.*;
 @DocumentedFeature(groupName=HelpConstants.DOC_CAT_ANNOTATORS, groupSummary=HelpConstants.DOC_CAT_ANNOTATORS_SUMMARY, summary="Existence of a de novo mutation in at least one of the given families (hiConfDeNovo, loConfDeNovo)")
 public final class PossibleDeNovo extends PedigreeAnnotation implements InfoFieldAnnotation {
     protected final Logger warning = LogManager.getLogger(this.getClass());
-    private final MendelianViolation mendelianViolation;
+    private final double minGenotypeQualityP;
     private Set<Trio> trios;
 
     @VisibleForTesting
     public PossibleDeNovo(final Set<Trio> trios, final double minGenotypeQualityP) {
         super((Set<String>) null);
         this.trios = Collections.unmodifiableSet(new LinkedHashSet<>(trios));
-        mendelianViolation = new MendelianViolation(minGenotypeQualityP);
+        this.minGenotypeQualityP = minGenotypeQualityP;
     }
 
     public PossibleDeNovo(final GATKPath pedigreeFile){
         super(pedigreeFile);
-        mendelianViolation = new MendelianViolation(DEFAULT_MIN_GENOTYPE_QUALITY_P);
+        minGenotypeQualityP = DEFAULT_MIN_GENOTYPE_QUALITY_P;
     }
 
     public PossibleDeNovo(){
         super((Set<String>) null);
-        mendelianViolation = new MendelianViolation(DEFAULT_MIN_GENOTYPE_QUALITY_P);
+        minGenotypeQualityP = DEFAULT_MIN_GENOTYPE_QUALITY_P;
     }
 
     @Override
@@ -78,7 +78,8 @@ public final class PossibleDeNovo extends PedigreeAnnotation implements InfoFiel
     private static final double percentOfSamplesCutoff = 0.001; //for many, many samples use 0.1% of samples as allele frequency threshold for de novos
     private static final int flatNumberOfSamplesCutoff = 4;
 
-    private Set<Trio> initializeAndGetTrios() {
+    // synchronized because an annotation may be shared by threads annotating different sites (e.g., the partitions of GenotypeGVCFs)
+    private synchronized Set<Trio> initializeAndGetTrios() {
         if (trios == null) {
             trios = getTrios();
         }
@@ -101,6 +102,8 @@ public final class PossibleDeNovo extends PedigreeAnnotation implements InfoFiel
         if (trioSet.isEmpty()){
             return Collections.emptyMap();
         }
+        // MendelianViolation keeps the counts of the last check, so each call gets its own
+        final MendelianViolation mendelianViolation = new MendelianViolation(minGenotypeQualityP);
         final List<String> highConfDeNovoChildren = new ArrayList<>();
         final List<String> lowConfDeNovoChildren = new ArrayList<>();
         for (final Trio trio : trioSet) {
@@ -13,7 +13,7 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Given a bam grouped by the same unique molecular identifier (UMI), this tool drops a specified fraction of duplicate sets and returns a new bam.
@@ -51,6 +51,10 @@ import java.util.Random;
  * -I umiGrouped.bam \
  * --fraction-to-keep 0.95 \
  * -O umiGrouped_0.95.bam
+ *
+ * Whether a duplicate set is kept is drawn from a random number generator seeded with its molecule number, so the
+ * output does not depend on the order in which the sets are processed, and the sets can be processed on several
+ * threads with --duplicate-set-threads.
  **/
 @CommandLineProgramProperties(
         summary = "Discard a set fraction of duplicate sets from a UMI-grouped bam",
@@ -59,7 +63,7 @@ import java.util.Random;
 )
 @BetaFeature
 @WorkflowProperties
-public class DownsampleByDuplicateSet extends DuplicateSetWalker {
+public class DownsampleByDuplicateSet extends DuplicateSetWalker<Boolean> {
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc = "Output BAM file")
     @WorkflowOutput(optionalCompanions = {StandardArgumentDefinitions.OUTPUT_INDEX_COMPANION})
     public GATKPath outputBam;
@@ -69,7 +73,6 @@ public class DownsampleByDuplicateSet extends DuplicateSetWalker {
     public double fractionToKeep;
 
     private static final int RANDOM_SEED = 142;
-    private final Random rng = new Random(RANDOM_SEED);
     private int numDuplicateReadSets;
     private int numReads;
     private SAMFileGATKReadWriter outputWriter;
@@ -81,7 +84,26 @@ public class DownsampleByDuplicateSet extends DuplicateSetWalker {
 
     @Override
     public void apply(ReadsWithSameUMI readsWithSameUMI, ReferenceContext referenceContext, FeatureContext featureContext) {
-        if (rng.nextDouble() < fractionToKeep){
+        acceptProcessedDuplicateSet(readsWithSameUMI, processDuplicateSet(readsWithSameUMI, referenceContext), referenceContext, featureContext);
+    }
+
+    @Override
+    protected boolean supportsParallelDuplicateSetProcessing() {
+        return true;
+    }
+
+    /**
+     * @return whether to keep the set, drawn from a random number generator seeded with its molecule number
+     */
+    @Override
+    protected Boolean processDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final ReferenceContext referenceContext) {
+        return new SplittableRandom(RANDOM_SEED + readsWithSameUMI.getMoleculeNumber()).nextDouble() < fractionToKeep;
+    }
+
+    @Override
+    protected void acceptProcessedDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final Boolean result,
+                                               final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        if (result){
             readsWithSameUMI.getReads().forEach(r -> outputWriter.addRead(r));
             numReads += readsWithSameUMI.getReads().size();
             numDuplicateReadSets += 1;
@@ -17,6 +17,7 @@ import picard.cmdline.programgroups.VariantFilteringProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.jexl.CompiledJexlVCMatchExp;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.util.*;
@@ -331,8 +332,8 @@ public final class VariantFiltration extends VariantWalker {
         if (filterRecordsNotInMask && mask == null) {
             throw new CommandLineException.BadArgumentValue(FILTER_NOT_IN_MASK_LONG_NAME, "argument not allowed if mask argument is not provided");
         }
-        filterExps = VariantContextUtils.initializeMatchExps(filterNames, filterExpressions);
-        genotypeFilterExps = VariantContextUtils.initializeMatchExps(genotypeFilterNames, genotypeFilterExpressions);
+        filterExps = CompiledJexlVCMatchExp.initializeMatchExps(filterNames, filterExpressions);
+        genotypeFilterExps = CompiledJexlVCMatchExp.initializeMatchExps(genotypeFilterNames, genotypeFilterExpressions);
         howToTreatMissingValues = failMissingValues ? JexlMissingValueTreatment.TREAT_AS_MATCH : JexlMissingValueTreatment.TREAT_AS_MISMATCH;
 
         VariantContextUtils.engine.get().setSilent(true);
@@ -449,7 +450,7 @@ public final class VariantFiltration extends VariantWalker {
      * Return true if matches the filter expression
      */
     private boolean matchesFilter(final VariantContext vc, final Genotype g, final VariantContextUtils.JexlVCMatchExp exp, final boolean invertVCfilterExpression) {
-        return invertLogic(VariantContextUtils.match(vc, g, exp, howToTreatMissingValues), invertVCfilterExpression);
+        return invertLogic(CompiledJexlVCMatchExp.match(vc, g, exp, howToTreatMissingValues), invertVCfilterExpression);
     }
 
     /**
@@ -35,6 +35,11 @@ public final class AlleleSubsettingUtils {
 
     private static final GenotypeLikelihoodCalculators GL_CALCS = new GenotypeLikelihoodCalculators();
 
+    // assignment methods for which genotypes held in columns are subset without building them
+    private static final Set<GenotypeAssignmentMethod> COLUMNAR_ASSIGNMENT_METHODS = EnumSet.of(
+            GenotypeAssignmentMethod.SET_TO_NO_CALL, GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL,
+            GenotypeAssignmentMethod.USE_PLS_TO_ASSIGN, GenotypeAssignmentMethod.PREFER_PLS);
+
 
     /**
      * Create the new GenotypesContext with the subsetted PLs and ADs
@@ -57,6 +62,11 @@ public final class AlleleSubsettingUtils {
         Utils.nonEmpty(allelesToKeep, "must keep at least one allele");
         Utils.validateArg(allelesToKeep.get(0).isReference(), "First allele must be the reference allele");
 
+        final GenotypeColumns columns = GenotypeColumns.unwrap(originalGs);
+        if (columns != null && COLUMNAR_ASSIGNMENT_METHODS.contains(assignmentMethod)) {
+            return subsetAlleles(columns, defaultPloidy, originalAlleles, allelesToKeep, assignmentMethod).asGenotypesContext();
+        }
+
         final GenotypesContext newGTs = GenotypesContext.create(originalGs.size());
         final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(allelesToKeep));
 
@@ -125,6 +135,131 @@ public final class AlleleSubsettingUtils {
         return newGTs;
     }
 
+    /**
+     * Same as {@link #subsetAlleles(GenotypesContext, int, List, List, GenotypePriorCalculator, GenotypeAssignmentMethod)}
+     * for genotypes held in columns, which are read and subset without building them, and for an assignment method in
+     * {@link #COLUMNAR_ASSIGNMENT_METHODS}.  The calls are the ones made by
+     * {@link GATKVariantContextUtils#makeGenotypeCall(int, GenotypeBuilder, GenotypeAssignmentMethod, double[], List, List, GenotypePriorCalculator)}.
+     */
+    private static GenotypeColumns subsetAlleles(final GenotypeColumns originalColumns, final int defaultPloidy,
+                                                 final List<Allele> originalAlleles,
+                                                 final List<Allele> allelesToKeep,
+                                                 final GenotypeAssignmentMethod assignmentMethod) {
+        final GenotypeColumns.Builder newColumns = new GenotypeColumns.Builder();
+        final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(allelesToKeep));
+        final int nonRefIndex = allelesToKeep.indexOf(Allele.NON_REF_ALLELE);
+        final int[] newAD = new int[allelesToKeep.size()];
+
+        final Map<Integer, int[]> subsettedLikelihoodIndicesByPloidy = new TreeMap<>();
+        for (int i = 0; i < originalColumns.size(); i++) {
+            final int originalPloidy = originalColumns.getPloidy(i);
+            final int ploidy = originalPloidy > 0 ? originalPloidy : defaultPloidy;
+            final int[] subsettedLikelihoodIndices = subsettedLikelihoodIndicesByPloidy.computeIfAbsent(ploidy,
+                    p -> subsettedPLIndices(p, originalAlleles, allelesToKeep));
+
+            final int expectedNumLikelihoods = GenotypeLikelihoods.numLikelihoods(originalAlleles.size(), ploidy);
+            // create the new likelihoods array from the alleles we are allowed to use
+            double[] newLikelihoods = null;
+            double newLog10GQ = Double.NEGATIVE_INFINITY;
+            if (originalColumns.hasPL(i)) {
+                if (originalColumns.getPLCount(i) == expectedNumLikelihoods) {
+                    newLikelihoods = new double[subsettedLikelihoodIndices.length];
+                    for (int n = 0; n < newLikelihoods.length; n++) {
+                        newLikelihoods[n] = originalColumns.getPL(i, subsettedLikelihoodIndices[n]) / -10.0;
+                    }
+                    MathUtils.scaleLogSpaceArrayForNumericalStability(newLikelihoods);
+                    if (newLikelihoods.length > 1) {
+                        final int PLindex = MathUtils.maxElementIndex(newLikelihoods);  //pick out the call (log10L = 0)
+                        newLog10GQ = GenotypeLikelihoods.getGQLog10FromLikelihoods(PLindex, newLikelihoods);
+                    } else {  //if we subset to just ref allele, keep the GQ
+                        newLog10GQ = originalColumns.getGQ(i)/-10.0;  //-10 to go from Phred to log space
+                    }
+                }
+            } else if (originalColumns.hasGQ(i)) {
+                newLog10GQ = -0.1*originalColumns.getGQ(i);
+            }
+            //only put GQ if originally present
+            int newGQ = newLog10GQ != Double.NEGATIVE_INFINITY && originalColumns.hasGQ(i) ? phredScaledGQ(newLog10GQ) : GenotypeColumns.MISSING;
+            int[] newPLs = newLikelihoods == null ? null : GenotypeLikelihoods.fromLog10Likelihoods(newLikelihoods).getAsPLs();
+
+            final List<Allele> originalGT = originalColumns.getAlleles(i);
+            final List<Allele> newGT;
+            if (assignmentMethod == GenotypeAssignmentMethod.SET_TO_NO_CALL) {
+                newGT = GATKVariantContextUtils.noCallAlleles(originalPloidy);
+            } else if (assignmentMethod == GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL) {
+                newGT = GATKVariantContextUtils.bestMatchToOriginalGT(allelesToKeep, originalGT);
+            } else if (newLikelihoods == null || !GATKVariantContextUtils.isInformative(newLikelihoods)) {
+                if (assignmentMethod == GenotypeAssignmentMethod.PREFER_PLS) {
+                    newGT = GATKVariantContextUtils.bestMatchToOriginalGT(allelesToKeep, originalGT);
+                } else {
+                    newGT = GATKVariantContextUtils.noCallAlleles(originalPloidy);
+                    newGQ = GenotypeColumns.MISSING;
+                }
+            } else {
+                final int maxLikelihoodIndex = MathUtils.maxElementIndex(newLikelihoods);
+                final List<Allele> finalAlleles = GL_CALCS.getInstance(originalPloidy, allelesToKeep.size())
+                        .genotypeAlleleCountsAt(maxLikelihoodIndex).asAlleleList(allelesToKeep);
+                if (finalAlleles.contains(Allele.NON_REF_ALLELE)) {
+                    newGT = Collections.nCopies(originalPloidy, allelesToKeep.get(0));
+                    newPLs = new int[newLikelihoods.length];
+                    newGQ = 0;
+                } else {
+                    newGT = finalAlleles;
+                }
+                if (allelesToKeep.size() > 1) {
+                    newGQ = phredScaledGQ(GenotypeLikelihoods.getGQLog10FromLikelihoods(maxLikelihoodIndex, newLikelihoods));
+                }
+            }
+
+            newColumns.add(subsetSourceAttributes(originalColumns.getSource(i), originalAlleles, allelesToKeep),
+                    originalColumns.getSampleName(i), newGT);
+            if (newPLs != null) {
+                newColumns.PL(newPLs);
+            }
+
+            // restrict AD to the new allele subset
+            if (originalColumns.hasAD(i)) {
+                for (int n = 0; n < newAD.length; n++) {
+                    newAD[n] = originalColumns.getAD(i, allelePermutation.fromIndex(n));
+                }
+                if (nonRefIndex != -1) {
+                    newAD[nonRefIndex] = 0;  //we will "lose" coverage here, but otherwise merging NON_REF AD counts with other alleles "creates" reads
+                }
+                newColumns.AD(newAD);
+            }
+            newColumns.DP(originalColumns.getDP(i)).GQ(newGQ);
+        }
+        return newColumns.make();
+    }
+
+    // same as GenotypeBuilder.log10PError(log10PError) followed by Genotype.getGQ()
+    private static int phredScaledGQ(final double log10PError) {
+        return log10PError == CommonInfo.NO_LOG10_PERROR ? GenotypeColumns.MISSING : (int) Math.round(log10PError * -10);
+    }
+
+    /**
+     * Drop the posteriors and priors of a genotype, which are invalid once alleles are subset, and restrict its SAC to
+     * the new allele subset.
+     *
+     * @return {@code g} itself if it has none of these attributes
+     */
+    private static Genotype subsetSourceAttributes(final Genotype g, final List<Allele> originalAlleles, final List<Allele> allelesToKeep) {
+        final boolean hasSAC = g.hasExtendedAttribute(GATKVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY);
+        if (!hasSAC && !g.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY)
+                && !g.hasExtendedAttribute(VCFConstants.GENOTYPE_POSTERIORS_KEY) && !g.hasExtendedAttribute(GATKVCFConstants.GENOTYPE_PRIOR_KEY)) {
+            return g;
+        }
+        final Map<String, Object> attributes = new HashMap<>(g.getExtendedAttributes());
+        attributes.remove(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY);
+        attributes.remove(VCFConstants.GENOTYPE_POSTERIORS_KEY);
+        attributes.remove(GATKVCFConstants.GENOTYPE_PRIOR_KEY);
+        final GenotypeBuilder gb = new GenotypeBuilder(g).noAttributes().attributes(attributes);
+        if (hasSAC) {
+            gb.attribute(GATKVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY, subsetSACAlleles(g, originalAlleles, allelesToKeep));
+        }
+        return gb.make();
+    }
+
 
     /**
      *  Remove alternate alleles from a set of genotypes turning removed alleles to no-call and dropping other per-allele attributes
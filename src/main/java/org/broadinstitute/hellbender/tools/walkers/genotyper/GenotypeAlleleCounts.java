@@ -147,7 +147,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTableByPloidy}.
+     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTables}.
      * </p>
      *
      * @param times the number of times to increase.
@@ -166,7 +166,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTableByPloidy}
+     *     such as the ones contained in {@link GenotypeLikelihoodCalculators#genotypeTables}
      * </p>
      */
     protected void increase() {
@@ -306,7 +306,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      * Gets the log10 combination count, computing it if uninitialized.  Note that the invoked MathUtils method uses fast cached
      * log10 values of integers for any reasonable ploidy.
      *
-     * This method should be invoked on instances of {@link GenotypeAlleleCounts} cached in {@link GenotypeLikelihoodCalculators::genotypeTableByPloidy}.
+     * This method should be invoked on instances of {@link GenotypeAlleleCounts} cached in {@link GenotypeLikelihoodCalculators::genotypeTables}.
      * Such usage allows the result of this computation to be cached once for an entire run of HaplotypeCaller.
      * @return
      */
@@ -610,6 +610,63 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
         return ploidy == 0 ? new GenotypeAlleleCounts(0,0) : new GenotypeAlleleCounts(ploidy, 0, 0, ploidy);
     }
 
+    /**
+     * Instantiates the genotype at a given likelihood index, without going through the genotypes before it.
+     *
+     * <p>
+     *     The index of a genotype is the sum over its alleles, from the largest to the smallest, of the offset of the
+     *     first genotype that contains that allele given the number of alleles still to place, so the alleles are found
+     *     one by one as the largest whose offset does not exceed what remains of the index. This takes
+     *     {@code ploidy + alleleCount} steps at most.
+     * </p>
+     *
+     * @param ploidy the ploidy of the genotype.
+     * @param alleleCount the number of alleles.
+     * @param index the genotype index.
+     * @param alleleFirstGenotypeOffsetByPloidy an offset table as built by {@link GenotypeLikelihoodCalculators} that
+     *                                          supports at least {@code ploidy} and {@code alleleCount}.
+     *
+     * @throws IllegalArgumentException if {@code ploidy} or {@code index} is negative, or {@code index} is not less
+     *  than the number of genotypes.
+     *
+     * @return never {@code null}.
+     */
+    static GenotypeAlleleCounts fromIndex(final int ploidy, final int alleleCount, final int index, final int[][] alleleFirstGenotypeOffsetByPloidy) {
+        Utils.validateArg(ploidy >= 0, "the ploidy must be 0 or greater");
+        Utils.validateArg(index >= 0 && index < alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount],
+                () -> "invalid genotype index " + index + " for ploidy " + ploidy + " and " + alleleCount + " alleles");
+        if (ploidy == 0) {
+            return first(0);
+        }
+        // components are found from the largest allele to the smallest and stored in that order
+        final int[] descendingAlleleCounts = new int[Math.min(ploidy, alleleCount) << 1];
+        int distinctAlleleCount = 0;
+        int remainingIndex = index;
+        int allele = alleleCount - 1;
+        for (int remainingPloidy = ploidy; remainingPloidy > 0; remainingPloidy--) {
+            final int[] offsets = alleleFirstGenotypeOffsetByPloidy[remainingPloidy];
+            while (offsets[allele] > remainingIndex) {
+                allele--;
+            }
+            remainingIndex -= offsets[allele];
+            if (distinctAlleleCount > 0 && descendingAlleleCounts[(distinctAlleleCount - 1) << 1] == allele) {
+                descendingAlleleCounts[((distinctAlleleCount - 1) << 1) + 1]++;
+            } else {
+                descendingAlleleCounts[distinctAlleleCount << 1] = allele;
+                descendingAlleleCounts[(distinctAlleleCount << 1) + 1] = 1;
+                distinctAlleleCount++;
+            }
+        }
+
+        final int[] sortedAlleleCounts = new int[distinctAlleleCount << 1];
+        for (int i = 0; i < distinctAlleleCount; i++) {
+            final int from = (distinctAlleleCount - 1 - i) << 1;
+            sortedAlleleCounts[i << 1] = descendingAlleleCounts[from];
+            sortedAlleleCounts[(i << 1) + 1] = descendingAlleleCounts[from + 1];
+        }
+        return new GenotypeAlleleCounts(ploidy, index, sortedAlleleCounts);
+    }
+
 
     /**
      * Returns the largest allele index present in the genotype.
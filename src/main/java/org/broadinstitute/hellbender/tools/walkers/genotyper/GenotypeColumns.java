@@ -0,0 +1,436 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sample-major columnar store of the genotypes of all of the samples at one site, used by joint genotyping.
+ *
+ * The numeric fields that joint genotyping computes with (PL, AD, DP and GQ) are held in primitive arrays across
+ * samples.  Variable-length fields (PL and AD) are concatenated into a single array, with the range of each sample
+ * given by an offsets array.  The called alleles of each sample are held in a list, and everything else about it
+ * (phasing, filters and other FORMAT fields) is taken from a source {@link Genotype} that is shared with the genotype
+ * it was computed from.
+ *
+ * {@link org.broadinstitute.hellbender.tools.walkers.ReferenceConfidenceVariantContextMerger} merges the genotypes of
+ * the input GVCFs into columns, and {@link AlleleSubsettingUtils#subsetAlleles}, the allele frequency calculation and
+ * {@link GenotypingEngine} read and subset them directly.  They are passed from one to the next in a
+ * {@link GenotypesContext} (see {@link #asGenotypesContext()}) that only builds {@link Genotype} objects when they are
+ * accessed, typically to annotate and write the final record, rather than once per sample at every step.
+ */
+public final class GenotypeColumns {
+    /**
+     * Value of DP and GQ for samples in which they are missing, as in {@link Genotype}
+     */
+    public static final int MISSING = -1;
+
+    private final int numSamples;
+    private final Genotype[] sources;
+    private final String[] sampleNames;
+    private final List<List<Allele>> alleles;
+    // sample i has PLs plValues[plOffsets[i]] to plValues[plOffsets[i + 1] - 1] if hasPL[i]
+    private final boolean[] hasPL;
+    private final int[] plOffsets;
+    private final int[] plValues;
+    private final boolean[] hasAD;
+    private final int[] adOffsets;
+    private final int[] adValues;
+    private final int[] dps;
+    private final int[] gqs;
+    // whether the likelihoods of some sample are only given as GLs by its source, which the columns do not hold
+    private final boolean hasLikelihoodsOutsideColumns;
+
+    private GenotypeColumns(final Builder builder) {
+        numSamples = builder.sampleNames.size();
+        sources = builder.sources.toArray(new Genotype[numSamples]);
+        sampleNames = builder.sampleNames.toArray(new String[numSamples]);
+        alleles = new ArrayList<>(builder.alleles);
+        hasPL = Arrays.copyOf(builder.hasPL, numSamples);
+        plOffsets = builder.plOffsets.toIntArray();
+        plValues = builder.plValues.toIntArray();
+        hasAD = Arrays.copyOf(builder.hasAD, numSamples);
+        adOffsets = builder.adOffsets.toIntArray();
+        adValues = builder.adValues.toIntArray();
+        dps = builder.dps.toIntArray();
+        gqs = builder.gqs.toIntArray();
+        hasLikelihoodsOutsideColumns = builder.hasLikelihoodsOutsideColumns;
+    }
+
+    /**
+     * @param genotypes some genotypes
+     * @return the columns the genotypes are built from if they were created by {@link #asGenotypesContext()} and
+     *         hold the likelihoods of every sample, otherwise {@code null}
+     */
+    public static GenotypeColumns unwrap(final GenotypesContext genotypes) {
+        return genotypes instanceof ColumnarGenotypesContext ? ((ColumnarGenotypesContext) genotypes).columns : null;
+    }
+
+    /**
+     * Same as {@code genotypes.stream().anyMatch(Genotype::hasLikelihoods)}, without building the genotypes if they
+     * are held in columns.
+     */
+    public static boolean anyHasLikelihoods(final GenotypesContext genotypes) {
+        Utils.nonNull(genotypes);
+        final GenotypeColumns columns = unwrap(genotypes);
+        if (columns == null) {
+            return genotypes.stream().anyMatch(Genotype::hasLikelihoods);
+        }
+        for (int i = 0; i < columns.numSamples; i++) {
+            if (columns.hasPL[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the genotypes, which are only built from the columns when they are first accessed.  If the likelihoods
+     *         of some samples are only given as GLs, which are not held in the columns, the genotypes are built right
+     *         away, so that the columns are never read in place of them.
+     */
+    public GenotypesContext asGenotypesContext() {
+        if (hasLikelihoodsOutsideColumns) {
+            final GenotypesContext genotypes = GenotypesContext.create(numSamples);
+            for (int i = 0; i < numSamples; i++) {
+                genotypes.add(getGenotype(i));
+            }
+            return genotypes;
+        }
+        return new ColumnarGenotypesContext(this);
+    }
+
+    /**
+     * @param sample the index of a sample
+     * @return the genotype of the sample
+     */
+    public Genotype getGenotype(final int sample) {
+        return new GenotypeBuilder(sources[sample])
+                .name(sampleNames[sample])
+                .alleles(alleles.get(sample))
+                .PL(getPL(sample))
+                .AD(getAD(sample))
+                .DP(dps[sample])
+                .GQ(gqs[sample])
+                .make();
+    }
+
+    public int size() {
+        return numSamples;
+    }
+
+    /**
+     * @return the genotype that everything about a sample other than its name, alleles, PL, AD, DP and GQ is taken from
+     */
+    public Genotype getSource(final int sample) {
+        return sources[sample];
+    }
+
+    public String getSampleName(final int sample) {
+        return sampleNames[sample];
+    }
+
+    public List<Allele> getAlleles(final int sample) {
+        return alleles.get(sample);
+    }
+
+    public int getPloidy(final int sample) {
+        return alleles.get(sample).size();
+    }
+
+    /**
+     * Same as {@link Genotype#isHomRef()}
+     */
+    public boolean isHomRef(final int sample) {
+        final List<Allele> sampleAlleles = alleles.get(sample);
+        if (sampleAlleles.isEmpty()) {
+            return false;
+        }
+        final Allele first = sampleAlleles.get(0);
+        if (first.isNoCall() || !first.isReference()) {
+            return false;
+        }
+        for (final Allele allele : sampleAlleles) {
+            if (!allele.equals(first)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of called alleles over all samples, ie., the AN of the site
+     */
+    public int getCalledAlleleCount() {
+        int count = 0;
+        for (final List<Allele> sampleAlleles : alleles) {
+            for (final Allele allele : sampleAlleles) {
+                if (allele.isCalled()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the maximum ploidy of the samples, or 0 if all of them have no alleles
+     */
+    public int getMaxPloidy() {
+        int max = 0;
+        for (final List<Allele> sampleAlleles : alleles) {
+            max = Math.max(max, sampleAlleles.size());
+        }
+        return max;
+    }
+
+    public boolean hasPL(final int sample) {
+        return hasPL[sample];
+    }
+
+    public int getPLCount(final int sample) {
+        return plOffsets[sample + 1] - plOffsets[sample];
+    }
+
+    /**
+     * @return the {@code genotypeIndex}-th PL of a sample that has PLs
+     */
+    public int getPL(final int sample, final int genotypeIndex) {
+        Utils.validIndex(genotypeIndex, getPLCount(sample));
+        return plValues[plOffsets[sample] + genotypeIndex];
+    }
+
+    /**
+     * @return a copy of the PLs of a sample, or {@code null} if it has none
+     */
+    public int[] getPL(final int sample) {
+        return hasPL[sample] ? Arrays.copyOfRange(plValues, plOffsets[sample], plOffsets[sample + 1]) : null;
+    }
+
+    /**
+     * Same as {@code GenotypeLikelihoods.fromPLs(getPL(sample)).getAsVector()}, without the intermediate objects
+     *
+     * @return the log10 likelihoods of a sample that has PLs
+     */
+    public double[] getLog10Likelihoods(final int sample) {
+        final double[] result = new double[getPLCount(sample)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = plValues[plOffsets[sample] + i] / -10.0;
+        }
+        return result;
+    }
+
+    public boolean hasAD(final int sample) {
+        return hasAD[sample];
+    }
+
+    public int getADCount(final int sample) {
+        return adOffsets[sample + 1] - adOffsets[sample];
+    }
+
+    /**
+     * @return the AD of the {@code alleleIndex}-th allele of a sample that has AD
+     */
+    public int getAD(final int sample, final int alleleIndex) {
+        Utils.validIndex(alleleIndex, getADCount(sample));
+        return adValues[adOffsets[sample] + alleleIndex];
+    }
+
+    /**
+     * @return a copy of the AD of a sample, or {@code null} if it has none
+     */
+    public int[] getAD(final int sample) {
+        return hasAD[sample] ? Arrays.copyOfRange(adValues, adOffsets[sample], adOffsets[sample + 1]) : null;
+    }
+
+    public boolean hasDP(final int sample) {
+        return dps[sample] != MISSING;
+    }
+
+    /**
+     * @return the DP of a sample, or {@link #MISSING}
+     */
+    public int getDP(final int sample) {
+        return dps[sample];
+    }
+
+    public boolean hasGQ(final int sample) {
+        return gqs[sample] != MISSING;
+    }
+
+    /**
+     * @return the GQ of a sample, or {@link #MISSING}
+     */
+    public int getGQ(final int sample) {
+        return gqs[sample];
+    }
+
+    /**
+     * Builds columns one sample at a time: {@link #add} starts a sample with its alleles, and the other methods set the
+     * fields of the last sample that was added, which are otherwise missing.
+     */
+    public static final class Builder {
+        private final List<Genotype> sources = new ArrayList<>();
+        private final List<String> sampleNames = new ArrayList<>();
+        private final List<List<Allele>> alleles = new ArrayList<>();
+        private boolean[] hasPL = new boolean[16];
+        private final IntArrayList plOffsets = IntArrayList.wrap(new int[]{0});
+        private final IntArrayList plValues = new IntArrayList();
+        private boolean[] hasAD = new boolean[16];
+        private final IntArrayList adOffsets = IntArrayList.wrap(new int[]{0});
+        private final IntArrayList adValues = new IntArrayList();
+        private final IntArrayList dps = new IntArrayList();
+        private final IntArrayList gqs = new IntArrayList();
+        private boolean hasLikelihoodsOutsideColumns = false;
+
+        /**
+         * Start a sample.
+         *
+         * @param source the genotype that everything about the sample other than the fields set by this builder is
+         *               taken from.  Its own name, alleles, PL, AD, DP and GQ are ignored.
+         * @param sampleName the name of the sample
+         * @param sampleAlleles the alleles of the sample
+         */
+        public Builder add(final Genotype source, final String sampleName, final List<Allele> sampleAlleles) {
+            Utils.nonNull(source);
+            Utils.nonNull(sampleName);
+            Utils.nonNull(sampleAlleles);
+            final int sample = sampleNames.size();
+            if (sample == hasPL.length) {
+                hasPL = Arrays.copyOf(hasPL, 2 * sample);
+                hasAD = Arrays.copyOf(hasAD, 2 * sample);
+            }
+            sources.add(source);
+            sampleNames.add(sampleName);
+            alleles.add(sampleAlleles);
+            plOffsets.add(plValues.size());
+            adOffsets.add(adValues.size());
+            dps.add(MISSING);
+            gqs.add(MISSING);
+            hasLikelihoodsOutsideColumns |= !source.hasPL() && source.hasLikelihoods();
+            return this;
+        }
+
+        private int lastSample() {
+            Utils.validate(!sampleNames.isEmpty(), "no sample has been added");
+            return sampleNames.size() - 1;
+        }
+
+        /**
+         * Set the PLs of the last sample.
+         */
+        public Builder PL(final int[] pls) {
+            Utils.nonNull(pls);
+            final int sample = lastSample();
+            Utils.validate(!hasPL[sample], "PLs are already set");
+            hasPL[sample] = true;
+            plValues.addElements(plValues.size(), pls);
+            plOffsets.set(sample + 1, plValues.size());
+            return this;
+        }
+
+        /**
+         * Set the PLs of the last sample to {@code pls[genotypeIndexMap[0]], pls[genotypeIndexMap[1]], ...}
+         */
+        public Builder PL(final int[] pls, final int[] genotypeIndexMap) {
+            Utils.nonNull(pls);
+            Utils.nonNull(genotypeIndexMap);
+            final int sample = lastSample();
+            Utils.validate(!hasPL[sample], "PLs are already set");
+            hasPL[sample] = true;
+            for (final int index : genotypeIndexMap) {
+                plValues.add(pls[index]);
+            }
+            plOffsets.set(sample + 1, plValues.size());
+            return this;
+        }
+
+        /**
+         * Set the AD of the last sample.
+         */
+        public Builder AD(final int[] ad) {
+            Utils.nonNull(ad);
+            final int sample = lastSample();
+            Utils.validate(!hasAD[sample], "AD is already set");
+            hasAD[sample] = true;
+            adValues.addElements(adValues.size(), ad);
+            adOffsets.set(sample + 1, adValues.size());
+            return this;
+        }
+
+        /**
+         * Set the AD of the last sample to the one given by {@link AlleleSubsettingUtils#generateAD} for the same
+         * arguments, ie., {@code ad[indexesOfRelevantAlleles[i]]} for each {@code i}, or 0 where that is out of range.
+         */
+        public Builder AD(final int[] ad, final int[] indexesOfRelevantAlleles) {
+            Utils.nonNull(ad);
+            Utils.nonNull(indexesOfRelevantAlleles);
+            final int sample = lastSample();
+            Utils.validate(!hasAD[sample], "AD is already set");
+            hasAD[sample] = true;
+            for (final int index : indexesOfRelevantAlleles) {
+                adValues.add(index < ad.length ? ad[index] : 0);
+            }
+            adOffsets.set(sample + 1, adValues.size());
+            return this;
+        }
+
+        /**
+         * Set the DP of the last sample, which may be {@link #MISSING}.
+         */
+        public Builder DP(final int dp) {
+            dps.set(lastSample(), dp);
+            return this;
+        }
+
+        /**
+         * Set the GQ of the last sample, which may be {@link #MISSING}.
+         */
+        public Builder GQ(final int gq) {
+            gqs.set(lastSample(), gq);
+            return this;
+        }
+
+        public GenotypeColumns make() {
+            return new GenotypeColumns(this);
+        }
+    }
+
+    /**
+     * Genotypes that are built from columns when they are first accessed.  Until then, the columns are read directly
+     * through {@link #unwrap}.
+     */
+    private static final class ColumnarGenotypesContext extends LazyGenotypesContext {
+        private final GenotypeColumns columns;
+
+        private ColumnarGenotypesContext(final GenotypeColumns columns) {
+            super(ColumnarGenotypesContext::buildGenotypes, columns, columns.numSamples);
+            this.columns = columns;
+        }
+
+        private static LazyData buildGenotypes(final Object data) {
+            final GenotypeColumns columns = (GenotypeColumns) data;
+            final ArrayList<Genotype> genotypes = new ArrayList<>(columns.numSamples);
+            for (int i = 0; i < columns.numSamples; i++) {
+                genotypes.add(columns.getGenotype(i));
+            }
+            // the sample name lookups are built from the genotypes when they are needed
+            return new LazyData(genotypes, null, null);
+        }
+
+        @Override
+        public int getMaxPloidy(final int defaultPloidy) {
+            Utils.validateArg(defaultPloidy >= 0, "defaultPloidy must be greater than or equal to 0");
+            final int maxPloidy = columns.getMaxPloidy();
+            return maxPloidy == 0 ? defaultPloidy : maxPloidy;
+        }
+    }
+}
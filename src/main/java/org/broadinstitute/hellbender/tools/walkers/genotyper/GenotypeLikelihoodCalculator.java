@@ -14,7 +14,7 @@ public class GenotypeLikelihoodCalculator {
      * Offset table for this calculator.
      *
      * <p>
-     *     This is a shallow copy of {@link GenotypeLikelihoodCalculators#alleleFirstGenotypeOffsetByPloidy} when the calculator was created
+     *     This is the offset table shared by {@link GenotypeLikelihoodCalculators} when the calculator was created
      *     thus it follows the same format as that array. Please refer to its documentation.
      * </p>
      *
@@ -26,8 +26,9 @@ public class GenotypeLikelihoodCalculator {
     /**
      * Genotype table for this calculator.
      *
-     * <p>It is ensure that it contains all the genotypes for this calculator ploidy and allele count, maybe more. For
-     * that reason you must use {@link #genotypeCount} when iterating through this array and not relay on its length.</p>
+     * <p>It contains the first genotypes for this calculator ploidy, up to {@link GenotypeLikelihoodCalculators#MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY}.
+     * It may have fewer positions than {@link #genotypeCount}, so you must use {@link #genotypeAlleleCountsAt(int)} or
+     * {@link #nextGenotypeAlleleCounts(GenotypeAlleleCounts)} to go beyond its length.</p>
      */
     private final GenotypeAlleleCounts[] genotypeAlleleCounts;
     /**
@@ -122,10 +123,10 @@ public class GenotypeLikelihoodCalculator {
     private double[] readGenotypeLikelihoodComponents;
 
     public GenotypeLikelihoodCalculator(final int ploidy, final int alleleCount, final int[][] alleleFirstGenotypeOffsetByPloidy,
-                                        final GenotypeAlleleCounts[][] genotypeTableByPloidy) {
+                                        final GenotypeAlleleCounts[] genotypeAlleleCounts) {
         maximumDistinctAllelesInGenotype = Math.min(ploidy, alleleCount);
         this.alleleFirstGenotypeOffsetByPloidy = alleleFirstGenotypeOffsetByPloidy;
-        genotypeAlleleCounts = genotypeTableByPloidy[ploidy];
+        this.genotypeAlleleCounts = genotypeAlleleCounts;
         genotypeCount = this.alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
         this.alleleCount = alleleCount;
         this.ploidy = ploidy;
@@ -192,13 +193,10 @@ public class GenotypeLikelihoodCalculator {
      * Returns the genotype associated to a particular likelihood index.
      *
      * <p>If {@code index} is larger than {@link GenotypeLikelihoodCalculators#MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY},
-     *  this method will reconstruct that genotype-allele-count iteratively from the largest strongly referenced count available.
-     *  or the last requested index genotype.
+     *  this method will reconstruct that genotype-allele-count iteratively from the last requested index genotype when
+     *  it is only a few positions ahead, and otherwise directly from the index using the offset table.
      *  </p>
      *
-     * <p> Therefore if you are iterating through all genotype-allele-counts you should do sequentially and incrementally, to
-     * avoid a large efficiency drop </p>.
-     *
      * @param index query likelihood-index.
      * @return never {@code null}.
      */
@@ -207,11 +205,11 @@ public class GenotypeLikelihoodCalculator {
                     + " (genotype count for nalleles = " + alleleCount + " and ploidy " + ploidy);
         if (index < GenotypeLikelihoodCalculators.MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY) {
             return genotypeAlleleCounts[index];
-        } else if (lastOverheadCounts == null || lastOverheadCounts.index() > index) {
-            final GenotypeAlleleCounts result = genotypeAlleleCounts[GenotypeLikelihoodCalculators.MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY - 1].copy();
-            result.increase(index - GenotypeLikelihoodCalculators.MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY + 1);
-            lastOverheadCounts = result;
-            return result.copy();
+        } else if (lastOverheadCounts == null || lastOverheadCounts.index() > index
+                || index - lastOverheadCounts.index() > ploidy + alleleCount) {
+            // locating the genotype costs about ploidy + alleleCount steps, so that is as far as it is worth iterating
+            lastOverheadCounts = GenotypeAlleleCounts.fromIndex(ploidy, alleleCount, index, alleleFirstGenotypeOffsetByPloidy);
+            return lastOverheadCounts.copy();
         } else {
             lastOverheadCounts.increase(index - lastOverheadCounts.index());
             return lastOverheadCounts.copy();
@@ -43,8 +43,8 @@ public final class GenotypeLikelihoodCalculatorDRAGEN extends GenotypeLikelihood
      */
     protected GenotypeLikelihoodCalculatorDRAGEN(final int ploidy, final int alleleCount,
                                                  final int[][] alleleFirstGenotypeOffsetByPloidy,
-                                                 final GenotypeAlleleCounts[][] genotypeTableByPloidy) {
-        super(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+                                                 final GenotypeAlleleCounts[] genotypeAlleleCounts) {
+        super(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeAlleleCounts);
         Utils.validateArg(ploidy > 0, () -> "ploidy must be at least 1 but was " + ploidy);
         // The number of possible components is limited by distinct allele count and ploidy.
         cachedLog10ErrorRate = Math.log10(BQD_FIXED_ERROR_RATE);
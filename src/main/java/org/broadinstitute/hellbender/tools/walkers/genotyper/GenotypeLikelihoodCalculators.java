@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -9,27 +13,27 @@ import org.apache.logging.log4j.Logger;
 import java.util.Arrays;
 
 /**
- * Genotype likelihood calculator utility. This class is thread-safe since access to shared mutable state is
+ * Genotype likelihood calculator utility. This class is thread-safe: the shared tables are immutable once published,
+ * so requests that the current tables can answer do not take any lock, and only the expansion of the offset table is
  * synchronized.
  *
  * <p>
  *     This class provide genotype likelihood calculators with any number of alleles able given an arbitrary ploidy and allele
  *     count (number of distinct alleles).
  * </p>
+ *
+ * <p>
+ *     The strongly referenced genotype-allele-counts of each ploidy are kept in a cache keyed by ploidy and number of
+ *     genotypes (that follows from the allele count), with a bound on the total number of genotype-allele-counts held
+ *     and least-recently-used eviction, so that a few polyploid sites do not keep tables for every smaller ploidy in
+ *     memory. Genotypes beyond the strongly referenced ones are located directly from their index with the offset table
+ *     (see {@link GenotypeAlleleCounts#fromIndex}) rather than enumerated.
+ * </p>
  */
 public final class GenotypeLikelihoodCalculators {
 
     private static final Logger logger = LogManager.getLogger(GenotypeLikelihoodCalculators.class);
 
-    /**
-     * The current maximum ploidy supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #genotypeTableByPloidy}. Feel free
-     *     to change it to anything reasonable that is non-negative.
-     * </p>
-     */
-    private int maximumPloidy = 2; // its initial value is the initial capacity of the shared tables.
-
     /**
      * Maximum possible number of genotypes that this calculator can handle.
      */
@@ -41,37 +45,61 @@ public final class GenotypeLikelihoodCalculators {
     static final int GENOTYPE_COUNT_OVERFLOW = -1;
 
     /**
-     * The current maximum allele index supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #alleleFirstGenotypeOffsetByPloidy} table.
-     *     Feel free to change it to anything reasonable that is non-negative.
-     * </p>
+     * Maximum total number of strongly referenced genotype-allele-counts held in {@link #genotypeTables}.
      */
-    private int maximumAllele = 1; // its initial value is the initial capacity of the shared tables.
+    static final long MAXIMUM_CACHED_GENOTYPES = 100L * MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY;
 
     /**
-     * Shared copy of the offset table as described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+     * Shared copy of the offset table as described in {@link #buildAlleleFirstGenotypeOffsetTable(int, int)}.
      *
-     * This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy.
+     * <p>
+     *     This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy. Its initial
+     *     capacity is ploidy 2 and maximum allele 1. It is replaced, never modified, when a larger one is needed.
+     * </p>
      */
-    private int[][] alleleFirstGenotypeOffsetByPloidy =
-            buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
-
+    private volatile OffsetTable offsetTable = new OffsetTable(2, 1);
 
     /**
-     * Shared table of genotypes given the ploidy sorted by their index in the likelihood array.
+     * Shared arrays of the strongly referenced genotypes of a ploidy sorted by their index in the likelihood array,
+     * keyed by {@link #genotypeTableKey(int, int)}.
      *
      * <p>
-     *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+     *  The format of each array is described in {@link #buildGenotypeAlleleCountsArray(int, int)}.
      * </p>
      */
-    private GenotypeAlleleCounts[][] genotypeTableByPloidy =
-            buildGenotypeAlleleCountsTable(maximumPloidy,maximumAllele,alleleFirstGenotypeOffsetByPloidy);
+    private final LoadingCache<Long, GenotypeAlleleCounts[]> genotypeTables = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_CACHED_GENOTYPES)
+            .<Long, GenotypeAlleleCounts[]>weigher((key, genotypes) -> genotypes.length)
+            .build(new CacheLoader<Long, GenotypeAlleleCounts[]>() {
+                @Override
+                public GenotypeAlleleCounts[] load(final Long key) {
+                    return buildGenotypeAlleleCountsArray((int) (key >>> 32), (int) (key & 0xFFFFFFFFL));
+                }
+            });
 
     public GenotypeLikelihoodCalculators(){
 
     }
 
+    /**
+     * Offset table together with the capacity it was built for.
+     */
+    private static final class OffsetTable {
+        private final int maximumPloidy;
+        private final int maximumAllele;
+        private final int[][] offsets;
+
+        private OffsetTable(final int maximumPloidy, final int maximumAllele) {
+            this.maximumPloidy = maximumPloidy;
+            this.maximumAllele = maximumAllele;
+            offsets = buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+        }
+
+        private boolean supports(final int ploidy, final int allele) {
+            return ploidy <= maximumPloidy && allele <= maximumAllele;
+        }
+    }
+
     /**
      * Build the table with the genotype offsets based on ploidy and the maximum allele index with representation
      * in the genotype.
@@ -168,42 +196,6 @@ public final class GenotypeLikelihoodCalculators {
         return result;
     }
 
-    /**
-     * Composes a table with the lists of all possible genotype allele counts given the the ploidy and maximum allele index.
-     * <p>
-     *     The resulting matrix has at least as many rows as {@code maximumPloidy } + 1 as the first row with index 0 correspond
-     *     to ploidy == 0. Each row array has as many positions as necessary to contain all possible genotype-allele-counts in increasing order.
-     *     This quantity varies with the ploidy.
-     * </p>
-     *
-     * <p>
-     *     Therefore <code>result[3][4]</code> would contain the 5th genotype with ploidy 3, and <code>result[4].length</code>
-     *     would be equal to the count of possible genotypes for ploidy 4.
-     * </p>
-     *
-     * @param maximumPloidy maximum ploidy to use in queries to the resulting table.
-     * @param maximumAllele maximum allele index to use in queries to the resulting table.
-     * @param offsetTable an allele first genotype offset table as constructed using {@link #buildAlleleFirstGenotypeOffsetTable(int, int)}
-     *                    that supports at least up to {@code maximumAllele} and {@code maximumPloidy}.
-     *
-     * @throws IllegalArgumentException if {@code maximumPloidy} or {@code maximumAllele} is negative, or {@code offsetTable} is {@code null},
-     *   or it does not have the capacity to handle the requested maximum ploidy or allele index.
-     *
-     * @return never {@code null}.
-     */
-    private static GenotypeAlleleCounts[][] buildGenotypeAlleleCountsTable(final int maximumPloidy, final int maximumAllele, final int[][] offsetTable) {
-        checkPloidyAndMaximumAllele(maximumPloidy, maximumAllele);
-        checkOffsetTableCapacity(offsetTable,maximumPloidy,maximumAllele);
-        final int rowCount = maximumPloidy + 1;
-        final GenotypeAlleleCounts[][] result = new GenotypeAlleleCounts[rowCount][]; // each row has a different number of columns.
-
-        for (int ploidy = 0; ploidy <= maximumPloidy; ploidy++) {
-            result[ploidy] = buildGenotypeAlleleCountsArray(ploidy, maximumAllele, offsetTable);
-        }
-
-        return result;
-    }
-
     /**
      * Builds a genotype-allele-counts array given the genotype ploidy and how many genotype you need.
      * <p>
@@ -226,59 +218,77 @@ public final class GenotypeLikelihoodCalculators {
      * </p>
      *
      * @param ploidy requested ploidy.
-     * @param alleleCount number of different alleles that the genotype table must support.
-     * @param genotypeOffsetTable table with the offset of the first genotype that contain an allele given
-     *                            the ploidy and its index.
+     * @param length number of genotypes, at most {@link #MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY}.
      *
-     * @throws IllegalArgumentException if {@code ploidy} or {@code length} is negative.
+     * @throws IllegalArgumentException if {@code ploidy} is negative or {@code length} is not positive.
      *
      * @return never {@code null}, follows the specification above.
      */
-    private static GenotypeAlleleCounts[] buildGenotypeAlleleCountsArray(final int ploidy, final int alleleCount, final int[][] genotypeOffsetTable) {
+    private static GenotypeAlleleCounts[] buildGenotypeAlleleCountsArray(final int ploidy, final int length) {
         Utils.validateArg(ploidy >= 0, () -> "the requested ploidy cannot be negative: " + ploidy);
-        Utils.validateArg(alleleCount >= 0, () -> "the requested maximum allele cannot be negative: " + alleleCount);
-        final int length = genotypeOffsetTable[ploidy][alleleCount];
-        final int strongRefLength = length == GENOTYPE_COUNT_OVERFLOW ? MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY : Math.min(length, MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY);
-        final GenotypeAlleleCounts[] result = new GenotypeAlleleCounts[strongRefLength];
+        Utils.validateArg(length > 0, () -> "the requested length must be positive: " + length);
+        final GenotypeAlleleCounts[] result = new GenotypeAlleleCounts[length];
         result[0] = GenotypeAlleleCounts.first(ploidy);
-        for (int genotypeIndex = 1; genotypeIndex < strongRefLength; genotypeIndex++) {
+        for (int genotypeIndex = 1; genotypeIndex < length; genotypeIndex++) {
             result[genotypeIndex] = result[genotypeIndex - 1].next();
         }
         return result;
     }
 
-
     /**
-     * Returns an instance given its ploidy and the number of alleles.
+     * Key in {@link #genotypeTables} of the strongly referenced genotypes of a ploidy and allele count.
      *
-     * @param alleleCount the required allele-count.
-     * @param ploidy the required ploidy-count.
-     *
-     * @throws IllegalArgumentException if either {@code ploidy} or {@code alleleCount} is negative, or the resulting number of genotypes is too large.
-     *
-     * @return never {@code null}.
+     * <p>
+     *     The genotypes of a ploidy are the same whatever the allele count, save for their number, so the key is made
+     *     of the ploidy and the number of genotypes; all allele counts with at least {@link #MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY}
+     *     genotypes share a single array. The array has at least the first genotype, even for no alleles.
+     * </p>
      */
-    public synchronized GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
-        calculateGenotypeCountsUsingTablesAndValidate(ploidy, alleleCount);
+    private static long genotypeTableKey(final int ploidy, final int genotypeCount) {
+        final int length = Math.max(1, Math.min(genotypeCount, MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY));
+        return ((long) ploidy << 32) | length;
+    }
 
-        // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+    /**
+     * Returns the strongly referenced genotypes for a ploidy and allele count whose genotype count is known not to overflow.
+     */
+    private GenotypeAlleleCounts[] genotypeTable(final int ploidy, final int genotypeCount) {
+        return genotypeTables.getUnchecked(genotypeTableKey(ploidy, genotypeCount));
     }
 
     /**
-     * Calculate genotype counts using the tables and validate that there is no overflow
+     * Returns an offset table with at least the capacity for the given ploidy and allele index.
+     *
+     * <p>This does not take any lock unless the current table is too small.</p>
      */
-    private synchronized void calculateGenotypeCountsUsingTablesAndValidate(final int ploidy, final int alleleCount) {
-        checkPloidyAndMaximumAllele(ploidy, alleleCount);
+    private int[][] offsetTableFor(final int ploidy, final int alleleCount) {
+        final OffsetTable current = offsetTable;
+        return current.supports(ploidy, alleleCount) ? current.offsets : expandOffsetTable(ploidy, alleleCount);
+    }
 
-        if (calculateGenotypeCountUsingTables(ploidy, alleleCount) == GENOTYPE_COUNT_OVERFLOW) {
-            final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
-            throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
+    /**
+     * Replaces the shared offset table with one that also supports the given ploidy and allele index.
+     *
+     * @param requestedMaximumPloidy the new requested ploidy maximum.
+     * @param requestedMaximumAllele the new requested allele maximum.
+     */
+    private synchronized int[][] expandOffsetTable(final int requestedMaximumPloidy, final int requestedMaximumAllele) {
+        final OffsetTable current = offsetTable;
+        if (current.supports(requestedMaximumPloidy, requestedMaximumAllele)) {
+            return current.offsets;
         }
+        final int newMaximumPloidy = Math.max(current.maximumPloidy, requestedMaximumPloidy);
+        final int newMaximumAllele = Math.max(current.maximumAllele, requestedMaximumAllele);
+
+        logger.debug("Expanding capacity ploidy:" + current.maximumPloidy + "->" + newMaximumPloidy + " allele:" + current.maximumAllele + "->" + newMaximumAllele);
+
+        final OffsetTable expanded = new OffsetTable(newMaximumPloidy, newMaximumAllele);
+        offsetTable = expanded;
+        return expanded.offsets;
     }
 
     /**
-     * Returns an instance of the DRAGEN genotypeLikelihoodCalculator given its ploidy and the number of alleles.
+     * Returns an instance given its ploidy and the number of alleles.
      *
      * @param alleleCount the required allele-count.
      * @param ploidy the required ploidy-count.
@@ -287,47 +297,34 @@ public final class GenotypeLikelihoodCalculators {
      *
      * @return never {@code null}.
      */
-    public synchronized GenotypeLikelihoodCalculatorDRAGEN getInstanceDRAGEN(final int ploidy, final int alleleCount) {
-        Utils.validate(ploidy == 2, "DRAGEN genotyping mode currently only supports diploid samples");
-        calculateGenotypeCountsUsingTablesAndValidate(ploidy, alleleCount);
+    public GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
+        final int genotypeCount = genotypeCount(ploidy, alleleCount);
 
-        // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculatorDRAGEN(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+        // The offset table must have at least the requested capacity, likely to be much more.
+        final int[][] offsets = offsetTableFor(ploidy, alleleCount);
+        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, offsets, genotypeTable(ploidy, genotypeCount));
     }
 
-
     /**
-     * Update of shared tables.
+     * Returns an instance of the DRAGEN genotypeLikelihoodCalculator given its ploidy and the number of alleles.
      *
-     * @param requestedMaximumAllele the new requested maximum allele maximum.
-     * @param requestedMaximumPloidy the new requested ploidy maximum.
+     * @param alleleCount the required allele-count.
+     * @param ploidy the required ploidy-count.
+     *
+     * @throws IllegalArgumentException if either {@code ploidy} or {@code alleleCount} is negative, or the resulting number of genotypes is too large.
+     *
+     * @return never {@code null}.
      */
-    private synchronized void ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
-
-        final boolean needsToExpandAlleleCapacity = requestedMaximumAllele > maximumAllele;
-        final boolean needsToExpandPloidyCapacity = requestedMaximumPloidy > maximumPloidy;
-
-        if (!needsToExpandAlleleCapacity && !needsToExpandPloidyCapacity) {
-            return;
-        }
-
-        final int newMaximumPloidy = Math.max(maximumPloidy, requestedMaximumPloidy);
-        final int newMaximumAllele = Math.max(maximumAllele, requestedMaximumAllele);
-
-        logger.debug("Expanding capacity ploidy:" + maximumPloidy + "->" + newMaximumPloidy + " allele:" +  maximumAllele +"->" + newMaximumAllele );
-
-        // Update tables first.
-        alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(newMaximumPloidy,newMaximumAllele);
-        genotypeTableByPloidy = buildGenotypeAlleleCountsTable(newMaximumPloidy,newMaximumAllele,alleleFirstGenotypeOffsetByPloidy);
+    public GenotypeLikelihoodCalculatorDRAGEN getInstanceDRAGEN(final int ploidy, final int alleleCount) {
+        Utils.validate(ploidy == 2, "DRAGEN genotyping mode currently only supports diploid samples");
+        final int genotypeCount = genotypeCount(ploidy, alleleCount);
 
-        if (needsToExpandAlleleCapacity) {
-            maximumAllele = requestedMaximumAllele;
-        }
-        if (needsToExpandPloidyCapacity) {
-            maximumPloidy = requestedMaximumPloidy;
-        }
+        // The offset table must have at least the requested capacity, likely to be much more.
+        final int[][] offsets = offsetTableFor(ploidy, alleleCount);
+        return new GenotypeLikelihoodCalculatorDRAGEN(ploidy, alleleCount, offsets, genotypeTable(ploidy, genotypeCount));
     }
 
+
     /**
      * Perform value checks on maximumPloidy and allele passed to diverse methods in this class.
      * <p>
@@ -344,14 +341,6 @@ public final class GenotypeLikelihoodCalculators {
         Utils.validateArg(maximumAllele >= 0, () -> "the maximum allele index provided cannot be negative: " + maximumAllele);
     }
 
-    private static void checkOffsetTableCapacity(final int[][] offsetTable, final int maximumPloidy, final int maximumAllele) {
-        Utils.nonNull(offsetTable, "the allele first genotype offset table provided cannot be null");
-        Utils.validateArg(offsetTable.length > maximumPloidy, () -> "the allele first genotype offset table provided does not have enough " +
-                    "capacity for requested maximum ploidy: " + maximumPloidy);
-        Utils.validateArg(offsetTable[0].length >= maximumAllele, () -> "the allele first genotype offset table provided does not have enough " +
-                    "capacity for requested maximum allele index: " + maximumAllele);
-    }
-
 
     /**
      * Returns the number of possible genotypes given the ploidy and number of different alleles.
@@ -364,8 +353,9 @@ public final class GenotypeLikelihoodCalculators {
      * @return the number of genotypes given ploidy and allele count (0 or greater).
      */
     public int genotypeCount(final int ploidy, final int alleleCount) {
-
-        final int result = calculateGenotypeCountUsingTables(ploidy, alleleCount);
+        checkPloidyAndMaximumAllele(ploidy, alleleCount);
+        final OffsetTable current = offsetTable;
+        final int result = current.supports(ploidy, alleleCount) ? current.offsets[ploidy][alleleCount] : calculateGenotypeCount(ploidy, alleleCount);
         if (result == GENOTYPE_COUNT_OVERFLOW) {
             final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
             throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
@@ -409,9 +399,29 @@ public final class GenotypeLikelihoodCalculators {
         throw new GATKException("Code should never reach here.");
     }
 
-    private synchronized int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
+    /**
+     * Calculates the number of genotypes, that is the binomial coefficient {@code (ploidy + alleleCount - 1) choose ploidy},
+     * without the offset table, so that asking for the genotype count of a large ploidy or allele count does not build
+     * a table of that size.
+     *
+     * @return the number of genotypes, or {@link #GENOTYPE_COUNT_OVERFLOW} if it is more than {@link Integer#MAX_VALUE}.
+     */
+    @VisibleForTesting
+    static int calculateGenotypeCount(final int ploidy, final int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
-        ensureCapacity(alleleCount, ploidy);
-        return alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+        if (alleleCount == 0) {
+            return 0;
+        }
+        final long n = (long) ploidy + alleleCount - 1;
+        final int k = Math.min(ploidy, alleleCount - 1);
+        long result = 1;
+        // result is (n - k + i) choose i after each step, which grows with i, so it stops at the first overflow.
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+            if (result > Integer.MAX_VALUE) {
+                return GENOTYPE_COUNT_OVERFLOW;
+            }
+        }
+        return (int) result;
     }
-}
\ No newline at end of file
+}
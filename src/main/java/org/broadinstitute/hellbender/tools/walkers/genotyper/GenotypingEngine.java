@@ -138,7 +138,7 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
             final GenotypesContext reducedGenotypes = allelesToKeep.size() == 1 ? GATKVariantContextUtils.subsetToRefOnly(vc, defaultPloidy) :
                     AlleleSubsettingUtils.subsetAlleles(vc.getGenotypes(), defaultPloidy, vc.getAlleles(), allelesToKeep, gpc,
                             GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL);  //with no PLs in some reblocked GVCFs, no-calls are just going to cause problems, so keep 0/0 genotypes as such without trying to recall
-            reducedVC = new VariantContextBuilder(vc).alleles(allelesToKeep).genotypes(reducedGenotypes).make();
+            reducedVC = setGenotypes(new VariantContextBuilder(vc).alleles(allelesToKeep), reducedGenotypes).make();
         }
 
         //Calculate the expected total length of the PL arrays for this VC to warn the user in the case that they will be exceptionally large
@@ -201,7 +201,12 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
         final Map<String, Object> attributes = composeCallAttributes(vc, outputAlternativeAlleles.alternativeAlleleMLECounts(),
                 AFresult, outputAlternativeAlleles.outputAlleles(vc.getReference()),genotypes);
 
-        return builder.genotypes(genotypes).attributes(attributes).make();
+        return setGenotypes(builder, genotypes).attributes(attributes).make();
+    }
+
+    // genotypes subset from columns are only built when they are accessed, so skip the validation that would build them
+    private static VariantContextBuilder setGenotypes(final VariantContextBuilder builder, final GenotypesContext genotypes) {
+        return GenotypeColumns.unwrap(genotypes) != null ? builder.genotypesNoValidation(genotypes) : builder.genotypes(genotypes);
     }
 
     protected double phredNoVariantPosteriorProbability(final List<Allele> alleles, final GenotypesContext gc) {
@@ -396,7 +401,7 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
      */
     protected final boolean cannotBeGenotyped(final VariantContext vc) {
         if (vc.getNAlleles() <= GenotypeLikelihoods.MAX_DIPLOID_ALT_ALLELES_THAT_CAN_BE_GENOTYPED
-            && vc.getGenotypes().stream().anyMatch(Genotype::hasLikelihoods)) {  //likelihoods may be missing when reading from GenomicsDB if there are more alts that GDB args allow
+            && GenotypeColumns.anyHasLikelihoods(vc.getGenotypes())) {  //likelihoods may be missing when reading from GenomicsDB if there are more alts that GDB args allow
             return false;
         }
         // protect against too many alternate alleles that we can't even run AF on:
@@ -466,7 +471,9 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
     }
 
     private List<Double> calculateMLEAlleleFrequencies(final List<Integer> alleleCountsofMLE, final GenotypesContext genotypes) {
-        final long AN = genotypes.stream().flatMap(g -> g.getAlleles().stream()).filter(Allele::isCalled).count();
+        final GenotypeColumns columns = GenotypeColumns.unwrap(genotypes);
+        final long AN = columns != null ? columns.getCalledAlleleCount() :
+                genotypes.stream().flatMap(g -> g.getAlleles().stream()).filter(Allele::isCalled).count();
         return alleleCountsofMLE.stream().map(AC -> Math.min(1.0, (double) AC / AN)).collect(Collectors.toList());
     }
 
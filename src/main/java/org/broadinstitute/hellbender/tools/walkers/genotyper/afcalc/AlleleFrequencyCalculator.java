@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc;
 
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
@@ -11,6 +12,7 @@ import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.dragstr.DragstrParams;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAlleleCounts;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeColumns;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculator;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculators;
 
@@ -64,33 +66,93 @@ public final class AlleleFrequencyCalculator {
         return new AlleleFrequencyCalculator(refPseudoCount, snpPseudoCount, indelPseudoCount, ploidy);
     }
 
+    /**
+     * The log10 likelihoods of the genotypes at a site that are usable for the allele frequency calculation
+     * (see {@link GenotypeUtils#genotypeIsUsableForAFCalculation(Genotype)}), read into arrays once per site instead
+     * of in every iteration of the calculation.  Hom-ref genotypes without likelihoods get likelihoods approximated
+     * from their GQ.  Genotypes held in {@link GenotypeColumns} are read from the columns without being built.
+     */
+    private static final class UsableGenotypeLikelihoods {
+        private final int[] ploidies;
+        private final double[][] log10Likelihoods;
+
+        private UsableGenotypeLikelihoods(final GenotypesContext genotypes, final int numAlleles) {
+            final int[] usablePloidies = new int[genotypes.size()];
+            final double[][] likelihoods = new double[genotypes.size()][];
+            final GenotypeColumns columns = GenotypeColumns.unwrap(genotypes);
+            final int count = columns != null ? readColumns(columns, numAlleles, usablePloidies, likelihoods) :
+                    readGenotypes(genotypes, numAlleles, usablePloidies, likelihoods);
+            ploidies = Arrays.copyOf(usablePloidies, count);
+            log10Likelihoods = Arrays.copyOf(likelihoods, count);
+        }
+
+        // returns the number of usable genotypes
+        private static int readGenotypes(final GenotypesContext genotypes, final int numAlleles,
+                                         final int[] usablePloidies, final double[][] likelihoods) {
+            int[] approximateDiploidGenotypeIndexMap = null;
+            int count = 0;
+            for (final Genotype g : genotypes) {
+                if (g.hasPL()) {
+                    likelihoods[count] = log10LikelihoodsFromPLs(g.getPL());
+                } else if (g.hasLikelihoods()) {
+                    // likelihoods given as GLs rather than PLs
+                    likelihoods[count] = g.getLikelihoods().getAsVector();
+                } else if (GenotypeUtils.genotypeIsUsableForAFCalculation(g)) {
+                    if (approximateDiploidGenotypeIndexMap == null) {
+                        approximateDiploidGenotypeIndexMap = GenotypeUtils.makeApproximateDiploidGenotypeIndexMap(numAlleles);
+                    }
+                    likelihoods[count] = GenotypeUtils.makeApproximateDiploidLog10LikelihoodsFromGQ(g.getGQ(), approximateDiploidGenotypeIndexMap);
+                } else {
+                    continue;
+                }
+                usablePloidies[count++] = g.getPloidy();
+            }
+            return count;
+        }
+
+        // same as readGenotypes; the columns hold the likelihoods of every sample as PLs
+        private static int readColumns(final GenotypeColumns columns, final int numAlleles,
+                                       final int[] usablePloidies, final double[][] likelihoods) {
+            int[] approximateDiploidGenotypeIndexMap = null;
+            int count = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.hasPL(i)) {
+                    likelihoods[count] = columns.getLog10Likelihoods(i);
+                } else if (columns.isHomRef(i) && columns.hasGQ(i) && columns.getPloidy(i) == 2) {
+                    if (approximateDiploidGenotypeIndexMap == null) {
+                        approximateDiploidGenotypeIndexMap = GenotypeUtils.makeApproximateDiploidGenotypeIndexMap(numAlleles);
+                    }
+                    likelihoods[count] = GenotypeUtils.makeApproximateDiploidLog10LikelihoodsFromGQ(columns.getGQ(i), approximateDiploidGenotypeIndexMap);
+                } else {
+                    continue;
+                }
+                usablePloidies[count++] = columns.getPloidy(i);
+            }
+            return count;
+        }
+
+        // same as GenotypeLikelihoods.fromPLs(pls).getAsVector(), without the intermediate object
+        private static double[] log10LikelihoodsFromPLs(final int[] pls) {
+            final double[] result = new double[pls.length];
+            for (int i = 0; i < pls.length; i++) {
+                result[i] = pls[i] / -10.0;
+            }
+            return result;
+        }
+
+        private int size() {
+            return ploidies.length;
+        }
+    }
+
     /**
      *
-     * @param g must have likelihoods or (if approximateHomRefsFromGQ is true) be hom-ref with GQ
-     *          (see {@link org.broadinstitute.hellbender.utils.GenotypeUtils#genotypeIsUsableForAFCalculation(Genotype)
-     *          genotypeIsUsableForAFCalculation} )
+     * @param log10Likelihoods the log10 likelihoods of a genotype
      * @param glCalc
      * @param log10AlleleFrequencies
      * @return
      */
-    private static double[] log10NormalizedGenotypePosteriors(final Genotype g, final GenotypeLikelihoodCalculator glCalc, final double[] log10AlleleFrequencies) {
-        final double[] log10Likelihoods;
-        if (g.hasLikelihoods()) {
-            log10Likelihoods = g.getLikelihoods().getAsVector();
-        } else if ( g.isHomRef()) {
-            if (g.getPloidy() != 2) {
-                throw new IllegalStateException("Likelihoods are required to calculate posteriors for hom-refs with ploidy != 2, " +
-                        "but were not found for genotype " + g + " with ploidy " + g.getPloidy());
-            }
-            if (g.hasGQ()) {
-                log10Likelihoods = GenotypeUtils.makeApproximateDiploidLog10LikelihoodsFromGQ(g, log10AlleleFrequencies.length);
-            } else {
-                throw new IllegalStateException("Genotype " + g + " does not contain GQ necessary to calculate posteriors.");
-            }
-        } else {
-            //no-call with no PLs are too risky -- don't assume they're reblocked hom-refs
-            throw new IllegalStateException("Genotype " + g + " does not contain likelihoods necessary to calculate posteriors.");
-        }
+    private static double[] log10NormalizedGenotypePosteriors(final double[] log10Likelihoods, final GenotypeLikelihoodCalculator glCalc, final double[] log10AlleleFrequencies) {
         final double[] log10Posteriors = new IndexRange(0, glCalc.genotypeCount()).mapToDouble(genotypeIndex -> {
             final GenotypeAlleleCounts gac = glCalc.genotypeAlleleCountsAt(genotypeIndex);
             return gac.log10CombinationCount() + log10Likelihoods[genotypeIndex]
@@ -131,7 +193,7 @@ public final class AlleleFrequencyCalculator {
      */
     public AFCalculationResult calculate(final VariantContext vc, final int defaultPloidy) {
         Utils.nonNull(vc, "VariantContext cannot be null");
-        Utils.validate(vc.getGenotypes().stream().anyMatch(Genotype::hasLikelihoods),
+        Utils.validate(GenotypeColumns.anyHasLikelihoods(vc.getGenotypes()),
                 "VariantContext  at " + vc.getContig() + ":" + vc.getStart() + "must contain at least one " +
                         "genotype with likelihoods -- did this VC exceed the max number of alt alleles?");
         final int numAlleles = vc.getNAlleles();
@@ -142,12 +204,14 @@ public final class AlleleFrequencyCalculator {
         final double[] priorPseudocounts = alleles.stream()
                 .mapToDouble(a -> a.isReference() ? refPseudocount : (a.length() == vc.getReference().length() ? snpPseudocount : indelPseudocount)).toArray();
 
+        final UsableGenotypeLikelihoods genotypeLikelihoods = new UsableGenotypeLikelihoods(vc.getGenotypes(), numAlleles);
+
         double[] alleleCounts = new double[numAlleles];
         final double flatLog10AlleleFrequency = -MathUtils.log10(numAlleles); // log10(1/numAlleles)
         double[] log10AlleleFrequencies = new IndexRange(0, numAlleles).mapToDouble(n -> flatLog10AlleleFrequency);
 
         for (double alleleCountsMaximumDifference = Double.POSITIVE_INFINITY; alleleCountsMaximumDifference > THRESHOLD_FOR_ALLELE_COUNT_CONVERGENCE; ) {
-            final double[] newAlleleCounts = effectiveAlleleCounts(vc, log10AlleleFrequencies);
+            final double[] newAlleleCounts = effectiveAlleleCounts(genotypeLikelihoods, log10AlleleFrequencies);
             alleleCountsMaximumDifference = Arrays.stream(MathArrays.ebeSubtract(alleleCounts, newAlleleCounts)).map(Math::abs).max().getAsDouble();
             alleleCounts = newAlleleCounts;
             final double[] posteriorPseudocounts = MathArrays.ebeAdd(priorPseudocounts, alleleCounts);
@@ -166,14 +230,11 @@ public final class AlleleFrequencyCalculator {
 
         // re-usable buffers of the log10 genotype posteriors of genotypes missing each allele
         final List<DoubleArrayList> log10AbsentPosteriors = IntStream.range(0,numAlleles).mapToObj(n -> new DoubleArrayList()).collect(Collectors.toList());
-        for (final Genotype g : vc.getGenotypes()) {
-            if (!GenotypeUtils.genotypeIsUsableForAFCalculation(g)) {
-                continue;
-            }
-            final int ploidy = g.getPloidy() == 0 ? defaultPloidy : g.getPloidy();
+        for (int n = 0; n < genotypeLikelihoods.size(); n++) {
+            final int ploidy = genotypeLikelihoods.ploidies[n] == 0 ? defaultPloidy : genotypeLikelihoods.ploidies[n];
             final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy, numAlleles);
 
-            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc, log10AlleleFrequencies);
+            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(genotypeLikelihoods.log10Likelihoods[n], glCalc, log10AlleleFrequencies);
 
             //the total probability
             if (!spanningDeletionPresent) {
@@ -253,18 +314,14 @@ public final class AlleleFrequencyCalculator {
     // for numerical stability we will do this in log space:
     // count = SUM 10^(log (n_g p_g)) = SUM 10^(log n_g + log p_g)
     // thanks to the log-sum-exp trick this lets us work with log posteriors alone
-    private double[] effectiveAlleleCounts(final VariantContext vc, final double[] log10AlleleFrequencies) {
-        final int numAlleles = vc.getNAlleles();
-        Utils.validateArg(numAlleles == log10AlleleFrequencies.length, "number of alleles inconsistent");
+    private static double[] effectiveAlleleCounts(final UsableGenotypeLikelihoods genotypeLikelihoods, final double[] log10AlleleFrequencies) {
+        final int numAlleles = log10AlleleFrequencies.length;
         final double[] log10Result = new double[numAlleles];
         Arrays.fill(log10Result, Double.NEGATIVE_INFINITY);
-        for (final Genotype g : vc.getGenotypes()) {
-            if (!GenotypeUtils.genotypeIsUsableForAFCalculation(g)) {
-                continue;
-            }
-            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(g.getPloidy(), numAlleles);
+        for (int n = 0; n < genotypeLikelihoods.size(); n++) {
+            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(genotypeLikelihoods.ploidies[n], numAlleles);
 
-            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc, log10AlleleFrequencies);
+            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(genotypeLikelihoods.log10Likelihoods[n], glCalc, log10AlleleFrequencies);
 
             new IndexRange(0, glCalc.genotypeCount()).forEach(genotypeIndex ->
                 glCalc.genotypeAlleleCountsAt(genotypeIndex).forEachAlleleIndexAndCount((alleleIndex, count) ->
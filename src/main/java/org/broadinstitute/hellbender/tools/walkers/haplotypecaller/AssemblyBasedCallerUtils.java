@@ -21,6 +21,7 @@ import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.clipping.CombinedReadClipper;
 import org.broadinstitute.hellbender.utils.clipping.ReadClipper;
 import org.broadinstitute.hellbender.utils.dragstr.DragstrParamUtils;
 import org.broadinstitute.hellbender.utils.fragments.FragmentCollection;
@@ -132,17 +133,29 @@ public final class AssemblyBasedCallerUtils {
         for (final GATKRead originalRead : region.getReads()) {
             // TODO unclipping soft clips may introduce bases that aren't in the extended region if the unclipped bases
             // TODO include a deletion w.r.t. the reference.  We must remove kmers that occur before the reference haplotype start
-            final GATKRead readTemp = (dontUseSoftClippedBases || !ReadUtils.hasWellDefinedFragmentSize(originalRead) ?
-                    ReadClipper.hardClipSoftClippedBases(originalRead) : ReadClipper.revertSoftClippedBases(originalRead));
-
-            final GATKRead read = (softClipLowQualityEnds ? ReadClipper.softClipLowQualEnds(readTemp, minTailQualityToUse) :
-                    ReadClipper.hardClipLowQualEnds(readTemp, minTailQualityToUse));
-            HardClipAndPossiblyAddToCollection(region, readsToUse, originalRead, read);
+            final boolean revertSoftClips = !(dontUseSoftClippedBases || !ReadUtils.hasWellDefinedFragmentSize(originalRead));
+            if (softClipLowQualityEnds) {
+                final GATKRead readTemp = revertSoftClips ? ReadClipper.revertSoftClippedBases(originalRead) : ReadClipper.hardClipSoftClippedBases(originalRead);
+                final GATKRead read = ReadClipper.softClipLowQualEnds(readTemp, minTailQualityToUse);
+                HardClipAndPossiblyAddToCollection(region, readsToUse, originalRead, read);
+            } else {
+                // all of the clipping is hard clipping, so apply it in a single pass without creating intermediate reads
+                final CombinedReadClipper clipper = ReadClipper.combine(originalRead);
+                if (revertSoftClips) {
+                    clipper.revertSoftClippedBases();
+                } else {
+                    clipper.hardClipSoftClippedBases();
+                }
+                clipper.hardClipLowQualEnds(minTailQualityToUse);
+                HardClipAndPossiblyAddToCollection(region, readsToUse, originalRead, clipper);
+            }
 
             if (trackHardclippedReads) {
-                final GATKRead hardClippedRead = ReadClipper.hardClipLowQualEnds(ReadClipper.hardClipSoftClippedBases(originalRead), minTailQualityToUse);
+                final CombinedReadClipper hardClipper = ReadClipper.combine(originalRead)
+                        .hardClipSoftClippedBases()
+                        .hardClipLowQualEnds(minTailQualityToUse);
 
-                HardClipAndPossiblyAddToCollection(region, hardClippedReadsToUse, originalRead, hardClippedRead);
+                HardClipAndPossiblyAddToCollection(region, hardClippedReadsToUse, originalRead, hardClipper);
             }
         }
 
@@ -164,6 +177,27 @@ public final class AssemblyBasedCallerUtils {
         region.setFinalized(true);
     }
 
+    /**
+     * Same as {@link #HardClipAndPossiblyAddToCollection(AssemblyRegion, List, GATKRead, GATKRead)}, but continues clipping
+     * with a {@link CombinedReadClipper} so that only the final read is materialized.
+     */
+    private static void HardClipAndPossiblyAddToCollection(final AssemblyRegion region, final List<GATKRead> readsToUse, final GATKRead originalRead, final CombinedReadClipper clipper) {
+        if (clipper.getStart() <= clipper.getEnd() && !clipper.isUnmapped()) {
+            clipper.hardClipAdaptorSequence();
+
+            if (!clipper.isEmpty() && clipper.getCigar().getReadLength() > 0) {
+                final boolean adaptorClippedReadOverlaps = clipper.overlaps(region.getPaddedSpan());
+                clipper.hardClipToRegion(region.getPaddedSpan().getStart(), region.getPaddedSpan().getEnd());
+
+                if (clipper.getStart() <= clipper.getEnd() && clipper.getLength() > 0 && adaptorClippedReadOverlaps) {
+                    final GATKRead adaptorAndRegionClippedRead = clipper.getClippedRead();
+                    // NOTE: as below, make a defensive copy of the read if it was not modified by the clipping
+                    readsToUse.add(adaptorAndRegionClippedRead == originalRead ? adaptorAndRegionClippedRead.copy() : adaptorAndRegionClippedRead);
+                }
+            }
+        }
+    }
+
     private static void HardClipAndPossiblyAddToCollection(final AssemblyRegion region, final List<GATKRead> readsToUse, final GATKRead originalRead, final GATKRead read) {
         if (read.getStart() <= read.getEnd() && !read.isUnmapped()) {
             final GATKRead adaptorClippedRead = ReadClipper.hardClipAdaptorSequence(read);
@@ -0,0 +1,177 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.metrics.MetricsFile;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.MarkDuplicatesSparkArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.GATKPath;
+import org.broadinstitute.hellbender.engine.ReadWalker;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.GATKDuplicationMetrics;
+import org.broadinstitute.hellbender.utils.read.markduplicates.StreamingDuplicateMarker;
+import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Marks duplicate reads in a coordinate-sorted SAM/BAM/CRAM file in a single streaming pass, without Spark.
+ *
+ * <p>This tool uses the same duplicate keys, scoring strategies, tie breaking and metrics as MarkDuplicatesSpark, but
+ * rather than grouping every read by name it walks the coordinate-sorted input once. Only reads whose mates have not
+ * yet been seen, and reads waiting for the duplicate sets around the current position to close, are held; when
+ * more than --max-reads-in-ram reads are waiting, the excess is spilled to the temporary directory. Likewise, when more
+ * than --max-reads-waiting-for-mates reads are waiting for their mates, those whose mates are farthest away are spilled
+ * to the temporary directory until the traversal reaches their mates.</p>
+ *
+ * <p>The output is written in input order, so it remains coordinate-sorted.</p>
+ *
+ * <h3>Differences from MarkDuplicatesSpark</h3>
+ * <ul>
+ *     <li>The input must be coordinate-sorted.</li>
+ *     <li>Secondary and supplementary alignments are given the duplicate status of their template only when they appear
+ *     while the template is still being tracked (typically near their primary alignments). Otherwise they are left
+ *     unmarked, as with Picard MarkDuplicates on coordinate-sorted input.</li>
+ *     <li>A duplicate set is closed once the traversal has moved --minimum-distance bases past it. This must be at least
+ *     the longest 5' clip (soft or hard) of any read in the input. By default it is twice the length of the first mapped read.</li>
+ *     <li>Pairs whose mates are never found are left unmarked.</li>
+ * </ul>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk StreamingMarkDuplicates \
+ *   -I coordinate_sorted.bam \
+ *   -O marked_duplicates.bam \
+ *   -M marked_dup_metrics.txt
+ * </pre>
+ */
+@DocumentedFeature
+@BetaFeature
+@CommandLineProgramProperties(
+        summary = "Marks duplicate reads in a coordinate-sorted file in a single streaming pass with bounded memory",
+        oneLineSummary = "Streaming, non-Spark MarkDuplicates for coordinate-sorted inputs",
+        programGroup = ReadDataManipulationProgramGroup.class)
+public final class StreamingMarkDuplicates extends ReadWalker {
+
+    public static final String MINIMUM_DISTANCE_LONG_NAME = "minimum-distance";
+    public static final String MAX_READS_IN_RAM_LONG_NAME = "max-reads-in-ram";
+    public static final String MAX_READS_WAITING_FOR_MATES_LONG_NAME = "max-reads-waiting-for-mates";
+
+    @Argument(doc = "The output file", shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME)
+    public GATKPath output;
+
+    @Argument(doc = "Path to write duplication metrics to.", optional = true,
+            shortName = StandardArgumentDefinitions.METRICS_FILE_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.METRICS_FILE_LONG_NAME)
+    public String metricsFile;
+
+    @Advanced
+    @Argument(doc = "How far past the 5' position of a duplicate set to wait before resolving it. Must be at least the longest 5' clip of any read. " +
+            "-1 uses twice the length of the first mapped read.", optional = true, fullName = MINIMUM_DISTANCE_LONG_NAME, minValue = -1)
+    public int minimumDistance = -1;
+
+    @Advanced
+    @Argument(doc = "Maximum number of reads waiting for a duplicate decision to hold in memory before spilling to the temporary directory.",
+            optional = true, fullName = MAX_READS_IN_RAM_LONG_NAME, minValue = 1)
+    public int maxReadsInRam = 500000;
+
+    @Advanced
+    @Argument(doc = "Maximum number of reads to hold in memory while waiting for their mates before spilling to the temporary directory.",
+            optional = true, fullName = MAX_READS_WAITING_FOR_MATES_LONG_NAME, minValue = 1)
+    public int maxReadsWaitingForMates = 1000000;
+
+    @ArgumentCollection
+    public MarkDuplicatesSparkArgumentCollection markDuplicatesArgumentCollection = new MarkDuplicatesSparkArgumentCollection();
+
+    @ArgumentCollection
+    public OpticalDuplicatesArgumentCollection opticalDuplicatesArgumentCollection = new OpticalDuplicatesArgumentCollection();
+
+    private SAMFileGATKReadWriter outputWriter;
+    private StreamingDuplicateMarker duplicateMarker;
+
+    @Override
+    public List<ReadFilter> getDefaultReadFilters() {
+        return Collections.singletonList(ReadFilterLibrary.ALLOW_ALL_READS);
+    }
+
+    @Override
+    public void onTraversalStart() {
+        final SAMFileHeader header = getHeaderForReads();
+        if (header.getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
+            throw new UserException.BadInput("StreamingMarkDuplicates requires coordinate-sorted input, but the input is in " + header.getSortOrder() + " order");
+        }
+        if (hasUserSuppliedIntervals()) {
+            throw new UserException.BadInput("StreamingMarkDuplicates must see every read in the input and does not support intervals");
+        }
+
+        // If we need to remove optical duplicates, make sure they are tagged so that they can be recognized
+        if (markDuplicatesArgumentCollection.removeSequencingDuplicates && markDuplicatesArgumentCollection.taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.DontTag) {
+            markDuplicatesArgumentCollection.taggingPolicy = MarkDuplicates.DuplicateTaggingPolicy.OpticalOnly;
+        }
+
+        final OpticalDuplicateFinder finder = new OpticalDuplicateFinder(opticalDuplicatesArgumentCollection.READ_NAME_REGEX, opticalDuplicatesArgumentCollection.OPTICAL_DUPLICATE_PIXEL_DISTANCE, null);
+        outputWriter = createSAMWriter(output, true);
+        duplicateMarker = new StreamingDuplicateMarker(header,
+                markDuplicatesArgumentCollection.duplicatesScoringStrategy,
+                finder,
+                !markDuplicatesArgumentCollection.dontMarkUnmappedMates,
+                markDuplicatesArgumentCollection.taggingPolicy,
+                minimumDistance,
+                maxReadsInRam,
+                maxReadsWaitingForMates,
+                Collections.singletonList(tmpDir.toPath()),
+                this::writeRead);
+    }
+
+    @Override
+    public void apply(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        duplicateMarker.addRead(read);
+    }
+
+    private void writeRead(final GATKRead read) {
+        if (markDuplicatesArgumentCollection.removeAllDuplicates && read.isDuplicate()) {
+            return;
+        }
+        if (markDuplicatesArgumentCollection.removeSequencingDuplicates && MarkDuplicates.DUPLICATE_TYPE_SEQUENCING.equals(read.getAttributeAsString(MarkDuplicates.DUPLICATE_TYPE_TAG))) {
+            return;
+        }
+        outputWriter.addRead(read);
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        duplicateMarker.finish();
+        if (metricsFile != null) {
+            final MetricsFile<GATKDuplicationMetrics, Double> resultMetrics = getMetricsFile();
+            MarkDuplicatesSparkUtils.saveMetrics(resultMetrics, getHeaderForReads(), duplicateMarker.getMetricsByLibrary(), metricsFile);
+        }
+        return null;
+    }
+
+    @Override
+    public void closeTool() {
+        if (duplicateMarker != null) {
+            duplicateMarker.close();
+        }
+        if (outputWriter != null) {
+            outputWriter.close();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollection;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.*;
@@ -262,6 +263,11 @@ public final class Mutect2 extends AssemblyRegionWalker {
 
     @Override
     public void onTraversalStart() {
+        // Mutect2 always downsamples with MutectDownsampler, which has no memory budget
+        if (assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb > 0) {
+            throw new CommandLineException.BadArgumentValue(AssemblyRegionArgumentCollection.MAX_DOWNSAMPLING_MEMORY_LONG_NAME,
+                    String.valueOf(assemblyRegionArgs.maxDownsamplingMemoryPerSampleMb), "Mutect2 does not support a downsampling memory budget");
+        }
         VariantAnnotatorEngine annotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), null, Collections.emptyList(), false, false);
         m2Engine = new Mutect2Engine(MTAC, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceArguments.getReferenceSpecifier(), annotatorEngine);
         vcfWriter = createVCFWriter(outputVCF);
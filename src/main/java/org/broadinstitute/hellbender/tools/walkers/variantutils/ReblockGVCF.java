@@ -1,6 +1,11 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
 import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.Tribble;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.*;
@@ -11,8 +16,11 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.*;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCollection;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.IndexFeatureFile;
+import org.broadinstitute.hellbender.tools.TabixIndexConcatenator;
 import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_QualByDepth;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_StandardAnnotation;
@@ -22,14 +30,19 @@ import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerArgumentCollection;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerGenotypingEngine;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ReferenceConfidenceMode;
+import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.collections.Permutation;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.logging.OneShotLogger;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
 import org.broadinstitute.hellbender.utils.variant.*;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
@@ -40,7 +53,15 @@ import org.broadinstitute.hellbender.utils.variant.writers.ReblockingGVCFWriter;
 import org.broadinstitute.hellbender.utils.variant.writers.ReblockingOptions;
 import picard.cmdline.programgroups.OtherProgramGroup;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -84,6 +105,13 @@ import java.util.stream.IntStream;
  *    -O sample1.reblocked.g.vcf
  *  * </pre>
  *
+ * <h3>Parallel reblocking</h3>
+ * <p>Reblocking is local to each contig, so with --reblock-threads greater than 1 the contigs are reblocked in parallel.
+ * Each contig is reblocked into a temporary block-compressed file without a header, and the compressed blocks of these
+ * files are appended to the output in contig order, with their tabix indices merged into that of the output, so the
+ * output is the same as with one thread.  This requires indexed input GVCFs and a block-compressed (.gz) output that
+ * is not sharded or written with an MD5 file; otherwise the contigs are reblocked on one thread.</p>
+ *
  * <h3>Caveats</h3>
  * <p>Only single-sample GVCF files produced by HaplotypeCaller can be used as input for this tool.</p>
  * <p>Annotations and header lines that are uninformative for single-sample will be dropped: 
@@ -107,6 +135,10 @@ public final class ReblockGVCF extends MultiVariantWalker {
     public static final String QUAL_APPROX_LONG_NAME = "do-qual-score-approximation";
     public static final String QUAL_APPROX_SHORT_NAME = "do-qual-approx";
     public static final String ALLOW_MISSING_LONG_NAME = "allow-missing-hom-ref-data";
+    public static final String REBLOCK_THREADS_LONG_NAME = "reblock-threads";
+
+    // Number of contigs in flight per worker thread, which bounds the temporary files that are not copied to the output yet
+    private static final int PENDING_CONTIGS_PER_THREAD = 2;
 
     private static final GenotypeLikelihoodCalculators GL_CALCS = new GenotypeLikelihoodCalculators();
 
@@ -152,6 +184,10 @@ public final class ReblockGVCF extends MultiVariantWalker {
     @Argument(fullName=KEEP_ALL_ALTS_ARG_NAME, doc="Keep all ALT alleles and full PL array for most accurate GQs", optional = true)
     protected boolean keepAllAlts = false;
 
+    @Advanced
+    @Argument(fullName=REBLOCK_THREADS_LONG_NAME, doc="Number of threads used to reblock contigs in parallel; more than one requires indexed inputs", optional = true, minValue = 1)
+    protected int reblockThreads = 1;
+
     //TODO: this will be an argument when posteriors handling is fully implemented in AlleleSubsettingUtils
     protected String posteriorsKey = null;
 
@@ -179,8 +215,14 @@ public final class ReblockGVCF extends MultiVariantWalker {
         }
     }
 
-    @VisibleForTesting
-    ReblockingGVCFWriter vcfWriter;
+    private ReblockingGVCFWriter vcfWriter;
+
+    // the header of the output, without the GQ band lines that the reblocking writer adds
+    private VCFHeader outputHeader;
+    // reblocks the variants of the serial traversal
+    private Reblocker serialReblocker;
+    // whether the contigs are reblocked in parallel
+    private boolean reblockInParallel = false;
 
     @Override
     public boolean useVariantAnnotations() { return true;}
@@ -195,6 +237,9 @@ public final class ReblockGVCF extends MultiVariantWalker {
 
     @Override
     public void onTraversalStart() {
+        if (reblockThreads > 1) {
+            validateInputsAreIndexed();
+        }
         if (getSamplesForVariants().size() != 1) {
             throw new UserException.BadInput("ReblockGVCF can take multiple input GVCFs, but they must be "
                     + "non-overlapping shards from the same sample.  Found samples " + getSamplesForVariants());
@@ -233,21 +278,38 @@ public final class ReblockGVCF extends MultiVariantWalker {
 
         referenceReader = ReferenceUtils.createReferenceReader(referenceArguments.getReferenceSpecifier());
 
-        createVcfWriter(headerLines);
+        reblockInParallel = reblockThreads > 1 && canReblockInParallel();
+        if (reblockInParallel) {
+            outputHeader = new VCFHeader(headerLines, getSamplesForVariants());  //don't get samples from header -- multi-variant inputHeader doens't have sample names
+        } else {
+            createVcfWriter(headerLines);
+        }
     }
 
     @VisibleForTesting
     public void createVcfWriter(Set<VCFHeaderLine> headerLines) {
-        final VariantContextWriter writer = createVCFWriter(outputFile);
+        setVcfWriter(makeReblockingWriter(createVCFWriter(outputFile), referenceReader));
+        outputHeader = new VCFHeader(headerLines, getSamplesForVariants());  //don't get samples from header -- multi-variant inputHeader doens't have sample names
+        vcfWriter.writeHeader(outputHeader);
+    }
+
+    /**
+     * Set the writer of the serial traversal, and the reblocker that writes to it
+     */
+    @VisibleForTesting
+    void setVcfWriter(final ReblockingGVCFWriter writer) {
+        vcfWriter = writer;
+        serialReblocker = new Reblocker(this, genotypingEngine, referenceReader, vcfWriter);
+    }
 
+    private ReblockingGVCFWriter makeReblockingWriter(final VariantContextWriter writer, final CachingIndexedFastaSequenceFile reference) {
         final ReblockingOptions reblockingOptions = new ReblockingOptions(dropLowQuals, allowMissingHomRefData, rgqThreshold);
 
         try {
-            vcfWriter = new ReblockingGVCFWriter(writer, new ArrayList<>(GVCFGQBands), floorBlocks, referenceReader, reblockingOptions);
+            return new ReblockingGVCFWriter(writer, new ArrayList<>(GVCFGQBands), floorBlocks, reference, reblockingOptions);
         } catch ( final IllegalArgumentException e ) {
             throw new UserException.BadInput("GQBands are malformed: " + e.getMessage(), e);
         }
-        vcfWriter.writeHeader(new VCFHeader(headerLines, getSamplesForVariants()));  //don't get samples from header -- multi-variant inputHeader doens't have sample names
     }
 
     private HaplotypeCallerGenotypingEngine createGenotypingEngine(final SampleList samples) {
@@ -270,82 +332,512 @@ public final class ReblockGVCF extends MultiVariantWalker {
     // get VariantContexts from input gVCFs and regenotype
     @Override
     public void apply(VariantContext variant, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
-        regenotypeVC(variant);
+        serialReblocker.regenotypeVC(variant);
+    }
+
+    @Override
+    public void traverse() {
+        if (reblockInParallel) {
+            traverseContigsInParallel();
+        } else {
+            super.traverse();
+        }
     }
 
     /**
-     * Re-genotype (and re-annotate) a VariantContext, adding it to the VCF writer if necessary
-     * Note that the GVCF write takes care of the actual homRef block merging based on {@code GVCFGQBands}
-     *
-     * @param originalVC     the combined genomic VC
+     * Parallel reblocking queries the inputs contig by contig, so every input must be indexed
+     */
+    private void validateInputsAreIndexed() {
+        for (final FeatureInput<VariantContext> input : getDrivingVariantsFeatureInputs()) {
+            if (IOUtils.isGenomicsDBPath(input)) {
+                continue;
+            }
+            final Path inputPath = input.toPath();
+            if (!Files.exists(IOUtils.getPath(Tribble.indexFile(inputPath.toUri().toString())))
+                    && !Files.exists(IOUtils.getPath(Tribble.tabixIndexFile(inputPath.toUri().toString())))) {
+                throw new UserException("Input " + input.getFeaturePath() + " must be indexed to reblock with --" + REBLOCK_THREADS_LONG_NAME
+                        + " greater than 1. Please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * @return true if the output can be assembled from the compressed blocks of contigs reblocked in parallel, which
+     *         requires a block-compressed output that is neither sharded nor written with an MD5 file
      */
-    private void regenotypeVC(final VariantContext originalVC) {
+    private boolean canReblockInParallel() {
+        if (IOUtil.hasBlockCompressedExtension(outputFile.toPath()) && !createOutputVariantMD5 && getMaxVariantsPerShard() == 0) {
+            return true;
+        }
+        logger.warn("Reblocking on a single thread: parallel reblocking supports only block-compressed outputs, without an MD5 file or sharding");
+        return false;
+    }
 
-        //Pass back ref-conf homRef sites/blocks to be combined by the GVCFWriter
-        if (isHomRefBlock(originalVC)) {
-            //if this hom ref block is entirely overlapped by previous VCF output, then drop it
-            if (originalVC.contigsMatch(vcfWriter.getVcfOutputEnd()) && originalVC.getEnd() <= vcfWriter.getVcfOutputEnd().getStart()) {
-                return;
+    /**
+     * Reblock the contigs of the traversal intervals on a pool of worker threads, and append the compressed blocks of
+     * each contig to the output in contig order.
+     */
+    private void traverseContigsInParallel() {
+        final Collection<List<SimpleInterval>> contigs = getTraversalIntervals().stream()
+                .collect(Collectors.groupingBy(SimpleInterval::getContig, LinkedHashMap::new, Collectors.toList()))
+                .values();
+        logger.info(String.format("Reblocking %d contigs on %d threads", contigs.size(), reblockThreads));
+
+        try (final ConcatenatedOutput output = new ConcatenatedOutput(outputFile.toPath(), createOutputVariantIndex)) {
+            final Path headerFile = IOUtils.createTempPath("reblocked-header", ".g.vcf.gz");
+            try (final VariantContextWriter headerWriter = makeReblockingWriter(createVCFWriter(headerFile), referenceReader)) {
+                headerWriter.writeHeader(new VCFHeader(outputHeader));
             }
-            final Genotype genotype = originalVC.getGenotype(0);
-            if (dropLowQuals && (!genotype.hasGQ() || genotype.getGQ() < rgqThreshold || genotype.getGQ() == 0)) {
-                return;
+            output.append(headerFile, false);
+            deleteTemporaryFile(headerFile);
+
+            // one genotyping engine, reference reader and query of the inputs per thread
+            final BlockingQueue<ContigReblockingResources> availableResources = new ArrayBlockingQueue<>(reblockThreads);
+            final List<ContigReblockingResources> allResources = new ArrayList<>(reblockThreads);
+            try (final OrderedTaskExecutor<ReblockedContig> executor = new OrderedTaskExecutor<>("reblock-thread-%d", reblockThreads,
+                    PENDING_CONTIGS_PER_THREAD, reblockedContig -> appendReblockedContig(output, reblockedContig))) {
+                for (int i = 0; i < reblockThreads; i++) {
+                    final ContigReblockingResources resources = new ContigReblockingResources();
+                    allResources.add(resources);
+                    availableResources.add(resources);
+                }
+
+                for (final List<SimpleInterval> contigIntervals : contigs) {
+                    executor.submit(() -> {
+                        final ContigReblockingResources resources = availableResources.take();
+                        try {
+                            return resources.reblock(contigIntervals);
+                        } finally {
+                            availableResources.put(resources);
+                        }
+                    }, () -> "reblocking contig " + contigIntervals.get(0).getContig());
+                }
+                executor.consumeAllResults();
+            } finally {
+                allResources.forEach(ContigReblockingResources::close);
             }
-            if (!genotype.hasPL()) {
-                if (genotype.hasGQ()) {
-                    logger.warn("PL is missing for hom ref genotype at at least one position for sample " + genotype.getSampleName() + ": " + originalVC.getContig() + ":" + originalVC.getStart() +
-                            ".  Using GQ to determine quality.");
-                    vcfWriter.add(originalVC);
-                } else {
-                    final String message = "Homozygous reference genotypes must contain GQ or PL. Both are missing for hom ref genotype at "
-                            + originalVC.getContig() + ":" + originalVC.getStart();
-                    if (allowMissingHomRefData) {
-                        logger.warn(message);
-                        final VariantContextBuilder vcBuilder = new VariantContextBuilder(originalVC);
-                        final GenotypeBuilder gBuilder = new GenotypeBuilder(genotype);
-                        vcBuilder.genotypes(gBuilder.GQ(0).PL(new int[]{0,0,0}).make());
-                        vcfWriter.add(vcBuilder.make());
-                    } else {
-                        throw new UserException.BadInput(message);
-                    }
+            output.finish();
+        }
+    }
+
+    private void appendReblockedContig(final ConcatenatedOutput output, final ReblockedContig reblockedContig) {
+        output.append(reblockedContig.file, createOutputVariantIndex);
+        deleteTemporaryFile(reblockedContig.file);
+        if (reblockedContig.lastVariant != null) {
+            progressMeter.update(reblockedContig.lastVariant, reblockedContig.variantsProcessed);
+        }
+    }
+
+    private static void deleteTemporaryFile(final Path file) {
+        final Path index = ConcatenatedOutput.getTabixIndexPath(file);
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(index);
+        } catch (final IOException e) {
+            logger.warn("Could not delete temporary file " + file.toUri(), e);
+        }
+    }
+
+    /**
+     * The resources used by one worker thread in parallel mode
+     */
+    private final class ContigReblockingResources implements AutoCloseable {
+        private final MultiVariantDataSource variants = new MultiVariantDataSource(getDrivingVariantsFeatureInputs(),
+                getDrivingVariantCacheLookAheadBases(), cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath(), true);
+        private final CachingIndexedFastaSequenceFile reference = ReferenceUtils.createReferenceReader(referenceArguments.getReferenceSpecifier());
+        private final HaplotypeCallerGenotypingEngine genotyper = createGenotypingEngine(new IndexedSampleList(getSamplesForVariants()));
+        private final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+        private final CountingVariantFilter variantFilter = makeVariantFilter();
+        private final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+
+        /**
+         * Reblock the variants of one contig into a temporary block-compressed VCF without a header, which is written
+         * to the output once
+         *
+         * @param contigIntervals the traversal intervals on the contig, in order
+         */
+        ReblockedContig reblock(final List<SimpleInterval> contigIntervals) {
+            final ReblockedContig reblockedContig = new ReblockedContig(IOUtils.createTempPath("reblocked", ".g.vcf.gz"));
+            final ReblockingGVCFWriter writer = makeReblockingWriter(createVCFWriter(reblockedContig.file), reference);
+            // the reblocking writer adds its GQ band lines to the header, so each contig has its own copy
+            writer.setHeader(new VCFHeader(outputHeader));
+            final Reblocker reblocker = new Reblocker(ReblockGVCF.this, genotyper, reference, writer);
+            try {
+                SimpleInterval previousInterval = null;
+                for (final SimpleInterval interval : contigIntervals) {
+                    // as when iterating over the traversal intervals, a variant belongs to the first interval it overlaps
+                    final SimpleInterval previous = previousInterval;
+                    final Iterator<VariantContext> newVariants = Utils.stream(variants.query(interval))
+                            .filter(variant -> previous == null || variant.getStart() > previous.getEnd())
+                            .iterator();
+                    getTransformedVariantStream(Spliterators.spliteratorUnknownSize(newVariants, 0), preTransformer, variantFilter, postTransformer)
+                            .forEachOrdered(variant -> {
+                                try {
+                                    reblocker.regenotypeVC(variant);
+                                } catch (final Exception e) {
+                                    throw new GATKException("Exception thrown at " + variant.getContig() + ":" + variant.getStart()
+                                            + " " + variant.toString(), e);
+                                }
+                                reblockedContig.lastVariant = new SimpleInterval(variant);
+                                reblockedContig.variantsProcessed++;
+                            });
+                    previousInterval = interval;
                 }
+            } finally {
+                writer.close();
             }
-            vcfWriter.add(originalVC);
-            return;
+            return reblockedContig;
+        }
+
+        @Override
+        public void close() {
+            variants.close();
+            reference.close();
         }
+    }
 
-        VariantContext result = originalVC;
+    private static final class ReblockedContig {
+        private final Path file;
+        private SimpleInterval lastVariant = null;
+        private long variantsProcessed = 0;
 
-        //Use the genotyping engine to do the QUAL thresholding if we're dropping low qual sites
-        //don't need to calculate quals for sites with no data whatsoever or sites already genotyped homRef,
-        //but if STAND_CALL_CONF > 0 we need to drop low quality alleles and regenotype
-        //Note that spanning deletion star alleles will be considered low quality
-        if (dropLowQuals && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0) > 0 && !isMonomorphicCallWithAlts(originalVC)) {
-            final VariantContext regenotyped = genotypingEngine.calculateGenotypes(originalVC);
-            if (regenotyped == null) {
-                return;
+        private ReblockedContig(final Path file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * The output in parallel mode, to which the compressed blocks of block-compressed files are appended without their
+     * terminator blocks, as in the block copying of {@link org.broadinstitute.hellbender.tools.GatherVcfsCloud}. Its
+     * tabix index is concatenated from theirs, so no record is decoded again.
+     */
+    private static final class ConcatenatedOutput implements AutoCloseable {
+        private final Path path;
+        private final OutputStream out;
+        private final TabixIndexConcatenator indexConcatenator;
+        // address in the output of the next appended block
+        private long address = 0;
+
+        private ConcatenatedOutput(final Path path, final boolean createIndex) {
+            this.path = path;
+            try {
+                out = new BufferedOutputStream(Files.newOutputStream(path));
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(path.toUri().toString(), "could not open the output", e);
             }
-            //make sure result has annotations so we don't have to keep originalVC around
-            result = new VariantContextBuilder(regenotyped).attributes(subsetAnnotationsIfNecessary(annotationEngine, doQualApprox, posteriorsKey, originalVC, regenotyped)).make();
+            indexConcatenator = createIndex ? new TabixIndexConcatenator() : null;
         }
 
+        /**
+         * Append the blocks of a block-compressed file, and its tabix index if {@code hasIndex}
+         */
+        void append(final Path file, final boolean hasIndex) {
+            try {
+                Utils.validate(BlockCompressedInputStream.checkTermination(file) == BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+                        () -> file.toUri() + " does not end with a terminator block");
+                final long length = Files.size(file) - BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length;
+                try (final InputStream in = Files.newInputStream(file)) {
+                    IOUtil.transferByStream(in, out, length);
+                }
+                if (hasIndex && indexConcatenator != null) {
+                    indexConcatenator.add(getTabixIndexPath(file), TabixIndexConcatenator.BlockMapping.copied(0, address));
+                }
+                address += length;
+            } catch (final IOException e) {
+                throw new UserException.CouldNotReadInputFile(file, e);
+            }
+        }
 
-        //variants with PL[0] less than threshold get turned to homRef with PL=[0,0,0], shouldn't get INFO attributes
-        //make sure we can call het variants with GQ >= rgqThreshold in joint calling downstream
-        if(shouldBeReblocked(result)) {
-            if (vcfWriter.getVcfOutputEnd() != null && result.getEnd() <= vcfWriter.getVcfOutputEnd().getEnd()) {
-                //variant is entirely overlapped by variants already output to the VCF, so drop it
+        /**
+         * Write the terminator block and the index, after everything has been appended
+         */
+        void finish() {
+            try {
+                out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+                out.flush();
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(path.toUri().toString(), "could not write the output", e);
+            }
+            if (indexConcatenator != null) {
+                indexConcatenator.write(getTabixIndexPath(path));
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(path.toUri().toString(), "could not close the output", e);
+            }
+        }
+
+        private static Path getTabixIndexPath(final Path file) {
+            return file.resolveSibling(file.getFileName().toString() + FileExtensions.TABIX_INDEX);
+        }
+    }
+
+    /**
+     * Reblocks variants, in order, into one writer. It has the state of one reblocking pass: a genotyping engine, a
+     * reference reader and a reblocking writer. The arguments, the annotation engine and the genotype helpers are read
+     * from the tool. The serial traversal uses one for all variants, and parallel reblocking one per contig.
+     */
+    private static final class Reblocker {
+        private final ReblockGVCF tool;
+        private final HaplotypeCallerGenotypingEngine genotyper;
+        private final CachingIndexedFastaSequenceFile reference;
+        private final ReblockingGVCFWriter writer;
+
+        private Reblocker(final ReblockGVCF tool, final HaplotypeCallerGenotypingEngine genotyper,
+                          final CachingIndexedFastaSequenceFile reference, final ReblockingGVCFWriter writer) {
+            this.tool = Utils.nonNull(tool);
+            this.genotyper = genotyper;
+            this.reference = reference;
+            this.writer = Utils.nonNull(writer);
+        }
+
+        /**
+         * Re-genotype (and re-annotate) a VariantContext, adding it to the VCF writer if necessary
+         * Note that the GVCF write takes care of the actual homRef block merging based on {@code GVCFGQBands}
+         *
+         * @param originalVC     the combined genomic VC
+         */
+        private void regenotypeVC(final VariantContext originalVC) {
+
+            //Pass back ref-conf homRef sites/blocks to be combined by the GVCFWriter
+            if (isHomRefBlock(originalVC)) {
+                //if this hom ref block is entirely overlapped by previous VCF output, then drop it
+                if (originalVC.contigsMatch(writer.getVcfOutputEnd()) && originalVC.getEnd() <= writer.getVcfOutputEnd().getStart()) {
+                    return;
+                }
+                final Genotype genotype = originalVC.getGenotype(0);
+                if (tool.dropLowQuals && (!genotype.hasGQ() || genotype.getGQ() < tool.rgqThreshold || genotype.getGQ() == 0)) {
+                    return;
+                }
+                if (!genotype.hasPL()) {
+                    if (genotype.hasGQ()) {
+                        logger.warn("PL is missing for hom ref genotype at at least one position for sample " + genotype.getSampleName() + ": " + originalVC.getContig() + ":" + originalVC.getStart() +
+                                ".  Using GQ to determine quality.");
+                        writer.add(originalVC);
+                    } else {
+                        final String message = "Homozygous reference genotypes must contain GQ or PL. Both are missing for hom ref genotype at "
+                                + originalVC.getContig() + ":" + originalVC.getStart();
+                        if (tool.allowMissingHomRefData) {
+                            logger.warn(message);
+                            final VariantContextBuilder vcBuilder = new VariantContextBuilder(originalVC);
+                            final GenotypeBuilder gBuilder = new GenotypeBuilder(genotype);
+                            vcBuilder.genotypes(gBuilder.GQ(0).PL(new int[]{0,0,0}).make());
+                            writer.add(vcBuilder.make());
+                        } else {
+                            throw new UserException.BadInput(message);
+                        }
+                    }
+                }
+                writer.add(originalVC);
                 return;
             }
-            final VariantContextBuilder newHomRefBuilder = lowQualVariantToGQ0HomRef(result);
-            if (newHomRefBuilder != null) {  //can be null if we're dropping low quals
-                vcfWriter.add(newHomRefBuilder.make());
+
+            VariantContext result = originalVC;
+
+            //Use the genotyping engine to do the QUAL thresholding if we're dropping low qual sites
+            //don't need to calculate quals for sites with no data whatsoever or sites already genotyped homRef,
+            //but if STAND_CALL_CONF > 0 we need to drop low quality alleles and regenotype
+            //Note that spanning deletion star alleles will be considered low quality
+            if (tool.dropLowQuals && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0) > 0 && !tool.isMonomorphicCallWithAlts(originalVC)) {
+                final VariantContext regenotyped = genotyper.calculateGenotypes(originalVC);
+                if (regenotyped == null) {
+                    return;
+                }
+                //make sure result has annotations so we don't have to keep originalVC around
+                result = new VariantContextBuilder(regenotyped).attributes(subsetAnnotationsIfNecessary(tool.annotationEngine, tool.doQualApprox, tool.posteriorsKey, originalVC, regenotyped)).make();
+            }
+
+
+            //variants with PL[0] less than threshold get turned to homRef with PL=[0,0,0], shouldn't get INFO attributes
+            //make sure we can call het variants with GQ >= rgqThreshold in joint calling downstream
+            if(tool.shouldBeReblocked(result)) {
+                if (writer.getVcfOutputEnd() != null && result.getEnd() <= writer.getVcfOutputEnd().getEnd()) {
+                    //variant is entirely overlapped by variants already output to the VCF, so drop it
+                    return;
+                }
+                final VariantContextBuilder newHomRefBuilder = lowQualVariantToGQ0HomRef(result);
+                if (newHomRefBuilder != null) {  //can be null if we're dropping low quals
+                    writer.add(newHomRefBuilder.make());
+                }
+            }
+            //high quality variant
+            else {
+                final VariantContext trimmedVariant = cleanUpHighQualityVariant(result);
+                writer.add(trimmedVariant);
+            }
+        }
+
+        /**
+         * "reblock" a variant by converting its genotype to homRef, changing PLs, adding reblock END tags and other attributes
+         * @param lowQualityVariant  a variant already determined to be low quality
+         * @return a Builder that can be modified later, may be null
+         */
+        private VariantContextBuilder lowQualVariantToGQ0HomRef(final VariantContext lowQualityVariant) {
+            if(tool.dropLowQuals && (!tool.isMonomorphicCallWithAlts(lowQualityVariant) || !lowQualityVariant.getGenotype(0).isCalled())) {
+                return null;
+            }
+
+            final Map<String, Object> attrMap = new HashMap<>();
+
+            //this method does a lot of things, including fixing alleles and adding the END key
+            final GenotypeBuilder gb = tool.changeCallToHomRefVersusNonRef(lowQualityVariant, attrMap);  //note that gb has all zero PLs
+
+            final VariantContextBuilder builder = new VariantContextBuilder(lowQualityVariant);
+
+            final Genotype newG = gb.make();
+            builder.alleles(Arrays.asList(newG.getAlleles().get(0), Allele.NON_REF_ALLELE)).genotypes(newG);
+            if (writer.getVcfOutputEnd() != null && lowQualityVariant.getStart() <= writer.getVcfOutputEnd().getStart()) {
+                final int newStart = writer.getVcfOutputEnd().getEnd() + 1;
+                if (newStart > lowQualityVariant.getEnd()) {
+                    return null;
+                }
+                ReblockingGVCFBlockCombiner.moveBuilderStart(builder, newStart, reference);
+            }
+            return builder.unfiltered()  //genotyping engine will add lowQual filter, so strip it off
+                    .log10PError(VariantContext.NO_LOG10_PERROR).attributes(attrMap);
+        }
+
+        /**
+         * Subset alleles as necessary and apply annotations
+         * @param variant    VariantContext with full set of annotations (e.g. DP)
+         * @return  an annotated VariantContext with data only for ref, non-ref and called alts
+         */
+        private VariantContext cleanUpHighQualityVariant(final VariantContext variant) {
+            final Map<String, Object> attrMap = new HashMap<>();
+
+            final Genotype genotype = tool.getCalledGenotype(variant);
+            VariantContextBuilder builder = new VariantContextBuilder(variant);  //QUAL from result is carried through
+            builder.attributes(attrMap).genotypes(genotype);  //clear attributes
+
+            final List<Allele> allelesToDrop = getAllelesToDrop(variant, genotype);
+
+            final boolean allelesNeedSubsetting = !allelesToDrop.isEmpty();
+            int[] relevantIndices = new int[variant.getNAlleles()];  //called alleles plus ref and non-ref
+            final List<Allele> newAlleleSetUntrimmed = new ArrayList<>(variant.getAlleles());
+            if(allelesNeedSubsetting && !tool.keepAllAlts) {
+                newAlleleSetUntrimmed.removeAll(allelesToDrop);
+                final GenotypesContext gc = AlleleSubsettingUtils.subsetAlleles(variant.getGenotypes(), genotype.getPloidy(), variant.getAlleles(),
+                        newAlleleSetUntrimmed, null, GenotypeAssignmentMethod.USE_PLS_TO_ASSIGN);
+                if (gc.get(0).isHomRef() || !gc.get(0).hasGQ() || gc.get(0).getAlleles().contains(Allele.NO_CALL)) {  //could be low quality or no-call after subsetting
+                    if (tool.dropLowQuals) {
+                        return null;
+                    }
+                    final VariantContextBuilder newHomRefBuilder = lowQualVariantToGQ0HomRef(variant);
+                    if (newHomRefBuilder != null) {  //there's a chance the low quality variant may be entirely overlapped by a variant already output
+                        writer.add(newHomRefBuilder.make());
+                    }
+                    return null;
+                }
+                //note that subsetting alleles can increase GQ, e.g. with one confident reference allele and a deletion allele that's either 4 or 5 bases long
+                builder.genotypes(gc).alleles(newAlleleSetUntrimmed);
+                //if deletions are dropped, alleles may need trimming
+                final VariantContext newTrimmedAllelesVC = GATKVariantContextUtils.trimAlleles(builder.make(), false, true);
+                builder = new VariantContextBuilder(newTrimmedAllelesVC);
+                //save indices of new alleles for annotation processing
+                relevantIndices = newAlleleSetUntrimmed.stream().mapToInt(a -> variant.getAlleles().indexOf(a)).toArray();
+                final int refBlockDepth;
+                if (variant.hasAttribute(VCFConstants.DEPTH_KEY)) {  //prefer INFO depth because HaplotypeCaller GVCF block code uses all reads, not just informative
+                    refBlockDepth = variant.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0);
+                } else if (genotype.hasDP()) {
+                    refBlockDepth = genotype.getDP();
+                } else {
+                    refBlockDepth = 0;
+                }
+                addRefBlockIfNecessary(variant, allelesToDrop, newTrimmedAllelesVC, refBlockDepth);
+            }
+
+            final VariantContext updatedAllelesVC = builder.make();
+            final Genotype updatedAllelesGenotype = updatedAllelesVC.getGenotype(0);
+
+            //remove any AD reads for the non-ref
+            final List<Genotype> genotypesArray = tool.removeNonRefADs(updatedAllelesGenotype, updatedAllelesVC.getAlleleIndex(Allele.NON_REF_ALLELE));
+            builder.genotypes(genotypesArray);
+
+            composeUpdatedAnnotations(attrMap, tool.doQualApprox, tool.posteriorsKey, variant, tool.annotationEngine, relevantIndices, updatedAllelesVC);
+
+            return builder.attributes(attrMap).unfiltered().make();
+        }
+
+        /**
+         * If the ref allele is trimmed after alt deletions are dropped, add a reference block to account for the space covered before trimming
+         * @param originalVC    VC with full set of alleles that may need to be trimmed
+         * @param allelesToDrop alleles eligible to become the new non-ref likelihood
+         * @param newTrimmedAllelesVC   VC with called alleles that may have been trimmed, i.e. differ from originalVC alleles
+         */
+        private void addRefBlockIfNecessary(final VariantContext originalVC, final List<Allele> allelesToDrop, final VariantContext newTrimmedAllelesVC, final int refBlockDepth) {
+            //if deletion needs trimming, fill in the gap with a ref block
+            final int oldLongestAlleleLength = originalVC.getReference().length();
+            final int newLongestAlleleLength = newTrimmedAllelesVC.getReference().length();
+            final Genotype genotype = originalVC.getGenotype(0);
+            final int vcfOutputEnd = writer.getVcfOutputEnd() == null ? -1 : writer.getVcfOutputEnd().getEnd();
+            if (newLongestAlleleLength < oldLongestAlleleLength) {
+                //need to add a ref block to make up for the allele trimming or there will be a hole in the GVCF
+                final int[] originalLikelihoods = getGenotypePosteriorsOtherwiseLikelihoods(genotype, tool.posteriorsKey);
+                if (originalLikelihoods != null) {
+                    final Allele oldShortestAltAllele;
+                    try {
+                        oldShortestAltAllele = allelesToDrop.stream().filter(a -> !a.equals(Allele.SPAN_DEL))
+                                .min(new AlleleLengthComparator()).orElseThrow(NoSuchElementException::new);
+                    } catch (final Exception e) {
+                        throw new GATKException("No shortest ALT at " + originalVC.getStart() + " across alleles: " + allelesToDrop);
+                    }
+
+                    //subset PLs to ref and longest dropped allele (longest may not be most likely, but we'll approximate so we don't have to make more than one ref block)
+                    final int[] longestVersusRefPLIndices = AlleleSubsettingUtils.subsettedPLIndices(originalVC.getGenotype(0).getPloidy(),
+                            originalVC.getAlleles(), Arrays.asList(originalVC.getReference(), oldShortestAltAllele));
+                    final int[] newRefBlockLikelihoods = MathUtils.normalizePLs(Arrays.stream(longestVersusRefPLIndices)
+                            .map(idx -> originalLikelihoods[idx]).toArray());
+                    if (newRefBlockLikelihoods[0] != 0) {
+                        for (int i = 0; i < newRefBlockLikelihoods.length; i++) {
+                            newRefBlockLikelihoods[i] = Math.max(newRefBlockLikelihoods[i] - newRefBlockLikelihoods[0], 0);
+                        }
+                    }
+
+                    //build the new reference block with updated likelihoods
+                    final GenotypeBuilder refBlockGenotypeBuilder = new GenotypeBuilder();
+                    final int refStart = Math.max(originalVC.getEnd() - (oldLongestAlleleLength - newLongestAlleleLength), vcfOutputEnd) + 1;
+                    final Allele newRef = Allele.create(ReferenceUtils.getRefBaseAtPosition(reference, originalVC.getContig(), refStart), true);
+                    refBlockGenotypeBuilder.PL(newRefBlockLikelihoods)
+                            .GQ(MathUtils.secondSmallestMinusSmallest(newRefBlockLikelihoods, 0))
+                            .alleles(Arrays.asList(newRef, newRef)).DP(refBlockDepth);
+
+                    //add the new block to the buffer if it isn't covered by positions already output
+                    if (refStart > vcfOutputEnd && originalVC.getEnd() > vcfOutputEnd) {
+                        final VariantContextBuilder trimBlockBuilder = new VariantContextBuilder();
+                        trimBlockBuilder.chr(originalVC.getContig()).start(Math.max(refStart, vcfOutputEnd + 1)).stop(originalVC.getEnd()).
+                                alleles(Arrays.asList(newRef, Allele.NON_REF_ALLELE)).attribute(VCFConstants.END_KEY, originalVC.getEnd())
+                                .genotypes(refBlockGenotypeBuilder.make());
+                        writer.add(trimBlockBuilder.make());
+                    }
+                }
             }
         }
-        //high quality variant
-        else {
-            final VariantContext trimmedVariant = cleanUpHighQualityVariant(result);
-            vcfWriter.add(trimmedVariant);
+
+        /**
+         * Get the list of concrete alternate alleles in variant that were not called in genotype
+         * @param variant   has full set of alleles, not all of which may be called
+         * @param calledGenotype    should not be no-call
+         * @return  a list of (concrete) alt alleles that are not called in calledGenotype
+         */
+        private List<Allele> getAllelesToDrop(final VariantContext variant, final Genotype calledGenotype) {
+            //always drop alleles that aren't called to reduce PL size
+            final List<Allele> allelesToDrop = variant.getAlternateAlleles().stream()
+                    .filter(a -> !a.isSymbolic() && ! calledGenotype.getAlleles().contains(a))
+                    .collect(Collectors.toList());
+
+            //if the position of variant overlaps the ref block buffer, then it means that its deletion has been converted to a ref block
+            //(if there was a subsequent high quality deletion, it would have trimmed the buffer)
+            if (calledGenotype.getAlleles().contains(Allele.SPAN_DEL) && (writer.siteOverlapsBuffer(variant)
+                    || writer.getVcfOutputEnd() == null
+                    || writer.getVcfOutputEnd().getEnd() < variant.getStart())) {
+                allelesToDrop.add(Allele.SPAN_DEL);
+            }
+            return allelesToDrop;
         }
     }
 
@@ -453,34 +945,14 @@ public final class ReblockGVCF extends MultiVariantWalker {
     }
 
     /**
-     * "reblock" a variant by converting its genotype to homRef, changing PLs, adding reblock END tags and other attributes
+     * "reblock" a variant by converting its genotype to homRef, changing PLs, adding reblock END tags and other attributes,
+     * against the output of the serial traversal
      * @param lowQualityVariant  a variant already determined to be low quality
      * @return a Builder that can be modified later, may be null
      */
     @VisibleForTesting
     public VariantContextBuilder lowQualVariantToGQ0HomRef(final VariantContext lowQualityVariant) {
-        if(dropLowQuals && (!isMonomorphicCallWithAlts(lowQualityVariant) || !lowQualityVariant.getGenotype(0).isCalled())) {
-            return null;
-        }
-
-        final Map<String, Object> attrMap = new HashMap<>();
-
-        //this method does a lot of things, including fixing alleles and adding the END key
-        final GenotypeBuilder gb = changeCallToHomRefVersusNonRef(lowQualityVariant, attrMap);  //note that gb has all zero PLs
-
-        final VariantContextBuilder builder = new VariantContextBuilder(lowQualityVariant);
-
-        final Genotype newG = gb.make();
-        builder.alleles(Arrays.asList(newG.getAlleles().get(0), Allele.NON_REF_ALLELE)).genotypes(newG);
-        if (vcfWriter.getVcfOutputEnd() != null && lowQualityVariant.getStart() <= vcfWriter.getVcfOutputEnd().getStart()) {
-            final int newStart = vcfWriter.getVcfOutputEnd().getEnd() + 1;
-            if (newStart > lowQualityVariant.getEnd()) {
-                return null;
-            }
-            ReblockingGVCFBlockCombiner.moveBuilderStart(builder, newStart, referenceReader);
-        }
-        return builder.unfiltered()  //genotyping engine will add lowQual filter, so strip it off
-                .log10PError(VariantContext.NO_LOG10_PERROR).attributes(attrMap);
+        return serialReblocker.lowQualVariantToGQ0HomRef(lowQualityVariant);
     }
 
     /**
@@ -547,120 +1019,13 @@ public final class ReblockGVCF extends MultiVariantWalker {
     }
 
     /**
-     * Subset alleles as necessary and apply annotations
+     * Subset alleles as necessary and apply annotations, against the output of the serial traversal
      * @param variant    VariantContext with full set of annotations (e.g. DP)
      * @return  an annotated VariantContext with data only for ref, non-ref and called alts
      */
     @VisibleForTesting
     VariantContext cleanUpHighQualityVariant(final VariantContext variant) {
-        final Map<String, Object> attrMap = new HashMap<>();
-
-        final Genotype genotype = getCalledGenotype(variant);
-        VariantContextBuilder builder = new VariantContextBuilder(variant);  //QUAL from result is carried through
-        builder.attributes(attrMap).genotypes(genotype);  //clear attributes
-
-        final List<Allele> allelesToDrop = getAllelesToDrop(variant, genotype);
-
-        final boolean allelesNeedSubsetting = !allelesToDrop.isEmpty();
-        int[] relevantIndices = new int[variant.getNAlleles()];  //called alleles plus ref and non-ref
-        final List<Allele> newAlleleSetUntrimmed = new ArrayList<>(variant.getAlleles());
-        if(allelesNeedSubsetting && !keepAllAlts) {
-            newAlleleSetUntrimmed.removeAll(allelesToDrop);
-            final GenotypesContext gc = AlleleSubsettingUtils.subsetAlleles(variant.getGenotypes(), genotype.getPloidy(), variant.getAlleles(),
-                    newAlleleSetUntrimmed, null, GenotypeAssignmentMethod.USE_PLS_TO_ASSIGN);
-            if (gc.get(0).isHomRef() || !gc.get(0).hasGQ() || gc.get(0).getAlleles().contains(Allele.NO_CALL)) {  //could be low quality or no-call after subsetting
-                if (dropLowQuals) {
-                    return null;
-                }
-                final VariantContextBuilder newHomRefBuilder = lowQualVariantToGQ0HomRef(variant);
-                if (newHomRefBuilder != null) {  //there's a chance the low quality variant may be entirely overlapped by a variant already output
-                    vcfWriter.add(newHomRefBuilder.make());
-                }
-                return null;
-            }
-            //note that subsetting alleles can increase GQ, e.g. with one confident reference allele and a deletion allele that's either 4 or 5 bases long
-            builder.genotypes(gc).alleles(newAlleleSetUntrimmed);
-            //if deletions are dropped, alleles may need trimming
-            final VariantContext newTrimmedAllelesVC = GATKVariantContextUtils.trimAlleles(builder.make(), false, true);
-            builder = new VariantContextBuilder(newTrimmedAllelesVC);
-            //save indices of new alleles for annotation processing
-            relevantIndices = newAlleleSetUntrimmed.stream().mapToInt(a -> variant.getAlleles().indexOf(a)).toArray();
-            final int refBlockDepth;
-            if (variant.hasAttribute(VCFConstants.DEPTH_KEY)) {  //prefer INFO depth because HaplotypeCaller GVCF block code uses all reads, not just informative
-                refBlockDepth = variant.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0);
-            } else if (genotype.hasDP()) {
-                refBlockDepth = genotype.getDP();
-            } else {
-                refBlockDepth = 0;
-            }
-            addRefBlockIfNecessary(variant, allelesToDrop, newTrimmedAllelesVC, refBlockDepth);
-        }
-
-        final VariantContext updatedAllelesVC = builder.make();
-        final Genotype updatedAllelesGenotype = updatedAllelesVC.getGenotype(0);
-
-        //remove any AD reads for the non-ref
-        final List<Genotype> genotypesArray = removeNonRefADs(updatedAllelesGenotype, updatedAllelesVC.getAlleleIndex(Allele.NON_REF_ALLELE));
-        builder.genotypes(genotypesArray);
-
-        composeUpdatedAnnotations(attrMap, doQualApprox, posteriorsKey, variant, annotationEngine, relevantIndices, updatedAllelesVC);
-
-        return builder.attributes(attrMap).unfiltered().make();
-    }
-
-    /**
-     * If the ref allele is trimmed after alt deletions are dropped, add a reference block to account for the space covered before trimming
-     * @param originalVC    VC with full set of alleles that may need to be trimmed
-     * @param allelesToDrop alleles eligible to become the new non-ref likelihood
-     * @param newTrimmedAllelesVC   VC with called alleles that may have been trimmed, i.e. differ from originalVC alleles
-     */
-    private void addRefBlockIfNecessary(final VariantContext originalVC, final List<Allele> allelesToDrop, final VariantContext newTrimmedAllelesVC, final int refBlockDepth) {
-        //if deletion needs trimming, fill in the gap with a ref block
-        final int oldLongestAlleleLength = originalVC.getReference().length();
-        final int newLongestAlleleLength = newTrimmedAllelesVC.getReference().length();
-        final Genotype genotype = originalVC.getGenotype(0);
-        final int vcfOutputEnd = vcfWriter.getVcfOutputEnd() == null ? -1 : vcfWriter.getVcfOutputEnd().getEnd();
-        if (newLongestAlleleLength < oldLongestAlleleLength) {
-            //need to add a ref block to make up for the allele trimming or there will be a hole in the GVCF
-            final int[] originalLikelihoods = getGenotypePosteriorsOtherwiseLikelihoods(genotype, posteriorsKey);
-            if (originalLikelihoods != null) {
-                final Allele oldShortestAltAllele;
-                try {
-                    oldShortestAltAllele = allelesToDrop.stream().filter(a -> !a.equals(Allele.SPAN_DEL))
-                            .min(new AlleleLengthComparator()).orElseThrow(NoSuchElementException::new);
-                } catch (final Exception e) {
-                    throw new GATKException("No shortest ALT at " + originalVC.getStart() + " across alleles: " + allelesToDrop);
-                }
-
-                //subset PLs to ref and longest dropped allele (longest may not be most likely, but we'll approximate so we don't have to make more than one ref block)
-                final int[] longestVersusRefPLIndices = AlleleSubsettingUtils.subsettedPLIndices(originalVC.getGenotype(0).getPloidy(),
-                        originalVC.getAlleles(), Arrays.asList(originalVC.getReference(), oldShortestAltAllele));
-                final int[] newRefBlockLikelihoods = MathUtils.normalizePLs(Arrays.stream(longestVersusRefPLIndices)
-                        .map(idx -> originalLikelihoods[idx]).toArray());
-                if (newRefBlockLikelihoods[0] != 0) {
-                    for (int i = 0; i < newRefBlockLikelihoods.length; i++) {
-                        newRefBlockLikelihoods[i] = Math.max(newRefBlockLikelihoods[i] - newRefBlockLikelihoods[0], 0);
-                    }
-                }
-
-                //build the new reference block with updated likelihoods
-                final GenotypeBuilder refBlockGenotypeBuilder = new GenotypeBuilder();
-                final int refStart = Math.max(originalVC.getEnd() - (oldLongestAlleleLength - newLongestAlleleLength), vcfOutputEnd) + 1;
-                final Allele newRef = Allele.create(ReferenceUtils.getRefBaseAtPosition(referenceReader, originalVC.getContig(), refStart), true);
-                refBlockGenotypeBuilder.PL(newRefBlockLikelihoods)
-                        .GQ(MathUtils.secondSmallestMinusSmallest(newRefBlockLikelihoods, 0))
-                        .alleles(Arrays.asList(newRef, newRef)).DP(refBlockDepth);
-
-                //add the new block to the buffer if it isn't covered by positions already output
-                if (refStart > vcfOutputEnd && originalVC.getEnd() > vcfOutputEnd) {
-                    final VariantContextBuilder trimBlockBuilder = new VariantContextBuilder();
-                    trimBlockBuilder.chr(originalVC.getContig()).start(Math.max(refStart, vcfOutputEnd + 1)).stop(originalVC.getEnd()).
-                            alleles(Arrays.asList(newRef, Allele.NON_REF_ALLELE)).attribute(VCFConstants.END_KEY, originalVC.getEnd())
-                            .genotypes(refBlockGenotypeBuilder.make());
-                    vcfWriter.add(trimBlockBuilder.make());
-                }
-            }
-        }
+        return serialReblocker.cleanUpHighQualityVariant(variant);
     }
 
     /**
@@ -730,28 +1095,6 @@ public final class ReblockGVCF extends MultiVariantWalker {
         }
     }
 
-    /**
-     * Get the list of concrete alternate alleles in variant that were not called in genotype
-     * @param variant   has full set of alleles, not all of which may be called
-     * @param calledGenotype    should not be no-call
-     * @return  a list of (concrete) alt alleles that are not called in calledGenotype
-     */
-    private List<Allele> getAllelesToDrop(final VariantContext variant, final Genotype calledGenotype) {
-        //always drop alleles that aren't called to reduce PL size
-        final List<Allele> allelesToDrop = variant.getAlternateAlleles().stream()
-                .filter(a -> !a.isSymbolic() && ! calledGenotype.getAlleles().contains(a))
-                .collect(Collectors.toList());
-
-        //if the position of variant overlaps the ref block buffer, then it means that its deletion has been converted to a ref block
-        //(if there was a subsequent high quality deletion, it would have trimmed the buffer)
-        if (calledGenotype.getAlleles().contains(Allele.SPAN_DEL) && (vcfWriter.siteOverlapsBuffer(variant)
-                || vcfWriter.getVcfOutputEnd() == null
-                || vcfWriter.getVcfOutputEnd().getEnd() < variant.getStart())) {
-            allelesToDrop.add(Allele.SPAN_DEL);
-        }
-        return allelesToDrop;
-    }
-
     /**
      * Add the "raw" annotations necessary for calculating QD and AS_QD
      * @param destination   has qual-related annotations added to it, but also potentially supplies DP value
@@ -33,6 +33,7 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.ChromosomeCounts;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.AlleleSubsettingUtils;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAssignmentMethod;
+import org.broadinstitute.hellbender.utils.jexl.CompiledJexlVCMatchExp;
 import org.broadinstitute.hellbender.utils.samples.MendelianViolation;
 import org.broadinstitute.hellbender.utils.samples.SampleDB;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -502,7 +503,7 @@ public final class SelectVariants extends VariantWalker {
             selectNames.add(String.format("select-%d", i));
         }
 
-        jexls = VariantContextUtils.initializeMatchExps(selectNames, selectExpressions);
+        jexls = CompiledJexlVCMatchExp.initializeMatchExps(selectNames, selectExpressions);
 
         // Prepare the sample names and types to be used by the corresponding filters
         samples = createSampleNameInclusionList(vcfHeaders);
@@ -644,7 +645,7 @@ public final class SelectVariants extends VariantWalker {
 
             try {
                 for (VariantContextUtils.JexlVCMatchExp jexl : jexls) {
-                    if (invertLogic(!VariantContextUtils.match(filteredGenotypeToNocall, jexl), invertSelect)){
+                    if (invertLogic(!CompiledJexlVCMatchExp.match(filteredGenotypeToNocall, jexl), invertSelect)){
                         failedJexlMatch = true;
                         break;
                     }
@@ -163,16 +163,33 @@ public final class GenotypeUtils {
     public static double[] makeApproximateDiploidLog10LikelihoodsFromGQ(Genotype g, int nAlleles) {
         Utils.validate(g.getPloidy() == 2, "This method can only be used to approximate likelihoods for diploid genotypes");
         Utils.validate(g.hasGQ(), "Genotype must have GQ in order to approximate PLs");
+        return makeApproximateDiploidLog10LikelihoodsFromGQ(g.getGQ(), makeApproximateDiploidGenotypeIndexMap(nAlleles));
+    }
+
+    /**
+     * Make the genotype index map used to approximate diploid likelihoods from GQ, which maps every diploid genotype
+     * over the given alleles to the ref/ref, ref/alt or alt/alt genotype of a single alt allele.  The map only depends
+     * on the number of alleles, so it can be shared by all of the genotypes at a site.
+     * @param nAlleles number of alleles (including reference)
+     * @return genotype index map for {@link #makeApproximateDiploidLog10LikelihoodsFromGQ(int, int[])}
+     */
+    public static int[] makeApproximateDiploidGenotypeIndexMap(final int nAlleles) {
         final int[] perSampleIndexesOfRelevantAlleles = new int[nAlleles];
         Arrays.fill(perSampleIndexesOfRelevantAlleles, 1);
         perSampleIndexesOfRelevantAlleles[0] = 0;  //ref still maps to ref
-        //use these values for diploid ref/ref, ref/alt, alt/alt likelihoods
-        final int gq = g.getGQ();
-        final int ploidy = g.getPloidy();
+        return GL_CALCS.getInstance(2, nAlleles).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, GL_CALCS); //probably horribly slow
+    }
+
+    /**
+     * Make approximate likelihoods for a diploid hom-ref genotype without PLs from its GQ.
+     * @param gq the GQ of the genotype
+     * @param genotypeIndexMapByPloidy map from {@link #makeApproximateDiploidGenotypeIndexMap(int)} for the number of alleles
+     * @return log10 likelihoods
+     */
+    public static double[] makeApproximateDiploidLog10LikelihoodsFromGQ(final int gq, final int[] genotypeIndexMapByPloidy) {
         //here we supply likelihoods for ref/ref, ref/alt, and alt/alt and then generalize to multiallic PLs if necessary
         final int[] approxLikelihoods = {0, gq, PLOIDY_2_HOM_VAR_SCALE_FACTOR*gq};
         //map likelihoods for any other alts to biallelic ref/alt likelihoods above
-        final int[] genotypeIndexMapByPloidy = GL_CALCS.getInstance(ploidy, nAlleles).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, GL_CALCS); //probably horribly slow
         final int[] PLs = new int[genotypeIndexMapByPloidy.length];
         for (int i = 0; i < PLs.length; i++) {
             PLs[i] = approxLikelihoods[genotypeIndexMapByPloidy[i]];
@@ -0,0 +1,391 @@
+package org.broadinstitute.hellbender.utils.clipping;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies a sequence of the hard clipping operations of {@link ReadClipper} to a read while only producing a single new read.
+ *
+ * This is the implementation of the static hard clipping methods of {@link ReadClipper}, each of which applies a single
+ * operation. Applying several operations in turn gives the same result as applying the corresponding static methods to
+ * the result of the previous one, but intermediate reads are never created: only the cigar, alignment start and the
+ * range of the original bases that survive are tracked, and the bases, qualities and indel qualities are copied once
+ * when {@link #getClippedRead()} is called.
+ *
+ * Between operations the state of the (virtual) intermediate read can be queried through {@link #getStart()},
+ * {@link #getEnd()}, {@link #getLength()}, {@link #getCigar()}, {@link #isEmpty()} and {@link #isUnmapped()}, which
+ * return the same values as the corresponding {@link GATKRead} methods would on the intermediate read.
+ *
+ * Example:
+ * <pre>
+ *     final GATKRead clipped = ReadClipper.combine(read)
+ *             .hardClipSoftClippedBases()
+ *             .hardClipLowQualEnds(minTailQuality)
+ *             .hardClipAdaptorSequence()
+ *             .getClippedRead();
+ * </pre>
+ */
+public final class CombinedReadClipper implements Locatable {
+
+    private final GATKRead read;
+    private final boolean originalIsUnmapped;
+
+    // range of the original bases, [left, right), that are still part of the read
+    private int left;
+    private int right;
+
+    private Cigar cigar;
+    private int start;
+
+    // true once the sequence of operations would have produced a new read object
+    private boolean copied = false;
+
+    // true once the read has been clipped away entirely, in which case start holds the start of the read that was emptied
+    private boolean empty = false;
+    private int emptiedStart;
+
+    /**
+     * @param read the read to clip. It is never modified.
+     */
+    CombinedReadClipper(final GATKRead read) {
+        Utils.nonNull(read);
+        this.read = read;
+        this.originalIsUnmapped = read.isUnmapped();
+        this.left = 0;
+        this.right = read.getLength();
+        this.cigar = read.getCigar();
+        this.start = originalIsUnmapped ? ReadConstants.UNSET_POSITION : read.getStart();
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#revertSoftClippedBases(GATKRead)}.
+     */
+    public CombinedReadClipper revertSoftClippedBases() {
+        if (isEmpty()) {
+            return this;
+        }
+        copied = true;
+
+        final List<CigarElement> elements = cigar.getCigarElements();
+        if (elements.isEmpty() || !(elements.get(0).getOperator().isClipping() || elements.get(elements.size() - 1).getOperator().isClipping())) {
+            return this;
+        }
+        final int newStart = getSoftStart();
+        cigar = CigarUtils.revertSoftClips(cigar);
+
+        if (newStart <= 0) {
+            // as in ClippingOp, hard clip away the bases that would precede the start of the contig
+            start = 1;
+            applyHardClip(0, -newStart);
+            if (!isUnmapped()) {
+                start = 1;
+            }
+        } else {
+            start = newStart;
+        }
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipSoftClippedBases(GATKRead)}.
+     */
+    public CombinedReadClipper hardClipSoftClippedBases() {
+        if (isEmpty()) {
+            return this;
+        }
+
+        int readIndex = 0;
+        int cutLeft = -1;            // first position to hard clip (inclusive)
+        int cutRight = -1;           // first position to hard clip (inclusive)
+        boolean rightTail = false;   // trigger to stop clipping the left tail and start cutting the right tail
+
+        for (final CigarElement cigarElement : cigar.getCigarElements()) {
+            if (cigarElement.getOperator() == CigarOperator.SOFT_CLIP) {
+                if (rightTail) {
+                    cutRight = readIndex;
+                }
+                else {
+                    cutLeft = readIndex + cigarElement.getLength() - 1;
+                }
+            }
+            else if (cigarElement.getOperator() != CigarOperator.HARD_CLIP) {
+                rightTail = true;
+            }
+
+            if (cigarElement.getOperator().consumesReadBases()) {
+                readIndex += cigarElement.getLength();
+            }
+        }
+
+        // It is extremely important that we cut the end first otherwise the read coordinates change.
+        final List<ClippingOp> ops = new ArrayList<>(2);
+        if (cutRight >= 0) {
+            ops.add(new ClippingOp(cutRight, getLength() - 1));
+        }
+        if (cutLeft >= 0) {
+            ops.add(new ClippingOp(0, cutLeft));
+        }
+        applyHardClips(ops);
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipLowQualEnds(GATKRead, byte)}.
+     */
+    public CombinedReadClipper hardClipLowQualEnds(final byte lowQual) {
+        if (isEmpty()) {
+            return this;
+        }
+
+        final List<ClippingOp> tailOps = ReadClipper.getLowQualTailClippingOps(read, left, getLength(), lowQual);
+
+        // if the entire read should be clipped, then return an empty read.
+        if (tailOps == null) {
+            setEmpty();
+            return this;
+        }
+
+        applyHardClips(tailOps);
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipAdaptorSequence(GATKRead)}.
+     */
+    public CombinedReadClipper hardClipAdaptorSequence() {
+        final int adaptorBoundary = getAdaptorBoundary();
+
+        if (adaptorBoundary == ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY || !(adaptorBoundary >= getStart() && adaptorBoundary <= getEnd())) {
+            return this;
+        }
+
+        return read.isReverseStrand() ? hardClipByReferenceCoordinatesLeftTail(adaptorBoundary) : hardClipByReferenceCoordinatesRightTail(adaptorBoundary);
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipToRegion(GATKRead, int, int)}.
+     */
+    public CombinedReadClipper hardClipToRegion(final int refStart, final int refStop) {
+        final int alignmentStart = getStart();
+        final int alignmentStop = getEnd();
+        if (alignmentStart <= refStop && alignmentStop >= refStart) {
+            if (alignmentStart < refStart && alignmentStop > refStop) {
+                hardClipBothEndsByReferenceCoordinates(refStart - 1, refStop + 1);
+            } else if (alignmentStart < refStart) {
+                hardClipByReferenceCoordinatesLeftTail(refStart - 1);
+            } else if (alignmentStop > refStop) {
+                hardClipByReferenceCoordinatesRightTail(refStop + 1);
+            }
+        } else {
+            setEmpty();
+        }
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipByReferenceCoordinatesLeftTail(GATKRead, int)}.
+     */
+    public CombinedReadClipper hardClipByReferenceCoordinatesLeftTail(final int refStop) {
+        hardClipByReferenceCoordinates(-1, refStop);
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipByReferenceCoordinatesRightTail(GATKRead, int)}.
+     */
+    public CombinedReadClipper hardClipByReferenceCoordinatesRightTail(final int refStart) {
+        hardClipByReferenceCoordinates(refStart, -1);
+        return this;
+    }
+
+    /**
+     * Equivalent to {@link ReadClipper#hardClipBothEndsByReferenceCoordinates(GATKRead, int, int)}.
+     */
+    public CombinedReadClipper hardClipBothEndsByReferenceCoordinates(final int leftRef, final int rightRef) {
+        if (isEmpty() || leftRef == rightRef) {
+            setEmpty();
+            return this;
+        }
+        final int startBeforeClipping = start;
+        hardClipByReferenceCoordinates(rightRef, -1);
+
+        // after clipping one tail, it is possible that the consequent hard clipping of adjacent deletions
+        // make the left cut index no longer part of the read. In that case, clip the read entirely.
+        if (leftRef > getEnd()) {
+            empty = true;
+            emptiedStart = startBeforeClipping;
+            copied = true;
+            return this;
+        }
+        hardClipByReferenceCoordinates(-1, leftRef);
+        return this;
+    }
+
+    /**
+     * Hard clip bases start to stop (inclusive) of the current read, as {@link ClippingOp} does with
+     * {@link ClippingRepresentation#HARDCLIP_BASES}. Either start must be 0 or stop must be the last base.
+     */
+    CombinedReadClipper hardClipByReadCoordinates(final int start, final int stop) {
+        applyHardClip(start, stop);
+        return this;
+    }
+
+    /**
+     * @return the read with all of the requested clipping applied. This is the original read if none of the operations
+     * had any effect; otherwise a new read (possibly an empty, unmapped read if the clips removed all bases).
+     */
+    public GATKRead getClippedRead() {
+        if (empty) {
+            if (originalIsUnmapped || emptiedStart == read.getStart()) {
+                return ReadUtils.emptyRead(read);
+            }
+            final GATKRead emptiedRead = read.copy();
+            emptiedRead.setPosition(read.getContig(), emptiedStart);
+            return ReadUtils.emptyRead(emptiedRead);
+        }
+        if (!copied) {
+            return read;
+        }
+
+        final GATKRead clippedRead = read.copy();
+        if (left > 0 || right < read.getLength()) {
+            clippedRead.setBaseQualities(Arrays.copyOfRange(read.getBaseQualitiesNoCopy(), left, right));
+            clippedRead.setBases(Arrays.copyOfRange(read.getBasesNoCopy(), left, right));
+            if (ReadUtils.hasBaseIndelQualities(read)) {
+                ReadUtils.setInsertionBaseQualities(clippedRead, Arrays.copyOfRange(ReadUtils.getBaseInsertionQualities(read), left, right));
+                ReadUtils.setDeletionBaseQualities(clippedRead, Arrays.copyOfRange(ReadUtils.getBaseDeletionQualities(read), left, right));
+            }
+        }
+        clippedRead.setCigar(cigar);
+        if (!originalIsUnmapped && start != read.getStart()) {
+            clippedRead.setPosition(read.getContig(), start);
+        }
+        return clippedRead;
+    }
+
+    public boolean isEmpty() {
+        return getLength() == 0;
+    }
+
+    public boolean isUnmapped() {
+        return empty || originalIsUnmapped;
+    }
+
+    public int getLength() {
+        return empty ? 0 : right - left;
+    }
+
+    public Cigar getCigar() {
+        return empty ? new Cigar() : cigar;
+    }
+
+    @Override
+    public String getContig() {
+        return isUnmapped() ? null : read.getContig();
+    }
+
+    @Override
+    public int getStart() {
+        return isUnmapped() ? ReadConstants.UNSET_POSITION : start;
+    }
+
+    @Override
+    public int getEnd() {
+        return isUnmapped() ? ReadConstants.UNSET_POSITION : start + cigar.getReferenceLength() - 1;
+    }
+
+    private int getSoftStart() {
+        int softStart = start;
+        for (final CigarElement element : cigar.getCigarElements()) {
+            final CigarOperator op = element.getOperator();
+            if (op == CigarOperator.SOFT_CLIP) {
+                softStart -= element.getLength();
+            } else if (op != CigarOperator.HARD_CLIP) {
+                break;
+            }
+        }
+        return softStart;
+    }
+
+    // Same as ReadUtils.getAdaptorBoundary() on the intermediate read
+    private int getAdaptorBoundary() {
+        if (read.getFragmentLength() == 0 || !read.isPaired() || isUnmapped() || read.mateIsUnmapped() ||
+                read.isReverseStrand() == read.mateIsReverseStrand()) {
+            return ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY;
+        }
+        if (read.isReverseStrand()) {
+            return getEnd() > read.getMateStart() ? read.getMateStart() - 1 : ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY;
+        } else {
+            return getStart() <= read.getMateStart() + read.getFragmentLength() ? getStart() + Math.abs(read.getFragmentLength()) : ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY;
+        }
+    }
+
+    // Same as ReadClipper.clipByReferenceCoordinates with ClippingRepresentation.HARDCLIP_BASES
+    private void hardClipByReferenceCoordinates(final int refStart, final int refStop) {
+        if (isEmpty()) {
+            return;
+        }
+
+        final ClippingOp op = ReadClipper.getClippingOpForReferenceCoordinates(read, getSoftStart(), cigar, getLength(), refStart, refStop);
+        if (op != null) {
+            applyHardClip(op.start, op.stop);
+        }
+    }
+
+    // Same as ReadClipper.clipRead with ClippingRepresentation.HARDCLIP_BASES
+    private void applyHardClips(final List<ClippingOp> ops) {
+        for (final ClippingOp op : ops) {
+            final int readLength = getLength();
+            //check if the clipped read can still be clipped in the range requested
+            if (op.start < readLength) {
+                applyHardClip(op.start, Math.min(op.stop, readLength - 1));
+            }
+        }
+    }
+
+    /**
+     * Hard clip bases from the intermediate read, from clipStart to clipStop in read coordinates.
+     *
+     * If clipStart == 0, the bases are clipped from the front of the read, otherwise from the end. Works with reads whose
+     * soft clips have been reverted past the start of the contig, and with insertion/deletion base qualities, which are
+     * trimmed along with the bases when the read is materialized.
+     */
+    private void applyHardClip(final int clipStart, final int clipStop) {
+        copied = true;
+        final int newLength = getLength() - (clipStop - clipStart + 1);
+        if (newLength == 0) {
+            setEmpty();
+            return;
+        }
+
+        final Cigar newCigar = originalIsUnmapped ? new Cigar() : CigarUtils.clipCigar(cigar, clipStart, clipStop + 1, CigarOperator.HARD_CLIP);
+        if (clipStart == 0) {
+            if (!originalIsUnmapped) {
+                start += CigarUtils.alignmentStartShift(cigar, clipStop + 1);
+            }
+            left += clipStop + 1;
+        } else {
+            right = left + newLength;
+        }
+        cigar = newCigar;
+    }
+
+    private void setEmpty() {
+        if (!empty) {
+            empty = true;
+            emptiedStart = start;
+            copied = true;
+        }
+    }
+}
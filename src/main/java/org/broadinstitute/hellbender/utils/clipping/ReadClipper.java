@@ -1,6 +1,6 @@
 package org.broadinstitute.hellbender.utils.clipping;
 
-import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarOperator;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -45,6 +45,9 @@ import java.util.List;
  *   is necessary to allow read.getUnclippedStart() / End() to recover the original alignment
  *   of the read (before clipping).
  *
+ * The static hard clipping functions are implemented by {@link CombinedReadClipper}, which can also apply a sequence of
+ * them while only producing a single new read; use {@link #combine(GATKRead)} for that.
+ *
  */
 public class ReadClipper {
     final static Logger logger = LogManager.getLogger(ReadClipper.class);
@@ -70,6 +73,17 @@ public class ReadClipper {
         this.wasClipped = false;
     }
 
+    /**
+     * Start a sequence of hard clipping operations on a read, which only produces a single new read once all of them
+     * have been applied.
+     *
+     * @param read the read to clip. It is never modified.
+     * @return a {@link CombinedReadClipper} on which to call the operations, followed by {@link CombinedReadClipper#getClippedRead()}
+     */
+    public static CombinedReadClipper combine(final GATKRead read) {
+        return new CombinedReadClipper(read);
+    }
+
     /**
      * Add clipping operation to the read.
      *
@@ -158,11 +172,8 @@ public class ReadClipper {
      * @param refStop the last base to be hard clipped in the left tail of the read.
      * @return a new read, without the left tail (Could be an empty, unmapped read if the clip removed all bases).
      */
-    private GATKRead hardClipByReferenceCoordinatesLeftTail(final int refStop) {
-        return clipByReferenceCoordinates(-1, refStop, ClippingRepresentation.HARDCLIP_BASES);
-    }
     public static GATKRead hardClipByReferenceCoordinatesLeftTail(final GATKRead read, final int refStop) {
-        return (new ReadClipper(read)).clipByReferenceCoordinates(-1, refStop, ClippingRepresentation.HARDCLIP_BASES);
+        return combine(read).hardClipByReferenceCoordinatesLeftTail(refStop).getClippedRead();
     }
 
     /**
@@ -172,12 +183,8 @@ public class ReadClipper {
      * @param refStart refStop the first base to be hard clipped in the right tail of the read.
      * @return a new read, without the right tail (Could be an empty, unmapped read if the clip removed all bases).
      */
-    private GATKRead hardClipByReferenceCoordinatesRightTail(final int refStart) {
-        return clipByReferenceCoordinates(refStart, -1, ClippingRepresentation.HARDCLIP_BASES);
-    }
-
     public static GATKRead hardClipByReferenceCoordinatesRightTail(final GATKRead read, final int refStart) {
-        return (new ReadClipper(read)).clipByReferenceCoordinates(refStart, -1, ClippingRepresentation.HARDCLIP_BASES);
+        return combine(read).hardClipByReferenceCoordinatesRightTail(refStart).getClippedRead();
     }
 
     /**
@@ -189,24 +196,8 @@ public class ReadClipper {
      * @param right the coordinate of the first base to be clipped in the right tail (inclusive)
      * @return a new read, without the clipped bases (Could return an empty, unmapped read)
      */
-    private GATKRead hardClipBothEndsByReferenceCoordinates(final int left, final int right) {
-        if (read.isEmpty() || left == right) {
-            return ReadUtils.emptyRead(read);
-        }
-        final GATKRead leftTailRead = clipByReferenceCoordinates(right, -1, ClippingRepresentation.HARDCLIP_BASES);
-
-        // after clipping one tail, it is possible that the consequent hard clipping of adjacent deletions
-        // make the left cut index no longer part of the read. In that case, clip the read entirely.
-        if (left > leftTailRead.getEnd()) {
-            return ReadUtils.emptyRead(read);
-        }
-
-        final ReadClipper clipper = new ReadClipper(leftTailRead);
-        return clipper.hardClipByReferenceCoordinatesLeftTail(left);
-    }
-
     public static GATKRead hardClipBothEndsByReferenceCoordinates(final GATKRead read, final int left, final int right) {
-        return (new ReadClipper(read)).hardClipBothEndsByReferenceCoordinates(left, right);
+        return combine(read).hardClipBothEndsByReferenceCoordinates(left, right).getClippedRead();
     }
 
 
@@ -225,93 +216,68 @@ public class ReadClipper {
             return read;
         }
 
-        final int readLength = read.getLength();
-        int leftClipIndex = 0;
-        int rightClipIndex = readLength - 1;
-
-        // check how far we can clip both sides
-        while (rightClipIndex >= 0 && read.getBaseQuality(rightClipIndex) <= lowQual) {
-            rightClipIndex--;
-        }
-        while (leftClipIndex < readLength && read.getBaseQuality(leftClipIndex) <= lowQual) {
-            leftClipIndex++;
-        }
+        final List<ClippingOp> tailOps = getLowQualTailClippingOps(read, 0, read.getLength(), lowQual);
 
         // if the entire read should be clipped, then return an empty read.
-        if (leftClipIndex > rightClipIndex) {
+        if (tailOps == null) {
             return ReadUtils.emptyRead(read);
         }
 
-        if (rightClipIndex < readLength - 1) {
-            this.addOp(new ClippingOp(rightClipIndex + 1, readLength - 1));
-        }
-        if (leftClipIndex > 0 ) {
-            this.addOp(new ClippingOp(0, leftClipIndex - 1));
-        }
+        tailOps.forEach(this::addOp);
         return this.clipRead(algorithm);
     }
 
-    private GATKRead hardClipLowQualEnds(final byte lowQual) {
-        return this.clipLowQualEnds(ClippingRepresentation.HARDCLIP_BASES, lowQual);
-    }
-
     public static GATKRead clipLowQualEnds(final GATKRead read, final byte lowQual, final ClippingRepresentation algorithm) {
         return (new ReadClipper(read)).clipLowQualEnds(algorithm, lowQual);
     }
 
     public static GATKRead hardClipLowQualEnds(final GATKRead read, final byte lowQual) {
-        return (new ReadClipper(read)).hardClipLowQualEnds(lowQual);
-    }
-
-    public static GATKRead softClipLowQualEnds(final GATKRead read, final byte lowQual) {
-        return (new ReadClipper(read)).clipLowQualEnds(ClippingRepresentation.SOFTCLIP_BASES, lowQual);
+        return combine(read).hardClipLowQualEnds(lowQual).getClippedRead();
     }
 
     /**
-     * Will hard clip every soft clipped bases in the read.
+     * Find the tails of bases offset to offset + length - 1 of a read with base quality lower than or equal to lowQual.
      *
-     * @return a new read without the soft clipped bases (Could be an empty, unmapped read if it was all soft and hard clips).
+     * @return the operations clipping the tails, in coordinates relative to offset and with the right tail first so that
+     * they can be applied in order, or {@code null} if every base has low quality
      */
-    private GATKRead hardClipSoftClippedBases () {
-        if (read.isEmpty()) {
-            return read;
-        }
-
-        int readIndex = 0;
-        int cutLeft = -1;            // first position to hard clip (inclusive)
-        int cutRight = -1;           // first position to hard clip (inclusive)
-        boolean rightTail = false;   // trigger to stop clipping the left tail and start cutting the right tail
+    static List<ClippingOp> getLowQualTailClippingOps(final GATKRead read, final int offset, final int length, final byte lowQual) {
+        int leftClipIndex = 0;
+        int rightClipIndex = length - 1;
 
-        for (final CigarElement cigarElement : read.getCigarElements()) {
-            if (cigarElement.getOperator() == CigarOperator.SOFT_CLIP) {
-                if (rightTail) {
-                    cutRight = readIndex;
-                }
-                else {
-                    cutLeft = readIndex + cigarElement.getLength() - 1;
-                }
-            }
-            else if (cigarElement.getOperator() != CigarOperator.HARD_CLIP) {
-                rightTail = true;
-            }
+        // check how far we can clip both sides
+        while (rightClipIndex >= 0 && read.getBaseQuality(offset + rightClipIndex) <= lowQual) {
+            rightClipIndex--;
+        }
+        while (leftClipIndex < length && read.getBaseQuality(offset + leftClipIndex) <= lowQual) {
+            leftClipIndex++;
+        }
 
-            if (cigarElement.getOperator().consumesReadBases()) {
-                readIndex += cigarElement.getLength();
-            }
+        if (leftClipIndex > rightClipIndex) {
+            return null;
         }
 
-        // It is extremely important that we cut the end first otherwise the read coordinates change.
-        if (cutRight >= 0) {
-            this.addOp(new ClippingOp(cutRight, read.getLength() - 1));
+        final List<ClippingOp> tailOps = new ArrayList<>(2);
+        if (rightClipIndex < length - 1) {
+            tailOps.add(new ClippingOp(rightClipIndex + 1, length - 1));
         }
-        if (cutLeft >= 0) {
-            this.addOp(new ClippingOp(0, cutLeft));
+        if (leftClipIndex > 0) {
+            tailOps.add(new ClippingOp(0, leftClipIndex - 1));
         }
+        return tailOps;
+    }
 
-        return clipRead(ClippingRepresentation.HARDCLIP_BASES);
+    public static GATKRead softClipLowQualEnds(final GATKRead read, final byte lowQual) {
+        return (new ReadClipper(read)).clipLowQualEnds(ClippingRepresentation.SOFTCLIP_BASES, lowQual);
     }
+
+    /**
+     * Will hard clip every soft clipped bases in the read.
+     *
+     * @return a new read without the soft clipped bases (Could be an empty, unmapped read if it was all soft and hard clips).
+     */
     public static GATKRead hardClipSoftClippedBases (final GATKRead read) {
-        return new ReadClipper(read).hardClipSoftClippedBases();
+        return combine(read).hardClipSoftClippedBases().getClippedRead();
     }
 
     /**
@@ -323,26 +289,7 @@ public class ReadClipper {
      * @return the read hard clipped to the variant region (Could return an empty, unmapped read)
      */
     public static GATKRead hardClipToRegion( final GATKRead read, final int refStart, final int refStop ) {
-        final int start = read.getStart();
-        final int stop = read.getEnd();
-        return hardClipToRegion(read, refStart, refStop, start, stop);
-    }
-
-    private static GATKRead hardClipToRegion( final GATKRead read, final int refStart, final int refStop, final int alignmentStart, final int alignmentStop){
-        // check if the read is contained in region
-        if (alignmentStart <= refStop && alignmentStop >= refStart) {
-            if (alignmentStart < refStart && alignmentStop > refStop) {
-                return hardClipBothEndsByReferenceCoordinates(read, refStart - 1, refStop + 1);
-            } else if (alignmentStart < refStart) {
-                return hardClipByReferenceCoordinatesLeftTail(read, refStart - 1);
-            } else if (alignmentStop > refStop) {
-                return hardClipByReferenceCoordinatesRightTail(read, refStop + 1);
-            }
-            return read;
-        } else {
-            return ReadUtils.emptyRead(read);
-        }
-
+        return combine(read).hardClipToRegion(refStart, refStop).getClippedRead();
     }
 
     /**
@@ -352,30 +299,8 @@ public class ReadClipper {
      *
      * @return a new read without adaptor sequence (Could return an empty, unmapped read)
      */
-    private GATKRead hardClipAdaptorSequence () {
-        final int adaptorBoundary = read.getAdaptorBoundary();
-
-        if (adaptorBoundary == ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY || !ReadUtils.isInsideRead(read, adaptorBoundary)) {
-            return read;
-        }
-
-        return read.isReverseStrand() ? hardClipByReferenceCoordinatesLeftTail(adaptorBoundary) : hardClipByReferenceCoordinatesRightTail(adaptorBoundary);
-    }
     public static GATKRead hardClipAdaptorSequence (final GATKRead read) {
-        return new ReadClipper(read).hardClipAdaptorSequence();
-    }
-
-    /**
-     * Turns soft clipped bases into matches
-     * @return a new read with every soft clip turned into a match, or the same read if no softclip bases were found
-     */
-    private GATKRead revertSoftClippedBases() {
-        if (read.isEmpty()) {
-            return read;
-        }
-
-        this.addOp(new ClippingOp(0, 0));
-        return this.clipRead(ClippingRepresentation.REVERT_SOFTCLIPPED_BASES);
+        return combine(read).hardClipAdaptorSequence().getClippedRead();
     }
 
     /**
@@ -385,7 +310,7 @@ public class ReadClipper {
      * @return the read with all soft-clipped bases turned into matches (May return empty, unclipped reads close to the beginning of a contig)
      */
     public static GATKRead revertSoftClippedBases(final GATKRead read) {
-        return new ReadClipper(read).revertSoftClippedBases();
+        return combine(read).revertSoftClippedBases().getClippedRead();
     }
 
     protected GATKRead hardClipByReferenceCoordinates(final int refStart, final int refStop) {
@@ -412,6 +337,26 @@ public class ReadClipper {
             throw new GATKException("Cannot soft-clip read "+read.commonToString()+" by reference coordinates because it is unmapped");
         }
 
+        final ClippingOp op = getClippingOpForReferenceCoordinates(read, read.getSoftStart(), read.getCigar(), read.getLength(), refStart, refStop);
+        if (op == null) {
+            return read;
+        }
+        this.addOp(op);
+
+        final GATKRead clippedRead = clipRead(clippingOp);
+        this.ops = null;
+        return clippedRead;
+    }
+
+    /**
+     * Find the read coordinates of a clip of the left tail up to refStop (if refStart < 0) or of the right tail from
+     * refStart (if refStop < 0) of a read with the given soft start, cigar and length.
+     *
+     * @param read the read, used in error messages
+     * @return the clipping operation, or {@code null} if the reference coordinate is not in the read
+     */
+    static ClippingOp getClippingOpForReferenceCoordinates(final GATKRead read, final int softStart, final Cigar cigar, final int readLength,
+                                                           final int refStart, final int refStop) {
         final int start;
         final int stop;
 
@@ -422,7 +367,7 @@ public class ReadClipper {
             }
             start = 0;
 
-            final Pair<Integer, CigarOperator> stopPosAndOperator = ReadUtils.getReadIndexForReferenceCoordinate(read, refStop);
+            final Pair<Integer, CigarOperator> stopPosAndOperator = ReadUtils.getReadIndexForReferenceCoordinate(softStart, cigar, refStop);
 
             // if the refStop falls in a deletion, the above method returns the position after the deletion.  Since the stop we return here
             // is inclusive, we decrement the stop to avoid overclipping by one base.  As a result we do not clip the deletion, which is fine.
@@ -433,30 +378,26 @@ public class ReadClipper {
                 throw new GATKException("Either refStart or refStop must be < 0 (" + refStart + ", " + refStop + ")");
             }
             // unlike the above case where we clip the start fo the read, here we clip the end and returning the base to the right of a deletion avoids overclipping
-            start = ReadUtils.getReadIndexForReferenceCoordinate(read, refStart).getLeft();
-            stop = read.getLength() - 1;
+            start = ReadUtils.getReadIndexForReferenceCoordinate(softStart, cigar, refStart).getLeft();
+            stop = readLength - 1;
         }
 
         if (start == ReadUtils.READ_INDEX_NOT_FOUND || stop == ReadUtils.READ_INDEX_NOT_FOUND) {
-            return read;
+            return null;
         }
 
-        if (start < 0 || stop > read.getLength() - 1) {
+        if (start < 0 || stop > readLength - 1) {
             throw new GATKException("Trying to clip before the start or after the end of a read");
         }
 
         if ( start > stop ) {
-            throw new GATKException(String.format("START (%d) > (%d) STOP -- this should never happen, please check read: %s (CIGAR: %s)", start, stop, read, read.getCigar().toString()));
+            throw new GATKException(String.format("START (%d) > (%d) STOP -- this should never happen, please check read: %s (CIGAR: %s)", start, stop, read, cigar.toString()));
         }
 
-        if ( start > 0 && stop < read.getLength() - 1) {
-            throw new GATKException(String.format("Trying to clip the middle of the read: start %d, stop %d, cigar: %s", start, stop, read.getCigar().toString()));
+        if ( start > 0 && stop < readLength - 1) {
+            throw new GATKException(String.format("Trying to clip the middle of the read: start %d, stop %d, cigar: %s", start, stop, cigar.toString()));
         }
-        this.addOp(new ClippingOp(start, stop));
-
-        final GATKRead clippedRead = clipRead(clippingOp);
-        this.ops = null;
-        return clippedRead;
+        return new ClippingOp(start, stop);
     }
 
 
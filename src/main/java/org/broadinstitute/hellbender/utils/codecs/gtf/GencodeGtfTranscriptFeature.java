@@ -39,12 +39,23 @@ final public class GencodeGtfTranscriptFeature extends GencodeGtfFeature {
 
     // ================================================================================================
 
+    /**
+     * @return the exons of this transcript, sorted by exon number
+     */
     public List<GencodeGtfExonFeature> getExons() {
         return exons;
     }
 
+    /**
+     * Add an exon, keeping the exons sorted by exon number, so that they need not be sorted when the transcript is
+     * read (possibly by several threads at once).  Exons usually come in exon number order, so this usually appends.
+     */
     public void addExon( final GencodeGtfExonFeature exon ) {
-        exons.add(exon);
+        int index = exons.size();
+        while ( (index > 0) && (exons.get(index - 1).getExonNumber() > exon.getExonNumber()) ) {
+            --index;
+        }
+        exons.add(index, exon);
     }
 
     public List<GencodeGtfSelenocysteineFeature> getSelenocysteines() {
@@ -0,0 +1,387 @@
+package org.broadinstitute.hellbender.utils.downsampling;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+
+/**
+ * MemoryBoundedPositionalDownsampler: like {@link PositionalDownsampler}, downsamples each stack of reads at each alignment
+ * start to at most a target coverage, but additionally enforces a hard per-sample budget on the (estimated) number of bytes
+ * of read data retained.
+ *
+ * The budget applies to the reads of a sample that are pending at the current alignment start plus the reads that were
+ * kept at alignment starts within the last {@code windowSize} bases, which approximates what downstream consumers such as
+ * the assembly region traversal hold in memory at once. Whenever a sample would exceed its budget, its target coverage is
+ * halved (down to 0 if necessary) and its pending reads are randomly downsampled to the new target. Once the sample's
+ * retained bytes fall below half of the budget, its target coverage is doubled again, up to the original target.
+ *
+ * Each time the budget is hit is recorded in the per-sample {@link SampleBudgetStatistics}, along with the first
+ * {@link #MAX_RECORDED_LOCI} loci at which it happened.
+ *
+ * Unmapped reads with assigned positions are subject to downsampling in the same way as mapped reads,
+ * but unmapped reads without assigned positions are not subject to downsampling.
+ */
+public final class MemoryBoundedPositionalDownsampler extends ReadsDownsampler {
+
+    /**
+     * Maximum number of distinct loci at which the budget was hit to record per sample
+     */
+    public static final int MAX_RECORDED_LOCI = 100;
+
+    /**
+     * Approximate fixed cost of a read in memory (object headers, references, cigar, name, attributes)
+     */
+    private static final int READ_OVERHEAD_BYTES = 256;
+
+    /**
+     * Key used for reads that cannot be assigned to a sample
+     */
+    private static final String UNKNOWN_SAMPLE = "unknown";
+
+    private final int maxTargetCoverage;
+
+    private final long maxBytesPerSample;
+
+    private final int windowSize;
+
+    private final SAMFileHeader header;
+
+    private final Map<String, SampleState> sampleStates = new LinkedHashMap<>();
+
+    private GATKRead previousRead;
+
+    private List<GATKRead> finalizedReads;
+
+    /**
+     * Construct a MemoryBoundedPositionalDownsampler
+     *
+     * @param targetCoverage Maximum number of reads per sample that may share any given alignment start position. Must be > 0
+     * @param maxBytesPerSample Maximum estimated number of bytes of read data to retain per sample. Must be > 0
+     * @param windowSize Number of bases behind the current alignment start for which kept reads count against the budget. Must be >= 0
+     * @param header SAMFileHeader to use to determine contig ordering and samples. Non-null.
+     */
+    public MemoryBoundedPositionalDownsampler( final int targetCoverage, final long maxBytesPerSample, final int windowSize, final SAMFileHeader header ) {
+        Utils.validateArg(targetCoverage > 0, "targetCoverage must be > 0");
+        Utils.validateArg(maxBytesPerSample > 0, "maxBytesPerSample must be > 0");
+        Utils.validateArg(windowSize >= 0, "windowSize must be >= 0");
+        Utils.nonNull(header);
+
+        this.maxTargetCoverage = targetCoverage;
+        this.maxBytesPerSample = maxBytesPerSample;
+        this.windowSize = windowSize;
+        this.header = header;
+        this.finalizedReads = new ArrayList<>();
+        clearItems();
+        resetStats();
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes used to hold the read in memory
+     */
+    public static long estimateReadSizeInBytes( final GATKRead read ) {
+        // bases and base qualities are one byte per base each
+        return READ_OVERHEAD_BYTES + 2L * read.getLength();
+    }
+
+    @Override
+    public void submit( final GATKRead newRead ) {
+        Utils.nonNull(newRead, "newRead");
+
+        // If we've moved to a new position, finalize the reads currently pending for each sample.
+        handlePositionalChange(newRead);
+
+        // Pass-through reads that have no assigned position, as in PositionalDownsampler
+        if ( ReadUtils.readHasNoAssignedPosition(newRead) ) {
+            finalizedReads.add(newRead);
+        }
+        else {
+            getSampleState(newRead).submit(newRead);
+        }
+
+        previousRead = newRead;
+    }
+
+    private SampleState getSampleState( final GATKRead read ) {
+        final String sample = ReadUtils.getSampleName(read, header);
+        return sampleStates.computeIfAbsent(sample == null ? UNKNOWN_SAMPLE : sample, SampleState::new);
+    }
+
+    private void handlePositionalChange( final GATKRead newRead ) {
+        if ( previousRead != null ) {
+            final int cmpDiff = ReadCoordinateComparator.compareCoordinates(previousRead, newRead, header);
+            if (cmpDiff == 1) {
+                throw new IllegalStateException(
+                        String.format("Reads must be coordinate sorted (earlier %s later %s)", previousRead, newRead));
+            } else if (cmpDiff != 0) {
+                finalizePendingReads();
+                if ( ! ReadUtils.readHasNoAssignedPosition(newRead) ) {
+                    for ( final SampleState state : sampleStates.values() ) {
+                        state.advanceWindow(newRead.getAssignedContig(), newRead.getAssignedStart());
+                    }
+                }
+            }
+        }
+    }
+
+    private void finalizePendingReads() {
+        for ( final SampleState state : sampleStates.values() ) {
+            state.finalizePendingReads();
+        }
+        previousRead = null;
+    }
+
+    /**
+     * @return the budget statistics for each sample seen so far, in the order in which the samples were first seen
+     */
+    public List<SampleBudgetStatistics> getSampleBudgetStatistics() {
+        return sampleStates.values().stream().map(state -> state.stats).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the total number of times any sample hit its memory budget
+     */
+    public long getNumberOfBudgetHits() {
+        return sampleStates.values().stream().mapToLong(state -> state.stats.getNumberOfBudgetHits()).sum();
+    }
+
+    @Override
+    public boolean hasFinalizedItems() {
+        return ! finalizedReads.isEmpty();
+    }
+
+    @Override
+    public List<GATKRead> consumeFinalizedItems() {
+        final List<GATKRead> toReturn = finalizedReads;
+        finalizedReads = new ArrayList<>();
+        return toReturn;
+    }
+
+    @Override
+    public boolean hasPendingItems() {
+        return sampleStates.values().stream().anyMatch(state -> ! state.reservoir.isEmpty());
+    }
+
+    @Override
+    public GATKRead peekFinalized() {
+        return finalizedReads.isEmpty() ? null : finalizedReads.get(0);
+    }
+
+    @Override
+    public GATKRead peekPending() {
+        return sampleStates.values().stream()
+                .filter(state -> ! state.reservoir.isEmpty())
+                .map(state -> state.reservoir.get(0))
+                .findFirst().orElse(null);
+    }
+
+    @Override
+    public int size() {
+        return finalizedReads.size() + sampleStates.values().stream().mapToInt(state -> state.reservoir.size()).sum();
+    }
+
+    @Override
+    public void signalEndOfInput() {
+        finalizePendingReads();
+    }
+
+    /**
+     * Clears all pending and finalized reads and the record of recently kept reads. Budget statistics are retained.
+     */
+    @Override
+    public void clearItems() {
+        for ( final SampleState state : sampleStates.values() ) {
+            state.clear();
+        }
+        finalizedReads.clear();
+        previousRead = null;
+    }
+
+    @Override
+    public boolean requiresCoordinateSortOrder() {
+        return true;
+    }
+
+    @Override
+    public void signalNoMoreReadsBefore( final GATKRead read ) {
+        Utils.nonNull(read, "Positional downsampler requires non-null reads");
+        handlePositionalChange(read);
+    }
+
+    /**
+     * Per-sample reservoir at the current alignment start, plus the bytes kept within the trailing window.
+     */
+    private final class SampleState {
+        private final SampleBudgetStatistics stats;
+
+        private final List<GATKRead> reservoir = new ArrayList<>();
+        private long reservoirBytes = 0;
+        private int readsSeenAtPosition = 0;
+        private int targetCoverage = maxTargetCoverage;
+
+        // one entry per alignment start at which reads were kept, oldest first
+        private final Deque<WindowEntry> window = new ArrayDeque<>();
+        private long windowBytes = 0;
+
+        SampleState( final String sample ) {
+            this.stats = new SampleBudgetStatistics(sample, maxTargetCoverage);
+        }
+
+        void submit( final GATKRead read ) {
+            // Algorithm R, as in ReservoirDownsampler, but with a target that may shrink while reads are pending
+            readsSeenAtPosition++;
+            if ( reservoir.size() < targetCoverage ) {
+                reservoir.add(read);
+                reservoirBytes += estimateReadSizeInBytes(read);
+            }
+            else {
+                final int randomSlot = Utils.getRandomGenerator().nextInt(readsSeenAtPosition);
+                if ( randomSlot < targetCoverage ) {
+                    reservoirBytes -= estimateReadSizeInBytes(reservoir.get(randomSlot));
+                    reservoir.set(randomSlot, read);
+                    reservoirBytes += estimateReadSizeInBytes(read);
+                }
+                incrementNumberOfDiscardedItems(1);
+            }
+
+            if ( windowBytes + reservoirBytes > maxBytesPerSample && targetCoverage > 0 ) {
+                shrinkTargetCoverage(read);
+            }
+        }
+
+        /**
+         * Halve the target coverage, discarding reads from the reservoir, until the reads fit in the budget again. This
+         * counts as a single budget hit, whatever the number of halvings.
+         */
+        private void shrinkTargetCoverage( final GATKRead read ) {
+            // Start from the reads actually held, so that an unlimited target is not halved many times to no effect
+            targetCoverage = Math.min(targetCoverage, reservoir.size());
+
+            // A uniform random subset of a uniform random sample is itself a uniform random sample, so the reservoir stays
+            // unbiased as long as we keep counting the reads seen at this position.
+            final Random random = Utils.getRandomGenerator();
+            while ( windowBytes + reservoirBytes > maxBytesPerSample && targetCoverage > 0 ) {
+                targetCoverage /= 2;
+                while ( reservoir.size() > targetCoverage ) {
+                    final int lastIndex = reservoir.size() - 1;
+                    Collections.swap(reservoir, random.nextInt(reservoir.size()), lastIndex);
+                    reservoirBytes -= estimateReadSizeInBytes(reservoir.remove(lastIndex));
+                    stats.readsDiscardedForBudget++;
+                    incrementNumberOfDiscardedItems(1);
+                }
+            }
+            stats.recordBudgetHit(new SimpleInterval(read.getAssignedContig(), read.getAssignedStart(), read.getAssignedStart()), targetCoverage);
+        }
+
+        void finalizePendingReads() {
+            if ( ! reservoir.isEmpty() ) {
+                final GATKRead first = reservoir.get(0);
+                window.addLast(new WindowEntry(first.getAssignedContig(), first.getAssignedStart(), reservoirBytes));
+                windowBytes += reservoirBytes;
+                finalizedReads.addAll(reservoir);
+            }
+            reservoir.clear();
+            reservoirBytes = 0;
+            readsSeenAtPosition = 0;
+        }
+
+        void advanceWindow( final String contig, final int start ) {
+            while ( ! window.isEmpty() && (! window.peekFirst().contig.equals(contig) || window.peekFirst().start < start - windowSize) ) {
+                windowBytes -= window.pollFirst().bytes;
+            }
+
+            // Recover gradually once we are comfortably below the budget again
+            if ( targetCoverage < maxTargetCoverage && windowBytes <= maxBytesPerSample / 2 ) {
+                targetCoverage = targetCoverage == 0 ? 1 : (int) Math.min((long) targetCoverage * 2, maxTargetCoverage);
+            }
+        }
+
+        void clear() {
+            reservoir.clear();
+            reservoirBytes = 0;
+            readsSeenAtPosition = 0;
+            window.clear();
+            windowBytes = 0;
+            targetCoverage = maxTargetCoverage;
+        }
+    }
+
+    private static final class WindowEntry {
+        private final String contig;
+        private final int start;
+        private final long bytes;
+
+        WindowEntry( final String contig, final int start, final long bytes ) {
+            this.contig = contig;
+            this.start = start;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Records how often, and where, a sample hit its memory budget.
+     */
+    public static final class SampleBudgetStatistics {
+        private final String sample;
+        private final List<SimpleInterval> budgetHitLoci = new ArrayList<>();
+        private long numberOfBudgetHits = 0;
+        private long readsDiscardedForBudget = 0;
+        private int minimumTargetCoverage;
+
+        private SampleBudgetStatistics( final String sample, final int initialTargetCoverage ) {
+            this.sample = sample;
+            this.minimumTargetCoverage = initialTargetCoverage;
+        }
+
+        private void recordBudgetHit( final SimpleInterval locus, final int newTargetCoverage ) {
+            numberOfBudgetHits++;
+            minimumTargetCoverage = Math.min(minimumTargetCoverage, newTargetCoverage);
+            final boolean sameAsLastLocus = ! budgetHitLoci.isEmpty() && budgetHitLoci.get(budgetHitLoci.size() - 1).equals(locus);
+            if ( ! sameAsLastLocus && budgetHitLoci.size() < MAX_RECORDED_LOCI ) {
+                budgetHitLoci.add(locus);
+            }
+        }
+
+        public String getSample() { return sample; }
+
+        /**
+         * @return the number of times the target coverage for this sample was reduced because the memory budget was hit
+         */
+        public long getNumberOfBudgetHits() { return numberOfBudgetHits; }
+
+        /**
+         * @return the number of reads that were discarded only because of the memory budget, on top of normal downsampling
+         */
+        public long getReadsDiscardedForBudget() { return readsDiscardedForBudget; }
+
+        /**
+         * @return the lowest target coverage this sample was reduced to
+         */
+        public int getMinimumTargetCoverage() { return minimumTargetCoverage; }
+
+        /**
+         * @return up to {@link #MAX_RECORDED_LOCI} distinct loci at which the budget was hit, in the order they were encountered
+         */
+        public List<SimpleInterval> getBudgetHitLoci() { return Collections.unmodifiableList(budgetHitLoci); }
+
+        @Override
+        public String toString() {
+            return String.format("Sample %s hit the downsampling memory budget %d times, discarding %d additional reads " +
+                            "(minimum target coverage %d); first loci: %s",
+                    sample, numberOfBudgetHits, readsDiscardedForBudget, minimumTargetCoverage, budgetHitLoci);
+        }
+    }
+}
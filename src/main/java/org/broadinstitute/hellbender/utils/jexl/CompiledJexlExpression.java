@@ -0,0 +1,358 @@
+package org.broadinstitute.hellbender.utils.jexl;
+
+import htsjdk.variant.variantcontext.VariantContextUtils;
+import org.apache.commons.jexl2.JexlArithmetic;
+import org.apache.commons.jexl2.MapContext;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A JEXL expression compiled into a tree of typed predicates over records of type {@code T}.
+ *
+ * Only a common subset of JEXL is supported:
+ * <ul>
+ *     <li>comparisons ({@code < <= > >= == !=} and their {@code lt le gt ge eq ne} forms) between a variable and a
+ *     number or string literal,</li>
+ *     <li>zero-argument predicate calls such as {@code vc.isSNP()},</li>
+ *     <li>boolean logic with {@code && || !} (or {@code and or not}) and parentheses.</li>
+ * </ul>
+ * {@link #compile} returns {@code null} for anything outside that subset, and callers should keep using JEXL.
+ *
+ * Comparisons are done by {@link JexlArithmetic} on the same values that the JEXL context would provide, and literals
+ * are evaluated by the JEXL engine itself, so a compiled expression gives the same answer as JEXL whenever it gives one.
+ * For records where that cannot be guaranteed (a variable that does not resolve to a plain value, or a comparison that
+ * JEXL would report as an error) {@link #evaluate} returns {@code null}, and the caller should evaluate the record with
+ * JEXL instead.
+ *
+ * @param <T> type of the records the expression is evaluated on
+ */
+public final class CompiledJexlExpression<T> {
+
+    /**
+     * Resolves the names used in an expression against records of type {@code T}.
+     */
+    public interface Binder<T> {
+        /**
+         * @return a getter for the value of the variable {@code name}, or null if the variable cannot be compiled.
+         * The getter returns null for records where the value cannot be resolved as JEXL would resolve it.
+         */
+        ValueGetter<T> bindVariable(String name);
+
+        /**
+         * @return a getter for the result of the zero-argument method call {@code target.method()}, or null if the call
+         * cannot be compiled
+         */
+        ValueGetter<T> bindPredicate(String target, String method);
+    }
+
+    @FunctionalInterface
+    public interface ValueGetter<T> {
+        Object get(T record);
+    }
+
+    // matches the arithmetic of VariantContextUtils.engine, which is not lenient
+    private static final JexlArithmetic ARITHMETIC = new JexlArithmetic(false);
+
+    private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+            "and", "or", "not", "eq", "ne", "lt", "le", "gt", "ge", "div", "mod", "true", "false", "null", "empty",
+            "size", "new", "if", "else", "for", "foreach", "while", "var", "function", "return", "in"));
+
+    private final String expression;
+    private final Node<T> root;
+
+    private CompiledJexlExpression(final String expression, final Node<T> root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Compile an expression.
+     *
+     * @param expression the JEXL expression
+     * @param binder resolves the variables and method calls in the expression
+     * @return the compiled expression, or null if the expression is not in the supported subset
+     */
+    public static <T> CompiledJexlExpression<T> compile(final String expression, final Binder<T> binder) {
+        Utils.nonNull(expression);
+        Utils.nonNull(binder);
+        final List<String> tokens = tokenize(expression);
+        if (tokens == null || tokens.isEmpty()) {
+            return null;
+        }
+        final Parser<T> parser = new Parser<>(tokens, binder);
+        final Node<T> root = parser.parseOr();
+        return root != null && parser.atEnd() ? new CompiledJexlExpression<>(expression, root) : null;
+    }
+
+    /**
+     * @return the result of the expression, or null if it must be evaluated with JEXL for this record
+     */
+    public Boolean evaluate(final T record) {
+        return root.evaluate(record);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    @FunctionalInterface
+    private interface Node<T> {
+        Boolean evaluate(T record);
+    }
+
+    private enum Comparison {
+        LT, LE, GT, GE, EQ, NE;
+
+        static Comparison fromToken(final String token) {
+            switch (token) {
+                case "<": case "lt": return LT;
+                case "<=": case "le": return LE;
+                case ">": case "gt": return GT;
+                case ">=": case "ge": return GE;
+                case "==": case "eq": return EQ;
+                case "!=": case "ne": return NE;
+                default: return null;
+            }
+        }
+
+        boolean apply(final Object left, final Object right) {
+            switch (this) {
+                case LT: return ARITHMETIC.lessThan(left, right);
+                case LE: return ARITHMETIC.lessThanOrEqual(left, right);
+                case GT: return ARITHMETIC.greaterThan(left, right);
+                case GE: return ARITHMETIC.greaterThanOrEqual(left, right);
+                case EQ: return ARITHMETIC.equals(left, right);
+                default: return !ARITHMETIC.equals(left, right);
+            }
+        }
+    }
+
+    private static final class Parser<T> {
+        private final List<String> tokens;
+        private final Binder<T> binder;
+        private int position = 0;
+
+        Parser(final List<String> tokens, final Binder<T> binder) {
+            this.tokens = tokens;
+            this.binder = binder;
+        }
+
+        boolean atEnd() {
+            return position == tokens.size();
+        }
+
+        private String peek(final int offset) {
+            return position + offset < tokens.size() ? tokens.get(position + offset) : null;
+        }
+
+        private boolean accept(final String... alternatives) {
+            final String token = peek(0);
+            for (final String alternative : alternatives) {
+                if (alternative.equals(token)) {
+                    position++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Node<T> parseOr() {
+            Node<T> left = parseAnd();
+            while (left != null && accept("||", "or")) {
+                final Node<T> lhs = left;
+                final Node<T> rhs = parseAnd();
+                if (rhs == null) {
+                    return null;
+                }
+                left = record -> {
+                    final Boolean l = lhs.evaluate(record);
+                    return l == null || l ? l : rhs.evaluate(record);
+                };
+            }
+            return left;
+        }
+
+        private Node<T> parseAnd() {
+            Node<T> left = parseUnary();
+            while (left != null && accept("&&", "and")) {
+                final Node<T> lhs = left;
+                final Node<T> rhs = parseUnary();
+                if (rhs == null) {
+                    return null;
+                }
+                left = record -> {
+                    final Boolean l = lhs.evaluate(record);
+                    return l == null || !l ? l : rhs.evaluate(record);
+                };
+            }
+            return left;
+        }
+
+        private Node<T> parseUnary() {
+            if (accept("!", "not")) {
+                final Node<T> operand = parseUnary();
+                if (operand == null) {
+                    return null;
+                }
+                return record -> {
+                    final Boolean value = operand.evaluate(record);
+                    return value == null ? null : !value;
+                };
+            }
+            if (accept("(")) {
+                final Node<T> inner = parseOr();
+                return inner != null && accept(")") ? inner : null;
+            }
+            if (isIdentifier(peek(0)) && ".".equals(peek(1))) {
+                return parsePredicateCall();
+            }
+            return parseComparison();
+        }
+
+        private Node<T> parsePredicateCall() {
+            final String target = tokens.get(position);
+            final String method = peek(2);
+            if (!isIdentifier(method) || !"(".equals(peek(3)) || !")".equals(peek(4))) {
+                return null;
+            }
+            position += 5;
+            final ValueGetter<T> getter = binder.bindPredicate(target, method);
+            if (getter == null) {
+                return null;
+            }
+            return record -> {
+                final Object value = getter.get(record);
+                return value instanceof Boolean ? (Boolean) value : null;
+            };
+        }
+
+        private Node<T> parseComparison() {
+            final String first = peek(0);
+            final Comparison comparison = peek(1) == null ? null : Comparison.fromToken(peek(1));
+            final String second = peek(2);
+            if (first == null || comparison == null || second == null) {
+                return null;
+            }
+            position += 3;
+
+            final boolean variableOnLeft = isIdentifier(first);
+            final String variable = variableOnLeft ? first : second;
+            final String literalToken = variableOnLeft ? second : first;
+            if (!isIdentifier(variable) || !isLiteral(literalToken)) {
+                return null;
+            }
+            final ValueGetter<T> getter = binder.bindVariable(variable);
+            final Object literal = evaluateLiteral(literalToken);
+            if (getter == null || literal == null) {
+                return null;
+            }
+
+            return record -> {
+                final Object value = getter.get(record);
+                if (value == null) {
+                    return null;
+                }
+                try {
+                    return variableOnLeft ? comparison.apply(value, literal) : comparison.apply(literal, value);
+                } catch (final RuntimeException e) {
+                    // let JEXL report (or ignore) the error in its usual way
+                    return null;
+                }
+            };
+        }
+    }
+
+    private static boolean isIdentifier(final String token) {
+        if (token == null || token.isEmpty() || !(Character.isLetter(token.charAt(0)) || token.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < token.length(); i++) {
+            if (!(Character.isLetterOrDigit(token.charAt(i)) || token.charAt(i) == '_')) {
+                return false;
+            }
+        }
+        return !RESERVED_WORDS.contains(token);
+    }
+
+    private static boolean isLiteral(final String token) {
+        return token.startsWith("'") || token.startsWith("\"") || token.startsWith("-") || Character.isDigit(token.charAt(0));
+    }
+
+    /**
+     * Have the JEXL engine evaluate the literal, so that it has exactly the type and value JEXL would use
+     */
+    private static Object evaluateLiteral(final String literal) {
+        try {
+            return VariantContextUtils.engine.get().createExpression(literal).evaluate(new MapContext());
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Split an expression into identifiers, literals and operators.
+     *
+     * @return the tokens, or null if the expression contains anything outside the supported subset
+     */
+    private static List<String> tokenize(final String expression) {
+        final List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            final char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < expression.length() && (Character.isLetterOrDigit(expression.charAt(end)) || expression.charAt(end) == '_')) {
+                    end++;
+                }
+                tokens.add(expression.substring(i, end));
+                i = end;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < expression.length() && Character.isDigit(expression.charAt(i + 1)))) {
+                // integers and decimals only; suffixes and exponents are left to JEXL
+                int end = i + 1;
+                while (end < expression.length() && Character.isDigit(expression.charAt(end))) {
+                    end++;
+                }
+                if (end + 1 < expression.length() && expression.charAt(end) == '.' && Character.isDigit(expression.charAt(end + 1))) {
+                    end++;
+                    while (end < expression.length() && Character.isDigit(expression.charAt(end))) {
+                        end++;
+                    }
+                }
+                if (end < expression.length() && (Character.isLetter(expression.charAt(end)) || expression.charAt(end) == '.')) {
+                    return null;
+                }
+                tokens.add(expression.substring(i, end));
+                i = end;
+            } else if (c == '\'' || c == '"') {
+                final int end = expression.indexOf(c, i + 1);
+                if (end < 0 || expression.substring(i + 1, end).indexOf('\\') >= 0) {
+                    return null;
+                }
+                tokens.add(expression.substring(i, end + 1));
+                i = end + 1;
+            } else if (expression.startsWith("&&", i) || expression.startsWith("||", i) || expression.startsWith("<=", i)
+                    || expression.startsWith(">=", i) || expression.startsWith("==", i) || expression.startsWith("!=", i)) {
+                tokens.add(expression.substring(i, i + 2));
+                i += 2;
+            } else if ("<>!().".indexOf(c) >= 0) {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                return null;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,180 @@
+package org.broadinstitute.hellbender.utils.jexl;
+
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.JexlMissingValueTreatment;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link VariantContextUtils.JexlVCMatchExp} that evaluates its expression with a {@link CompiledJexlExpression} when
+ * possible and with JEXL otherwise.
+ *
+ * The compiled form resolves INFO fields (or FORMAT fields, when matching a genotype) and predicates such as
+ * {@code vc.isSNP()} or {@code g.isHet()} directly on the {@link VariantContext} or {@link Genotype}, without building
+ * a JEXL context. Names that the JEXL contexts of htsjdk treat specially (such as {@code QUAL}, {@code TYPE} or
+ * {@code isHet}) are not compiled. Records on which a compiled expression cannot give the same answer as JEXL, including
+ * records with missing values, are matched with {@link VariantContextUtils#match}, so the results are always the same.
+ */
+public final class CompiledJexlVCMatchExp extends VariantContextUtils.JexlVCMatchExp {
+
+    // names resolved specially by htsjdk's VariantJEXLContext
+    private static final Set<String> VARIANT_CONTEXT_NAMES = new HashSet<>(Arrays.asList(
+            "vc", "CHROM", "POS", "ID", "TYPE", "QUAL", "ALLELES", "N_ALLELES", "FILTER", "EVENTLENGTH",
+            "homRefCount", "hetCount", "homVarCount", "noCallCount", "mixedCount"));
+
+    // names resolved specially by htsjdk's GenotypeJEXLContext
+    private static final Set<String> GENOTYPE_NAMES = new HashSet<>(Arrays.asList(
+            "g", "GT", "FT", "isHom", "isHomRef", "isHet", "isHomVar", "isCalled", "isNoCall", "isMixed",
+            "isAvailable", "isPassFT"));
+
+    private static final Map<String, Predicate<VariantContext>> VARIANT_CONTEXT_PREDICATES = new HashMap<>();
+    private static final Map<String, Predicate<Genotype>> GENOTYPE_PREDICATES = new HashMap<>();
+
+    static {
+        VARIANT_CONTEXT_PREDICATES.put("isSNP", VariantContext::isSNP);
+        VARIANT_CONTEXT_PREDICATES.put("isIndel", VariantContext::isIndel);
+        VARIANT_CONTEXT_PREDICATES.put("isMNP", VariantContext::isMNP);
+        VARIANT_CONTEXT_PREDICATES.put("isMixed", VariantContext::isMixed);
+        VARIANT_CONTEXT_PREDICATES.put("isSymbolic", VariantContext::isSymbolic);
+        VARIANT_CONTEXT_PREDICATES.put("isSymbolicOrSV", VariantContext::isSymbolicOrSV);
+        VARIANT_CONTEXT_PREDICATES.put("isStructuralIndel", VariantContext::isStructuralIndel);
+        VARIANT_CONTEXT_PREDICATES.put("isSimpleIndel", VariantContext::isSimpleIndel);
+        VARIANT_CONTEXT_PREDICATES.put("isSimpleInsertion", VariantContext::isSimpleInsertion);
+        VARIANT_CONTEXT_PREDICATES.put("isSimpleDeletion", VariantContext::isSimpleDeletion);
+        VARIANT_CONTEXT_PREDICATES.put("isVariant", VariantContext::isVariant);
+        VARIANT_CONTEXT_PREDICATES.put("isBiallelic", VariantContext::isBiallelic);
+        VARIANT_CONTEXT_PREDICATES.put("isFiltered", VariantContext::isFiltered);
+        VARIANT_CONTEXT_PREDICATES.put("isNotFiltered", VariantContext::isNotFiltered);
+        VARIANT_CONTEXT_PREDICATES.put("isPolymorphicInSamples", VariantContext::isPolymorphicInSamples);
+        VARIANT_CONTEXT_PREDICATES.put("isMonomorphicInSamples", VariantContext::isMonomorphicInSamples);
+        VARIANT_CONTEXT_PREDICATES.put("hasID", VariantContext::hasID);
+
+        GENOTYPE_PREDICATES.put("isHet", Genotype::isHet);
+        GENOTYPE_PREDICATES.put("isHom", Genotype::isHom);
+        GENOTYPE_PREDICATES.put("isHomRef", Genotype::isHomRef);
+        GENOTYPE_PREDICATES.put("isHomVar", Genotype::isHomVar);
+        GENOTYPE_PREDICATES.put("isCalled", Genotype::isCalled);
+        GENOTYPE_PREDICATES.put("isNoCall", Genotype::isNoCall);
+        GENOTYPE_PREDICATES.put("isFiltered", Genotype::isFiltered);
+        GENOTYPE_PREDICATES.put("isPhased", Genotype::isPhased);
+        GENOTYPE_PREDICATES.put("isAvailable", Genotype::isAvailable);
+        GENOTYPE_PREDICATES.put("isMixed", Genotype::isMixed);
+        GENOTYPE_PREDICATES.put("isNonInformative", Genotype::isNonInformative);
+        GENOTYPE_PREDICATES.put("hasDP", Genotype::hasDP);
+        GENOTYPE_PREDICATES.put("hasGQ", Genotype::hasGQ);
+        GENOTYPE_PREDICATES.put("hasAD", Genotype::hasAD);
+        GENOTYPE_PREDICATES.put("hasPL", Genotype::hasPL);
+    }
+
+    private static final CompiledJexlExpression.Binder<VariantContext> VARIANT_CONTEXT_BINDER = new CompiledJexlExpression.Binder<VariantContext>() {
+        @Override
+        public CompiledJexlExpression.ValueGetter<VariantContext> bindVariable(final String name) {
+            if (VARIANT_CONTEXT_NAMES.contains(name)) {
+                return null;
+            }
+            // missing attributes, and attributes that match a filter name, are left to JEXL
+            return vc -> vc.hasAttribute(name) ? vc.getAttribute(name) : null;
+        }
+
+        @Override
+        public CompiledJexlExpression.ValueGetter<VariantContext> bindPredicate(final String target, final String method) {
+            final Predicate<VariantContext> predicate = VARIANT_CONTEXT_PREDICATES.get(method);
+            return "vc".equals(target) && predicate != null ? vc -> predicate.test(vc) : null;
+        }
+    };
+
+    private static final CompiledJexlExpression.Binder<Genotype> GENOTYPE_BINDER = new CompiledJexlExpression.Binder<Genotype>() {
+        @Override
+        public CompiledJexlExpression.ValueGetter<Genotype> bindVariable(final String name) {
+            if (VARIANT_CONTEXT_NAMES.contains(name) || GENOTYPE_NAMES.contains(name)) {
+                return null;
+            }
+            // names that are not genotype attributes resolve against the genotype filters or the variant context, so leave them to JEXL
+            return g -> g.hasAnyAttribute(name) ? g.getAnyAttribute(name) : null;
+        }
+
+        @Override
+        public CompiledJexlExpression.ValueGetter<Genotype> bindPredicate(final String target, final String method) {
+            final Predicate<Genotype> predicate = GENOTYPE_PREDICATES.get(method);
+            return "g".equals(target) && predicate != null ? g -> predicate.test(g) : null;
+        }
+    };
+
+    private final CompiledJexlExpression<VariantContext> variantContextExpression;
+    private final CompiledJexlExpression<Genotype> genotypeExpression;
+
+    /**
+     * @param exp the expression to compile; parts of it that cannot be compiled are evaluated by JEXL
+     */
+    public CompiledJexlVCMatchExp(final VariantContextUtils.JexlVCMatchExp exp) {
+        super(Utils.nonNull(exp).name, exp.exp);
+        final String expression = exp.exp.getExpression();
+        this.variantContextExpression = CompiledJexlExpression.compile(expression, VARIANT_CONTEXT_BINDER);
+        this.genotypeExpression = CompiledJexlExpression.compile(expression, GENOTYPE_BINDER);
+    }
+
+    /**
+     * Same as {@link VariantContextUtils#initializeMatchExps(List, List)}, with each expression compiled when possible
+     */
+    public static List<VariantContextUtils.JexlVCMatchExp> initializeMatchExps(final List<String> names, final List<String> exps) {
+        return VariantContextUtils.initializeMatchExps(names, exps).stream()
+                .map(CompiledJexlVCMatchExp::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return true if the expression is compiled for matching variant contexts
+     */
+    public boolean isCompiledForVariantContexts() {
+        return variantContextExpression != null;
+    }
+
+    /**
+     * @return true if the expression is compiled for matching genotypes
+     */
+    public boolean isCompiledForGenotypes() {
+        return genotypeExpression != null;
+    }
+
+    /**
+     * Equivalent to {@link VariantContextUtils#match(VariantContext, VariantContextUtils.JexlVCMatchExp)}
+     */
+    public static boolean match(final VariantContext vc, final VariantContextUtils.JexlVCMatchExp exp) {
+        if (exp instanceof CompiledJexlVCMatchExp && ((CompiledJexlVCMatchExp) exp).variantContextExpression != null) {
+            final Boolean result = ((CompiledJexlVCMatchExp) exp).variantContextExpression.evaluate(vc);
+            if (result != null) {
+                return result;
+            }
+        }
+        return VariantContextUtils.match(vc, exp);
+    }
+
+    /**
+     * Equivalent to {@link VariantContextUtils#match(VariantContext, Genotype, VariantContextUtils.JexlVCMatchExp, JexlMissingValueTreatment)}
+     *
+     * @param g the genotype to match, or null to match the variant context
+     */
+    public static boolean match(final VariantContext vc, final Genotype g, final VariantContextUtils.JexlVCMatchExp exp,
+                                final JexlMissingValueTreatment howToTreatMissingValues) {
+        if (exp instanceof CompiledJexlVCMatchExp) {
+            final CompiledJexlVCMatchExp compiled = (CompiledJexlVCMatchExp) exp;
+            final Boolean result = g == null ?
+                    (compiled.variantContextExpression == null ? null : compiled.variantContextExpression.evaluate(vc)) :
+                    (compiled.genotypeExpression == null ? null : compiled.genotypeExpression.evaluate(g));
+            if (result != null) {
+                return result;
+            }
+        }
+        return VariantContextUtils.match(vc, g, exp, howToTreatMissingValues);
+    }
+}
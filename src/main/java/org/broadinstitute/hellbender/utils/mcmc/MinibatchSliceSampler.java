@@ -8,10 +8,13 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -21,23 +24,31 @@ import java.util.stream.IntStream;
  * that the PDF, which is assumed to be a posterior function of a parameter value and the data, is specified in terms
  * of a prior, a likelihood, and the data.
  *
- * Note that likelihoods are cached and retrieved based on the hash of {@code DATA}, i.e., we assume it is
- * cheaper to compute this hash rather than the likelihood.
+ * The likelihood may be given either per element of a list of {@code DATA} or, to avoid boxing when the data are held
+ * in primitive arrays, per data index via {@link IndexedLogLikelihood}.  Likelihoods at the current sample are cached
+ * by data index.
  *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
-    private final List<DATA> data;
+    /**
+     * Log likelihood of a single data point, identified by its index in [0, number of data points),
+     * at a value of the random variable.
+     */
+    @FunctionalInterface
+    public interface IndexedLogLikelihood {
+        double apply(final int dataIndex, final double x);
+    }
+
+    private final int numDataPoints;
     private final Function<Double, Double> logPrior;
-    private final BiFunction<DATA, Double, Double> logLikelihood;
+    private final IndexedLogLikelihood logLikelihood;
     private final Integer minibatchSize;
     private final Double approxThreshold;
 
-    private final int numDataPoints;
-
     private Double xSampleCache = null;
     private Double logPriorCache = null;
-    private Map<DATA, Double> logLikelihoodsCache = null;    //data -> log likelihood
+    private double[] logLikelihoodsCache = null;    //data index -> log likelihood, NaN if not yet computed
 
     /**
      * Creates a new sampler for a bounded univariate random variable, given a random number generator, a list of data,
@@ -64,27 +75,79 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
                                  final double width,
                                  final int minibatchSize,
                                  final double approxThreshold) {
+        this(rng, Utils.nonNull(data).size(), logPrior, toIndexedLogLikelihood(data, logLikelihood),
+                xMin, xMax, width, minibatchSize, approxThreshold);
+    }
+
+    /**
+     * Creates a new sampler for an unbounded univariate random variable, given a random number generator, a list of data,
+     * a continuous, univariate, unimodal, unnormalized log probability density function
+     * (assumed to be a posterior and specified by a prior and a likelihood),
+     * a step width, a minibatch size, and a minibatch approximation threshold.
+     * @param rng                       random number generator, never {@code null}
+     * @param data                      list of data, never {@code null}
+     * @param logPrior                  log prior component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
+     * @param logLikelihood             log likelihood component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
+     * @param width                     step width for slice expansion
+     * @param minibatchSize             minibatch size
+     * @param approxThreshold           threshold for approximation used in {@link MinibatchSliceSampler#isGreaterThanSliceHeight};
+     *                                  approximation is exact when this threshold is zero
+     */
+    public MinibatchSliceSampler(final RandomGenerator rng,
+                                 final List<DATA> data,
+                                 final Function<Double, Double> logPrior,
+                                 final BiFunction<DATA, Double, Double> logLikelihood,
+                                 final double width,
+                                 final int minibatchSize,
+                                 final double approxThreshold) {
+        this(rng, data, logPrior, logLikelihood, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, width, minibatchSize, approxThreshold);
+    }
+
+    /**
+     * Creates a new sampler for a bounded univariate random variable, given a random number generator, a number of
+     * data points, a continuous, univariate, unimodal, unnormalized log probability density function
+     * (assumed to be a posterior and specified by a prior and a likelihood of each data point, given by its index),
+     * hard limits on the random variable, a step width, a minibatch size, and a minibatch approximation threshold.
+     * @param rng                       random number generator, never {@code null}
+     * @param numDataPoints             number of data points, must be non-negative
+     * @param logPrior                  log prior component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
+     * @param logLikelihood             log likelihood component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
+     * @param xMin                      minimum allowed value of the random variable
+     * @param xMax                      maximum allowed value of the random variable
+     * @param width                     step width for slice expansion
+     * @param minibatchSize             minibatch size
+     * @param approxThreshold           threshold for approximation used in {@link MinibatchSliceSampler#isGreaterThanSliceHeight};
+     *                                  approximation is exact when this threshold is zero
+     */
+    public MinibatchSliceSampler(final RandomGenerator rng,
+                                 final int numDataPoints,
+                                 final Function<Double, Double> logPrior,
+                                 final IndexedLogLikelihood logLikelihood,
+                                 final double xMin,
+                                 final double xMax,
+                                 final double width,
+                                 final int minibatchSize,
+                                 final double approxThreshold) {
         super(rng, xMin, xMax, width);
-        Utils.nonNull(data);
+        ParamUtils.isPositiveOrZero(numDataPoints, "Number of data points must be non-negative.");
         Utils.nonNull(logPrior);
         Utils.nonNull(logLikelihood);
         Utils.validateArg(minibatchSize > 1, "Minibatch size must be greater than 1.");
         ParamUtils.isPositiveOrZero(approxThreshold, "Minibatch approximation threshold must be non-negative.");
-        this.data = Collections.unmodifiableList(new ArrayList<>(data));
+        this.numDataPoints = numDataPoints;
         this.logPrior = logPrior;
         this.logLikelihood = logLikelihood;
         this.minibatchSize = minibatchSize;
         this.approxThreshold = approxThreshold;
-        numDataPoints = data.size();
     }
 
     /**
-     * Creates a new sampler for an unbounded univariate random variable, given a random number generator, a list of data,
-     * a continuous, univariate, unimodal, unnormalized log probability density function
-     * (assumed to be a posterior and specified by a prior and a likelihood),
+     * Creates a new sampler for an unbounded univariate random variable, given a random number generator, a number of
+     * data points, a continuous, univariate, unimodal, unnormalized log probability density function
+     * (assumed to be a posterior and specified by a prior and a likelihood of each data point, given by its index),
      * a step width, a minibatch size, and a minibatch approximation threshold.
      * @param rng                       random number generator, never {@code null}
-     * @param data                      list of data, never {@code null}
+     * @param numDataPoints             number of data points, must be non-negative
      * @param logPrior                  log prior component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
      * @param logLikelihood             log likelihood component of continuous, univariate, unimodal log posterior (up to additive constant), never {@code null}
      * @param width                     step width for slice expansion
@@ -93,13 +156,20 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
      *                                  approximation is exact when this threshold is zero
      */
     public MinibatchSliceSampler(final RandomGenerator rng,
-                                 final List<DATA> data,
+                                 final int numDataPoints,
                                  final Function<Double, Double> logPrior,
-                                 final BiFunction<DATA, Double, Double> logLikelihood,
+                                 final IndexedLogLikelihood logLikelihood,
                                  final double width,
                                  final int minibatchSize,
                                  final double approxThreshold) {
-        this(rng, data, logPrior, logLikelihood, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, width, minibatchSize, approxThreshold);
+        this(rng, numDataPoints, logPrior, logLikelihood, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, width, minibatchSize, approxThreshold);
+    }
+
+    private static <T> IndexedLogLikelihood toIndexedLogLikelihood(final List<T> data,
+                                                                   final BiFunction<T, Double, Double> logLikelihood) {
+        Utils.nonNull(logLikelihood);
+        final List<T> dataCopy = Collections.unmodifiableList(new ArrayList<>(data));
+        return (dataIndex, x) -> logLikelihood.apply(dataCopy.get(dataIndex), x);
     }
 
     /**
@@ -118,7 +188,10 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
         if (xSampleCache == null || xSampleCache != xSample) {
             xSampleCache = xSample;
             logPriorCache = logPrior.apply(xSample);
-            logLikelihoodsCache = new HashMap<>(numDataPoints);
+            if (logLikelihoodsCache == null) {
+                logLikelihoodsCache = new double[numDataPoints];
+            }
+            Arrays.fill(logLikelihoodsCache, Double.NaN);
         }
         if (!(xSampleCache != null && logPriorCache != null && logLikelihoodsCache != null)) {
             throw new GATKException.ShouldNeverReachHereException("Cache for xSample is in an invalid state.");
@@ -134,9 +207,9 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
 
         //initialize the lazy data iterator (or just use the standard iterator if only a single batch is required)
         final int numMinibatches = Math.max(numDataPoints / minibatchSize, 1);
-        final Iterator<DATA> shuffledDataIterator = numMinibatches > 1
-                ? lazyShuffleIterator(rng, data)
-                : data.iterator();
+        final PrimitiveIterator.OfInt shuffledDataIndexIterator = numMinibatches > 1
+                ? lazyShuffleIterator(rng, numDataPoints)
+                : IntStream.range(0, numDataPoints).iterator();
 
         //initialize running quantities needed for statistical test
         int numDataIndicesSeen = 0;
@@ -148,17 +221,17 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
             final int dataIndexStart = minibatchIndex * minibatchSize;
             final int dataIndexEnd = Math.min((minibatchIndex + 1) * minibatchSize, numDataPoints);
             final int actualMinibatchSize = dataIndexEnd - dataIndexStart;  //equals minibatchSize except perhaps for last minibatch
-            final List<DATA> dataMinibatch = IntStream.range(0, actualMinibatchSize).boxed()
-                    .map(i -> shuffledDataIterator.next())
-                    .collect(Collectors.toList());
 
             //calculate quantities for this minibatch
             double logLikelihoodDifferencesMinibatchSum = 0.;
             double logLikelihoodDifferencesSquaredMinibatchSum = 0.;
-            for (final DATA dataPoint : dataMinibatch) {
-                final double logLikelihoodxSample = logLikelihoodsCache.computeIfAbsent(
-                        dataPoint, d -> logLikelihood.apply(d, xSample));
-                final double logLikelihoodxProposed = logLikelihood.apply(dataPoint, xProposed);
+            for (int i = 0; i < actualMinibatchSize; i++) {
+                final int dataIndex = shuffledDataIndexIterator.nextInt();
+                if (Double.isNaN(logLikelihoodsCache[dataIndex])) {
+                    logLikelihoodsCache[dataIndex] = logLikelihood.apply(dataIndex, xSample);
+                }
+                final double logLikelihoodxSample = logLikelihoodsCache[dataIndex];
+                final double logLikelihoodxProposed = logLikelihood.apply(dataIndex, xProposed);
                 final double logLikelihoodDifference = logLikelihoodxProposed - logLikelihoodxSample;
                 logLikelihoodDifferencesMinibatchSum += logLikelihoodDifference;
                 logLikelihoodDifferencesSquaredMinibatchSum += logLikelihoodDifference * logLikelihoodDifference;
@@ -197,29 +270,28 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
      * we lazily shuffle to avoid unnecessarily shuffling all data.  Uses the properties of relative primes and is
      * random enough for our purposes.  Adapted from https://stackoverflow.com/questions/16165128/lazy-shuffle-algorithms.
      */
-    private static <T> Iterator<T> lazyShuffleIterator(final RandomGenerator rng,
-                                                       final List<T> data) {
-        final int numDataPoints = data.size();
-
+    private static PrimitiveIterator.OfInt lazyShuffleIterator(final RandomGenerator rng,
+                                                               final int numDataPoints) {
         //find first prime greater than or equal to numDataPoints
         final int nextPrime = Primes.nextPrime(numDataPoints);
 
-        return new Iterator<T>() {
+        return new PrimitiveIterator.OfInt() {
             int numSeen = 0;
             int index = rng.nextInt(numDataPoints) + 1;
             final int increment = index;
 
+            @Override
             public boolean hasNext() {
-                return numSeen < data.size();
+                return numSeen < numDataPoints;
             }
 
             @Override
-            public T next() {
+            public int nextInt() {
                 while (true) {
                     index = (index + increment) % nextPrime;
                     if (index < numDataPoints) {
                         numSeen++;
-                        return data.get(index);
+                        return index;
                     }
                 }
             }
@@ -0,0 +1,99 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.DiskBackedQueue;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads waiting for their mates that {@link StreamingDuplicateMarker} has moved out of memory.
+ *
+ * Since the input is coordinate-sorted, the mates of the waiting reads arrive in the order of their mate positions. Each
+ * spill writes a run of reads, sorted by mate position, to its own {@link DiskBackedQueue}, and reads are taken back from
+ * the heads of the runs as the traversal reaches their mates' positions.
+ */
+final class MateSpillBuffer {
+
+    private final SAMFileHeader header;
+    private final List<Path> tmpDirs;
+    private final List<DiskBackedQueue<SAMRecord>> runs = new ArrayList<>();
+
+    private long size = 0;
+
+    /**
+     * @param header header used to encode the spilled reads
+     * @param tmpDirs directories in which to create spill files
+     */
+    MateSpillBuffer(final SAMFileHeader header, final List<Path> tmpDirs) {
+        this.header = Utils.nonNull(header);
+        this.tmpDirs = Utils.nonEmpty(tmpDirs);
+    }
+
+    /**
+     * Write reads with mapped mates to disk as a new run.
+     *
+     * @param reads the reads, sorted by the reference index and start of their mates
+     */
+    void spill(final List<GATKRead> reads) {
+        Utils.nonNull(reads);
+        if (reads.isEmpty()) {
+            return;
+        }
+        final DiskBackedQueue<SAMRecord> run = DiskBackedQueue.newInstance(new BAMRecordCodec(header), 0, tmpDirs);
+        reads.forEach(read -> run.add(read.convertToSAMRecord(header)));
+        // Start reading the run, which closes its spill file for writing, so that only one file is open per run
+        run.peek();
+        runs.add(run);
+        size += reads.size();
+    }
+
+    /**
+     * Remove the spilled reads whose mates start at or before the given position.
+     *
+     * @param referenceIndex reference index of the position, with unplaced reads after every contig
+     * @param start start of the position
+     * @return the removed reads, in no particular order
+     */
+    List<GATKRead> pollUpTo(final int referenceIndex, final int start) {
+        final List<GATKRead> reads = new ArrayList<>();
+        final Iterator<DiskBackedQueue<SAMRecord>> runIterator = runs.iterator();
+        while (runIterator.hasNext()) {
+            final DiskBackedQueue<SAMRecord> run = runIterator.next();
+            while (!run.isEmpty() && compareMatePosition(run.peek(), referenceIndex, start) <= 0) {
+                reads.add(new SAMRecordToGATKReadAdapter(run.poll()));
+                size--;
+            }
+            if (run.isEmpty()) {
+                run.clear();
+                runIterator.remove();
+            }
+        }
+        return reads;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Discard any remaining reads and delete their spill files.
+     */
+    void close() {
+        runs.forEach(DiskBackedQueue::clear);
+        runs.clear();
+        size = 0;
+    }
+
+    private static int compareMatePosition(final SAMRecord record, final int referenceIndex, final int start) {
+        final int contigComparison = Integer.compare(record.getMateReferenceIndex(), referenceIndex);
+        return contigComparison != 0 ? contigComparison : Integer.compare(record.getMateAlignmentStart(), start);
+    }
+}
@@ -0,0 +1,194 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.DiskBackedQueue;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An ordered buffer of reads awaiting a duplicate marking decision, used by {@link StreamingDuplicateMarker}.
+ *
+ * Reads are assigned a monotonically increasing ordinal as they are added and are emitted in the same order once the read
+ * at the head of the buffer has been resolved. Resolution state is tracked separately from the reads themselves, so
+ * reads can be resolved after they have been spilled to disk.
+ *
+ * The buffer is split into blocks, each backed by a {@link DiskBackedQueue}. Only the first blocks (up to the in-memory
+ * budget) keep their reads in RAM; later blocks spill to disk until the head of the buffer catches up with them.
+ */
+final class ReadTrackingBuffer {
+
+    // Status codes stored per read. UNRESOLVED must be 0 so that new blocks start out unresolved.
+    static final byte UNRESOLVED = 0;
+    static final byte NOT_DUPLICATE = 1;
+    static final byte DUPLICATE = 2;
+    static final byte OPTICAL_DUPLICATE = 3;
+
+    private final SAMFileHeader header;
+    private final int maxReadsInRam;
+    private final int blockSize;
+    private final List<Path> tmpDirs;
+    private final Deque<BufferBlock> blocks = new ArrayDeque<>();
+
+    private long nextOrdinal = 0;
+    private long size = 0;
+
+    /**
+     * @param header header used to encode reads that spill to disk
+     * @param maxReadsInRam approximate maximum number of reads to keep in memory before spilling
+     * @param tmpDirs directories in which to create spill files
+     */
+    ReadTrackingBuffer(final SAMFileHeader header, final int maxReadsInRam, final List<Path> tmpDirs) {
+        Utils.nonNull(header);
+        Utils.validateArg(maxReadsInRam > 0, "maxReadsInRam must be positive");
+        Utils.nonEmpty(tmpDirs);
+        this.header = header;
+        this.maxReadsInRam = maxReadsInRam;
+        // Use a handful of blocks so that the head block can be released to disk readers without blocking new additions
+        this.blockSize = Math.max(1, maxReadsInRam / 10);
+        this.tmpDirs = tmpDirs;
+    }
+
+    /**
+     * Add a read to the tail of the buffer.
+     *
+     * @return the ordinal assigned to the read, to be used when resolving it with {@link #setStatus}
+     */
+    long add(final GATKRead read) {
+        Utils.nonNull(read);
+        BufferBlock tail = blocks.peekLast();
+        if (tail == null || !tail.canAdd()) {
+            // Blocks beyond the in-memory budget go straight to disk
+            final int blockRecordsInRam = (blocks.size() + 1) * blockSize <= maxReadsInRam ? blockSize : 0;
+            tail = new BufferBlock(nextOrdinal, blockSize, blockRecordsInRam);
+            blocks.addLast(tail);
+        }
+        tail.add(read.convertToSAMRecord(header));
+        size++;
+        return nextOrdinal++;
+    }
+
+    /**
+     * Record the duplicate marking status of a read that is still in the buffer.
+     */
+    void setStatus(final long ordinal, final byte status) {
+        Utils.validateArg(status != UNRESOLVED, "cannot set a read back to the unresolved status");
+        for (final BufferBlock block : blocks) {
+            if (block.contains(ordinal)) {
+                block.setStatus(ordinal, status);
+                return;
+            }
+        }
+        throw new GATKException.ShouldNeverReachHereException("Read with ordinal " + ordinal + " is no longer in the buffer");
+    }
+
+    /**
+     * @return true if the read at the head of the buffer has been resolved and can be emitted
+     */
+    boolean canEmit() {
+        final BufferBlock head = blocks.peekFirst();
+        return head != null && head.canEmit();
+    }
+
+    /**
+     * @return the status of the read at the head of the buffer
+     */
+    byte peekStatus() {
+        Utils.validate(!isEmpty(), "the buffer is empty");
+        return blocks.peekFirst().headStatus();
+    }
+
+    /**
+     * Remove the read at the head of the buffer. Should only be called when {@link #canEmit()} returns true.
+     */
+    GATKRead next() {
+        Utils.validate(canEmit(), "the read at the head of the buffer has not been resolved");
+        final BufferBlock head = blocks.peekFirst();
+        final SAMRecord record = head.poll();
+        if (head.isEmpty() && !head.canAdd()) {
+            blocks.pollFirst().close();
+        }
+        size--;
+        return new SAMRecordToGATKReadAdapter(record);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Discard any remaining reads and delete their spill files.
+     */
+    void close() {
+        blocks.forEach(BufferBlock::close);
+        blocks.clear();
+        size = 0;
+    }
+
+    /**
+     * A contiguous range of ordinals whose reads live in a single {@link DiskBackedQueue}.
+     */
+    private final class BufferBlock {
+        private final long startOrdinal;
+        private final byte[] statuses;
+        private final DiskBackedQueue<SAMRecord> records;
+        private int added = 0;
+        private int emitted = 0;
+
+        BufferBlock(final long startOrdinal, final int capacity, final int recordsInRam) {
+            this.startOrdinal = startOrdinal;
+            this.statuses = new byte[capacity];
+            this.records = DiskBackedQueue.newInstance(new BAMRecordCodec(header), recordsInRam, tmpDirs);
+        }
+
+        boolean canAdd() {
+            return added < statuses.length && records.canAdd();
+        }
+
+        void add(final SAMRecord record) {
+            records.add(record);
+            added++;
+        }
+
+        boolean contains(final long ordinal) {
+            return ordinal >= startOrdinal + emitted && ordinal < startOrdinal + added;
+        }
+
+        void setStatus(final long ordinal, final byte status) {
+            statuses[(int) (ordinal - startOrdinal)] = status;
+        }
+
+        boolean canEmit() {
+            return emitted < added && statuses[emitted] != UNRESOLVED;
+        }
+
+        byte headStatus() {
+            return statuses[emitted];
+        }
+
+        SAMRecord poll() {
+            emitted++;
+            return records.poll();
+        }
+
+        boolean isEmpty() {
+            return emitted == added;
+        }
+
+        void close() {
+            records.clear();
+        }
+    }
+}
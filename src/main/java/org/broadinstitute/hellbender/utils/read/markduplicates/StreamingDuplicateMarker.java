@@ -0,0 +1,551 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Fragment;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Pair;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.TransientFieldPhysicalLocation;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import picard.sam.markduplicates.util.ReadEnds;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Single-pass duplicate marker for coordinate-sorted reads.
+ *
+ * This uses the same keys ({@link ReadsKey}), scoring ({@link MarkDuplicatesScoringStrategy}) and tie breaking as
+ * MarkDuplicatesSpark, but instead of grouping every read by name it streams through the input in coordinate order:
+ *
+ * <ul>
+ *     <li>Each read is appended to an ordered output buffer ({@link ReadTrackingBuffer}) that spills to disk once
+ *     the in-memory budget is exhausted.</li>
+ *     <li>The first read of a pair is held in memory until its mate arrives, at which point the pair is added to its
+ *     duplicate set. If the stream moves past the mate's position without seeing it, the template is passed through
+ *     unmarked. At most a fixed number of reads are held in memory while waiting for their mates: beyond that, the
+ *     reads whose mates are farthest away are spilled to disk ({@link MateSpillBuffer}) and read back when the stream
+ *     reaches their mates.</li>
+ *     <li>A duplicate set is resolved once the stream has moved more than the minimum distance past the 5' position of
+ *     all of its ends, since no later read can still belong to it.</li>
+ *     <li>Reads are handed to the downstream consumer in input order as soon as the read at the head of the buffer is resolved.</li>
+ * </ul>
+ *
+ * The minimum distance must be at least as large as the longest 5' clip of any read in the input. By default it is
+ * twice the length of the first mapped read, matching Picard's MarkDuplicatesWithMateCigar.
+ *
+ * Secondary and supplementary reads are given the status of their primary template only if the template is still
+ * being tracked when they are encountered. Otherwise they are left unmarked, which is consistent with Picard
+ * MarkDuplicates on coordinate-sorted input.
+ */
+public final class StreamingDuplicateMarker implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(StreamingDuplicateMarker.class);
+
+    // Placeholder for the partition index required by the MarkDuplicatesSparkRecord constructors
+    private static final int NO_PARTITION = 0;
+
+    private static final Comparator<Position> POSITION_COMPARATOR = Comparator.comparingInt(Position::getContig).thenComparingInt(Position::getStart);
+
+    private final SAMFileHeader header;
+    private final MarkDuplicatesScoringStrategy scoringStrategy;
+    private final OpticalDuplicateFinder finder;
+    private final boolean markUnmappedMates;
+    private final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy;
+    private final boolean markOpticalDups;
+    private final Consumer<GATKRead> downstream;
+
+    private final Map<String, Byte> libraryIndex;
+    private final Map<String, Short> readGroupIndex;
+    private final ReadTrackingBuffer buffer;
+
+    private final Map<String, Template> templates = new HashMap<>();
+    // Templates holding a read in memory whose mate has not arrived yet, in the order in which the reads arrived
+    private final Set<Template> templatesWaitingForMates = new LinkedHashSet<>();
+    // Reads whose mates have not arrived yet that did not fit in memory
+    private final MateSpillBuffer spilledMates;
+    private final PriorityQueue<Template> templatesByExpectedPosition = new PriorityQueue<>(Comparator.comparing((Template t) -> t.expectedPosition, POSITION_COMPARATOR));
+    private final Map<ReadsKey, DuplicateSet> duplicateSets = new HashMap<>();
+    private final PriorityQueue<DuplicateSet> duplicateSetsByAnchor = new PriorityQueue<>(Comparator.comparing((DuplicateSet s) -> s.anchor, POSITION_COMPARATOR));
+    private final Map<String, GATKDuplicationMetrics> metricsByLibrary = new LinkedHashMap<>();
+    private final int maxReadsWaitingForMates;
+
+    private int minimumDistance;
+    private Position currentPosition = new Position(-1, 0);
+    private long lateReads = 0;
+    private long readsSpilledWaitingForMates = 0;
+    private boolean finished = false;
+
+    /**
+     * @param header header of the coordinate-sorted input
+     * @param scoringStrategy method used to pick the representative read of each duplicate set
+     * @param finder optical duplicate finder, used both for optical duplicate detection and for tie breaking
+     * @param markUnmappedMates when false, unmapped mates of duplicate fragments are left unmarked
+     * @param taggingPolicy determines whether optical and library duplicates are labeled with the "DT" tag
+     * @param minimumDistance how far past a duplicate set's 5' position to wait before resolving it, or -1 to use twice the first read's length
+     * @param maxReadsInRam maximum number of buffered reads to keep in memory before spilling to disk
+     * @param maxReadsWaitingForMates maximum number of reads to hold in memory while waiting for their mates. When exceeded,
+     *                                the reads whose mates are farthest away are spilled to disk.
+     * @param tmpDirs directories to spill reads to
+     * @param downstream receives the marked reads, in input order
+     */
+    public StreamingDuplicateMarker(final SAMFileHeader header,
+                                    final MarkDuplicatesScoringStrategy scoringStrategy,
+                                    final OpticalDuplicateFinder finder,
+                                    final boolean markUnmappedMates,
+                                    final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy,
+                                    final int minimumDistance,
+                                    final int maxReadsInRam,
+                                    final int maxReadsWaitingForMates,
+                                    final List<Path> tmpDirs,
+                                    final Consumer<GATKRead> downstream) {
+        this.header = Utils.nonNull(header);
+        this.scoringStrategy = Utils.nonNull(scoringStrategy);
+        this.finder = Utils.nonNull(finder);
+        this.markUnmappedMates = markUnmappedMates;
+        this.taggingPolicy = Utils.nonNull(taggingPolicy);
+        this.markOpticalDups = taggingPolicy != MarkDuplicates.DuplicateTaggingPolicy.DontTag;
+        this.downstream = Utils.nonNull(downstream);
+        Utils.validateArg(minimumDistance >= -1, "minimumDistance must be -1 or non-negative");
+        this.minimumDistance = minimumDistance;
+        Utils.validateArg(maxReadsWaitingForMates > 0, "maxReadsWaitingForMates must be positive");
+        this.maxReadsWaitingForMates = maxReadsWaitingForMates;
+
+        if (header.getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
+            throw new UserException.BadInput("Streaming duplicate marking requires coordinate-sorted input, but the header indicates " + header.getSortOrder() + " order");
+        }
+        this.libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+        this.readGroupIndex = MarkDuplicatesSparkUtils.getHeaderReadGroupIndexMap(header);
+        this.buffer = new ReadTrackingBuffer(header, maxReadsInRam, tmpDirs);
+        this.spilledMates = new MateSpillBuffer(header, tmpDirs);
+    }
+
+    /**
+     * Add the next read of the coordinate-sorted input. Any reads whose duplicate status is now known are passed downstream.
+     */
+    public void addRead(final GATKRead read) {
+        Utils.nonNull(read);
+        Utils.validate(!finished, "cannot add reads after finish() has been called");
+
+        advanceTo(read);
+        final long ordinal = buffer.add(read);
+
+        if (ReadUtils.readAndMateAreUnmapped(read)) {
+            buffer.setStatus(ordinal, ReadTrackingBuffer.NOT_DUPLICATE);
+        } else if (read.isSecondaryAlignment() || read.isSupplementaryAlignment()) {
+            final Template template = templates.get(ReadsKey.keyForRead(read));
+            if (template == null) {
+                buffer.setStatus(ordinal, ReadTrackingBuffer.NOT_DUPLICATE);
+            } else {
+                template.attach(ordinal);
+            }
+        } else {
+            final Template template = getOrCreateTemplate(read);
+            template.primariesSeen++;
+            if (template.primariesSeen > template.expectedPrimaries) {
+                throw new UserException.UnimplementedFeature(String.format("Streaming duplicate marking only supports singleton fragments and pairs, " +
+                        "but found more than %d primary reads with the name %s", template.expectedPrimaries, read.getName()));
+            }
+            template.attach(ordinal);
+            if (!read.isUnmapped()) {
+                addMappedPrimary(read, template);
+            }
+            retireIfComplete(template);
+        }
+        emitResolvedReads();
+    }
+
+    /**
+     * Resolve all outstanding duplicate sets and pass the remaining reads downstream. Must be called once after the last read.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        resolveUpTo(new Position(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        emitResolvedReads();
+        Utils.validate(buffer.isEmpty(), () -> buffer.size() + " reads were left unresolved at the end of the input");
+        if (lateReads > 0) {
+            logger.warn(String.format("%d reads arrived after their duplicate set had already been resolved. " +
+                    "Increase the minimum distance to at least the longest 5' clip in the input to mark these correctly.", lateReads));
+        }
+        if (readsSpilledWaitingForMates > 0) {
+            logger.info(String.format("%d reads were spilled to disk because more than %d reads were waiting for their mates.",
+                    readsSpilledWaitingForMates, maxReadsWaitingForMates));
+        }
+        finished = true;
+    }
+
+    /**
+     * @return per-library duplication metrics for all reads passed downstream so far, with pair counts divided by 2 and
+     * derived fields calculated.
+     */
+    public Map<String, GATKDuplicationMetrics> getMetricsByLibrary() {
+        final Map<String, GATKDuplicationMetrics> result = new LinkedHashMap<>();
+        metricsByLibrary.forEach((library, metrics) -> {
+            final GATKDuplicationMetrics copy = metrics.copy();
+            // Divide these by 2 because they are counted for each read when they should be counted by pair.
+            copy.READ_PAIRS_EXAMINED = metrics.READ_PAIRS_EXAMINED / 2;
+            copy.READ_PAIR_DUPLICATES = metrics.READ_PAIR_DUPLICATES / 2;
+            copy.calculateDerivedFields();
+            if (copy.ESTIMATED_LIBRARY_SIZE == null) {
+                copy.ESTIMATED_LIBRARY_SIZE = 0L;
+            }
+            result.put(library, copy);
+        });
+        return result;
+    }
+
+    /**
+     * @return the number of reads currently held in memory while waiting for their mates
+     */
+    @VisibleForTesting
+    int getNumReadsWaitingForMates() {
+        return templatesWaitingForMates.size();
+    }
+
+    /**
+     * @return the number of reads currently spilled to disk while waiting for their mates
+     */
+    @VisibleForTesting
+    long getNumSpilledReadsWaitingForMates() {
+        return spilledMates.size();
+    }
+
+    @Override
+    public void close() {
+        buffer.close();
+        spilledMates.close();
+    }
+
+    private void advanceTo(final GATKRead read) {
+        final Position position = ReadUtils.readHasNoAssignedPosition(read) ?
+                new Position(Integer.MAX_VALUE, Integer.MAX_VALUE) :
+                new Position(ReadUtils.getAssignedReferenceIndex(read, header), read.getAssignedStart());
+        if (POSITION_COMPARATOR.compare(position, currentPosition) < 0) {
+            throw new UserException.BadInput("Reads must be coordinate sorted for streaming duplicate marking, but read " + read.getName() +
+                    " at " + read.getAssignedContig() + ":" + read.getAssignedStart() + " was found after a read at a later position");
+        }
+        if (minimumDistance < 0 && !read.isUnmapped()) {
+            minimumDistance = 2 * read.getLength();
+        }
+        currentPosition = position;
+        restoreSpilledMates(position);
+        resolveUpTo(position);
+    }
+
+    /**
+     * Bring back into memory the spilled reads whose mates may start at the given position.
+     */
+    private void restoreSpilledMates(final Position position) {
+        for (final GATKRead read : spilledMates.pollUpTo(position.getContig(), position.getStart())) {
+            final Template template = templates.get(ReadsKey.keyForRead(read));
+            // The template may have been resolved in the meantime if its mate was already passed
+            if (template != null && template.mateSpilled && !template.resolved) {
+                template.mateSpilled = false;
+                template.pendingMate = read;
+            }
+        }
+    }
+
+    /**
+     * Resolve every duplicate set that can no longer receive reads, and retire every template whose reads
+     * should all have been seen by the given position.
+     */
+    private void resolveUpTo(final Position position) {
+        final Position windowStart = position.getContig() == Integer.MAX_VALUE ? position :
+                new Position(position.getContig(), position.getStart() - Math.max(minimumDistance, 0));
+        while (!duplicateSetsByAnchor.isEmpty() && POSITION_COMPARATOR.compare(duplicateSetsByAnchor.peek().anchor, windowStart) < 0) {
+            resolveDuplicateSet(duplicateSetsByAnchor.poll());
+        }
+        while (!templatesByExpectedPosition.isEmpty() && POSITION_COMPARATOR.compare(templatesByExpectedPosition.peek().expectedPosition, position) < 0) {
+            final Template template = templatesByExpectedPosition.poll();
+            template.expired = true;
+            if (!template.resolved && !template.inDuplicateSet) {
+                // The mate never showed up (or there was nothing to compare against), so pass the template through unmarked
+                template.resolve(ReadTrackingBuffer.NOT_DUPLICATE);
+            }
+            retireIfComplete(template);
+        }
+    }
+
+    private Template getOrCreateTemplate(final GATKRead read) {
+        return templates.computeIfAbsent(ReadsKey.keyForRead(read), name -> {
+            final Position expected = ReadUtils.readHasMappedMate(read) ?
+                    new Position(ReadUtils.getMateReferenceIndex(read, header), read.getMateStart()) :
+                    new Position(ReadUtils.getAssignedReferenceIndex(read, header), read.getAssignedStart());
+            final Template template = new Template(name, read.isPaired() ? 2 : 1, expected);
+            templatesByExpectedPosition.add(template);
+            return template;
+        });
+    }
+
+    private void addMappedPrimary(final GATKRead read, final Template template) {
+        template.library = MarkDuplicatesSparkUtils.getLibraryForRead(read, header, LibraryIdGenerator.UNKNOWN_LIBRARY);
+        if (ReadUtils.readHasMappedMate(read)) {
+            // Every paired read leaves a placeholder at its own position so that fragments there are marked as duplicates
+            final ReadsKey fragmentKey = MarkDuplicatesSparkRecord.newEmptyFragment(read, header, libraryIndex).key();
+            getOrCreateDuplicateSet(fragmentKey, endPosition(read)).emptyFragments++;
+
+            if (template.mateSpilled) {
+                // The mate information of the spilled read points past this read, so they cannot be paired
+                template.resolve(ReadTrackingBuffer.NOT_DUPLICATE);
+            } else if (template.pendingMate == null) {
+                template.pendingMate = read;
+                templatesWaitingForMates.add(template);
+                if (templatesWaitingForMates.size() > maxReadsWaitingForMates) {
+                    spillReadsWaitingForMates();
+                }
+            } else {
+                final GATKRead mate = template.pendingMate;
+                template.pendingMate = null;
+                templatesWaitingForMates.remove(template);
+                final Pair pair = MarkDuplicatesSparkRecord.newPair(mate, read, header, NO_PARTITION, scoringStrategy, libraryIndex);
+                final Short readGroup = readGroupIndex.get(mate.getReadGroup());
+                if (readGroup == null) {
+                    throw (mate.getReadGroup() == null) ?
+                            new UserException.ReadMissingReadGroup(mate) :
+                            new UserException.HeaderMissingReadGroup(mate);
+                }
+                pair.setReadGroup(readGroup);
+                final Position mateEnd = endPosition(mate);
+                final Position readEnd = endPosition(read);
+                final Position anchor = POSITION_COMPARATOR.compare(mateEnd, readEnd) >= 0 ? mateEnd : readEnd;
+                getOrCreateDuplicateSet(pair.key(), anchor).add(pair, template);
+            }
+        } else {
+            final Fragment fragment = MarkDuplicatesSparkRecord.newFragment(read, header, NO_PARTITION, scoringStrategy, libraryIndex);
+            getOrCreateDuplicateSet(fragment.key(), endPosition(read)).add(fragment, template);
+        }
+    }
+
+    /**
+     * Spill the reads waiting for their mates whose mates are farthest away, keeping half of the maximum in memory.
+     */
+    private void spillReadsWaitingForMates() {
+        final List<Template> waiting = new ArrayList<>(templatesWaitingForMates);
+        waiting.sort(Comparator.comparing((Template t) -> t.expectedPosition, POSITION_COMPARATOR));
+        final List<Template> toSpill = waiting.subList(maxReadsWaitingForMates / 2, waiting.size());
+        spilledMates.spill(toSpill.stream().map(t -> t.pendingMate).collect(Collectors.toList()));
+        for (final Template template : toSpill) {
+            template.pendingMate = null;
+            template.mateSpilled = true;
+            templatesWaitingForMates.remove(template);
+        }
+        readsSpilledWaitingForMates += toSpill.size();
+    }
+
+    private Position endPosition(final GATKRead read) {
+        return new Position(ReadUtils.getReferenceIndex(read, header), ReadUtils.getStrandedUnclippedStart(read));
+    }
+
+    private DuplicateSet getOrCreateDuplicateSet(final ReadsKey key, final Position anchor) {
+        return duplicateSets.computeIfAbsent(key, k -> {
+            if (minimumDistance >= 0 && anchor.getContig() == currentPosition.getContig() && anchor.getStart() < currentPosition.getStart() - minimumDistance) {
+                // A set with this key may already have been resolved
+                lateReads++;
+            }
+            final DuplicateSet set = new DuplicateSet(k, anchor);
+            duplicateSetsByAnchor.add(set);
+            return set;
+        });
+    }
+
+    private void resolveDuplicateSet(final DuplicateSet set) {
+        duplicateSets.remove(set.key);
+        if (set.members.isEmpty()) {
+            return;
+        }
+        // Each key corresponds to either fragments or pairs, never a mixture of both
+        if (set.members.keySet().iterator().next() instanceof Pair) {
+            resolvePairs(set);
+        } else {
+            resolveFragments(set);
+        }
+    }
+
+    /**
+     * If there are only fragments at a site, keep the best one according to the same comparator as MarkDuplicatesSpark.
+     * If any paired read starts at the same site, every fragment is a duplicate.
+     */
+    private void resolveFragments(final DuplicateSet set) {
+        set.members.keySet().forEach(f -> finder.addLocationInformation(f.getName(), f));
+        final TransientFieldPhysicalLocation best = set.emptyFragments > 0 ? null :
+                set.members.keySet().stream().max(MarkDuplicatesSparkUtils.PAIRED_ENDS_SCORE_COMPARATOR).orElse(null);
+        set.members.forEach((fragment, template) -> resolveAndRetire(template, fragment == best ? ReadTrackingBuffer.NOT_DUPLICATE : ReadTrackingBuffer.DUPLICATE));
+    }
+
+    private void resolvePairs(final DuplicateSet set) {
+        if (set.members.size() == 1) {
+            resolveAndRetire(set.members.values().iterator().next(), ReadTrackingBuffer.NOT_DUPLICATE);
+            return;
+        }
+
+        final List<Pair> pairs = set.members.keySet().stream().map(p -> (Pair) p).collect(Collectors.toList());
+        pairs.forEach(p -> finder.addLocationInformation(p.getName(), p));
+        final Pair best = pairs.stream().max(MarkDuplicatesSparkUtils.PAIRED_ENDS_SCORE_COMPARATOR)
+                .orElseThrow(() -> new GATKException.ShouldNeverReachHereException("There was no best pair because the set was empty, but it shouldn't have been empty."));
+
+        // Split by orientation and count optical duplicates in each group separately
+        final Set<Pair> opticalDuplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Byte, List<Pair>> byOrientation = pairs.stream().collect(Collectors.groupingBy(Pair::getOrientationForOpticalDuplicates));
+        if (byOrientation.containsKey(ReadEnds.FR) && byOrientation.containsKey(ReadEnds.RF)) {
+            findOpticalDuplicates(byOrientation.get(ReadEnds.FR), best, opticalDuplicates);
+            findOpticalDuplicates(byOrientation.get(ReadEnds.RF), best, opticalDuplicates);
+        } else {
+            findOpticalDuplicates(pairs, best, opticalDuplicates);
+        }
+
+        final Template bestTemplate = set.members.get(best);
+        if (!opticalDuplicates.isEmpty()) {
+            getMetrics(bestTemplate.library).READ_PAIR_OPTICAL_DUPLICATES += opticalDuplicates.size();
+        }
+        set.members.forEach((pair, template) -> {
+            final byte status = pair == best ? ReadTrackingBuffer.NOT_DUPLICATE :
+                    (markOpticalDups && opticalDuplicates.contains(pair)) ? ReadTrackingBuffer.OPTICAL_DUPLICATE : ReadTrackingBuffer.DUPLICATE;
+            resolveAndRetire(template, status);
+        });
+    }
+
+    private void findOpticalDuplicates(final List<Pair> scored, final Pair best, final Set<Pair> opticalDuplicates) {
+        final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(scored, best);
+        for (int i = 0; i < opticalDuplicateFlags.length; i++) {
+            if (opticalDuplicateFlags[i]) {
+                opticalDuplicates.add(scored.get(i));
+            }
+        }
+    }
+
+    private void resolveAndRetire(final Template template, final byte status) {
+        template.resolve(status);
+        retireIfComplete(template);
+    }
+
+    private void retireIfComplete(final Template template) {
+        if (template.resolved && (template.expired || template.primariesSeen == template.expectedPrimaries)) {
+            templates.remove(template.name, template);
+        }
+    }
+
+    private void emitResolvedReads() {
+        while (buffer.canEmit()) {
+            final byte status = buffer.peekStatus();
+            final GATKRead read = buffer.next();
+            applyStatus(read, status);
+            getMetrics(LibraryIdGenerator.getLibraryName(header, read.getReadGroup())).updateMetrics(read);
+            downstream.accept(read);
+        }
+    }
+
+    private void applyStatus(final GATKRead read, final byte status) {
+        read.setIsDuplicate(false);
+        read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, (String) null);
+        if (status == ReadTrackingBuffer.OPTICAL_DUPLICATE) {
+            read.setIsDuplicate(true);
+            read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_SEQUENCING);
+        } else if (status == ReadTrackingBuffer.DUPLICATE && (markUnmappedMates || !read.isUnmapped())) {
+            read.setIsDuplicate(true);
+            if (taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.All) {
+                read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_LIBRARY);
+            }
+        }
+    }
+
+    private GATKDuplicationMetrics getMetrics(final String library) {
+        return metricsByLibrary.computeIfAbsent(library, l -> {
+            final GATKDuplicationMetrics metrics = new GATKDuplicationMetrics();
+            metrics.LIBRARY = l;
+            return metrics;
+        });
+    }
+
+    /**
+     * A (reference index, position) coordinate. Reads without an assigned position sort after every contig.
+     */
+    private static final class Position {
+        private final int contig;
+        private final int start;
+
+        Position(final int contig, final int start) {
+            this.contig = contig < 0 ? Integer.MAX_VALUE : contig;
+            this.start = start;
+        }
+
+        int getContig() { return contig; }
+
+        int getStart() { return start; }
+    }
+
+    /**
+     * All of the reads sharing a name, tracked until their duplicate status is known and all of their primary reads have been seen.
+     */
+    private final class Template {
+        private final String name;
+        private final int expectedPrimaries;
+        private final Position expectedPosition;
+        private final List<Long> waitingOrdinals = new ArrayList<>(2);
+
+        private String library;
+        private GATKRead pendingMate;
+        private boolean mateSpilled = false;
+        private int primariesSeen = 0;
+        private boolean inDuplicateSet = false;
+        private boolean resolved = false;
+        private boolean expired = false;
+        private byte status = ReadTrackingBuffer.UNRESOLVED;
+
+        Template(final String name, final int expectedPrimaries, final Position expectedPosition) {
+            this.name = name;
+            this.expectedPrimaries = expectedPrimaries;
+            this.expectedPosition = expectedPosition;
+        }
+
+        void attach(final long ordinal) {
+            if (resolved) {
+                buffer.setStatus(ordinal, status);
+            } else {
+                waitingOrdinals.add(ordinal);
+            }
+        }
+
+        void resolve(final byte status) {
+            this.status = status;
+            this.resolved = true;
+            this.pendingMate = null;
+            this.mateSpilled = false;
+            templatesWaitingForMates.remove(this);
+            waitingOrdinals.forEach(ordinal -> buffer.setStatus(ordinal, status));
+            waitingOrdinals.clear();
+        }
+    }
+
+    /**
+     * The fragments or pairs sharing a {@link ReadsKey}, along with the number of paired reads whose 5' end falls at the same fragment key.
+     */
+    private static final class DuplicateSet {
+        private final ReadsKey key;
+        private final Position anchor;
+        private final Map<TransientFieldPhysicalLocation, Template> members = new LinkedHashMap<>();
+        private int emptyFragments = 0;
+
+        DuplicateSet(final ReadsKey key, final Position anchor) {
+            this.key = key;
+            this.anchor = anchor;
+        }
+
+        void add(final TransientFieldPhysicalLocation member, final Template template) {
+            members.put(member, template);
+            template.inDuplicateSet = true;
+        }
+    }
+}
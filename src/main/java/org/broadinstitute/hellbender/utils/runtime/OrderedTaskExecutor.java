@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on a pool of daemon threads and hands their results to a consumer on the submitting thread, in the order
+ * in which the tasks were submitted.
+ *
+ * This lets a tool process its input in parallel while producing its output in input order: the traversal thread
+ * submits the work for each record, and its results are written by the consumer as soon as all earlier results have
+ * been.  The number of tasks whose results have not been consumed yet is bounded, which bounds the memory held by
+ * pending results; {@link #submit} consumes results, waiting for them if necessary, when the bound is reached.
+ *
+ * Exceptions thrown by a task are rethrown on the submitting thread when its result would have been consumed:
+ * unchecked exceptions as they are, and checked exceptions wrapped in a {@link GATKException}.
+ *
+ * This class is not thread-safe: tasks must be submitted and results consumed from a single thread.
+ *
+ * @param <T> type of the results of the tasks
+ */
+public final class OrderedTaskExecutor<T> implements AutoCloseable {
+    private final ExecutorService executor;
+    private final int maxPendingTasks;
+    private final Consumer<T> resultConsumer;
+    private final Deque<PendingTask<T>> pendingTasks = new ArrayDeque<>();
+
+    /**
+     * @param threadNameFormat format of the names of the worker threads, as for {@link ThreadFactoryBuilder#setNameFormat}
+     * @param numThreads number of worker threads, must be positive
+     * @param maxPendingTasksPerThread number of tasks per worker thread whose results may be pending, must be positive
+     * @param resultConsumer called on the submitting thread with the result of each task, in submission order
+     */
+    public OrderedTaskExecutor(final String threadNameFormat, final int numThreads, final int maxPendingTasksPerThread,
+                               final Consumer<T> resultConsumer) {
+        Utils.nonNull(threadNameFormat);
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        ParamUtils.isPositive(maxPendingTasksPerThread, "Number of pending tasks per thread must be positive.");
+        this.resultConsumer = Utils.nonNull(resultConsumer);
+        maxPendingTasks = numThreads * maxPendingTasksPerThread;
+        executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat(threadNameFormat)
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Submit a task to be run on a worker thread. If the maximum number of results is pending, the earliest results
+     * are consumed first.
+     *
+     * @param task the task, which must not modify state shared with the submitting thread or other tasks
+     * @param description what the task does, for error messages (e.g. "annotating variant chr1:100")
+     */
+    public void submit(final Callable<T> task, final Supplier<String> description) {
+        Utils.nonNull(task);
+        Utils.nonNull(description);
+        while (pendingTasks.size() >= maxPendingTasks) {
+            consumeNextResult();
+        }
+        pendingTasks.addLast(new PendingTask<>(executor.submit(task), description));
+    }
+
+    /**
+     * Wait for all submitted tasks and consume their results, in submission order.
+     */
+    public void consumeAllResults() {
+        while (!pendingTasks.isEmpty()) {
+            consumeNextResult();
+        }
+    }
+
+    /**
+     * @return the number of submitted tasks whose results have not been consumed
+     */
+    public int getNumPendingTasks() {
+        return pendingTasks.size();
+    }
+
+    private void consumeNextResult() {
+        final PendingTask<T> pendingTask = pendingTasks.pollFirst();
+        final T result;
+        try {
+            result = pendingTask.result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while " + pendingTask.description.get(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error " + pendingTask.description.get(), e.getCause());
+        }
+        resultConsumer.accept(result);
+    }
+
+    /**
+     * Stop the worker threads. The results of pending tasks are discarded.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pendingTasks.clear();
+    }
+
+    private static final class PendingTask<T> {
+        private final Future<T> result;
+        private final Supplier<String> description;
+
+        private PendingTask(final Future<T> result, final Supplier<String> description) {
+            this.result = result;
+            this.description = description;
+        }
+    }
+}
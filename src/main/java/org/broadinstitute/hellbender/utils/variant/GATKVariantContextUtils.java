@@ -24,6 +24,7 @@ import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.ParallelVCFWriter;
 
 import java.io.Serializable;
 import java.nio.file.Path;
@@ -75,6 +76,30 @@ public final class GATKVariantContextUtils {
         return defaultVCFHeaderLines;
     }
 
+    /**
+     * Same as {@link #createVCFWriter(Path, SAMSequenceDictionary, boolean, Options...)}, except that records are encoded
+     * and compressed on <code>numThreads</code> threads when {@link ParallelVCFWriter} supports the output and options.
+     *
+     * @param numThreads number of threads used to encode and compress records; 1 to use the htsjdk writers
+     */
+    public static VariantContextWriter createVCFWriter(
+            final Path outPath,
+            final SAMSequenceDictionary referenceDictionary,
+            final boolean createMD5,
+            final int numThreads,
+            final Options... options)
+    {
+        Utils.nonNull(outPath);
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        if (numThreads > 1) {
+            if (ParallelVCFWriter.canWrite(outPath, createMD5, options)) {
+                return new ParallelVCFWriter(outPath, referenceDictionary, numThreads, options);
+            }
+            logger.warn(String.format("Output %s will be written on a single thread: parallel writing supports only block-compressed VCFs and unindexed VCFs, without an MD5 file", outPath));
+        }
+        return createVCFWriter(outPath, referenceDictionary, createMD5, options);
+    }
+
     /**
      * Creates a VariantContextWriter whose outputFile type is based on the extension of the output file name.
      * The default options set by VariantContextWriter are cleared before applying ALLOW_MISSING_FIELDS_IN_HEADER (if
@@ -371,7 +396,15 @@ public final class GATKVariantContextUtils {
         }
     }
 
-    private static List<Allele> bestMatchToOriginalGT(final List<Allele> allelesToUse, final List<Allele> originalGT) {
+    /**
+     * The call of {@link GenotypeAssignmentMethod#BEST_MATCH_TO_ORIGINAL}: each allele of the original call that is not
+     * among the alleles to use and is not a no-call is replaced by the reference allele.
+     *
+     * @param allelesToUse the alleles to call with, starting with the reference allele
+     * @param originalGT the original call
+     * @return never {@code null}
+     */
+    public static List<Allele> bestMatchToOriginalGT(final List<Allele> allelesToUse, final List<Allele> originalGT) {
         final List<Allele> best = new LinkedList<>();
         final Allele ref = allelesToUse.get(0);
         for (final Allele originalAllele : originalGT) {
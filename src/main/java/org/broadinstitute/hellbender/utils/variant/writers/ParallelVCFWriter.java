@@ -0,0 +1,426 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedTaskExecutor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A VCF writer that encodes records and compresses BGZF blocks on several threads.
+ *
+ * Records are encoded in batches on worker threads with htsjdk's {@link VCFEncoder}. The encoded text is cut into
+ * BGZF blocks on the calling thread, the blocks are compressed on the worker threads with the default htsjdk deflater,
+ * and they are written in order. Since the block boundaries, and hence the virtual file offsets, only depend on the
+ * uncompressed text, the tabix index is built from the real offset of each record once the address of its block is known.
+ *
+ * Genotypes that are still lazily parsed belong to the codec of the reader, which is not thread-safe and was built from
+ * the header of the input rather than that of this writer, so they are parsed on the calling thread before their batch
+ * is handed to a worker.
+ *
+ * The decompressed output is the same as that of htsjdk's writer, but the compressed bytes are not: as with bgzip, blocks
+ * hold at most 0xff00 bytes of text rather than htsjdk's 64KiB, so that a block whose text does not compress still fits
+ * in the maximum BGZF block size once it is stored uncompressed. Compare outputs after decompression.
+ *
+ * Only block-compressed VCF output (optionally with a tabix index) and plain VCF output without an index are supported;
+ * use {@link #canWrite} to check, and write anything else with the htsjdk writers.
+ */
+public final class ParallelVCFWriter implements VariantContextWriter {
+    // records encoded per task
+    private static final int RECORDS_PER_BATCH = 250;
+    // tasks in flight per thread, which bounds the memory used by records that are not written yet
+    private static final int TASKS_PER_THREAD = 4;
+    // bgzip's block size, which leaves room for the deflate overhead of blocks that do not compress. This is why the
+    // compressed output differs from that of htsjdk's writer.
+    private static final int UNCOMPRESSED_BLOCK_SIZE = Math.min(BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE, 0xff00);
+    private static final int MAX_DEFLATED_SIZE = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE
+            - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+    private static final byte NEWLINE = '\n';
+
+    private static final Set<Options> SUPPORTED_OPTIONS = EnumSet.of(Options.INDEX_ON_THE_FLY, Options.DO_NOT_WRITE_GENOTYPES,
+            Options.ALLOW_MISSING_FIELDS_IN_HEADER, Options.WRITE_FULL_FORMAT_FIELD);
+
+    private final Path outPath;
+    private final OutputStream outputStream;
+    private final boolean blockCompressed;
+    private final IndexCreator indexCreator;
+    private final boolean doNotWriteGenotypes;
+    private final boolean allowMissingFieldsInHeader;
+    private final boolean writeFullFormatField;
+    private final int compressionLevel;
+    // encodes batches of records, and appends their text to the blocks in order
+    private final OrderedTaskExecutor<EncodedBatch> encodingExecutor;
+    // compresses blocks, and writes them in order
+    private final OrderedTaskExecutor<byte[]> compressionExecutor;
+
+    private VCFHeader header;
+    private ThreadLocal<VCFEncoder> encoders;
+    // whether encoding or compressing records, or writing the output, has failed
+    private boolean failed = false;
+
+    private List<VariantContext> currentBatch = new ArrayList<>(RECORDS_PER_BATCH);
+    // records waiting for the address of the block they start in
+    private final Deque<IndexEntry> pendingIndexEntries = new ArrayDeque<>();
+
+    private final byte[] blockBuffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+    private int blockLength = 0;
+    // number of the block being filled, and number of blocks written
+    private long blocksStarted = 0;
+    private long blocksWritten = 0;
+    // number of bytes written to the output file
+    private long fileOffset = 0;
+    private boolean closed = false;
+
+    /**
+     * @param outPath the output VCF
+     * @param referenceDictionary required if on the fly indexing is set, otherwise can be null
+     * @param numThreads number of encoding threads, and of compression threads; must be at least 1
+     * @param options the writer options, which must all be supported (see {@link #canWrite})
+     */
+    public ParallelVCFWriter(final Path outPath, final SAMSequenceDictionary referenceDictionary, final int numThreads, final Options... options) {
+        Utils.nonNull(outPath);
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        Utils.validateArg(canWrite(outPath, false, options), () -> "The parallel VCF writer cannot write " + outPath + " with options " + Arrays.toString(options));
+        final Set<Options> optionSet = options.length == 0 ? EnumSet.noneOf(Options.class) : EnumSet.copyOf(Arrays.asList(options));
+        Utils.validateArg(!optionSet.contains(Options.INDEX_ON_THE_FLY) || referenceDictionary != null,
+                "A sequence dictionary is required to index the output on the fly");
+
+        this.outPath = outPath;
+        this.blockCompressed = IOUtil.hasBlockCompressedExtension(outPath.toString());
+        this.indexCreator = optionSet.contains(Options.INDEX_ON_THE_FLY) ? new TabixIndexCreator(referenceDictionary, TabixFormat.VCF) : null;
+        this.doNotWriteGenotypes = optionSet.contains(Options.DO_NOT_WRITE_GENOTYPES);
+        this.allowMissingFieldsInHeader = optionSet.contains(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        this.writeFullFormatField = optionSet.contains(Options.WRITE_FULL_FORMAT_FIELD);
+        this.compressionLevel = BlockCompressedOutputStream.getDefaultCompressionLevel();
+        try {
+            this.outputStream = new BufferedOutputStream(Files.newOutputStream(outPath));
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outPath.toString(), "Could not open the output VCF", e);
+        }
+        this.encodingExecutor = new OrderedTaskExecutor<>("vcfEncoder-thread-%d", numThreads, TASKS_PER_THREAD, this::appendBatch);
+        this.compressionExecutor = new OrderedTaskExecutor<>("bgzfCompressor-thread-%d", numThreads, TASKS_PER_THREAD, this::writeBlock);
+    }
+
+    /**
+     * @return true if this writer can write the given output with the given options: a block-compressed VCF, or a
+     * plain VCF without an index, on the local file system, without an MD5 file
+     */
+    public static boolean canWrite(final Path outPath, final boolean createMD5, final Options... options) {
+        Utils.nonNull(outPath);
+        if (createMD5 || outPath.getFileSystem() != FileSystems.getDefault()
+                || !Arrays.stream(options).allMatch(SUPPORTED_OPTIONS::contains)) {
+            return false;
+        }
+        switch (VariantContextWriterBuilder.determineOutputTypeFromFile(outPath)) {
+            case BLOCK_COMPRESSED_VCF:
+                return true;
+            case VCF:
+                return !Arrays.asList(options).contains(Options.INDEX_ON_THE_FLY);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void setHeader(final VCFHeader header) {
+        Utils.nonNull(header);
+        Utils.validate(this.header == null, "The header has already been set");
+        // the same header, and the same encoder configuration, as htsjdk's VCFWriter
+        this.header = doNotWriteGenotypes ? new VCFHeader(header.getMetaDataInSortedOrder()) : header;
+        final VCFHeader encodingHeader = this.header;
+        this.encoders = ThreadLocal.withInitial(() -> new VCFEncoder(encodingHeader, allowMissingFieldsInHeader, writeFullFormatField));
+    }
+
+    @Override
+    public void writeHeader(final VCFHeader header) {
+        setHeader(header);
+        final byte[] bytes = renderHeader(header, doNotWriteGenotypes);
+        appendBytes(bytes, 0, bytes.length);
+        // like htsjdk, which flushes the stream after the header, start the records in a new block
+        endBlock();
+    }
+
+    /**
+     * Have htsjdk render the header text, so that it is exactly the same as with the serial writer
+     */
+    private byte[] renderHeader(final VCFHeader header, final boolean withoutGenotypes) {
+        final ByteArrayOutputStream headerText = new ByteArrayOutputStream();
+        final VariantContextWriterBuilder builder = new VariantContextWriterBuilder().clearOptions().setOutputVCFStream(headerText);
+        if (withoutGenotypes) {
+            builder.setOption(Options.DO_NOT_WRITE_GENOTYPES);
+        }
+        if (allowMissingFieldsInHeader) {
+            builder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        }
+        try (final VariantContextWriter headerWriter = builder.build()) {
+            headerWriter.writeHeader(header);
+        }
+        return headerText.toByteArray();
+    }
+
+    @Override
+    public void add(final VariantContext vc) {
+        Utils.nonNull(vc);
+        Utils.validate(header != null, "The header must be set before adding records");
+        Utils.validate(!closed, "Cannot add records to a closed writer");
+        currentBatch.add(vc);
+        if (currentBatch.size() == RECORDS_PER_BATCH) {
+            try {
+                submitBatch();
+            } catch (final RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return true if encoding or compressing records on a worker thread, or writing the output, has failed. The
+     * exception of a failed task is thrown by the call that collects its result, at the latest by {@link #close()}.
+     */
+    @Override
+    public boolean checkError() {
+        return failed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (header != null) {
+                if (!currentBatch.isEmpty()) {
+                    submitBatch();
+                }
+                encodingExecutor.consumeAllResults();
+                endBlock();
+                compressionExecutor.consumeAllResults();
+            }
+            // same final position as htsjdk's indexing writer: the start of the empty block at the end of the file
+            final long finalPosition = blockCompressed ? BlockCompressedFilePointerUtil.makeFilePointer(fileOffset, 0) : fileOffset;
+            if (blockCompressed) {
+                write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK, 0, BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length);
+            }
+            outputStream.close();
+            // written after the output so that the index is newer than the file
+            if (indexCreator != null) {
+                final Index index = indexCreator.finalizeIndex(finalPosition);
+                index.writeBasedOnFeaturePath(outPath);
+            }
+        } catch (final IOException e) {
+            failed = true;
+            throw new UserException.CouldNotCreateOutputFile(outPath.toString(), "Error closing the output VCF", e);
+        } catch (final RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            encodingExecutor.close();
+            compressionExecutor.close();
+        }
+    }
+
+    private void submitBatch() {
+        final List<VariantContext> batch = currentBatch;
+        currentBatch = new ArrayList<>(RECORDS_PER_BATCH);
+        if (!doNotWriteGenotypes) {
+            // lazily parsed genotypes can only be parsed by the codec of the reader, which knows the samples of the input
+            for (final VariantContext vc : batch) {
+                if (vc.getGenotypes() instanceof LazyGenotypesContext) {
+                    ((LazyGenotypesContext) vc.getGenotypes()).decode();
+                }
+            }
+        }
+        encodingExecutor.submit(() -> encodeBatch(batch), () -> "encoding records for " + outPath);
+    }
+
+    private EncodedBatch encodeBatch(final List<VariantContext> batch) {
+        final ByteArrayOutputStream text = new ByteArrayOutputStream(RECORDS_PER_BATCH * 256);
+        final int[] recordStarts = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            recordStarts[i] = text.size();
+            final byte[] line = encode(batch.get(i));
+            text.write(line, 0, line.length);
+        }
+        return new EncodedBatch(batch, text.toByteArray(), recordStarts);
+    }
+
+    private byte[] encode(final VariantContext vc) {
+        final VariantContext toWrite = doNotWriteGenotypes ? new VariantContextBuilder(vc).noGenotypes().make() : vc;
+        final byte[] encoded = encoders.get().encode(toWrite).getBytes(StandardCharsets.UTF_8);
+        final byte[] line = Arrays.copyOf(encoded, encoded.length + 1);
+        line[encoded.length] = NEWLINE;
+        return line;
+    }
+
+    private void appendBatch(final EncodedBatch batch) {
+        for (int i = 0; i < batch.records.size(); i++) {
+            final int start = batch.recordStarts[i];
+            final int end = i + 1 < batch.records.size() ? batch.recordStarts[i + 1] : batch.text.length;
+            if (indexCreator != null) {
+                pendingIndexEntries.addLast(new IndexEntry(batch.records.get(i), blocksStarted, blockLength));
+            }
+            appendBytes(batch.text, start, end - start);
+        }
+    }
+
+    private void appendBytes(final byte[] bytes, final int offset, final int length) {
+        if (!blockCompressed) {
+            write(bytes, offset, length);
+            return;
+        }
+        int position = offset;
+        while (position < offset + length) {
+            final int count = Math.min(offset + length - position, blockBuffer.length - blockLength);
+            System.arraycopy(bytes, position, blockBuffer, blockLength, count);
+            blockLength += count;
+            position += count;
+            if (blockLength == blockBuffer.length) {
+                endBlock();
+            }
+        }
+    }
+
+    /**
+     * Submit the block being filled, if it is not empty, for compression
+     */
+    private void endBlock() {
+        if (!blockCompressed || blockLength == 0) {
+            return;
+        }
+        final byte[] uncompressed = Arrays.copyOf(blockBuffer, blockLength);
+        compressionExecutor.submit(() -> compressBlock(uncompressed, compressionLevel), () -> "compressing " + outPath);
+        blockLength = 0;
+        blocksStarted++;
+    }
+
+    private void writeBlock(final byte[] block) {
+        final long blockAddress = fileOffset;
+        while (!pendingIndexEntries.isEmpty() && pendingIndexEntries.peekFirst().blockNumber == blocksWritten) {
+            final IndexEntry entry = pendingIndexEntries.pollFirst();
+            indexCreator.addFeature(entry.record, BlockCompressedFilePointerUtil.makeFilePointer(blockAddress, entry.offsetInBlock));
+        }
+        write(block, 0, block.length);
+        blocksWritten++;
+    }
+
+    private void write(final byte[] bytes, final int offset, final int length) {
+        try {
+            outputStream.write(bytes, offset, length);
+            fileOffset += length;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outPath.toString(), "Error writing the output VCF", e);
+        }
+    }
+
+    /**
+     * Compress data into a BGZF block, in the same format as {@link BlockCompressedOutputStream}
+     */
+    static byte[] compressBlock(final byte[] uncompressed, final int compressionLevel) {
+        final byte[] deflated = new byte[MAX_DEFLATED_SIZE];
+        int deflatedSize = deflate(BlockCompressedOutputStream.getDefaultDeflaterFactory().makeDeflater(compressionLevel, true), uncompressed, deflated);
+        if (deflatedSize < 0) {
+            // the data does not compress, so store it uncompressed as htsjdk does
+            deflatedSize = deflate(new Deflater(Deflater.NO_COMPRESSION, true), uncompressed, deflated);
+            if (deflatedSize < 0) {
+                throw new GATKException.ShouldNeverReachHereException("An uncompressed BGZF block does not fit in the maximum block size");
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(uncompressed, 0, uncompressed.length);
+
+        final int blockSize = deflatedSize + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        final ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        block.put((byte) BlockCompressedStreamConstants.GZIP_ID1);
+        block.put((byte) BlockCompressedStreamConstants.GZIP_ID2);
+        block.put((byte) BlockCompressedStreamConstants.GZIP_CM_DEFLATE);
+        block.put((byte) BlockCompressedStreamConstants.GZIP_FLG);
+        block.putInt(0); // modification time
+        block.put((byte) BlockCompressedStreamConstants.GZIP_XFL);
+        block.put((byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN);
+        block.putShort((short) BlockCompressedStreamConstants.GZIP_XLEN);
+        block.put((byte) BlockCompressedStreamConstants.BGZF_ID1);
+        block.put((byte) BlockCompressedStreamConstants.BGZF_ID2);
+        block.putShort((short) BlockCompressedStreamConstants.BGZF_LEN);
+        block.putShort((short) (blockSize - 1));
+        block.put(deflated, 0, deflatedSize);
+        block.putInt((int) crc.getValue());
+        block.putInt(uncompressed.length);
+        return block.array();
+    }
+
+    /**
+     * @return the number of deflated bytes, or -1 if they do not fit in the output
+     */
+    private static int deflate(final Deflater deflater, final byte[] input, final byte[] output) {
+        try {
+            deflater.setInput(input, 0, input.length);
+            deflater.finish();
+            final int size = deflater.deflate(output, 0, output.length);
+            return deflater.finished() ? size : -1;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static final class EncodedBatch {
+        private final List<VariantContext> records;
+        private final byte[] text;
+        private final int[] recordStarts;
+
+        EncodedBatch(final List<VariantContext> records, final byte[] text, final int[] recordStarts) {
+            this.records = records;
+            this.text = text;
+            this.recordStarts = recordStarts;
+        }
+    }
+
+    private static final class IndexEntry {
+        private final VariantContext record;
+        private final long blockNumber;
+        private final int offsetInBlock;
+
+        IndexEntry(final VariantContext record, final long blockNumber, final int offsetInBlock) {
+            this.record = record;
+            this.blockNumber = blockNumber;
+            this.offsetInBlock = offsetInBlock;
+        }
+    }
+}
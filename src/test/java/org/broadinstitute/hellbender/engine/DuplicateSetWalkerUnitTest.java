@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.tools.walkers.consensus.ReadsWithSameUMI;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DuplicateSetWalkerUnitTest extends CommandLineProgramTest {
+    private static final String NA12878_GROUPED = publicTestDir + "org/broadinstitute/hellbender/tools/downsampleByDuplicateSet/NA12878.grouped.bam";
+
+    @CommandLineProgramProperties(
+            summary = "Summarizes each duplicate set, optionally in parallel",
+            oneLineSummary = "Summarizes each duplicate set",
+            programGroup = TestProgramGroup.class
+    )
+    private static class TestParallelDuplicateSetWalker extends DuplicateSetWalker<String> {
+        private final List<String> summaries = new ArrayList<>();
+        private final List<String> processingThreads = new ArrayList<>();
+
+        @Override
+        protected boolean supportsParallelDuplicateSetProcessing() {
+            return true;
+        }
+
+        @Override
+        public void apply(ReadsWithSameUMI readsWithSameUMI, ReferenceContext referenceContext, FeatureContext featureContext) {
+            acceptProcessedDuplicateSet(readsWithSameUMI, processDuplicateSet(readsWithSameUMI, referenceContext), referenceContext, featureContext);
+        }
+
+        @Override
+        protected String processDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final ReferenceContext referenceContext) {
+            int totalBases = 0;
+            for (final GATKRead read : readsWithSameUMI.getReads()) {
+                totalBases += read.getLength();
+            }
+            return readsWithSameUMI.getMoleculeNumber() + ":" + readsWithSameUMI.getReads().size() + ":" + totalBases + ":" + Thread.currentThread().getName();
+        }
+
+        @Override
+        protected void acceptProcessedDuplicateSet(final ReadsWithSameUMI readsWithSameUMI, final String result,
+                                                   final ReferenceContext referenceContext, final FeatureContext featureContext) {
+            final String summary = result;
+            final int threadNameStart = summary.lastIndexOf(':');
+            summaries.add(summary.substring(0, threadNameStart));
+            processingThreads.add(summary.substring(threadNameStart + 1));
+        }
+    }
+
+    @CommandLineProgramProperties(
+            summary = "Counts duplicate sets serially",
+            oneLineSummary = "Counts duplicate sets",
+            programGroup = TestProgramGroup.class
+    )
+    private static class TestSerialDuplicateSetWalker extends DuplicateSetWalker<Void> {
+        private final List<Integer> moleculeNumbers = new ArrayList<>();
+
+        @Override
+        public void apply(ReadsWithSameUMI readsWithSameUMI, ReferenceContext referenceContext, FeatureContext featureContext) {
+            moleculeNumbers.add(readsWithSameUMI.getMoleculeNumber());
+        }
+    }
+
+    private static String[] makeArgs(final int threads) {
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .add(StandardArgumentDefinitions.INPUT_LONG_NAME, NA12878_GROUPED)
+                .add(DuplicateSetWalker.DUPLICATE_SET_THREADS_NAME, threads);
+        return args.getArgsArray();
+    }
+
+    @Test
+    public void testParallelProcessingPreservesOrder() {
+        final TestParallelDuplicateSetWalker serial = new TestParallelDuplicateSetWalker();
+        serial.instanceMain(makeArgs(1));
+
+        final TestParallelDuplicateSetWalker parallel = new TestParallelDuplicateSetWalker();
+        parallel.instanceMain(makeArgs(4));
+
+        Assert.assertFalse(serial.summaries.isEmpty());
+        Assert.assertEquals(parallel.summaries, serial.summaries);
+        Assert.assertTrue(parallel.processingThreads.stream().allMatch(name -> name.startsWith("duplicateSet-thread-")));
+        Assert.assertTrue(serial.processingThreads.stream().noneMatch(name -> name.startsWith("duplicateSet-thread-")));
+    }
+
+    @Test
+    public void testUnsupportedParallelProcessingFallsBackToSerial() {
+        final TestSerialDuplicateSetWalker serial = new TestSerialDuplicateSetWalker();
+        serial.instanceMain(makeArgs(1));
+
+        final TestSerialDuplicateSetWalker threaded = new TestSerialDuplicateSetWalker();
+        threaded.instanceMain(makeArgs(4));
+
+        Assert.assertFalse(serial.moleculeNumbers.isEmpty());
+        Assert.assertEquals(threaded.moleculeNumbers, serial.moleculeNumbers);
+    }
+}
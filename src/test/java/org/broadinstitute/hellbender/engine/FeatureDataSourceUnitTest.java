@@ -15,8 +15,13 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 public final class FeatureDataSourceUnitTest extends GATKBaseTest {
     private static final String FEATURE_DATA_SOURCE_TEST_DIRECTORY = publicTestDir + "org/broadinstitute/hellbender/engine/";
@@ -98,6 +103,67 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "CompleteIterationTestData")
+    public void testCompleteIterationWithParallelDecoding( final File vcfFile, final List<String> expectedVariantIDs ) {
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(vcfFile) ) {
+            featureSource.setDecodingThreads(3);
+            Iterator<VariantContext> iter = featureSource.iterator();
+
+            checkTraversalResults(iter, expectedVariantIDs, vcfFile, null);
+        }
+    }
+
+    @DataProvider(name = "ParallelDecodingTestData")
+    public Object[][] getParallelDecodingTestData() {
+        return new Object[][] {
+                { QUERY_TEST_VCF },
+                { new File(FEATURE_DATA_SOURCE_TEST_DIRECTORY + "vcf_with_genotypes.vcf") },
+                { new File(toolsTestDir + "FixCallSetSampleOrdering/badlySorted1000-batch-size50.vcf.gz") },
+                { new File(toolsTestDir + "walkers/annotator/VariantAnnotator/trioGGVCF.vcf.gz") }
+        };
+    }
+
+    @Test(dataProvider = "ParallelDecodingTestData")
+    public void testParallelDecodingMatchesSerialDecoding( final File vcfFile ) {
+        final List<String> expected = new ArrayList<>();
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(vcfFile) ) {
+            featureSource.iterator().forEachRemaining(vc -> expected.add(vc.toStringDecodeGenotypes()));
+        }
+
+        for ( final int threads : new int[]{2, 4} ) {
+            final List<String> actual = new ArrayList<>();
+            try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(vcfFile) ) {
+                featureSource.setDecodingThreads(threads);
+                final Iterator<VariantContext> iter = featureSource.iterator();
+                Assert.assertTrue(iter instanceof ParallelVariantDecodingIterator);
+                iter.forEachRemaining(vc -> actual.add(vc.toStringDecodeGenotypes()));
+            }
+            Assert.assertFalse(actual.isEmpty());
+            Assert.assertEquals(actual, expected, "Parallel decoding with " + threads + " threads gave different records for " + vcfFile);
+        }
+    }
+
+    @Test
+    public void testParallelDecodingOfPlainGzipFile() throws IOException {
+        // compressed with gzip rather than BGZF, despite having the same extension as a block-compressed file
+        final File gzipFile = createTempFile("plainGzip", ".vcf.gz");
+        try ( OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile)) ) {
+            Files.copy(QUERY_TEST_VCF.toPath(), out);
+        }
+        testParallelDecodingMatchesSerialDecoding(gzipFile);
+    }
+
+    @Test
+    public void testParallelDecodingNotUsedForTraversalByIntervals() {
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF) ) {
+            featureSource.setDecodingThreads(2);
+            featureSource.setIntervalsForTraversal(Arrays.asList(new SimpleInterval("1", 100, 200)));
+            final Iterator<VariantContext> iter = featureSource.iterator();
+            Assert.assertFalse(iter instanceof ParallelVariantDecodingIterator);
+            checkTraversalResults(iter, Arrays.asList("a", "b", "c"), QUERY_TEST_VCF, null);
+        }
+    }
+
     @DataProvider(name = "TraversalByIntervalsTestData")
     public Object[][] getTraversalByIntervalsTestData() {
         // Intervals for traversal + expected Variant IDs
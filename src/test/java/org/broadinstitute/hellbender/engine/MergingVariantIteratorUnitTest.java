@@ -0,0 +1,142 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.MergingIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.VariantContextComparator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public final class MergingVariantIteratorUnitTest extends GATKBaseTest {
+    private static final SAMSequenceDictionary DICTIONARY = new SAMSequenceDictionary(Arrays.asList(
+            new SAMSequenceRecord("1", 10000),
+            new SAMSequenceRecord("2", 10000),
+            new SAMSequenceRecord("X", 10000)));
+    private static final List<Allele> ALLELES = Arrays.asList(Allele.create("A", true), Allele.create("C", false));
+
+    @DataProvider(name = "inputs")
+    public Object[][] inputs() {
+        return new Object[][] {
+                {1, 50, 1000},
+                {2, 50, 1000},
+                {7, 100, 300},
+                // many records at the same positions
+                {25, 40, 20},
+                {200, 10, 5000},
+                {30, 2, 100000},
+        };
+    }
+
+    @Test(dataProvider = "inputs")
+    public void testMatchesMergingIterator(final int numInputs, final int recordsPerInput, final int maxPosition) {
+        final List<List<VariantContext>> inputs = makeInputs(numInputs, recordsPerInput, maxPosition, new Random(numInputs));
+
+        final List<CloseableIterator<VariantContext>> htsjdkIterators = inputs.stream().map(MergingVariantIteratorUnitTest::toCloseableIterator).collect(Collectors.toList());
+        final List<String> expected = new ArrayList<>();
+        new MergingIterator<>(new VariantContextComparator(DICTIONARY), htsjdkIterators).forEachRemaining(vc -> expected.add(vc.getID()));
+
+        final List<String> actual = new ArrayList<>();
+        try (final MergingVariantIterator merged = makeIterator(inputs)) {
+            merged.forEachRemaining(vc -> actual.add(vc.getID()));
+            Assert.assertFalse(merged.hasNext());
+        }
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(actual.size(), inputs.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    public void testTiesAreInInsertionOrder() {
+        final List<VariantContext> first = Arrays.asList(makeVariant("a", "1", 5), makeVariant("b", "1", 10));
+        final List<VariantContext> second = Collections.singletonList(makeVariant("c", "1", 10));
+        final List<VariantContext> third = Arrays.asList(makeVariant("d", "1", 5), makeVariant("e", "2", 1));
+        final List<String> actual = new ArrayList<>();
+        makeIterator(Arrays.asList(first, second, third)).forEachRemaining(vc -> actual.add(vc.getID()));
+        // "c" was inserted before "b", which was loaded after "a" was returned
+        Assert.assertEquals(actual, Arrays.asList("a", "d", "c", "b", "e"));
+    }
+
+    @Test
+    public void testClose() {
+        final MergingVariantIterator merged = makeIterator(Arrays.asList(
+                Collections.singletonList(makeVariant("a", "1", 5)), Collections.singletonList(makeVariant("b", "2", 5))));
+        Assert.assertTrue(merged.hasNext());
+        merged.close();
+        Assert.assertFalse(merged.hasNext());
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testUnknownContig() {
+        makeIterator(Arrays.asList(
+                Collections.singletonList(makeVariant("a", "1", 5)), Collections.singletonList(makeVariant("b", "MT", 5))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNamesMustMatchIterators() {
+        new MergingVariantIterator(DICTIONARY, Collections.singletonList("input"), Collections.emptyList());
+    }
+
+    private static MergingVariantIterator makeIterator(final List<List<VariantContext>> inputs) {
+        final List<String> names = new ArrayList<>();
+        final List<Iterator<VariantContext>> iterators = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            names.add("input" + i);
+            iterators.add(inputs.get(i).iterator());
+        }
+        return new MergingVariantIterator(DICTIONARY, names, iterators);
+    }
+
+    private static List<List<VariantContext>> makeInputs(final int numInputs, final int recordsPerInput, final int maxPosition, final Random random) {
+        final Comparator<VariantContext> comparator = new VariantContextComparator(DICTIONARY);
+        final List<List<VariantContext>> inputs = new ArrayList<>(numInputs);
+        for (int i = 0; i < numInputs; i++) {
+            // inputs have different numbers of records, and some of them are empty
+            final int numRecords = random.nextInt(recordsPerInput + 1);
+            final List<VariantContext> records = new ArrayList<>(numRecords);
+            for (int j = 0; j < numRecords; j++) {
+                final String contig = DICTIONARY.getSequence(random.nextInt(DICTIONARY.size())).getSequenceName();
+                records.add(makeVariant(i + "_" + j, contig, 1 + random.nextInt(maxPosition)));
+            }
+            records.sort(comparator);
+            inputs.add(records);
+        }
+        return inputs;
+    }
+
+    private static VariantContext makeVariant(final String id, final String contig, final int start) {
+        return new VariantContextBuilder("test", contig, start, start, ALLELES).id(id).make();
+    }
+
+    private static CloseableIterator<VariantContext> toCloseableIterator(final List<VariantContext> records) {
+        final Iterator<VariantContext> iterator = records.iterator();
+        return new CloseableIterator<VariantContext>() {
+            @Override
+            public void close() { }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public VariantContext next() {
+                return iterator.next();
+            }
+        };
+    }
+}
@@ -161,6 +161,57 @@ public final class MultiVariantDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "ScaleForInputsTestData")
+    public Object[][] getScaleForInputsTestData() {
+        final int maxInputs = MultiVariantDataSource.MAX_INPUTS_WITH_FULL_BUFFERS;
+        return new Object[][] {
+                { 1000, 1, 100, 1000 },
+                { 1000, maxInputs, 100, 1000 },
+                { 1000, maxInputs * 2, 100, 500 },
+                { 1000, maxInputs * 100, 100, 100 },
+                { 50, maxInputs * 100, 100, 50 },
+                { 0, maxInputs * 100, 1, 0 },
+                { 40, maxInputs * 8, 1, 5 },
+        };
+    }
+
+    @Test(dataProvider = "ScaleForInputsTestData")
+    public void testScaleForInputs(final int requested, final int numInputs, final int minimum, final int expected) {
+        Assert.assertEquals(MultiVariantDataSource.scaleForInputs(requested, numInputs, minimum), expected);
+    }
+
+    @Test
+    public void testIteratorManyInputs() {
+        // more inputs than MAX_INPUTS_WITH_FULL_BUFFERS, so the per-input lookahead is scaled down
+        final List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
+        for (int i = 0; i < MultiVariantDataSource.MAX_INPUTS_WITH_FULL_BUFFERS + 5; i++) {
+            final String file = i % 2 == 0 ? "interleavedVariants_1.vcf" : "interleavedVariants_2.vcf";
+            featureInputs.add(new FeatureInput<>(new File(MULTI_VARIANT_TEST_DIRECTORY, file).getAbsolutePath(), "input" + i));
+        }
+
+        try (final MultiVariantDataSource multiVariantSource = new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            final List<VariantContext> variants = new ArrayList<>();
+            multiVariantSource.iterator().forEachRemaining(variants::add);
+            Assert.assertEquals(variants.size(), 13 * featureInputs.size());
+            for (int i = 1; i < variants.size(); i++) {
+                final VariantContext previous = variants.get(i - 1);
+                final VariantContext current = variants.get(i);
+                Assert.assertTrue(previous.getContig().compareTo(current.getContig()) < 0 ||
+                        (previous.getContig().equals(current.getContig()) && previous.getStart() <= current.getStart()));
+            }
+
+            int count = 0;
+            final Iterator<VariantContext> it = multiVariantSource.query(new SimpleInterval("2", 200, 600));
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            // two variants in each copy of interleavedVariants_1, and one in each copy of interleavedVariants_2
+            final int numFirstInputs = (featureInputs.size() + 1) / 2;
+            Assert.assertEquals(count, 2 * numFirstInputs + (featureInputs.size() - numFirstInputs));
+        }
+    }
+
     @Test
     public void testSerialQueries() {
         List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
@@ -318,6 +318,100 @@ public final class CountingReadFilterUnitTest {
         Assert.assertTrue(andFilter.rhs.delegateFilter.getClass() == ReadFilterLibrary.MAPPED.getClass());
     }
 
+    private static final class StartOkFilter extends ReadFilter {
+        private static final long serialVersionUID = 1L;
+        @Override public boolean test(final GATKRead read){return read.getStart() >= 1;}
+    }
+
+    private static final class EndOkFilter extends ReadFilter {
+        private static final long serialVersionUID = 1L;
+        @Override public boolean test(final GATKRead read){return read.getEnd() <= 10;}
+    }
+
+    // Rejects reads named "Egon"
+    private static final class NotEgonFilter extends ReadFilter {
+        private static final long serialVersionUID = 1L;
+        @Override public boolean test(final GATKRead read){return !read.getName().equals("Egon");}
+    }
+
+    // Relies on NotEgonFilter having run first
+    private static final class FailsOnEgonFilter extends ReadFilter {
+        private static final long serialVersionUID = 1L;
+        @Override public boolean test(final GATKRead read){
+            if (read.getName().equals("Egon")) {
+                throw new IllegalStateException("should have been filtered earlier");
+            }
+            return read.getEnd() <= 10;
+        }
+    }
+
+    private static List<GATKRead> makeFilterProfilingReads() {
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reads.addAll(Arrays.asList(goodRead, endBad, goodRead, startBad, bothBad, goodRead));
+        }
+        return reads;
+    }
+
+    private static void assertSameFiltering(final List<ReadFilter> filters, final CountingReadFilter adaptive) {
+        final CountingReadFilter reference = CountingReadFilter.fromList(filters, header);
+        for (final GATKRead read : makeFilterProfilingReads()) {
+            Assert.assertEquals(adaptive.test(read), reference.test(read));
+        }
+        Assert.assertEquals(adaptive.getFilteredCount(), reference.getFilteredCount());
+        Assert.assertEquals(adaptive.getSummaryLine(), reference.getSummaryLine());
+    }
+
+    @DataProvider(name = "adaptiveOrderingFilters")
+    public Object[][] adaptiveOrderingFilters() {
+        return new Object[][] {
+                { Arrays.asList(ReadFilterLibrary.ALLOW_ALL_READS, new StartOkFilter(), new EndOkFilter()), 1 },
+                { Arrays.asList(ReadFilterLibrary.ALLOW_ALL_READS, new StartOkFilter(), new EndOkFilter()), 5 },
+                { Arrays.asList(new EndOkFilter(), new StartOkFilter()), 3 },
+                { Arrays.asList(new StartOkFilter(), new EndOkFilter(), ReadFilterLibrary.ALLOW_ALL_READS), 1000 },
+                { Arrays.asList(new NotEgonFilter(), new FailsOnEgonFilter()), 2 },
+        };
+    }
+
+    @Test(dataProvider = "adaptiveOrderingFilters")
+    public void testAdaptiveOrderingMatchesListOrder(final List<ReadFilter> filters, final int profilingReads) {
+        final CountingReadFilter adaptive = CountingReadFilter.fromListWithAdaptiveOrdering(filters, header, profilingReads);
+        Assert.assertTrue(adaptive.getClass() == CountingReadFilter.CountingAdaptiveAndReadFilter.class);
+        assertSameFiltering(filters, adaptive);
+    }
+
+    @Test
+    public void testAdaptiveOrderingMovesNonRejectingFiltersLast() {
+        final List<ReadFilter> filters = Arrays.asList(ReadFilterLibrary.ALLOW_ALL_READS, new StartOkFilter(), new EndOkFilter());
+        final CountingReadFilter.CountingAdaptiveAndReadFilter adaptive =
+                (CountingReadFilter.CountingAdaptiveAndReadFilter) CountingReadFilter.fromListWithAdaptiveOrdering(filters, header, 6);
+        Assert.assertEquals(adaptive.getEvaluationOrder().get(0), ReadFilterLibrary.ALLOW_ALL_READS.getClass().getSimpleName());
+
+        makeFilterProfilingReads().stream().limit(6).forEach(adaptive::test);
+        Assert.assertEquals(adaptive.getEvaluationOrder().size(), 3);
+        Assert.assertEquals(adaptive.getEvaluationOrder().get(2), ReadFilterLibrary.ALLOW_ALL_READS.getClass().getSimpleName());
+
+        adaptive.resetFilteredCount();
+        Assert.assertEquals(adaptive.getFilteredCount(), 0);
+    }
+
+    @Test
+    public void testAdaptiveOrderingFallsBackToListOrderOnFailure() {
+        final List<ReadFilter> filters = Arrays.asList(new NotEgonFilter(), new FailsOnEgonFilter());
+        final CountingReadFilter.CountingAdaptiveAndReadFilter adaptive =
+                (CountingReadFilter.CountingAdaptiveAndReadFilter) CountingReadFilter.fromListWithAdaptiveOrdering(filters, header, 100);
+        Assert.assertFalse(adaptive.test(bothBad));
+        Assert.assertEquals(adaptive.getEvaluationOrder(), Arrays.asList("NotEgonFilter", "FailsOnEgonFilter"));
+        Assert.assertTrue(adaptive.test(goodRead));
+        Assert.assertEquals(adaptive.getFilteredCount(), 1);
+    }
+
+    @Test
+    public void testAdaptiveOrderingSingleFilter() {
+        final CountingReadFilter rf = CountingReadFilter.fromListWithAdaptiveOrdering(Collections.singletonList(ReadFilterLibrary.MAPPED), header, 10);
+        Assert.assertTrue(rf.delegateFilter.getClass() == ReadFilterLibrary.MAPPED.getClass());
+    }
+
     @DataProvider(name = "testAndFilterSummaryLineDataProvider")
     public Object[][] testAndFilterSummaryLineDataProvider() {
         final CountingReadFilter mappingQuality0 = new CountingReadFilter(ReadFilterLibrary.MAPPING_QUALITY_AVAILABLE);
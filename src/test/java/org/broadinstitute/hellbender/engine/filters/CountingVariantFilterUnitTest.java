@@ -253,6 +253,28 @@ public final class CountingVariantFilterUnitTest {
         Assert.assertEquals(isEgon.getFilteredCount(), 0);
     }
 
+    @Test
+    public void testAddFilteredCounts() {
+        final CountingVariantFilter total = new CountingVariantFilter(startOk).and(new CountingVariantFilter(endOk).negate());
+        final CountingVariantFilter other = new CountingVariantFilter(startOk).and(new CountingVariantFilter(endOk).negate());
+        Arrays.asList(goodVariant, startBad, bothBad).forEach(total::test);
+        Arrays.asList(goodVariant, endBad, startBad).forEach(other::test);
+
+        total.addFilteredCounts(other);
+        // goodVariant is rejected by the negated endOk filter, startBad and bothBad by startOk, and endBad by neither
+        Assert.assertEquals(total.getFilteredCount(), 5);
+        Assert.assertEquals(((CountingVariantFilter.CountingAndVariantFilter) total).lhs.getFilteredCount(), 3);
+        Assert.assertEquals(((CountingVariantFilter.CountingAndVariantFilter) total).rhs.getFilteredCount(), 2);
+        // the counts of the other filter are unchanged
+        Assert.assertEquals(other.getFilteredCount(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddFilteredCountsOfDifferentFilters() {
+        new CountingVariantFilter(startOk).and(new CountingVariantFilter(endOk))
+                .addFilteredCounts(new CountingVariantFilter(startOk).or(new CountingVariantFilter(endOk)));
+    }
+
     @Test
     public void testFromListNull() {
         CountingVariantFilter vf = CountingVariantFilter.fromList(null);
@@ -1,8 +1,10 @@
 package org.broadinstitute.hellbender.tools;
 
 import com.google.common.collect.Lists;
+import htsjdk.samtools.util.FileExtensions;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
@@ -12,6 +14,7 @@ import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.text.XReadLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.testng.Assert;
@@ -155,6 +158,47 @@ public class GatherVcfsCloudIntegrationTest extends CommandLineProgramTest{
         }
     }
 
+    @DataProvider
+    public Object[][] getShardsToIndex(){
+        return new Object[][] {
+                {1, Arrays.asList(new SimpleInterval("20", 1, 100_000_000))},
+                //shards that split a contig, and a shard that spans two contigs
+                {2, Arrays.asList(new SimpleInterval("20", 10_000_000, 10_100_000), new SimpleInterval("21", 1, 48_129_895))},
+                {10, Arrays.asList(new SimpleInterval("20", 1, 1_000_000), new SimpleInterval("20", 9_999_900, 10_001_000),
+                        new SimpleInterval("21", 9_000_000, 11_000_000), new SimpleInterval("21", 48_000_000, 48_129_895))},
+                {100, Arrays.asList(new SimpleInterval("20", 5_000_000, 5_500_000), new SimpleInterval("21", 20_000_000, 20_000_100))},
+        };
+    }
+
+    @Test(dataProvider = "getShardsToIndex")
+    public void testBlockGatherIndexFromShardIndices(final int numShards, final List<SimpleInterval> queries) throws IOException {
+        final File vcf = new File(dbsnp_138_b37_20_21_vcf);
+        try (final FeatureDataSource<VariantContext> input = new FeatureDataSource<>(vcf)) {
+            final ArrayList<VariantContext> expected = Lists.newArrayList(input);
+            final List<File> shards = scatterVariants(expected, (VCFHeader) input.getHeader(), numShards,
+                    createTempDir("indexedvcfshards"), Options.INDEX_ON_THE_FLY);
+
+            final File output = createTempFile("testBlockGatherIndex_gathered", ".vcf.gz");
+            final ArgumentsBuilder args = new ArgumentsBuilder();
+            shards.forEach(args::addInput);
+            args.addOutput(output)
+                    .add(GatherVcfsCloud.GATHER_TYPE_LONG_NAME, GatherVcfsCloud.GatherType.BLOCK.toString())
+                    .add(StandardArgumentDefinitions.CREATE_OUTPUT_VARIANT_INDEX_LONG_NAME, true);
+            runCommandLine(args);
+
+            Assert.assertTrue(new File(output.getAbsolutePath() + FileExtensions.TABIX_INDEX).exists());
+            try (final FeatureDataSource<VariantContext> outputDataSource = new FeatureDataSource<>(output)) {
+                VariantContextTestUtils.assertEqualVariants(Lists.newArrayList(outputDataSource), expected);
+                for (final SimpleInterval query : queries) {
+                    final List<VariantContext> expectedOverlapping = expected.stream()
+                            .filter(query::overlaps)
+                            .collect(Collectors.toList());
+                    VariantContextTestUtils.assertEqualVariants(Lists.newArrayList(outputDataSource.query(query)), expectedOverlapping);
+                }
+            }
+        }
+    }
+
     private static void assertFilesHaveSameNumberOfHeaderLines(File vcf, File output) throws IOException {
         //test that the files have the same number of header lines as well as that the headers are identical
         //this catches a case we saw where header blocks were being inserted into the middle of the file
@@ -179,11 +223,12 @@ public class GatherVcfsCloudIntegrationTest extends CommandLineProgramTest{
      *
      * note that shards is used in a very silly way and may not do what you're expecting
      */
-    private static List<File> scatterVariants(final List<VariantContext> variants, final VCFHeader header, final int shards, final File shardDir){
+    private static List<File> scatterVariants(final List<VariantContext> variants, final VCFHeader header, final int shards, final File shardDir,
+                                              final Options... options){
         final List<List<VariantContext>> partitions = Lists.partition(variants, variants.size() / shards);
         final List<File> list = new ArrayList<>();
         for (int i = 0; i < partitions.size(); i++) {
-            final File file = writeShard(partitions.get(i), header, shardDir, i);
+            final File file = writeShard(partitions.get(i), header, shardDir, i, options);
             try(final FeatureDataSource<VariantContext> features = new FeatureDataSource<>(file)) {
                 VariantContextTestUtils.assertEqualVariants(Lists.newArrayList(features),       partitions.get(i));
 
@@ -194,9 +239,10 @@ public class GatherVcfsCloudIntegrationTest extends CommandLineProgramTest{
         return list;
     }
 
-    private static File writeShard(final List<VariantContext> variants, final VCFHeader header, final File dir, final int index){
+    private static File writeShard(final List<VariantContext> variants, final VCFHeader header, final File dir, final int index,
+                                   final Options... options){
         final File shard = new File( dir, + index + ".vcf.gz");
-        try(final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(shard.toPath(), header.getSequenceDictionary(), false)){
+        try(final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(shard.toPath(), header.getSequenceDictionary(), false, options)){
             writer.writeHeader(header);
             variants.forEach(writer::add);
         }
@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender.tools.copynumber;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link CollectReadCounts.SortedIntervalCounter}.
+ */
+public final class CollectReadCountsUnitTest extends GATKBaseTest {
+    private static final List<SimpleInterval> INTERVALS = Arrays.asList(
+            new SimpleInterval("1", 1, 100),
+            new SimpleInterval("1", 101, 200),
+            new SimpleInterval("1", 301, 400),
+            new SimpleInterval("1", 1001, 1001),
+            new SimpleInterval("1", 5001, 6000),
+            new SimpleInterval("2", 51, 150),
+            new SimpleInterval("2", 151, 250),
+            new SimpleInterval("3", 1, 1000));
+
+    @DataProvider(name = "sortedPositions")
+    public Object[][] sortedPositions() {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "sortedPositions")
+    public void testCounts(final boolean sortedPositions) {
+        final Random random = new Random(13);
+        final List<SimpleInterval> positions = new ArrayList<>();
+        for (final String contig : Arrays.asList("1", "2", "3", "4")) {
+            for (int i = 0; i < 500; i++) {
+                final int position = 1 + random.nextInt(7000);
+                positions.add(new SimpleInterval(contig, position, position));
+            }
+        }
+        if (sortedPositions) {
+            positions.sort(Comparator.comparing(SimpleInterval::getContig).thenComparingInt(SimpleInterval::getStart));
+        } else {
+            Collections.shuffle(positions, random);
+        }
+
+        final CollectReadCounts.SortedIntervalCounter counter = new CollectReadCounts.SortedIntervalCounter(INTERVALS);
+        positions.forEach(p -> counter.add(p.getContig(), p.getStart()));
+
+        for (int i = 0; i < INTERVALS.size(); i++) {
+            final SimpleInterval interval = INTERVALS.get(i);
+            Assert.assertEquals(counter.getCount(i), positions.stream().filter(interval::overlaps).count(), interval.toString());
+        }
+    }
+
+    @Test
+    public void testNoIntervals() {
+        final CollectReadCounts.SortedIntervalCounter counter = new CollectReadCounts.SortedIntervalCounter(Collections.emptyList());
+        counter.add("1", 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingIntervals() {
+        new CollectReadCounts.SortedIntervalCounter(Arrays.asList(
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("1", 100, 200)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsortedContigs() {
+        new CollectReadCounts.SortedIntervalCounter(Arrays.asList(
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("2", 1, 100),
+                new SimpleInterval("1", 201, 300)));
+    }
+}
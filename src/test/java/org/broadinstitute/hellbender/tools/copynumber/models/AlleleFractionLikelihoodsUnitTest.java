@@ -0,0 +1,54 @@
+package org.broadinstitute.hellbender.tools.copynumber.models;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests that the segment and total log likelihoods in {@link AlleleFractionLikelihoods} agree with
+ * the sum of the log likelihoods of the individual allelic counts.
+ */
+public final class AlleleFractionLikelihoodsUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 13;
+    private static final double RELATIVE_TOLERANCE = 1E-10;
+
+    @Test
+    public void testLogLikelihoods() {
+        final AlleleFractionGlobalParameters globalParameters = new AlleleFractionGlobalParameters(1.2, 0.04, 0.02);
+        final int numSegments = 50;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                "test-sample",
+                new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 1000))
+                        .collect(Collectors.toList())));
+        final AlleleFractionSimulatedData simulatedData = new AlleleFractionSimulatedData(
+                metadata, globalParameters, numSegments, 20., 50., rng);
+        final AlleleFractionSegmentedData data = simulatedData.getData();
+        final AlleleFractionState.MinorFractions minorFractions = simulatedData.getTrueState().minorFractions();
+
+        double expectedLogLikelihood = 0.;
+        for (int segment = 0; segment < numSegments; segment++) {
+            final double minorFraction = minorFractions.get(segment);
+            final double expectedSegmentLogLikelihood = data.getIndexedAllelicCountsInSegment(segment).stream()
+                    .mapToDouble(iac -> AlleleFractionLikelihoods.hetLogLikelihood(globalParameters, minorFraction, iac))
+                    .sum();
+            Assert.assertEquals(AlleleFractionLikelihoods.segmentLogLikelihood(globalParameters, minorFraction, data, segment),
+                    expectedSegmentLogLikelihood, RELATIVE_TOLERANCE * Math.abs(expectedSegmentLogLikelihood));
+            expectedLogLikelihood += expectedSegmentLogLikelihood;
+        }
+        Assert.assertEquals(AlleleFractionLikelihoods.logLikelihood(globalParameters, minorFractions, data),
+                expectedLogLikelihood, RELATIVE_TOLERANCE * Math.abs(expectedLogLikelihood));
+    }
+}
@@ -0,0 +1,37 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeTranscriptStore;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+
+public final class CreateGencodeTranscriptStoreIntegrationTest extends CommandLineProgramTest {
+
+    @Test
+    public void testCreateStore() {
+        final File transcriptFasta = new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG38);
+        final File output = createTempFile("transcripts", GencodeTranscriptStore.STORE_EXTENSION);
+
+        runCommandLine(new ArgumentsBuilder().addInput(transcriptFasta).addOutput(output));
+
+        Assert.assertTrue(GencodeTranscriptStore.isUpToDate(output.toPath(), transcriptFasta.toPath()));
+    }
+
+    @Test
+    public void testDefaultStorePath() {
+        final Path fasta = new File("dataSources/gencode/transcripts.fa").toPath();
+        Assert.assertEquals(GencodeTranscriptStore.getStorePath(fasta), new File("dataSources/gencode/transcripts.fa" + GencodeTranscriptStore.STORE_EXTENSION).toPath());
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotReadInputFile.class)
+    public void testMissingFasta() {
+        runCommandLine(new ArgumentsBuilder()
+                .addInput(new File(getToolTestDataDir(), "missing.fa"))
+                .addOutput(createTempFile("transcripts", GencodeTranscriptStore.STORE_EXTENSION)));
+    }
+}
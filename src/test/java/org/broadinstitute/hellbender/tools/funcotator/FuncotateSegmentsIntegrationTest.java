@@ -27,6 +27,7 @@ import org.testng.collections.Sets;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -273,6 +274,37 @@ public class FuncotateSegmentsIntegrationTest extends CommandLineProgramTest {
         );
     }
 
+    @Test(description = "Test that annotating segments on several threads gives the same simple tsv and gene list as on one thread.")
+    public void testGatkCalledSegmentFileOnSeveralThreads() throws IOException {
+        final List<List<String>> outputLines = new ArrayList<>();
+        for (final int annotationThreads : Arrays.asList(1, 4)) {
+            final File outputFile = File.createTempFile("funcotatesegs_gatk_called_threads" + annotationThreads, ".seg");
+
+            final ArgumentsBuilder arguments = new ArgumentsBuilder();
+            arguments.addRaw("--" + CopyNumberStandardArgument.SEGMENTS_FILE_LONG_NAME);
+            arguments.addRaw(TEST_GATK_FILE_B37);
+            arguments.addRaw("--" + FuncotatorArgumentDefinitions.OUTPUT_FORMAT_LONG_NAME);
+            arguments.addRaw(FuncotatorArgumentDefinitions.OutputFormatType.SEG);
+            arguments.addRaw("--" + StandardArgumentDefinitions.REFERENCE_LONG_NAME);
+            arguments.addRaw(b37Reference);
+            arguments.addRaw("-" + StandardArgumentDefinitions.OUTPUT_SHORT_NAME);
+            arguments.addRaw(outputFile.getAbsolutePath());
+            arguments.addRaw("--" + FuncotatorArgumentDefinitions.REFERENCE_VERSION_LONG_NAME);
+            arguments.addRaw("hg19");
+            arguments.add(FuncotatorArgumentDefinitions.DATA_SOURCES_PATH_LONG_NAME, DS_CNTN4_DIR);
+            arguments.add(FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME, annotationThreads);
+
+            runCommandLine(arguments);
+
+            final List<String> lines = new ArrayList<>(Files.readAllLines(outputFile.toPath()));
+            lines.addAll(Files.readAllLines(Paths.get(outputFile.getAbsolutePath() + FuncotatorEngine.GENE_LIST_FILE_SUFFIX)));
+            outputLines.add(lines);
+        }
+
+        Assert.assertTrue(outputLines.get(0).size() > 404);
+        Assert.assertEquals(outputLines.get(1), outputLines.get(0));
+    }
+
     @Test(description = "Test simple tsv and gene list when input file has no segments.  Output files should just be headers.")
     public void testEmptyGatkCalledSegmentFile() throws IOException {
         final File outputFile = File.createTempFile("funcotatesegs_gatk_called", ".seg");
@@ -776,6 +776,52 @@ public class FuncotatorIntegrationTest extends CommandLineProgramTest {
                 .count(), NUM_CLINVAR_HITS, "Found unexpected number of ClinVar hits!");
     }
 
+    @DataProvider
+    public Object[][] provideForParallelAnnotation() {
+        return new Object[][] {
+                {PIK3CA_VCF_HG19, b37Chr3Ref, DS_PIK3CA_DIR, true, FuncotatorArgumentDefinitions.OutputFormatType.VCF, 2},
+                {PIK3CA_VCF_HG19, b37Chr3Ref, DS_PIK3CA_DIR, true, FuncotatorArgumentDefinitions.OutputFormatType.VCF, 4},
+                {PIK3CA_VCF_HG19, b37Chr3Ref, DS_PIK3CA_DIR, true, FuncotatorArgumentDefinitions.OutputFormatType.MAF, 4},
+                // Thousands of variants in the many exons of the same MUC16 transcripts, which the threads annotate at the same time:
+                {MUC16_VCF_HG19, hg19Chr19Ref, FuncotatorTestConstants.FUNCOTATOR_DATA_SOURCES_MAIN_FOLDER, false, FuncotatorArgumentDefinitions.OutputFormatType.MAF, 8},
+        };
+    }
+
+    /**
+     * Test that annotating on several threads gives the same output, in the same order, as on a single thread.
+     */
+    @Test(dataProvider = "provideForParallelAnnotation")
+    public void testParallelAnnotationMatchesSerial(final String inputVcf, final String referenceFile, final String dataSourcesPath,
+                                                    final boolean forceB37ToHg19ContigNames,
+                                                    final FuncotatorArgumentDefinitions.OutputFormatType outputFormatType,
+                                                    final int annotationThreads) throws IOException {
+        final File serialOutputFile = getOutputFile("funcotator_serial_out", outputFormatType.toString().toLowerCase());
+        final File parallelOutputFile = getOutputFile("funcotator_parallel_out", outputFormatType.toString().toLowerCase());
+
+        for (final File outputFile : Arrays.asList(serialOutputFile, parallelOutputFile)) {
+            final ArgumentsBuilder arguments = createBaselineArgumentsForFuncotator(
+                    inputVcf,
+                    outputFile,
+                    referenceFile,
+                    dataSourcesPath,
+                    FuncotatorTestConstants.REFERENCE_VERSION_HG19,
+                    outputFormatType,
+                    false);
+
+            // We need this argument when we are testing on a subset of b37
+            if (forceB37ToHg19ContigNames) {
+                arguments.add(FuncotatorArgumentDefinitions.FORCE_B37_TO_HG19_REFERENCE_CONTIG_CONVERSION, true);
+            }
+            if (outputFile == parallelOutputFile) {
+                arguments.add(FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME, annotationThreads);
+            }
+            runCommandLine(arguments);
+        }
+
+        // The headers differ in the command line:
+        IntegrationTestSpec.assertEqualTextFiles(parallelOutputFile, serialOutputFile, "#");
+    }
+
     /**
      * Test that the manual annotations and overrides will be correctly rendered on output, and will occur only once each.
      */
@@ -737,4 +737,32 @@ public class ProteinChangeInfoUnitTest extends GATKBaseTest {
         );
     }
 
+    @Test(dataProvider = "provideForTestCreateProteinChangeInfo")
+    void testCreateProteinChangeInfoWithReferenceProteinSequence( final Allele refAllele,
+                                                                  final Allele altAllele,
+                                                                  final int codingSequenceAlleleStart,
+                                                                  final int alignedCodingSequenceAlleleStart,
+                                                                  final String codingSequence,
+                                                                  final Strand strand,
+                                                                  final boolean isMitochondria,
+                                                                  final ProteinChangeInfo expected ) {
+
+        final String referenceProteinSequence = isMitochondria ?
+                FuncotatorUtils.createMitochondrialAminoAcidSequence(codingSequence, false, "") :
+                FuncotatorUtils.createAminoAcidSequence(codingSequence, false, "");
+
+        Assert.assertEquals(
+                ProteinChangeInfo.create(
+                        refAllele,
+                        altAllele,
+                        codingSequenceAlleleStart,
+                        alignedCodingSequenceAlleleStart,
+                        codingSequence,
+                        referenceProteinSequence,
+                        strand,
+                        isMitochondria),
+                expected
+        );
+    }
+
 }
@@ -0,0 +1,67 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+public final class MappedDataSourceFilesUnitTest extends GATKBaseTest {
+    private static final byte[] MAGIC = {'T', 'E', 'S', 'T'};
+    private static final int VERSION = 3;
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES + 2 * Long.BYTES;
+    private static final int SOURCE_SIZE_OFFSET = MAGIC.length + Integer.BYTES;
+
+    private static ByteBuffer readHeader(final Path path, final int version) throws IOException {
+        try (final SeekableByteChannel channel = Files.newByteChannel(path)) {
+            return MappedDataSourceFiles.readHeader(channel, MAGIC, version, HEADER_LENGTH);
+        }
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+        final Path dir = createTempDir("MappedDataSourceFilesUnitTest").toPath();
+        final Path source = Files.write(dir.resolve("source.txt"), Arrays.asList("a", "b"));
+        final Path path = dir.resolve("source.txt.bin");
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.put(MAGIC).putInt(VERSION).putLong(Files.size(source)).putLong(Files.getLastModifiedTime(source).toMillis());
+        Files.write(path, header.array());
+
+        final ByteBuffer read = readHeader(path, VERSION);
+        Assert.assertNotNull(read);
+        Assert.assertEquals(read.position(), SOURCE_SIZE_OFFSET);
+        Assert.assertTrue(MappedDataSourceFiles.isCompiledFrom(read, SOURCE_SIZE_OFFSET, source));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+        Assert.assertFalse(MappedDataSourceFiles.isCompiledFrom(read, SOURCE_SIZE_OFFSET, source));
+
+        Assert.assertNull(readHeader(path, VERSION + 1));
+        Files.write(path, Arrays.copyOf(header.array(), HEADER_LENGTH - 1));
+        Assert.assertNull(readHeader(path, VERSION));
+        final byte[] otherMagic = header.array().clone();
+        otherMagic[0] = 'X';
+        Files.write(path, otherMagic);
+        Assert.assertNull(readHeader(path, VERSION));
+    }
+
+    @Test
+    public void testMoveIntoPlace() throws IOException {
+        final Path path = createTempDir("MappedDataSourceFilesUnitTest").toPath().resolve("file.bin");
+        final Path tmpPath = MappedDataSourceFiles.getTemporaryPath(path);
+        Files.write(tmpPath, new byte[]{1, 2, 3});
+        MappedDataSourceFiles.moveIntoPlace(path, "test file");
+        Assert.assertFalse(Files.exists(tmpPath));
+        Assert.assertEquals(Files.readAllBytes(path), new byte[]{1, 2, 3});
+
+        Files.write(tmpPath, new byte[]{4});
+        MappedDataSourceFiles.deleteTemporaryFile(path, "test file");
+        Assert.assertFalse(Files.exists(tmpPath));
+        Assert.assertEquals(Files.readAllBytes(path), new byte[]{1, 2, 3});
+    }
+}
@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.testutils.FuncotatorReferenceTestUtils;
 import org.broadinstitute.hellbender.tools.funcotator.Funcotation;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorUtils;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.TableFuncotation;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotationBuilder;
@@ -286,6 +287,30 @@ public class CosmicFuncotationFactoryUnitTest extends GATKBaseTest {
         );
     }
 
+    @Test(dataProvider = "provideForTestCreateFuncotations")
+    public void testCreateFuncotationsWithCachedAndPreloadedRecords(final VariantContext variant,
+                                                                    final ReferenceContext referenceContext,
+                                                                    final List<Feature> featureList,
+                                                                    final List<GencodeFuncotation> gencodeFuncotations,
+                                                                    final List<Funcotation> expected) {
+
+        for ( final boolean preloadRecords : new boolean[] {false, true} ) {
+            try ( final CosmicFuncotationFactory cosmicFuncotationFactory = new CosmicFuncotationFactory(PATH_TO_TEST_DB,
+                    new LinkedHashMap<>(), CosmicFuncotationFactory.DEFAULT_VERSION_STRING, false,
+                    FuncotatorUtils.DEFAULT_MIN_NUM_BASES_FOR_VALID_SEGMENT, preloadRecords) ) {
+
+                // The second time, the records of the gene come from the cache (or the preloaded records):
+                for ( int i = 0; i < 2; ++i ) {
+                    Assert.assertEquals(
+                            cosmicFuncotationFactory.createFuncotationsOnVariant(variant, referenceContext, featureList, gencodeFuncotations),
+                            expected,
+                            "preloadRecords=" + preloadRecords + ", query " + i
+                    );
+                }
+            }
+        }
+    }
+
     @Test
     public void testNoSupportOfSegments() {
         final CosmicFuncotationFactory factory = new CosmicFuncotationFactory(PATH_TO_TEST_DB);
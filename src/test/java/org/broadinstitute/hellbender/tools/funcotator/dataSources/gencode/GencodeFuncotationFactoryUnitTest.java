@@ -1259,6 +1259,36 @@ public class GencodeFuncotationFactoryUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    void testGetSortedExonAndStartStopPositionsWithExonsOutOfOrder() {
+        final SimpleInterval transcriptInterval = new SimpleInterval("chr1", 1, 600);
+        final GencodeGtfFeatureBaseData baseData = createGtfBaseDataForTestIs5Prime(transcriptInterval);
+        baseData.featureType = GencodeGtfFeature.FeatureType.TRANSCRIPT;
+        final GencodeGtfTranscriptFeature transcript = (GencodeGtfTranscriptFeature) GencodeGtfTranscriptFeature.create(baseData);
+
+        // Add the exons, each with a CDS, in the order 3, 1, 2:
+        final List<SimpleInterval> expected = new ArrayList<>();
+        for ( final int exonNumber : Arrays.asList(3, 1, 2) ) {
+            final SimpleInterval exonInterval = new SimpleInterval("chr1", 200 * exonNumber - 199, 200 * exonNumber);
+            final GencodeGtfFeatureBaseData exonData = createGtfBaseDataForTestIs5Prime(exonInterval);
+            exonData.featureType = GencodeGtfFeature.FeatureType.EXON;
+            exonData.exonNumber = exonNumber;
+            final GencodeGtfExonFeature exon = (GencodeGtfExonFeature) GencodeGtfExonFeature.create(exonData);
+            final GencodeGtfFeatureBaseData cdsData = createGtfBaseDataForTestIs5Prime(exonInterval);
+            cdsData.featureType = GencodeGtfFeature.FeatureType.CDS;
+            cdsData.exonNumber = exonNumber;
+            exon.setCds((GencodeGtfCDSFeature) GencodeGtfCDSFeature.create(cdsData));
+            transcript.addExon(exon);
+            expected.add(exonInterval);
+        }
+        expected.sort(Comparator.comparingInt(SimpleInterval::getStart));
+
+        final List<SimpleInterval> exons = GencodeFuncotationFactory.getSortedCdsAndStartStopPositions(transcript).stream()
+                .map(SimpleInterval::new)
+                .collect(Collectors.toList());
+        Assert.assertEquals(exons, expected);
+    }
+
     @Test (dataProvider = "provideMuc16SnpDataForGetVariantClassification")
     void testGetVariantClassificationForCodingRegions(final int chromosomeNumber,
                                       final int start,
@@ -1320,19 +1350,18 @@ public class GencodeFuncotationFactoryUnitTest extends GATKBaseTest {
 
         final List<? extends Locatable> exonPositionList = GencodeFuncotationFactory.getSortedCdsAndStartStopPositions(transcript);
 
-        final ReferenceDataSource muc16TranscriptDataSource = ReferenceDataSource.of(new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG19).toPath());
-        final Map<String, GencodeFuncotationFactory.MappedTranscriptIdInfo> muc16TranscriptIdMap = GencodeFuncotationFactory. createTranscriptIdMap(muc16TranscriptDataSource);
-
-        final SequenceComparison seqComp =
-                GencodeFuncotationFactory.createSequenceComparison(
-                        variantContext,
-                        altAllele,
-                        referenceContext,
-                        transcript,
-                        exonPositionList,
-                        muc16TranscriptIdMap,
-                        muc16TranscriptDataSource,
-                        true);
+        final SequenceComparison seqComp;
+        try (final GencodeTranscriptSequences muc16TranscriptSequences =
+                     new GencodeFuncotationFactory.TranscriptFastaSequences(new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG19).toPath())) {
+            seqComp = GencodeFuncotationFactory.createSequenceComparison(
+                    variantContext,
+                    altAllele,
+                    referenceContext,
+                    transcript,
+                    exonPositionList,
+                    new GencodeTranscriptSequenceCache(muc16TranscriptSequences, 1),
+                    true);
+        }
 
         final GencodeFuncotation.VariantClassification varClass = GencodeFuncotationFactory.createVariantClassification(
                 variantContext,
@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorTestConstants;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+public final class GencodeTranscriptSequenceCacheUnitTest extends GATKBaseTest {
+
+    private static GencodeTranscriptSequences openTranscriptSequences() {
+        return new GencodeFuncotationFactory.TranscriptFastaSequences(new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG19).toPath());
+    }
+
+    @DataProvider
+    public Object[][] provideForTestProteinSequence() {
+        return new Object[][] {
+                {FuncotatorTestConstants.PIK3CA_TRANSCRIPT, "", false},
+                {FuncotatorTestConstants.PIK3CA_TRANSCRIPT, "A", false},
+                {FuncotatorTestConstants.PIK3CA_TRANSCRIPT, "ACGTA", false},
+                {FuncotatorTestConstants.MUC16_TRANSCRIPT, "", false},
+                {FuncotatorTestConstants.MUC16_TRANSCRIPT, "TT", true},
+        };
+    }
+
+    @Test(dataProvider = "provideForTestProteinSequence")
+    public void testProteinSequence(final String transcriptId, final String paddingBases, final boolean isMitochondria) {
+        try (final GencodeTranscriptSequences transcriptSequences = openTranscriptSequences()) {
+            final GencodeTranscriptSequenceCache cache = new GencodeTranscriptSequenceCache(transcriptSequences, 10);
+            final GencodeTranscriptSequenceCache.CodingSequence codingSequence = cache.getCodingSequence(transcriptId, isMitochondria);
+
+            final String expectedBases = GencodeFuncotationFactory.getCodingSequenceFromTranscriptFasta(transcriptId, transcriptSequences, "");
+            Assert.assertEquals(codingSequence.getBases(), expectedBases);
+
+            final String paddedBases = expectedBases + paddingBases;
+            final String expectedProtein = isMitochondria ?
+                    FuncotatorUtils.createMitochondrialAminoAcidSequence(paddedBases, false, "") :
+                    FuncotatorUtils.createAminoAcidSequence(paddedBases, false, "");
+            Assert.assertEquals(codingSequence.getProteinSequence(paddingBases), expectedProtein);
+        }
+    }
+
+    @Test
+    public void testEvictionAndStats() {
+        try (final GencodeTranscriptSequences transcriptSequences = openTranscriptSequences()) {
+            final GencodeTranscriptSequenceCache cache = new GencodeTranscriptSequenceCache(transcriptSequences, 1);
+            Assert.assertTrue(cache.hasSequence(FuncotatorTestConstants.PIK3CA_TRANSCRIPT));
+            Assert.assertFalse(cache.hasSequence("NOT_A_TRANSCRIPT"));
+
+            final GencodeTranscriptSequenceCache.CodingSequence pik3ca = cache.getCodingSequence(FuncotatorTestConstants.PIK3CA_TRANSCRIPT, false);
+            Assert.assertSame(cache.getCodingSequence(FuncotatorTestConstants.PIK3CA_TRANSCRIPT, false), pik3ca);
+
+            // Only one transcript fits in the cache:
+            cache.getCodingSequence(FuncotatorTestConstants.MUC16_TRANSCRIPT, false);
+            Assert.assertNotSame(cache.getCodingSequence(FuncotatorTestConstants.PIK3CA_TRANSCRIPT, false), pik3ca);
+
+            Assert.assertEquals(cache.getStats().hitCount(), 1);
+            Assert.assertEquals(cache.getStats().requestCount(), 4);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRequiresPositiveSize() {
+        try (final GencodeTranscriptSequences transcriptSequences = openTranscriptSequences()) {
+            new GencodeTranscriptSequenceCache(transcriptSequences, 0);
+        }
+    }
+}
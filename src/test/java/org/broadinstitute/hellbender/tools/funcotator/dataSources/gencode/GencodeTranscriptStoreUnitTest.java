@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorTestConstants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+public final class GencodeTranscriptStoreUnitTest extends GATKBaseTest {
+    private static final Path TRANSCRIPT_FASTA = new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG19).toPath();
+
+    private static Path compileStore() {
+        final Path storePath = createTempFile("transcripts", GencodeTranscriptStore.STORE_EXTENSION).toPath();
+        GencodeTranscriptStore.compile(TRANSCRIPT_FASTA, storePath);
+        return storePath;
+    }
+
+    @Test
+    public void testStoreMatchesFasta() {
+        final Path storePath = compileStore();
+        Assert.assertTrue(GencodeTranscriptStore.isUpToDate(storePath, TRANSCRIPT_FASTA));
+
+        try (final ReferenceDataSource fasta = ReferenceDataSource.of(TRANSCRIPT_FASTA);
+             final GencodeTranscriptStore store = GencodeTranscriptStore.open(storePath);
+             final GencodeTranscriptSequences fastaSequences = new GencodeFuncotationFactory.TranscriptFastaSequences(TRANSCRIPT_FASTA)) {
+            final Map<String, GencodeFuncotationFactory.MappedTranscriptIdInfo> transcriptIdMap = GencodeFuncotationFactory.createTranscriptIdMap(fasta);
+            Assert.assertFalse(transcriptIdMap.isEmpty());
+
+            for (final Map.Entry<String, GencodeFuncotationFactory.MappedTranscriptIdInfo> entry : transcriptIdMap.entrySet()) {
+                final String transcriptId = entry.getKey();
+                final GencodeFuncotationFactory.MappedTranscriptIdInfo expected = entry.getValue();
+                final GencodeFuncotationFactory.MappedTranscriptIdInfo actual = store.getTranscriptInfo(transcriptId);
+                Assert.assertNotNull(actual, transcriptId);
+                Assert.assertEquals(actual.codingSequenceStart, expected.codingSequenceStart);
+                Assert.assertEquals(actual.codingSequenceEnd, expected.codingSequenceEnd);
+                Assert.assertEquals(actual.has5pUtr, expected.has5pUtr);
+                Assert.assertEquals(actual.fivePrimeUtrStart, expected.fivePrimeUtrStart);
+                Assert.assertEquals(actual.fivePrimeUtrEnd, expected.fivePrimeUtrEnd);
+                Assert.assertEquals(actual.has3pUtr, expected.has3pUtr);
+                Assert.assertEquals(actual.threePrimeUtrStart, expected.threePrimeUtrStart);
+                Assert.assertEquals(actual.threePrimeUtrEnd, expected.threePrimeUtrEnd);
+
+                Assert.assertEquals(store.getBases(transcriptId, expected.codingSequenceStart, expected.codingSequenceEnd),
+                        fastaSequences.getBases(transcriptId, expected.codingSequenceStart, expected.codingSequenceEnd));
+                final int length = fasta.getSequenceDictionary().getSequence(expected.mapKey).getSequenceLength();
+                Assert.assertEquals(store.getBases(transcriptId, 1, length), fastaSequences.getBases(transcriptId, 1, length));
+            }
+        }
+    }
+
+    @Test
+    public void testMissingTranscript() {
+        try (final GencodeTranscriptStore store = GencodeTranscriptStore.open(compileStore())) {
+            Assert.assertNull(store.getTranscriptInfo("NOT_A_TRANSCRIPT"));
+            Assert.assertThrows(IllegalArgumentException.class, () -> store.getBases("NOT_A_TRANSCRIPT", 1, 1));
+        }
+    }
+
+    @Test
+    public void testIncompleteStoreIsDeleted() throws IOException {
+        // a transcript whose coding sequence cannot be parsed, so that compiling fails after the store is opened:
+        final Path dir = createTempDir("malformedTranscripts").toPath();
+        final Path fasta = dir.resolve("transcripts.fasta");
+        Files.write(fasta, ">T1|CDS:bad\nACGT\n".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("transcripts.fasta.fai"), "T1|CDS:bad\t4\t12\t4\t5\n".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("transcripts.dict"), "@HD\tVN:1.5\n@SQ\tSN:T1|CDS:bad\tLN:4\n".getBytes(StandardCharsets.US_ASCII));
+
+        final Path storePath = dir.resolve("transcripts.fasta" + GencodeTranscriptStore.STORE_EXTENSION);
+        Assert.assertThrows(RuntimeException.class, () -> GencodeTranscriptStore.compile(fasta, storePath));
+        Assert.assertFalse(Files.exists(storePath));
+        Assert.assertFalse(Files.exists(storePath.resolveSibling(storePath.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void testStoreIsNotUpToDate() throws IOException {
+        final Path storePath = compileStore();
+        Assert.assertFalse(GencodeTranscriptStore.isUpToDate(storePath.resolveSibling("missing" + GencodeTranscriptStore.STORE_EXTENSION), TRANSCRIPT_FASTA));
+        Assert.assertFalse(GencodeTranscriptStore.isUpToDate(storePath, new File(FuncotatorTestConstants.GENCODE_DATA_SOURCE_FASTA_PATH_HG38).toPath()));
+
+        // a FASTA file of the same size that was modified after the store was compiled:
+        final Path modifiedFasta = createTempFile("transcripts", ".fasta").toPath();
+        Files.copy(TRANSCRIPT_FASTA, modifiedFasta, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(modifiedFasta,
+                FileTime.fromMillis(Files.getLastModifiedTime(TRANSCRIPT_FASTA).toMillis() + 60_000));
+        Assert.assertEquals(Files.size(modifiedFasta), Files.size(TRANSCRIPT_FASTA));
+        Assert.assertFalse(GencodeTranscriptStore.isUpToDate(storePath, modifiedFasta));
+
+        // a store from another version:
+        final byte[] bytes = Files.readAllBytes(storePath);
+        bytes[7]++;
+        Files.write(storePath, bytes);
+        Assert.assertFalse(GencodeTranscriptStore.isUpToDate(storePath, TRANSCRIPT_FASTA));
+    }
+}
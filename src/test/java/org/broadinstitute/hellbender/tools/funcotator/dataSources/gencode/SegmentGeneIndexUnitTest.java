@@ -0,0 +1,73 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import htsjdk.tribble.annotation.Strand;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.segment.SegmentGeneIndex;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.codecs.gtf.GencodeGtfGeneFeature;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SegmentGeneIndexUnitTest extends GATKBaseTest {
+
+    // Genes in the order of a data source, including two with the same extent and genes that contain others:
+    private static final List<GencodeGtfGeneFeature> GENES = Arrays.asList(
+            DataProviderForExampleGencodeGtfGene.dynamicallyCreateTestGencodeGtfGeneFeature("chr1",
+                    1000, "GENE_A", Strand.POSITIVE, 4, 200, 200, 100, 200),
+            DataProviderForExampleGencodeGtfGene.dynamicallyCreateTestGencodeGtfGeneFeature("chr1",
+                    1000, "GENE_B", Strand.NEGATIVE, 4, 200, 200, 100, 200),
+            DataProviderForExampleGencodeGtfGene.dynamicallyCreateTestGencodeGtfGeneFeature("chr1",
+                    1500, "GENE_C", Strand.POSITIVE, 2, 0, 0, 100, 100),
+            DataProviderForExampleGencodeGtfGene.dynamicallyCreateTestGencodeGtfGeneFeature("chr1",
+                    1600, "GENE_D", Strand.NEGATIVE, 10, 50, 50, 100, 1000),
+            DataProviderForExampleGencodeGtfGene.dynamicallyCreateTestGencodeGtfGeneFeature("chr1",
+                    20000, "GENE_E", Strand.POSITIVE, 2, 0, 0, 100, 100)
+    );
+
+    @DataProvider
+    public Object[][] provideSegments() {
+        return new Object[][] {
+                { new SimpleInterval("chr1", 1, 999) },
+                { new SimpleInterval("chr1", 1, 1000) },
+                { new SimpleInterval("chr1", 1, 100_000) },
+                { new SimpleInterval("chr1", 1200, 1200) },
+                { new SimpleInterval("chr1", 1550, 1650) },
+                { new SimpleInterval("chr1", 2400, 10_000) },
+                { new SimpleInterval("chr1", 15_000, 19_999) },
+                { new SimpleInterval("chr1", 15_000, 20_000) },
+                { new SimpleInterval("chr1", 20_299, 30_000) },
+                { new SimpleInterval("chr1", 20_300, 30_000) },
+                { new SimpleInterval("chr2", 1, 100_000) },
+        };
+    }
+
+    @Test(dataProvider = "provideSegments")
+    public void testGetOverlappingGenes(final SimpleInterval segment) {
+        final SegmentGeneIndex index = new SegmentGeneIndex("chr1", GENES);
+        Assert.assertEquals(index.getContig(), "chr1");
+        Assert.assertEquals(index.size(), GENES.size());
+
+        final List<GencodeGtfGeneFeature> expected = GENES.stream()
+                .filter(g -> g.getContig().equals(segment.getContig()) && g.getStart() <= segment.getEnd() && g.getEnd() >= segment.getStart())
+                .collect(Collectors.toList());
+        Assert.assertEquals(index.getOverlappingGenes(segment), expected);
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        final SegmentGeneIndex index = new SegmentGeneIndex("chr1", Collections.emptyList());
+        Assert.assertEquals(index.size(), 0);
+        Assert.assertEquals(index.getOverlappingGenes(new SimpleInterval("chr1", 1, 100_000)), Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGeneOnOtherContig() {
+        new SegmentGeneIndex("chr2", GENES);
+    }
+}
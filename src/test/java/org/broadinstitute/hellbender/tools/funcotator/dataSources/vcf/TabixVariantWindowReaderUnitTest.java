@@ -0,0 +1,142 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.vcf;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorTestConstants;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public final class TabixVariantWindowReaderUnitTest extends GATKBaseTest {
+
+    /**
+     * @return a block-compressed, tabix-indexed copy of the given VCF file
+     */
+    static Path createTabixIndexedCopy(final Path vcfPath) throws IOException {
+        final Path compressedPath = createTempDir("TabixVariantWindowReaderUnitTest").toPath().resolve(vcfPath.getFileName() + ".gz");
+        try (final OutputStream out = new BlockCompressedOutputStream(compressedPath.toFile())) {
+            Files.copy(vcfPath, out);
+        }
+        final Index index = IndexFactory.createIndex(compressedPath, new VCFCodec(), IndexFactory.IndexType.TABIX, null);
+        index.writeBasedOnFeaturePath(compressedPath);
+        return compressedPath;
+    }
+
+    private static List<String> describe(final List<VariantContext> variants) {
+        return variants.stream()
+                .map(v -> v.getContig() + ":" + v.getStart() + "-" + v.getEnd() + " " + v.getID() + " " + v.getAlleles())
+                .collect(Collectors.toList());
+    }
+
+    @DataProvider
+    public Object[][] provideWindowSizes() {
+        return new Object[][] { {1}, {100}, {1_000_000} };
+    }
+
+    @Test(dataProvider = "provideWindowSizes")
+    public void testQueryMatchesVcfFileReader(final int windowSize) throws IOException {
+        final Path vcfPath = IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH);
+        final Path compressedPath = createTabixIndexedCopy(vcfPath);
+        Assert.assertTrue(TabixVariantWindowReader.canRead(compressedPath));
+
+        try (final VCFFileReader vcfReader = new VCFFileReader(compressedPath);
+             final TabixVariantWindowReader windowReader = new TabixVariantWindowReader(compressedPath, null, windowSize)) {
+            final List<VariantContext> allVariants = vcfReader.iterator().toList();
+            Assert.assertFalse(allVariants.isEmpty());
+
+            // Query every record (as Funcotator does, in order), and some wider intervals:
+            for ( final VariantContext variant : allVariants ) {
+                for ( final SimpleInterval interval : Arrays.asList(
+                        new SimpleInterval(variant.getContig(), variant.getStart(), variant.getStart()),
+                        new SimpleInterval(variant.getContig(), variant.getStart(), variant.getStart() + 500)) ) {
+                    final List<VariantContext> expected = vcfReader.query(interval.getContig(), interval.getStart(), interval.getEnd()).toList();
+                    final List<VariantContext> actual = windowReader.query(interval);
+                    Assert.assertEquals(describe(actual), describe(expected), interval.toString());
+                    for ( int i = 0; i < actual.size(); ++i ) {
+                        Assert.assertEquals(actual.get(i).getAttributes().keySet(), expected.get(i).getAttributes().keySet());
+                    }
+                }
+            }
+
+            // Intervals without records, including one on a contig that is not in the file:
+            Assert.assertEquals(windowReader.query(new SimpleInterval("1", 1, 100)), Collections.emptyList());
+            Assert.assertEquals(windowReader.query(new SimpleInterval("22", 1, 100)), Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void testQueryFindsLongRecordsStartingBeforeTheInterval() throws IOException {
+        // A long record followed by short ones that start inside it, so that a query inside the long record has to
+        // look back past the records that start just before it:
+        final Path vcfPath = createTempDir("TabixVariantWindowReaderUnitTest").toPath().resolve("long.vcf");
+        Files.write(vcfPath, Arrays.asList(
+                "##fileformat=VCFv4.2",
+                "##INFO=<ID=END,Number=1,Type=Integer,Description=\"End\">",
+                "##contig=<ID=1,length=100000>",
+                "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO",
+                "1\t100\tlong\tA\t<DEL>\t.\t.\tEND=5000",
+                "1\t200\tsnp1\tC\tT\t.\t.\t.",
+                "1\t300\tmedium\tG\t<DEL>\t.\t.\tEND=450",
+                "1\t400\tsnp2\tC\tT\t.\t.\t.",
+                "1\t6000\tsnp3\tC\tT\t.\t.\t."));
+        final Path compressedPath = createTabixIndexedCopy(vcfPath);
+
+        try (final VCFFileReader vcfReader = new VCFFileReader(compressedPath);
+             final TabixVariantWindowReader windowReader = new TabixVariantWindowReader(compressedPath, null, 10_000)) {
+            for ( final int start : new int[] {50, 100, 150, 200, 350, 400, 451, 4999, 5000, 5001, 6000} ) {
+                final SimpleInterval interval = new SimpleInterval("1", start, start);
+                final List<VariantContext> expected = vcfReader.query(interval.getContig(), interval.getStart(), interval.getEnd()).toList();
+                Assert.assertEquals(describe(windowReader.query(interval)), describe(expected), interval.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyRequestedInfoFieldsAreDecoded() throws IOException {
+        final Path compressedPath = createTabixIndexedCopy(IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH));
+        final Set<String> infoFieldNames = new HashSet<>(Arrays.asList("RS", "VC"));
+
+        try (final TabixVariantWindowReader windowReader = new TabixVariantWindowReader(compressedPath, infoFieldNames, 1_000_000)) {
+            final List<VariantContext> variants = windowReader.query(new SimpleInterval("1", 1, 1_000_000));
+            Assert.assertFalse(variants.isEmpty());
+            for ( final VariantContext variant : variants ) {
+                Assert.assertTrue(infoFieldNames.containsAll(variant.getAttributes().keySet()), variant.getID());
+            }
+            Assert.assertTrue(variants.stream().allMatch(v -> v.hasAttribute("RS")));
+        }
+
+        try (final TabixVariantWindowReader windowReader = new TabixVariantWindowReader(compressedPath, Collections.emptySet(), 1_000_000)) {
+            for ( final VariantContext variant : windowReader.query(new SimpleInterval("1", 1, 1_000_000)) ) {
+                Assert.assertEquals(variant.getAttributes(), Collections.emptyMap(), variant.getID());
+            }
+        }
+    }
+
+    @Test
+    public void testCanRead() throws IOException {
+        Assert.assertFalse(TabixVariantWindowReader.canRead(IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH)));
+
+        // A block-compressed file without its index:
+        final Path compressedPath = createTabixIndexedCopy(IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH));
+        Files.delete(compressedPath.resolveSibling(compressedPath.getFileName() + ".tbi"));
+        Assert.assertFalse(TabixVariantWindowReader.canRead(compressedPath));
+    }
+}
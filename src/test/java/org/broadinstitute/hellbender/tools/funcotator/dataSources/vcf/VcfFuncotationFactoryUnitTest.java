@@ -12,6 +12,7 @@ import org.apache.commons.lang.RandomStringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
@@ -20,6 +21,7 @@ import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
 import org.broadinstitute.hellbender.tools.funcotator.Funcotation;
 import org.broadinstitute.hellbender.tools.funcotator.FuncotatorArgumentDefinitions;
 import org.broadinstitute.hellbender.tools.funcotator.FuncotatorTestConstants;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorUtils;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.TableFuncotation;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
@@ -28,6 +30,7 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -222,6 +225,87 @@ public class VcfFuncotationFactoryUnitTest extends GATKBaseTest {
         Assert.assertEquals(vcfFuncotationFactory.getSupportedFuncotationFields(), expectedFieldNames);
     }
 
+    @Test
+    public void testInfoFieldNames() throws IOException {
+        final Path vcfPath = TabixVariantWindowReaderUnitTest.createTabixIndexedCopy(IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH));
+        try (final VcfFuncotationFactory vcfFuncotationFactory = new VcfFuncotationFactory(FACTORY_NAME, FACTORY_VERSION, vcfPath,
+                new LinkedHashMap<>(), new FeatureInput<VariantContext>(vcfPath.toString(), FACTORY_NAME, new HashMap<>()),
+                false, FuncotatorUtils.DEFAULT_MIN_NUM_BASES_FOR_VALID_SEGMENT, new HashSet<>(Arrays.asList("VC", "RS", "NOT_IN_HEADER")), 100_000)) {
+
+            final LinkedHashSet<String> expectedFieldNames = new LinkedHashSet<>();
+            for (final String field : Arrays.asList("RS", "VC", "ID", "FILTER")) {
+                expectedFieldNames.add(FACTORY_NAME + "_" + field);
+            }
+            Assert.assertEquals(vcfFuncotationFactory.getSupportedFuncotationFields(), expectedFieldNames);
+
+            // Features with all of their INFO fields only give the requested fields:
+            final VariantContext variant = new VariantContextBuilder(FACTORY_NAME, "1", 10177, 10177, Arrays.asList(Allele.create("A", true), Allele.create("AC"))).make();
+            final ReferenceContext referenceContext = new ReferenceContext(ReferenceDataSource.of(IOUtils.getPath(b37Reference)), new SimpleInterval("1", 10177, 10177));
+            final List<Feature> vcfFeatures;
+            try (final VCFFileReader vcfReader = new VCFFileReader(vcfPath)) {
+                vcfFeatures = vcfReader.query("1", 10177, 10177).stream().collect(Collectors.toList());
+            }
+            final List<Funcotation> funcotations = vcfFuncotationFactory.createFuncotationsOnVariant(variant, referenceContext, vcfFeatures);
+            Assert.assertEquals(funcotations.size(), 1);
+            Assert.assertEquals(funcotations.get(0).getFieldNames(), expectedFieldNames);
+            Assert.assertEquals(funcotations.get(0).getField(FACTORY_NAME + "_ID"), "rs367896724");
+        }
+    }
+
+    @DataProvider
+    public Object[][] provideForTestQueryFeaturesInWindows() {
+        return new Object[][] {
+                // query interval, whether the data source is B37 (its contigs are "1" and "3"), whether there are features
+                { new SimpleInterval("1", 10177, 10177), false, true },
+                { new SimpleInterval("1", 10300, 10400), false, true },
+                { new SimpleInterval("3", 64000, 65000), false, true },
+                { new SimpleInterval("3", 1, 100), false, false },
+                { new SimpleInterval("chr1", 10177, 10177), true, true },
+                { new SimpleInterval("chr1", 10300, 10400), true, true },
+                { new SimpleInterval("chr3", 64000, 65000), true, true },
+                { new SimpleInterval("chr3", 1, 100), true, false },
+        };
+    }
+
+    @Test(dataProvider = "provideForTestQueryFeaturesInWindows")
+    public void testQueryFeaturesInWindowsMatchesFeatureContext(final SimpleInterval interval, final boolean isDataSourceB37,
+                                                                final boolean hasFeatures) throws IOException {
+        final Path vcfPath = TabixVariantWindowReaderUnitTest.createTabixIndexedCopy(IOUtils.getPath(FuncotatorTestConstants.DBSNP_HG19_SNIPPET_FILE_PATH));
+        final FeatureInput<VariantContext> featureInput = new FeatureInput<>(vcfPath.toString(), FACTORY_NAME, new HashMap<>());
+        final Set<String> infoFieldNames = new HashSet<>(Arrays.asList("VC", "RS"));
+
+        final Map<FeatureInput<? extends Feature>, Class<? extends Feature>> featureInputMap = new HashMap<>();
+        featureInputMap.put(featureInput, VariantContext.class);
+        final FeatureContext featureContext = FeatureContext.createFeatureContextForTesting(featureInputMap, "dummyName", interval, 0, 0, 0, null);
+
+        final VariantContext variant = new VariantContextBuilder(FACTORY_NAME, interval.getContig(), interval.getStart(), interval.getStart(),
+                Arrays.asList(Allele.create("A", true), Allele.create("AC"))).make();
+        final ReferenceContext referenceContext = new ReferenceContext(ReferenceDataSource.of(IOUtils.getPath(b37Reference)),
+                new SimpleInterval(FuncotatorUtils.convertHG19ContigToB37Contig(interval.getContig()), interval.getStart(), interval.getStart()));
+
+        try (final VcfFuncotationFactory windowFactory = new VcfFuncotationFactory(FACTORY_NAME, FACTORY_VERSION, vcfPath, new LinkedHashMap<>(),
+                featureInput, isDataSourceB37, FuncotatorUtils.DEFAULT_MIN_NUM_BASES_FOR_VALID_SEGMENT, infoFieldNames, 100);
+             final VcfFuncotationFactory featureContextFactory = new VcfFuncotationFactory(FACTORY_NAME, FACTORY_VERSION, vcfPath, new LinkedHashMap<>(),
+                featureInput, isDataSourceB37, FuncotatorUtils.DEFAULT_MIN_NUM_BASES_FOR_VALID_SEGMENT, infoFieldNames, 0)) {
+
+            final List<Feature> windowFeatures = windowFactory.queryFeatures(featureContext);
+            final List<Feature> featureContextFeatures = featureContextFactory.queryFeatures(featureContext);
+            Assert.assertEquals(!featureContextFeatures.isEmpty(), hasFeatures);
+            Assert.assertEquals(describeFeatures(windowFeatures), describeFeatures(featureContextFeatures));
+
+            // the features read in windows only decode the requested INFO fields, which give the same funcotations:
+            Assert.assertEquals(windowFactory.createFuncotationsOnVariant(variant, referenceContext, windowFeatures),
+                    featureContextFactory.createFuncotationsOnVariant(variant, referenceContext, featureContextFeatures));
+        }
+    }
+
+    private static List<String> describeFeatures(final List<Feature> features) {
+        return features.stream()
+                .map(f -> (VariantContext) f)
+                .map(v -> v.getContig() + ":" + v.getStart() + "-" + v.getEnd() + " " + v.getID() + " " + v.getAlleles())
+                .collect(Collectors.toList());
+    }
+
     @Test(dataProvider = "provideForTestCreateFuncotationsOnVariant")
     public void testCreateFuncotationsOnVariant(final String variantFeatureDataFileName,
                                                 final VariantContext variant,
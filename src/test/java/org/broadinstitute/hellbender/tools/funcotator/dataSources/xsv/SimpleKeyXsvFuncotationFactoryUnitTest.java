@@ -20,6 +20,9 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -441,6 +444,49 @@ public class SimpleKeyXsvFuncotationFactoryUnitTest extends GATKBaseTest {
         Assert.assertEquals(tableFuncotation.get(defaultName + "_Beatle"), "Harrison", "Wrong value for the Beatle column in returned funcotation");
     }
 
+    @Test
+    public void testIndexedDataSource() throws IOException {
+        // Index a copy of the data file so that the index is not written next to the test resources:
+        final Path xsvPath = createTempDir("testIndexedDataSource").toPath().resolve("xsv_CSV_testFile.csv");
+        Files.copy(IOUtils.getPath(FuncotatorTestConstants.XSV_CSV_FILE_PATH), xsvPath);
+
+        final SimpleKeyXsvFuncotationFactory inMemoryFactory = new SimpleKeyXsvFuncotationFactory(defaultName, xsvPath, "VERSION", ",", 0, SimpleKeyXsvFuncotationFactory.XsvDataKeyType.GENE_NAME);
+        final Path indexPath = inMemoryFactory.writeIndex();
+        Assert.assertEquals(indexPath, SimpleKeyXsvIndex.getIndexPath(xsvPath));
+
+        final SimpleKeyXsvFuncotationFactory indexedFactory = new SimpleKeyXsvFuncotationFactory(defaultName, xsvPath, "VERSION", ",", 0, SimpleKeyXsvFuncotationFactory.XsvDataKeyType.GENE_NAME);
+        Assert.assertEquals(indexedFactory.getSupportedFuncotationFields(), inMemoryFactory.getSupportedFuncotationFields());
+
+        final List<String> keys = new ArrayList<>();
+        for ( int i = 1; i < squareSize; ++i ) {
+            keys.add(dataTable.get(i).get(0));
+        }
+        keys.add("NOT_A_KEY");
+        for ( final String key : keys ) {
+            final List<GencodeFuncotation> gencodeFuncotations = Collections.singletonList(new GencodeFuncotationBuilder().setHugoSymbol(key).build());
+            Assert.assertEquals(
+                    indexedFactory.createFuncotationsOnVariant(defaultVariantContext, defaultReferenceContext, Collections.emptyList(), gencodeFuncotations),
+                    inMemoryFactory.createFuncotationsOnVariant(defaultVariantContext, defaultReferenceContext, Collections.emptyList(), gencodeFuncotations),
+                    key
+            );
+        }
+
+        // A data source that parses the data file differently must not use the index:
+        final SimpleKeyXsvFuncotationFactory otherKeyFactory = new SimpleKeyXsvFuncotationFactory(defaultName, xsvPath, "VERSION", ",", 1, SimpleKeyXsvFuncotationFactory.XsvDataKeyType.GENE_NAME);
+        final List<Funcotation> funcotations = otherKeyFactory.createFuncotationsOnVariant(defaultVariantContext, defaultReferenceContext, Collections.emptyList(),
+                Collections.singletonList(new GencodeFuncotationBuilder().setHugoSymbol(dataTable.get(1).get(1)).build()));
+        Assert.assertEquals(funcotations, Collections.singletonList(TableFuncotation.create(
+                removeHelper(headerRowTable.get(0), 1), removeHelper(dataTable.get(1), 1), defaultAltAllele, defaultName, null)));
+
+        // Nor must a data source whose data file has changed:
+        final String data = new String(Files.readAllBytes(xsvPath), StandardCharsets.UTF_8);
+        Files.write(xsvPath, data.replace(",R2C2,", ",CHANGED,").getBytes(StandardCharsets.UTF_8));
+        final SimpleKeyXsvFuncotationFactory changedFactory = new SimpleKeyXsvFuncotationFactory(defaultName, xsvPath, "VERSION", ",", 0, SimpleKeyXsvFuncotationFactory.XsvDataKeyType.GENE_NAME);
+        final TableFuncotation changedFuncotation = (TableFuncotation) changedFactory.createFuncotationsOnVariant(defaultVariantContext, defaultReferenceContext, Collections.emptyList(),
+                Collections.singletonList(new GencodeFuncotationBuilder().setHugoSymbol(dataTable.get(1).get(0)).build())).get(0);
+        Assert.assertEquals(changedFuncotation.get(headerRowTable.get(0).get(1)), "CHANGED");
+    }
+
     @Test
     public void testRequiresFeatures() {
         final SimpleKeyXsvFuncotationFactory simpleKeyXsvFuncotationFactory = new SimpleKeyXsvFuncotationFactory(
@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class SimpleKeyXsvIndexUnitTest extends GATKBaseTest {
+    private static final String PARAMETERS = "delimiter=,";
+
+    private static Path createDataFile() throws IOException {
+        final Path xsvPath = createTempDir("SimpleKeyXsvIndexUnitTest").toPath().resolve("data.csv");
+        Files.write(xsvPath, Arrays.asList("KEY,A,B", "GENE1,1,2"));
+        return xsvPath;
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        final Path xsvPath = createDataFile();
+        final Path indexPath = SimpleKeyXsvIndex.getIndexPath(xsvPath);
+
+        final Map<String, List<String>> expected = new HashMap<>();
+        try (final SimpleKeyXsvIndex.Writer writer = new SimpleKeyXsvIndex.Writer(indexPath, xsvPath, PARAMETERS)) {
+            for (int i = 999; i >= 0; i--) {
+                final List<String> values = Arrays.asList("value" + i, "", "éß" + i);
+                writer.add("GENE" + i, values);
+                expected.put("GENE" + i, values);
+            }
+            // the last row with a key wins:
+            writer.add("GENE7", Collections.singletonList("replaced"));
+            expected.put("GENE7", Collections.singletonList("replaced"));
+            writer.add("", Collections.emptyList());
+            expected.put("", Collections.emptyList());
+            writer.commit();
+        }
+
+        Assert.assertTrue(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, PARAMETERS));
+        final SimpleKeyXsvIndex index = SimpleKeyXsvIndex.open(indexPath);
+        for (final Map.Entry<String, List<String>> entry : expected.entrySet()) {
+            Assert.assertEquals(index.get(entry.getKey()), entry.getValue(), entry.getKey());
+        }
+        Assert.assertNull(index.get("GENE1000"));
+        Assert.assertNull(index.get("A"));
+        Assert.assertNull(index.get("ZZZ"));
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        final Path xsvPath = createDataFile();
+        final Path indexPath = SimpleKeyXsvIndex.getIndexPath(xsvPath);
+        try (final SimpleKeyXsvIndex.Writer writer = new SimpleKeyXsvIndex.Writer(indexPath, xsvPath, PARAMETERS)) {
+            writer.commit();
+        }
+        Assert.assertNull(SimpleKeyXsvIndex.open(indexPath).get("GENE1"));
+    }
+
+    @Test
+    public void testIndexIsNotUpToDate() throws IOException {
+        final Path xsvPath = createDataFile();
+        final Path indexPath = SimpleKeyXsvIndex.getIndexPath(xsvPath);
+        Assert.assertFalse(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, PARAMETERS));
+
+        // an index that is not committed is discarded:
+        try (final SimpleKeyXsvIndex.Writer writer = new SimpleKeyXsvIndex.Writer(indexPath, xsvPath, PARAMETERS)) {
+            writer.add("GENE1", Arrays.asList("1", "2"));
+        }
+        Assert.assertFalse(Files.exists(indexPath));
+        Assert.assertFalse(Files.exists(indexPath.resolveSibling(indexPath.getFileName() + ".tmp")));
+
+        try (final SimpleKeyXsvIndex.Writer writer = new SimpleKeyXsvIndex.Writer(indexPath, xsvPath, PARAMETERS)) {
+            writer.add("GENE1", Arrays.asList("1", "2"));
+            writer.commit();
+        }
+        Assert.assertTrue(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, PARAMETERS));
+        Assert.assertFalse(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, "delimiter=\t"));
+
+        // a data file of the same size that was modified after the index was written:
+        Files.write(xsvPath, Arrays.asList("KEY,A,B", "GENE1,1,3"));
+        Files.setLastModifiedTime(xsvPath, FileTime.fromMillis(Files.getLastModifiedTime(xsvPath).toMillis() + 60_000));
+        Assert.assertFalse(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, PARAMETERS));
+
+        // a data file that has changed:
+        Files.write(xsvPath, Arrays.asList("KEY,A,B", "GENE1,1,2", "GENE2,3,4"));
+        Assert.assertFalse(SimpleKeyXsvIndex.isUpToDate(indexPath, xsvPath, PARAMETERS));
+    }
+}
@@ -27,6 +27,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * Unit test class for the {@link MafOutputRenderer}.
@@ -150,16 +154,16 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
     // Data Providers:
 
     @DataProvider
-    private Object[][] provideForTestReplaceFuncotationValuesWithMafCompliantValues() {
+    private Object[][] provideForTestCreateMafCompliantOutputMap() {
         return new Object[][] {
                 // Empty maps:
                 {
-                    new HashMap<>(),
+                    new LinkedHashMap<>(),
                     new LinkedHashMap<>()
                 },
                 // Singleton map that doesn't contain a replaceable element:
                 {
-                        MapUtils.putAll(new HashMap<String, Object>(),
+                        MapUtils.putAll(new LinkedHashMap<String, Object>(),
                                 new Object[][] {
                                         {"Unreplaceable_Key", "Unreplaceable_Value"},
                                 }
@@ -172,7 +176,7 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
                 },
                 // Map with multiple elements, none of which are replaced:
                 {
-                        MapUtils.putAll(new HashMap<String, Object>(),
+                        MapUtils.putAll(new LinkedHashMap<String, Object>(),
                                 new Object[][] {
                                         {"Unreplaceable_Key1", "Unreplaceable_Value1"},
                                         {"Unreplaceable_Key2", "Unreplaceable_Value2"},
@@ -187,7 +191,7 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
                 },
                 // Singleton map containing a replaced value:
                 {
-                        MapUtils.putAll(new HashMap<String, Object>(),
+                        MapUtils.putAll(new LinkedHashMap<String, Object>(),
                                 new Object[][] {
                                         { MafOutputRendererConstants.FieldName_Other_Transcripts, OTHER_TRANSCRIPTS_RAW_NAMES },
                                 }
@@ -200,7 +204,7 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
                 },
                 // Map with multiple elements, some of which are replaced:
                 {
-                        MapUtils.putAll(new HashMap<String, Object>(),
+                        MapUtils.putAll(new LinkedHashMap<String, Object>(),
                                 new Object[][] {
                                         {"Unreplaceable_Key1", "Unreplaceable_Value1"},
                                         { MafOutputRendererConstants.FieldName_Other_Transcripts, OTHER_TRANSCRIPTS_RAW_NAMES },
@@ -215,7 +219,7 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
                 },
                 // Map with multiple elements, all of which are replaced:
                 {
-                        MapUtils.putAll(new HashMap<String, Object>(),
+                        MapUtils.putAll(new LinkedHashMap<String, Object>(),
                                 new Object[][] {
                                         { MafOutputRendererConstants.FieldName_Other_Transcripts, OTHER_TRANSCRIPTS_RAW_NAMES },
                                         { MafOutputRendererConstants.FieldName_Variant_Type,      GencodeFuncotation.VariantType.INS.toString() },
@@ -1130,10 +1134,28 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
     //==================================================================================================================
     // Tests:
 
-    @Test(dataProvider = "provideForTestReplaceFuncotationValuesWithMafCompliantValues")
-    public void testReplaceFuncotationValuesWithMafCompliantValues(final Map<String, Object> outputMap, final LinkedHashMap<String, String> expected ) {
-        final LinkedHashMap<String, String> compliantMap = createMafOutputRenderer(FuncotatorTestConstants.REFERENCE_VERSION_HG19).replaceFuncotationValuesWithMafCompliantValues(outputMap);
-        Assert.assertEquals(compliantMap, expected);
+    @Test(dataProvider = "provideForTestCreateMafCompliantOutputMap")
+    public void testCreateMafCompliantOutputMap(final Map<String, Object> outputMap, final LinkedHashMap<String, String> expected ) {
+        // Give the values of the output fields as the fields of a funcotation:
+        final Allele altAllele = Allele.create("AT");
+        final List<String> fieldNames = new ArrayList<>(outputMap.keySet());
+        final List<String> fieldValues = fieldNames.stream().map(f -> outputMap.get(f).toString()).collect(Collectors.toList());
+        final Funcotation funcotation = TableFuncotation.create(fieldNames, fieldValues, altAllele, "TestDataSource", null);
+
+        final MafOutputRenderer mafOutputRenderer = createMafOutputRenderer(FuncotatorTestConstants.REFERENCE_VERSION_HG19);
+        final LinkedHashMap<String, String> compliantMap = mafOutputRenderer.createMafCompliantOutputMap(altAllele, Collections.singletonList(funcotation));
+
+        // The row has the default columns, in order, followed by the fields that are not default columns, in order:
+        final Set<String> defaultColumns = mafOutputRenderer.getDefaultMap().keySet();
+        final List<String> columns = new ArrayList<>(compliantMap.keySet());
+        Assert.assertEquals(columns.subList(0, defaultColumns.size()), new ArrayList<>(defaultColumns));
+        Assert.assertEquals(columns.subList(defaultColumns.size(), columns.size()),
+                expected.keySet().stream().filter(k -> !defaultColumns.contains(k)).collect(Collectors.toList()));
+
+        // The columns of the output fields have MAF-compliant values:
+        for (final Map.Entry<String, String> expectedEntry : expected.entrySet()) {
+            Assert.assertEquals(compliantMap.get(expectedEntry.getKey()), expectedEntry.getValue(), expectedEntry.getKey());
+        }
     }
 
     @Test(dataProvider = "provideForMafTransform")
@@ -1176,6 +1198,30 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "provideForWrite")
+    public void testPrepareWriteOnSeveralThreads(final List<VariantContext> variants, final List<List<Funcotation>> funcotations, final File expectedFile) throws Exception {
+
+        final File outFile = getSafeNonExistentFile("TestMafOutputFileFromSeveralThreads");
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try ( final MafOutputRenderer mafOutputRenderer = createMafOutputRenderer( outFile, FuncotatorTestConstants.REFERENCE_VERSION_HG19 ) ) {
+            // Prepare the rows of every variant at once, and write them in order:
+            final List<Future<Runnable>> preparedWrites = new ArrayList<>();
+            for ( int i = 0 ; i < variants.size(); ++i ) {
+                final VariantContext variant = variants.get(i);
+                final FuncotationMap funcotationMap = FuncotationMap.createNoTranscriptInfo(funcotations.get(i));
+                preparedWrites.add(executor.submit(() -> mafOutputRenderer.prepareWrite(variant, funcotationMap)));
+            }
+            for ( final Future<Runnable> preparedWrite : preparedWrites ) {
+                preparedWrite.get().run();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(outFile, expectedFile, MafOutputRendererConstants.COMMENT_STRING, false);
+    }
+
     /**
      * Creatse a dummy gencode funcotation and a dummy funcotation from a fake datasource named FAKEDATA.
      * Then exclude one of the FAKEDATA fields and make sure that it does not appear in the output.
@@ -572,6 +572,34 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         };
     }
 
+    @DataProvider
+    public Object[][] getPreloadArguments() {
+        return new Object[][] {
+                // batch size, reader threads, auto batch size
+                {1, 1, false},
+                {1, 2, false},
+                {2, 3, false},
+                {0, 2, true},
+        };
+    }
+
+    @Test(dataProvider = "getPreloadArguments")
+    public void testPreloadNextBatch(final int batchSize, final int threads, final boolean autoBatchSize) throws IOException {
+        final String workspace = createTempDir("genomicsdb-tests-").getAbsolutePath() + "/workspace";
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .add(GenomicsDBImport.WORKSPACE_ARG_LONG_NAME, workspace)
+                .add(GenomicsDBImport.BATCHSIZE_ARG_LONG_NAME, String.valueOf(batchSize))
+                .add(GenomicsDBImport.VCF_INITIALIZER_THREADS_LONG_NAME, String.valueOf(threads))
+                .add(GenomicsDBImport.PRELOAD_NEXT_BATCH_LONG_NAME, true)
+                .add(GenomicsDBImport.AUTO_BATCH_SIZE_ARG_LONG_NAME, autoBatchSize);
+        INTERVAL.forEach(args::addInterval);
+        LOCAL_GVCFS.forEach(vcf -> args.add("V", vcf));
+        runCommandLine(args);
+
+        checkJSONFilesAreWritten(workspace);
+        checkGenomicsDBAgainstExpected(workspace, INTERVAL, COMBINED, b38_reference_20_21, true, ATTRIBUTES_TO_IGNORE);
+    }
+
     @Test(groups = {"bucket"}, dataProvider = "getThreads")
     public void testDifferentThreadValuesFromABucket(final int threads) throws IOException {
         final List<String> vcfInputs = resolveLargeFilesAsCloudURIs(LOCAL_GVCFS);
@@ -1002,6 +1030,17 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         runCommandLine(args);
     }
 
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testCantSpecifyBatchSizeAndAutoBatchSize(){
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .add(StandardArgumentDefinitions.VARIANT_LONG_NAME, HG_00096)
+                .add(GenomicsDBImport.WORKSPACE_ARG_LONG_NAME, createTempDir("workspace").getAbsolutePath())
+                .add(GenomicsDBImport.BATCHSIZE_ARG_LONG_NAME, "2")
+                .add(GenomicsDBImport.AUTO_BATCH_SIZE_ARG_LONG_NAME, true)
+                .addInterval(INTERVAL.get(0));
+        runCommandLine(args);
+    }
+
     @Test(expectedExceptions = CommandLineException.MissingArgument.class)
     public void testRequireOneOfVCFOrSampleNameFile(){
         final ArgumentsBuilder args = new ArgumentsBuilder()
@@ -0,0 +1,50 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public final class ImportBatchSizerUnitTest extends GATKBaseTest {
+    private static final long MB = 1024 * 1024L;
+
+    @DataProvider
+    public Object[][] getBudgets() {
+        return new Object[][] {
+                // sample count, available heap, bytes per sample, available files, files per sample, expected batch size
+                {100, 1000 * MB, MB, 10000L, 2, 100},
+                // limited by the heap: half of 100MB at 1MB per sample
+                {100, 100 * MB, MB, 10000L, 2, 50},
+                // limited by the file descriptors: 80% of 100 files at 2 files per sample
+                {100, 1000 * MB, MB, 100L, 2, 40},
+                // file descriptor counts are not available
+                {100, 1000 * MB, MB, ImportBatchSizer.UNKNOWN, 2, 100},
+                {1000, 100 * MB, MB, ImportBatchSizer.UNKNOWN, 2, 50},
+                // never less than one sample
+                {100, 0, MB, 0L, 2, 1},
+                {100, -5, MB, 10000L, 2, 1},
+        };
+    }
+
+    @Test(dataProvider = "getBudgets")
+    public void testBatchSizeForBudget(final int sampleCount, final long availableHeap, final long bytesPerSample,
+                                       final long availableFiles, final int filesPerSample, final int expected) {
+        Assert.assertEquals(ImportBatchSizer.batchSizeForBudget(sampleCount, availableHeap, bytesPerSample, availableFiles, filesPerSample), expected);
+    }
+
+    @Test
+    public void testChooseBatchSize() {
+        final ImportBatchSizer sizer = new ImportBatchSizer(1024, 2);
+        final int oneBatch = sizer.chooseBatchSize(100, 1);
+        Assert.assertTrue(oneBatch >= 1 && oneBatch <= 100);
+        Assert.assertTrue(sizer.chooseBatchSize(100, 2) <= oneBatch);
+        Assert.assertTrue(sizer.canOpenBatch(1));
+        // far more memory than any heap
+        Assert.assertFalse(new ImportBatchSizer(Long.MAX_VALUE / 2, 2).canOpenBatch(10));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRequiresPositiveSampleCount() {
+        ImportBatchSizer.batchSizeForBudget(0, MB, MB, 10L, 2);
+    }
+}
@@ -15,6 +15,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.VariantLocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.GenomicsDBTestUtils;
@@ -920,4 +921,49 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         final List<String> sors = vc.getAttributeAsStringList(GATKVCFConstants.AS_STRAND_ODDS_RATIO_KEY,"");
         Assert.assertEquals(sors.size(), 1);
     }
+
+    @DataProvider
+    public Object[][] getInputsForParallelPartitions() {
+        final File genomicsDB = GenomicsDBTestUtils.createTempGenomicsDB(NA12878_HG37, new SimpleInterval("20", 1, 11_000_000));
+        return new Object[][]{
+                {getTestFile(BASE_PAIR_GVCF).getAbsolutePath(), "20:10000000-10010000", 1_000, NO_EXTRA_ARGS},
+                {getTestFile(BASE_PAIR_GVCF).getAbsolutePath(), "20:10000000-10010000", 1_000, Collections.singletonList("--" + GenotypeGVCFs.ALL_SITES_LONG_NAME)},
+                {getTestFile(BASE_PAIR_GVCF).getAbsolutePath(), "20:10000000-10010000", 777, Collections.singletonList("--" + GenotypeGVCFs.ONLY_OUTPUT_CALLS_STARTING_IN_INTERVALS_FULL_NAME)},
+                // the deletion at 20:69511 spans the boundary with the partition starting at 20:69513, whose spanning
+                // deletion alleles are only kept if the engine has seen it
+                {getTestFile("spanningDel.combined.g.vcf").getAbsolutePath(), "20:69491-69521", 22, NO_EXTRA_ARGS},
+                {GenomicsDBTestUtils.makeGenomicsDBUri(genomicsDB), "20:1-11000000", 1_000_000, NO_EXTRA_ARGS},
+                // each worker thread has its own annotation engine, but shares the annotation objects, including the
+                // pedigree annotations, which are initialized lazily
+                {CEUTRIO_20_21_GATK3_4_G_VCF.getAbsolutePath(), "20", 1_000_000, Arrays.asList(
+                        "--dbsnp", largeFileTestDir + "dbsnp_138.b37.20.21.vcf",
+                        "-G", "StandardAnnotation", "-G", "AS_StandardAnnotation", "-A", "PossibleDeNovo",
+                        "--" + StandardArgumentDefinitions.PEDIGREE_FILE_LONG_NAME, toolsTestDir + "walkers/variantutils/CalculateGenotypePosteriors/CEUtrio.ped")},
+        };
+    }
+
+    @Test(dataProvider = "getInputsForParallelPartitions")
+    public void testParallelPartitionsMatchSerialGenotyping(final String input, final String interval, final int partitionSize, final List<String> extraArgs) {
+        final List<String> serial = runGenotypeGVCFsOnPartitions(input, interval, 1, partitionSize, extraArgs);
+        final List<String> parallel = runGenotypeGVCFsOnPartitions(input, interval, 3, partitionSize, extraArgs);
+        Assert.assertFalse(serial.isEmpty());
+        Assert.assertEquals(parallel, serial);
+    }
+
+    private List<String> runGenotypeGVCFsOnPartitions(final String input, final String interval, final int threads, final int partitionSize, final List<String> extraArgs) {
+        final File output = createTempFile("GGVCFsOutput", ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_reference_20_21))
+                .add("V", input)
+                .add("L", interval)
+                .addOutput(output)
+                .add(VariantLocusWalker.VARIANT_LOCUS_THREADS_LONG_NAME, threads)
+                .add(VariantLocusWalker.PARTITION_SIZE_LONG_NAME, partitionSize)
+                .add(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false");
+        extraArgs.forEach(args::addRaw);
+        runCommandLine(args);
+        return VariantContextTestUtils.readEntireVCFIntoMemory(output.getAbsolutePath()).getRight().stream()
+                .map(VariantContext::toStringDecodeGenotypes)
+                .collect(Collectors.toList());
+    }
 }
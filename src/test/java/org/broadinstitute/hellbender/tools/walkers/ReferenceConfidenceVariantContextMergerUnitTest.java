@@ -6,6 +6,7 @@ import htsjdk.variant.vcf.VCFHeader;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.AlleleSubsettingUtils;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeColumns;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.GATKBaseTest;
@@ -272,6 +273,55 @@ public class ReferenceConfidenceVariantContextMergerUnitTest extends GATKBaseTes
         Assert.assertEquals(vcWithNewAlleles.isSpanningDeletion(), expected);
     }
 
+    @Test
+    public void testGenotypeIndexMapIsSharedBySamplesWithTheSamePloidy() {
+        // the genotype index map of each ploidy is computed for the first sample and reused for the others, so
+        // samples after the first must get the same remapping of their own PLs
+        final int start = 10;
+        final List<Allele> noCalls = Arrays.asList(Allele.NO_CALL, Allele.NO_CALL);
+        final VariantContext vcA_C_ALT = new VariantContextBuilder("test", "20", start, start, Arrays.asList(Aref, C, Allele.NON_REF_ALLELE))
+                .genotypes(new GenotypeBuilder("diploid1").PL(new int[]{0, 10, 20, 30, 40, 50}).alleles(noCalls).make(),
+                        new GenotypeBuilder("haploid").PL(new int[]{0, 15, 25}).alleles(Collections.singletonList(Allele.NO_CALL)).make(),
+                        new GenotypeBuilder("diploid2").PL(new int[]{60, 0, 61, 62, 63, 64}).alleles(noCalls).make())
+                .make();
+        final VariantContext vcA_G_ALT = new VariantContextBuilder("test2", "20", start, start, Arrays.asList(Aref, G, Allele.NON_REF_ALLELE))
+                .genotypes(new GenotypeBuilder("A_G").PL(new int[]{30, 20, 10, 71, 72, 73}).alleles(noCalls).make())
+                .make();
+
+        final ReferenceConfidenceVariantContextMerger merger = new ReferenceConfidenceVariantContextMerger(getAnnotationEngine(), new VCFHeader());
+        final VariantContext result = merger.merge(Arrays.asList(vcA_C_ALT, vcA_G_ALT), new SimpleInterval("20", start, start), null, false, false);
+
+        Assert.assertEquals(result.getAlleles(), Arrays.asList(Aref, C, G, Allele.NON_REF_ALLELE));
+        // the merged genotypes are held in columns
+        Assert.assertNotNull(GenotypeColumns.unwrap(result.getGenotypes()));
+        // G is not an allele of the first context, so its likelihoods are those of <NON_REF>
+        Assert.assertEquals(result.getGenotype("diploid1").getPL(), new int[]{0, 10, 20, 30, 40, 50, 30, 40, 50, 50});
+        Assert.assertEquals(result.getGenotype("haploid").getPL(), new int[]{0, 15, 25, 25});
+        Assert.assertEquals(result.getGenotype("diploid2").getPL(), new int[]{60, 0, 61, 62, 63, 64, 62, 63, 64, 64});
+        Assert.assertEquals(result.getGenotype("A_G").getPL(), new int[]{30, 71, 73, 20, 72, 10, 71, 73, 72, 73});
+    }
+
+    @Test
+    public void testGenotypeIndexMapIsNotSharedWhenChoosingBetweenSpanningDeletions() {
+        // a deletion spanning the site with two deletion alleles, which both become *, so each sample uses the one
+        // with the best hom-var likelihood and the genotype index map depends on the sample
+        final int start = 10;
+        final List<Allele> noCalls = Arrays.asList(Allele.NO_CALL, Allele.NO_CALL);
+        // the genotypes over ACGT*, A, AC and <NON_REF> are ordered 0/0, 0/1, 1/1, 0/2, 1/2, 2/2, 0/3, 1/3, 2/3, 3/3
+        final VariantContext spanningDeletions = new VariantContextBuilder("test", "20", start - 1, start + 2,
+                Arrays.asList(Allele.create("ACGT", true), Allele.create("A"), Allele.create("AC"), Allele.NON_REF_ALLELE))
+                .genotypes(new GenotypeBuilder("firstDeletionIsBest").PL(new int[]{0, 10, 20, 30, 40, 50, 60, 70, 80, 90}).alleles(noCalls).make(),
+                        new GenotypeBuilder("secondDeletionIsBest").PL(new int[]{0, 11, 52, 13, 14, 25, 16, 17, 18, 19}).alleles(noCalls).make())
+                .make();
+
+        final ReferenceConfidenceVariantContextMerger merger = new ReferenceConfidenceVariantContextMerger(getAnnotationEngine(), new VCFHeader());
+        final VariantContext result = merger.merge(Collections.singletonList(spanningDeletions), new SimpleInterval("20", start, start), (byte) 'A', false, false);
+
+        Assert.assertEquals(result.getAlleles(), Arrays.asList(Aref, del, Allele.NON_REF_ALLELE));
+        Assert.assertEquals(result.getGenotype("firstDeletionIsBest").getPL(), new int[]{0, 10, 20, 60, 70, 90});
+        Assert.assertEquals(result.getGenotype("secondDeletionIsBest").getPL(), new int[]{0, 13, 25, 16, 18, 19});
+    }
+
     @Test
     public void testMedianCalculationOnMixedSerializedTypes() {
         // Merging attributes by median calculation requires sorting the values, which in turn requires a list
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.consensus;
 
 import htsjdk.samtools.SAMTag;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.DuplicateSetWalker;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -82,6 +83,30 @@ public class DownsampleByDuplicateSetIntegrationTest extends CommandLineProgramT
         }
     }
 
+    @Test
+    public void testParallelMatchesSerial() {
+        final List<List<String>> outputs = new ArrayList<>();
+        for (final int threads : Arrays.asList(1, 4)) {
+            final File out = createTempFile("downsampled", "bam");
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .add("I", NA12878_GROUPED)
+                    .add("O", out.getAbsolutePath())
+                    .add(DownsampleByDuplicateSet.FRACTION_TO_KEEP_NAME, "0.5")
+                    .add(DuplicateSetWalker.DUPLICATE_SET_THREADS_NAME, threads);
+            runCommandLine(args, DownsampleByDuplicateSet.class.getSimpleName());
+
+            final List<String> reads = new ArrayList<>();
+            try (final ReadsDataSource readsDataSource = new ReadsPathDataSource(Paths.get(out.getAbsolutePath()))) {
+                readsDataSource.forEach(read -> reads.add(read.getName() + " " + read.getAttributeAsString(SAMTag.MI.name())
+                        + " " + (read.isFirstOfPair() ? 1 : 2)));
+            }
+            outputs.add(reads);
+        }
+
+        Assert.assertFalse(outputs.get(0).isEmpty());
+        Assert.assertEquals(outputs.get(1), outputs.get(0));
+    }
+
     private int countDuplicateSets(final ReadsDataSource readsDataSource){
         int count = 0;
         String currentMoleculeId = ""; // Note we are duplex aware: 12/A different from 12/B
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
 import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.vcf.VCFConstants;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.GATKBaseTest;
@@ -414,4 +415,54 @@ public class AlleleSubsettingUtilsUnitTest extends GATKBaseTest {
 
         Assert.assertEquals(newGs.get(0).getPL(), new int[] {50, 20, 0, 40, 10, 30});
     }
+
+    @DataProvider(name = "columnarSubsetData")
+    public Object[][] makeColumnarSubsetData() {
+        final List<Object[]> tests = new ArrayList<>();
+        for (final GenotypeAssignmentMethod assignmentMethod : Arrays.asList(GenotypeAssignmentMethod.SET_TO_NO_CALL,
+                GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL, GenotypeAssignmentMethod.USE_PLS_TO_ASSIGN, GenotypeAssignmentMethod.PREFER_PLS)) {
+            for (final List<Allele> allelesToKeep : Arrays.asList(Arrays.asList(Aref, C), Arrays.asList(Aref, G, C),
+                    Arrays.asList(Aref, Allele.NON_REF_ALLELE), Arrays.asList(Aref, C, Allele.NON_REF_ALLELE), Collections.singletonList(Aref))) {
+                tests.add(new Object[]{assignmentMethod, allelesToKeep});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "columnarSubsetData")
+    public void testSubsetColumnsMatchesSubsetGenotypes(final GenotypeAssignmentMethod assignmentMethod, final List<Allele> allelesToKeep) {
+        final List<Allele> originalAlleles = Arrays.asList(Aref, C, G, Allele.NON_REF_ALLELE);
+        final GenotypesContext genotypes = GenotypesContext.create(
+                new GenotypeBuilder("het", Arrays.asList(Aref, C)).PL(new int[]{40, 0, 50, 60, 70, 90, 60, 70, 90, 90})
+                        .AD(new int[]{10, 12, 1, 0}).DP(23).GQ(40).attribute(GATKVCFConstants.STRAND_COUNT_BY_SAMPLE_KEY, new int[]{5, 5, 6, 6, 1, 0, 0, 0}).make(),
+                new GenotypeBuilder("homVarG", Arrays.asList(G, G)).PL(new int[]{90, 90, 90, 50, 60, 0, 90, 90, 90, 90})
+                        .AD(new int[]{0, 0, 20, 1}).DP(21).GQ(50).attribute(VCFConstants.GENOTYPE_POSTERIORS_KEY, "90,90,90,50,60,0,90,90,90,90").make(),
+                new GenotypeBuilder("likelyNonRef", Arrays.asList(Aref, Aref)).PL(new int[]{30, 40, 50, 40, 50, 50, 10, 20, 20, 0})
+                        .AD(new int[]{3, 0, 0, 8}).DP(11).GQ(10).make(),
+                new GenotypeBuilder("homRefBlock", Arrays.asList(Aref, Aref)).DP(30).GQ(60).attribute(GATKVCFConstants.MIN_DP_FORMAT_KEY, 28).make(),
+                new GenotypeBuilder("uninformative", Arrays.asList(Aref, C)).PL(new int[10]).AD(new int[]{0, 0, 0, 0}).GQ(0).make(),
+                new GenotypeBuilder("wrongPLLength", Arrays.asList(Aref, C)).PL(new int[]{10, 0, 20}).GQ(10).make(),
+                new GenotypeBuilder("noCall", GATKVariantContextUtils.noCallAlleles(2)).make(),
+                new GenotypeBuilder("haploid", Collections.singletonList(C)).PL(new int[]{40, 0, 50, 60}).AD(new int[]{1, 15, 0, 0}).GQ(40).phased(true).make());
+
+        final GenotypeColumns.Builder columns = new GenotypeColumns.Builder();
+        for (final Genotype g : genotypes) {
+            columns.add(g, g.getSampleName(), g.getAlleles());
+            if (g.hasPL()) {
+                columns.PL(g.getPL());
+            }
+            if (g.hasAD()) {
+                columns.AD(g.getAD());
+            }
+            columns.DP(g.getDP()).GQ(g.getGQ());
+        }
+
+        final GenotypesContext expected = AlleleSubsettingUtils.subsetAlleles(genotypes, 2, originalAlleles, allelesToKeep, null, assignmentMethod);
+        final GenotypesContext actual = AlleleSubsettingUtils.subsetAlleles(columns.make().asGenotypesContext(), 2, originalAlleles, allelesToKeep, null, assignmentMethod);
+        Assert.assertNotNull(GenotypeColumns.unwrap(actual));
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            VariantContextTestUtils.assertGenotypesAreEqual(actual.get(i), expected.get(i));
+        }
+    }
 }
@@ -0,0 +1,158 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public final class GenotypeColumnsUnitTest extends GATKBaseTest {
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele ALT = Allele.create("C", false);
+
+    private static GenotypesContext makeGenotypes() {
+        return GenotypesContext.create(
+                new GenotypeBuilder("hetWithEverything", Arrays.asList(REF, ALT)).PL(new int[]{30, 0, 50}).AD(new int[]{5, 6}).DP(11).GQ(30)
+                        .phased(true).filter("lowDepth").attribute(VCFConstants.GENOTYPE_POSTERIORS_KEY, "1,2,3").make(),
+                new GenotypeBuilder("homRefBlock", Arrays.asList(REF, REF)).DP(20).GQ(45).make(),
+                new GenotypeBuilder("noCall", Arrays.asList(Allele.NO_CALL, Allele.NO_CALL)).make(),
+                new GenotypeBuilder("haploidHomRef", Collections.singletonList(REF)).GQ(10).make(),
+                new GenotypeBuilder("triploid", Arrays.asList(REF, ALT, ALT)).PL(new int[]{90, 30, 0, 40}).AD(new int[]{0, 0}).GQ(99).make());
+    }
+
+    // columns holding the genotypes as they are
+    private static GenotypeColumns toColumns(final GenotypesContext genotypes) {
+        final GenotypeColumns.Builder builder = new GenotypeColumns.Builder();
+        for (final Genotype g : genotypes) {
+            builder.add(g, g.getSampleName(), g.getAlleles());
+            if (g.hasPL()) {
+                builder.PL(g.getPL());
+            }
+            if (g.hasAD()) {
+                builder.AD(g.getAD());
+            }
+            builder.DP(g.getDP()).GQ(g.getGQ());
+        }
+        return builder.make();
+    }
+
+    @Test
+    public void testColumnsMatchGenotypes() {
+        final GenotypesContext genotypes = makeGenotypes();
+        final GenotypeColumns columns = toColumns(genotypes);
+        Assert.assertEquals(columns.size(), genotypes.size());
+        for (int i = 0; i < genotypes.size(); i++) {
+            final Genotype g = genotypes.get(i);
+            Assert.assertEquals(columns.getSampleName(i), g.getSampleName());
+            Assert.assertEquals(columns.getPloidy(i), g.getPloidy());
+            Assert.assertEquals(columns.isHomRef(i), g.isHomRef());
+            Assert.assertEquals(columns.hasPL(i), g.hasPL());
+            Assert.assertEquals(columns.getPL(i), g.hasPL() ? g.getPL() : null);
+            Assert.assertEquals(columns.hasAD(i), g.hasAD());
+            Assert.assertEquals(columns.getAD(i), g.hasAD() ? g.getAD() : null);
+            Assert.assertEquals(columns.getDP(i), g.getDP());
+            Assert.assertEquals(columns.getGQ(i), g.getGQ());
+            if (g.hasPL()) {
+                Assert.assertEquals(columns.getLog10Likelihoods(i), g.getLikelihoods().getAsVector());
+                for (int genotypeIndex = 0; genotypeIndex < g.getPL().length; genotypeIndex++) {
+                    Assert.assertEquals(columns.getPL(i, genotypeIndex), g.getPL()[genotypeIndex]);
+                }
+            }
+            VariantContextTestUtils.assertGenotypesAreEqual(columns.getGenotype(i), g);
+        }
+        Assert.assertEquals(columns.getCalledAlleleCount(), 8);
+        Assert.assertEquals(columns.getMaxPloidy(), 3);
+    }
+
+    @Test
+    public void testRemappedPLsAndAD() {
+        final Genotype g = makeGenotypes().get(0);
+        final GenotypeColumns columns = new GenotypeColumns.Builder()
+                .add(g, "renamed", Arrays.asList(REF, REF))
+                .PL(g.getPL(), new int[]{0, 1, 2, 1, 2, 2})
+                .AD(g.getAD(), new int[]{0, 1, 2})
+                .make();
+        final Genotype remapped = columns.getGenotype(0);
+        Assert.assertEquals(remapped.getSampleName(), "renamed");
+        Assert.assertEquals(remapped.getAlleles(), Arrays.asList(REF, REF));
+        Assert.assertEquals(remapped.getPL(), new int[]{30, 0, 50, 0, 50, 50});
+        Assert.assertEquals(remapped.getAD(), AlleleSubsettingUtils.generateAD(g.getAD(), new int[]{0, 1, 2}));
+        Assert.assertFalse(remapped.hasDP());
+        Assert.assertFalse(remapped.hasGQ());
+        // everything else comes from the source
+        Assert.assertTrue(remapped.isPhased());
+        Assert.assertEquals(remapped.getFilters(), g.getFilters());
+        Assert.assertEquals(remapped.getExtendedAttributes(), g.getExtendedAttributes());
+    }
+
+    @Test
+    public void testGenotypesAreBuiltWhenAccessed() {
+        final GenotypesContext genotypes = makeGenotypes();
+        final GenotypeColumns columns = toColumns(genotypes);
+        final GenotypesContext columnar = columns.asGenotypesContext();
+        Assert.assertSame(GenotypeColumns.unwrap(columnar), columns);
+        Assert.assertFalse(((LazyGenotypesContext) columnar).isLoaded());
+
+        Assert.assertEquals(columnar.size(), genotypes.size());
+        Assert.assertEquals(columnar.getMaxPloidy(2), 3);
+        Assert.assertTrue(GenotypeColumns.anyHasLikelihoods(columnar));
+        Assert.assertFalse(((LazyGenotypesContext) columnar).isLoaded());
+
+        for (int i = 0; i < genotypes.size(); i++) {
+            VariantContextTestUtils.assertGenotypesAreEqual(columnar.get(i), genotypes.get(i));
+        }
+        Assert.assertEquals(columnar.get("triploid").getPL(), genotypes.get("triploid").getPL());
+        Assert.assertSame(GenotypeColumns.unwrap(columnar), columns);
+    }
+
+    @Test
+    public void testGenotypesWithOnlyGLsAreBuiltRightAway() {
+        final Genotype withGLs = new GenotypeBuilder("withGLs", Arrays.asList(REF, ALT))
+                .attribute(VCFConstants.GENOTYPE_LIKELIHOODS_KEY, "-3.0,0.0,-5.0").make();
+        Assert.assertTrue(withGLs.hasLikelihoods());
+        Assert.assertFalse(withGLs.hasPL());
+
+        final GenotypesContext genotypes = new GenotypeColumns.Builder().add(withGLs, "withGLs", withGLs.getAlleles()).make().asGenotypesContext();
+        Assert.assertNull(GenotypeColumns.unwrap(genotypes));
+        VariantContextTestUtils.assertGenotypesAreEqual(genotypes.get(0), withGLs);
+    }
+
+    @Test
+    public void testAnyHasLikelihoods() {
+        final GenotypesContext withoutLikelihoods = GenotypesContext.create(makeGenotypes().get(1), makeGenotypes().get(2));
+        Assert.assertFalse(GenotypeColumns.anyHasLikelihoods(withoutLikelihoods));
+        Assert.assertFalse(GenotypeColumns.anyHasLikelihoods(toColumns(withoutLikelihoods).asGenotypesContext()));
+        Assert.assertTrue(GenotypeColumns.anyHasLikelihoods(makeGenotypes()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPLIndexOutOfRange() {
+        toColumns(makeGenotypes()).getPL(0, 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testADIndexOutOfRange() {
+        toColumns(makeGenotypes()).getAD(0, 2);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFieldsRequireASample() {
+        new GenotypeColumns.Builder().DP(10);
+    }
+
+    @Test
+    public void testEmpty() {
+        final GenotypeColumns columns = new GenotypeColumns.Builder().make();
+        Assert.assertEquals(columns.size(), 0);
+        Assert.assertEquals(columns.asGenotypesContext().size(), 0);
+        Assert.assertEquals(columns.asGenotypesContext().getMaxPloidy(2), 2);
+    }
+}
@@ -9,6 +9,10 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
 
@@ -99,4 +103,83 @@ public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
         Assert.assertEquals(3, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(20, 1024));
         Assert.assertEquals(2, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(100, 1024));
     }
+
+    @Test(dataProvider = "genotypeCount")
+    public void testCalculateGenotypeCount(int ploidy, int alleleCount, int expected) {
+        Assert.assertEquals(GenotypeLikelihoodCalculators.calculateGenotypeCount(ploidy, alleleCount), expected);
+    }
+
+    @Test
+    public void testCalculateGenotypeCountOverflow() {
+        Assert.assertEquals(GenotypeLikelihoodCalculators.calculateGenotypeCount(10_000, 10_000), GenotypeLikelihoodCalculators.GENOTYPE_COUNT_OVERFLOW);
+        // one genotype per allele
+        Assert.assertEquals(GenotypeLikelihoodCalculators.calculateGenotypeCount(1, Integer.MAX_VALUE), Integer.MAX_VALUE);
+    }
+
+    @DataProvider(name = "highPloidy")
+    public Object[][] highPloidyData() {
+        // all of these have more genotypes than are strongly referenced
+        return new Object[][] {{8, 6}, {20, 4}, {4, 12}};
+    }
+
+    @Test(dataProvider = "highPloidy")
+    public void testRandomAccessBeyondStrongReferences(final int ploidy, final int alleleCount) {
+        final GenotypeLikelihoodCalculator calculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, alleleCount);
+        Assert.assertTrue(calculator.genotypeCount() > GenotypeLikelihoodCalculators.MAXIMUM_STRONG_REF_GENOTYPE_PER_PLOIDY);
+
+        final List<GenotypeAlleleCounts> sequential = new ArrayList<>();
+        GenotypeAlleleCounts current = GenotypeAlleleCounts.first(ploidy);
+        for (int i = 0; i < calculator.genotypeCount(); i++) {
+            sequential.add(current);
+            current = current.next();
+        }
+
+        final Random random = new Random(13);
+        for (int i = 0; i < 2000; i++) {
+            final int index = random.nextInt(calculator.genotypeCount());
+            final GenotypeAlleleCounts genotype = calculator.genotypeAlleleCountsAt(index);
+            Assert.assertEquals(genotype, sequential.get(index));
+            Assert.assertEquals(genotype.index(), index);
+            Assert.assertEquals(calculator.allelesToIndex(alleleIndices(genotype)), index);
+        }
+    }
+
+    private static int[] alleleIndices(final GenotypeAlleleCounts genotype) {
+        final int[] result = new int[genotype.ploidy()];
+        final int[] next = {0};
+        genotype.forEachAlleleIndexAndCount((allele, count) -> {
+            for (int i = 0; i < count; i++) {
+                result[next[0]++] = allele;
+            }
+        });
+        return result;
+    }
+
+    @Test
+    public void testConcurrentInstances() throws Exception {
+        final GenotypeLikelihoodCalculators calculators = new GenotypeLikelihoodCalculators();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int seed = thread;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int i = 0; i < 200; i++) {
+                        final int ploidy = 1 + random.nextInt(10);
+                        final int alleleCount = 1 + random.nextInt(6);
+                        final GenotypeLikelihoodCalculator calculator = calculators.getInstance(ploidy, alleleCount);
+                        Assert.assertEquals(calculator.genotypeCount(), GenotypeLikelihoodCalculators.calculateGenotypeCount(ploidy, alleleCount));
+                        final int last = calculator.genotypeCount() - 1;
+                        Assert.assertEquals(calculator.genotypeAlleleCountsAt(last).index(), last);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
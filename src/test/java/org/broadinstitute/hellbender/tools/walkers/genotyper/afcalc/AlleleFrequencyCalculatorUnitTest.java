@@ -4,6 +4,7 @@ import htsjdk.variant.variantcontext.*;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.MathArrays;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeColumns;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculator;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculators;
 import org.broadinstitute.hellbender.GATKBaseTest;
@@ -104,6 +105,35 @@ public class AlleleFrequencyCalculatorUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testGenotypesHeldInColumns() {
+        final AlleleFrequencyCalculator afCalc = new AlleleFrequencyCalculator(1, 1, 1, DEFAULT_PLOIDY);
+        final List<Allele> alleles = Arrays.asList(A,B,C);
+        final Genotype homRefBlock = new GenotypeBuilder("homRefBlock", Arrays.asList(A, A)).GQ(40).make();
+        final Genotype noCall = new GenotypeBuilder("noCall", Arrays.asList(Allele.NO_CALL, Allele.NO_CALL)).GQ(40).make();
+        final VariantContext vc = makeVC(alleles, genotypeWithObviousCall(DIPLOID, TRIALLELIC, new int[] {0,1,1,1}, FAIRLY_CONFIDENT_PL),
+                genotypeWithObviousCall(TRIPLOID, TRIALLELIC, new int[] {1,3}, FAIRLY_CONFIDENT_PL),
+                genotypeWithObviousCall(DIPLOID, TRIALLELIC, new int[] {0,1,2,1}, FAIRLY_CONFIDENT_PL), homRefBlock, noCall);
+
+        final GenotypeColumns.Builder columns = new GenotypeColumns.Builder();
+        for (final Genotype g : vc.getGenotypes()) {
+            columns.add(g, g.getSampleName(), g.getAlleles()).GQ(g.getGQ());
+            if (g.hasPL()) {
+                columns.PL(g.getPL());
+            }
+        }
+        final VariantContext columnarVC = new VariantContextBuilder(vc).genotypesNoValidation(columns.make().asGenotypesContext()).make();
+        Assert.assertNotNull(GenotypeColumns.unwrap(columnarVC.getGenotypes()));
+
+        final AFCalculationResult expected = afCalc.calculate(vc);
+        final AFCalculationResult actual = afCalc.calculate(columnarVC);
+        Assert.assertEquals(actual.getAlleleCountsOfMLE(), expected.getAlleleCountsOfMLE());
+        Assert.assertEquals(actual.log10ProbOnlyRefAlleleExists(), expected.log10ProbOnlyRefAlleleExists(), EPS);
+        for (final Allele allele : Arrays.asList(B, C)) {
+            Assert.assertEquals(actual.getLog10PosteriorOfAlleleAbsent(allele), expected.getLog10PosteriorOfAlleleAbsent(allele), EPS);
+        }
+    }
+
     // many samples with low confidence should yield a non-zero MLE, in contrast to the old exact model
     @Test
     public void testManySamplesWithLowConfidence() {
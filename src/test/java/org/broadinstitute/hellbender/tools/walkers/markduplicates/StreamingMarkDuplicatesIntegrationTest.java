@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import htsjdk.samtools.metrics.MetricsFile;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.markduplicates.GATKDuplicationMetrics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class StreamingMarkDuplicatesIntegrationTest extends CommandLineProgramTest {
+
+    private static final File TEST_DATA_DIR = AbstractMarkDuplicatesCommandLineProgramTest.TEST_DATA_DIR;
+
+    @DataProvider(name = "md")
+    public Object[][] md() {
+        // The expected values match those of MarkDuplicatesSparkIntegrationTest on the same inputs
+        return new Object[][]{
+                {new File(TEST_DATA_DIR, "example.chr1.1-1K.unmarkedDups.noDups.bam"), 20, 0,
+                        ImmutableMap.of("Solexa-16419", ImmutableList.of(0L, 3L, 0L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16416", ImmutableList.of(0L, 1L, 0L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16404", ImmutableList.of(0L, 3L, 0L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16406", ImmutableList.of(0L, 1L, 0L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16412", ImmutableList.of(0L, 1L, 0L, 0L, 0L, 0L, 0.0))},
+                {new File(TEST_DATA_DIR, "example.chr1.1-1K.unmarkedDups.bam"), 90, 6,
+                        ImmutableMap.of("Solexa-16419", ImmutableList.of(4L, 4L, 4L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16416", ImmutableList.of(2L, 2L, 2L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16404", ImmutableList.of(3L, 9L, 3L, 0L, 2L, 0L, 0.190476),
+                                "Solexa-16406", ImmutableList.of(1L, 10L, 1L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16412", ImmutableList.of(3L, 6L, 3L, 0L, 1L, 0L, 0.133333))},
+                {new File(TEST_DATA_DIR, "example.chr1.1-1K.markedDups.bam"), 90, 6,
+                        ImmutableMap.of("Solexa-16419", ImmutableList.of(4L, 4L, 4L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16416", ImmutableList.of(2L, 2L, 2L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16404", ImmutableList.of(3L, 9L, 3L, 0L, 2L, 0L, 0.190476),
+                                "Solexa-16406", ImmutableList.of(1L, 10L, 1L, 0L, 0L, 0L, 0.0),
+                                "Solexa-16412", ImmutableList.of(3L, 6L, 3L, 0L, 1L, 0L, 0.133333))},
+                {new File(TEST_DATA_DIR, "optical_dupes.bam"), 4, 2,
+                        ImmutableMap.of("mylib", ImmutableList.of(0L, 2L, 0L, 0L, 1L, 1L, 0.5))},
+        };
+    }
+
+    @Test(dataProvider = "md")
+    public void testStreamingMarkDuplicates(final File input, final long totalExpected, final long dupsExpected,
+                                            final Map<String, List<?>> metricsExpected) throws IOException {
+        runAndCheck(input, totalExpected, dupsExpected, metricsExpected, null);
+    }
+
+    @Test(dataProvider = "md")
+    public void testStreamingMarkDuplicatesWithSpilling(final File input, final long totalExpected, final long dupsExpected,
+                                                        final Map<String, List<?>> metricsExpected) throws IOException {
+        // Keep almost nothing in memory so that the buffered reads go through the temporary files
+        runAndCheck(input, totalExpected, dupsExpected, metricsExpected, 20);
+    }
+
+    private void runAndCheck(final File input, final long totalExpected, final long dupsExpected,
+                             final Map<String, List<?>> metricsExpected, final Integer maxReadsInRam) throws IOException {
+        final File outputFile = createTempFile("streaming_markdups", ".bam");
+        final File metricsFile = createTempFile("streaming_markdups_metrics", ".txt");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addInput(input)
+                .addOutput(outputFile)
+                .add(StandardArgumentDefinitions.METRICS_FILE_LONG_NAME, metricsFile.getAbsolutePath());
+        if (maxReadsInRam != null) {
+            args.add(StreamingMarkDuplicates.MAX_READS_IN_RAM_LONG_NAME, maxReadsInRam);
+        }
+        runCommandLine(args);
+
+        int totalReads = 0;
+        int duplicateReads = 0;
+        try (final ReadsDataSource outputReads = new ReadsPathDataSource(outputFile.toPath())) {
+            for (final GATKRead read : outputReads) {
+                ++totalReads;
+                if (read.isDuplicate()) {
+                    ++duplicateReads;
+                }
+            }
+        }
+        Assert.assertEquals(totalReads, totalExpected, "Wrong number of reads in output BAM");
+        Assert.assertEquals(duplicateReads, dupsExpected, "Wrong number of duplicate reads in output BAM");
+
+        final MetricsFile<GATKDuplicationMetrics, Comparable<?>> metricsOutput = new MetricsFile<>();
+        try (final FileReader reader = new FileReader(metricsFile)) {
+            metricsOutput.read(reader);
+        }
+        final List<GATKDuplicationMetrics> nonEmptyMetrics = metricsOutput.getMetrics().stream()
+                .filter(m -> m.UNPAIRED_READS_EXAMINED != 0L || m.READ_PAIRS_EXAMINED != 0L || m.UNMAPPED_READS != 0L)
+                .collect(Collectors.toList());
+        Assert.assertEquals(nonEmptyMetrics.size(), metricsExpected.size(), "Wrong number of metrics with non-zero fields.");
+        for (final GATKDuplicationMetrics observed : nonEmptyMetrics) {
+            final List<?> expected = metricsExpected.get(observed.LIBRARY);
+            Assert.assertNotNull(expected, "Unexpected library found: " + observed.LIBRARY);
+            Assert.assertEquals(observed.UNPAIRED_READS_EXAMINED, expected.get(0));
+            Assert.assertEquals(observed.READ_PAIRS_EXAMINED, expected.get(1));
+            Assert.assertEquals(observed.UNMAPPED_READS, expected.get(2));
+            Assert.assertEquals(observed.UNPAIRED_READ_DUPLICATES, expected.get(3));
+            Assert.assertEquals(observed.READ_PAIR_DUPLICATES, expected.get(4));
+            Assert.assertEquals(observed.READ_PAIR_OPTICAL_DUPLICATES, expected.get(5));
+            Assert.assertEquals(observed.PERCENT_DUPLICATION, expected.get(6));
+        }
+    }
+}
@@ -15,6 +15,8 @@ import org.broadinstitute.hellbender.testutils.CommandLineProgramTester;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -338,6 +340,72 @@ public class ReblockGVCFIntegrationTest extends CommandLineProgramTest {
         }
     }
 
+    @DataProvider(name = "getParallelReblockingArgs")
+    public Object[][] getParallelReblockingArgs() {
+        return new Object[][]{
+                //several contigs
+                {"noCallGTs.g.vcf", Collections.emptyList(), 2, ".g.vcf.gz"},
+                {"noCallGTs.g.vcf", Collections.emptyList(), 4, ".g.vcf.gz"},
+                //several intervals on a contig, with ref blocks that span them
+                {"prod.chr20snippet.withRawMQ.g.vcf", Arrays.asList("chr20:19995000-19996000", "chr20:19996001-19997500", "chr20:19998000-19998999"), 3, ".g.vcf.gz"},
+                //an uncompressed output is reblocked on one thread
+                {"noCallGTs.g.vcf", Collections.emptyList(), 2, ".g.vcf"}
+        };
+    }
+
+    @Test(dataProvider = "getParallelReblockingArgs")
+    public void testParallelReblockingMatchesSerial(final String input, final List<String> intervals, final int threads, final String extension) {
+        final File serialOutput = createTempFile("serial", extension);
+        final ArgumentsBuilder serialArgs = new ArgumentsBuilder();
+        serialArgs.add("V", getToolTestDataDir() + input)
+                .addReference(hg38Reference)
+                .addOutput(serialOutput);
+        intervals.forEach(interval -> serialArgs.add("L", interval));
+        runCommandLine(serialArgs);
+
+        final File parallelOutput = createTempFile("parallel", extension);
+        final ArgumentsBuilder parallelArgs = new ArgumentsBuilder();
+        parallelArgs.add("V", getToolTestDataDir() + input)
+                .addReference(hg38Reference)
+                .addOutput(parallelOutput)
+                .add(ReblockGVCF.REBLOCK_THREADS_LONG_NAME, threads);
+        intervals.forEach(interval -> parallelArgs.add("L", interval));
+        runCommandLine(parallelArgs);
+
+        final Pair<VCFHeader, List<VariantContext>> expected = VariantContextTestUtils.readEntireVCFIntoMemory(serialOutput.getAbsolutePath());
+        final Pair<VCFHeader, List<VariantContext>> actual = VariantContextTestUtils.readEntireVCFIntoMemory(parallelOutput.getAbsolutePath());
+        Assert.assertFalse(expected.getRight().isEmpty());
+        Assert.assertEquals(actual.getRight().size(), expected.getRight().size());
+        for (int i = 0; i < expected.getRight().size(); i++) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(actual.getRight().get(i), expected.getRight().get(i),
+                    Collections.emptyList(), Collections.emptyList());
+        }
+
+        // the index merged from those of the contigs finds the same records as that of the serial output
+        final List<String> contigs = expected.getRight().stream().map(VariantContext::getContig).distinct().collect(Collectors.toList());
+        try (final FeatureDataSource<VariantContext> actualVcs = new FeatureDataSource<>(parallelOutput);
+             final FeatureDataSource<VariantContext> expectedVcs = new FeatureDataSource<>(serialOutput)) {
+            for (final String contig : contigs) {
+                final SimpleInterval query = new SimpleInterval(contig, 1, 500_000_000);
+                final List<String> actualKeys = Utils.stream(actualVcs.query(query)).map(VariantContextTestUtils::keyForVariant).collect(Collectors.toList());
+                final List<String> expectedKeys = Utils.stream(expectedVcs.query(query)).map(VariantContextTestUtils::keyForVariant).collect(Collectors.toList());
+                Assert.assertFalse(actualKeys.isEmpty());
+                Assert.assertEquals(actualKeys, expectedKeys);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testParallelReblockingRequiresIndexedInputs() {
+        final File output = createTempFile("reblockedgvcf", ".g.vcf.gz");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("V", getToolTestDataDir() + "nonRefAD.g.vcf") //not indexed
+                .addReference(hg38Reference)
+                .addOutput(output)
+                .add(ReblockGVCF.REBLOCK_THREADS_LONG_NAME, 2);
+        runCommandLine(args);
+    }
+
     @Test(expectedExceptions = UserException.class)
     public void testMixedSamples() {
         final File output = createTempFile("reblockedgvcf", ".vcf");
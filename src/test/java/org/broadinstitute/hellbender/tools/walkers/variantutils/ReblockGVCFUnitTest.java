@@ -50,7 +50,7 @@ public class ReblockGVCFUnitTest extends CommandLineProgramTest {
         //We need an annotation engine for cleanUpHighQualityVariant(), but this is just a dummy; annotations won't initialize properly without runCommandLine()
         reblocker.createAnnotationEngine();
         //...and a vcfwriter
-        reblocker.vcfWriter = new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions());
+        reblocker.setVcfWriter(new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions()));
         reblocker.dropLowQuals = true;
         reblocker.doQualApprox = true;
 
@@ -93,7 +93,7 @@ public class ReblockGVCFUnitTest extends CommandLineProgramTest {
     @Test
     public void testLowQualVariantToGQ0HomRef() {
         final ReblockGVCF reblocker = new ReblockGVCF();
-        reblocker.vcfWriter = new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions());
+        reblocker.setVcfWriter(new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions()));
 
         reblocker.dropLowQuals = true;
         final Genotype g = VariantContextTestUtils.makeG("sample1", 11, LONG_REF, Allele.NON_REF_ALLELE, 200, 100, 200, 11, 0, 37);
@@ -188,7 +188,7 @@ public class ReblockGVCFUnitTest extends CommandLineProgramTest {
     @Test
     public void testPosteriors() {
         final ReblockGVCF reblocker = new ReblockGVCF();
-        reblocker.vcfWriter = new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions());
+        reblocker.setVcfWriter(new ReblockingGVCFWriter(new GVCFWriterUnitTest.MockWriter(), Arrays.asList(20, 100), true, null, new ReblockingOptions()));
         reblocker.posteriorsKey = "GP";
 
         final GenotypeBuilder gb = new GenotypeBuilder("sample1", Arrays.asList(LONG_REF, LONG_REF));
@@ -0,0 +1,153 @@
+package org.broadinstitute.hellbender.utils.clipping;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.TextCigarCodec;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.testutils.ReadClipperTestUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CombinedReadClipperUnitTest extends GATKBaseTest {
+    private static final byte LOW_QUAL = 10;
+
+    private List<Cigar> cigarList;
+
+    @BeforeClass
+    public void init() {
+        cigarList = ReadClipperTestUtils.generateCigarList(5, false);
+        cigarList.add(TextCigarCodec.decode("2M3I5M"));
+        cigarList.add(TextCigarCodec.decode("3S10M2D10M4S"));
+        cigarList.add(TextCigarCodec.decode("2H3S10M1I10M4S1H"));
+    }
+
+    /**
+     * Variations of each test read: low quality tails, positions near the start of the contig (so that reverting soft
+     * clips requires hard clipping) and paired reads whose adaptor boundary falls inside the read
+     */
+    private List<GATKRead> makeTestReads(final Cigar cigar) {
+        final List<GATKRead> reads = new ArrayList<>();
+        for (final int start : new int[]{1, 2, 10000}) {
+            for (final boolean lowQualTails : new boolean[]{false, true}) {
+                for (final int fragmentLength : new int[]{0, 3, 8}) {
+                    for (final boolean reverseStrand : new boolean[]{false, true}) {
+                        final GATKRead read = ReadClipperTestUtils.makeReadFromCigar(cigar);
+                        read.setPosition(read.getContig(), start);
+                        if (lowQualTails) {
+                            final byte[] quals = read.getBaseQualities();
+                            for (int i = 0; i < quals.length; i++) {
+                                if (i < 2 || i >= quals.length - 3) {
+                                    quals[i] = LOW_QUAL - 1;
+                                }
+                            }
+                            read.setBaseQualities(quals);
+                        }
+                        if (fragmentLength > 0) {
+                            read.setIsPaired(true);
+                            read.setIsReverseStrand(reverseStrand);
+                            read.setMateIsReverseStrand(!reverseStrand);
+                            read.setMatePosition(read.getContig(), reverseStrand ? start + 2 : start + 1);
+                            read.setFragmentLength(reverseStrand ? -fragmentLength : fragmentLength);
+                        }
+                        reads.add(read);
+                    }
+                }
+            }
+        }
+        return reads;
+    }
+
+    private static void assertSameRead(final CombinedReadClipper clipper, final GATKRead expected, final String step) {
+        Assert.assertEquals(clipper.isUnmapped(), expected.isUnmapped(), step);
+        Assert.assertEquals(clipper.isEmpty(), expected.isEmpty(), step);
+        Assert.assertEquals(clipper.getLength(), expected.getLength(), step);
+        Assert.assertEquals(clipper.getStart(), expected.getStart(), step);
+        Assert.assertEquals(clipper.getEnd(), expected.getEnd(), step);
+        Assert.assertEquals(clipper.getCigar().toString(), expected.getCigar().toString(), step);
+        Assert.assertEquals(clipper.getClippedRead().getSAMString(), expected.getSAMString(), step);
+    }
+
+    @Test
+    public void testMatchesReadClipper() {
+        for (final Cigar cigar : cigarList) {
+            for (final GATKRead read : makeTestReads(cigar)) {
+                for (final boolean revert : new boolean[]{false, true}) {
+                    final String description = read.getSAMString() + (revert ? " (revert)" : " (hard clip soft clips)");
+
+                    final GATKRead first;
+                    final GATKRead lowQualClipped;
+                    try {
+                        first = revert ? ReadClipper.revertSoftClippedBases(read) : ReadClipper.hardClipSoftClippedBases(read);
+                        lowQualClipped = ReadClipper.hardClipLowQualEnds(first, LOW_QUAL);
+                    } catch (final RuntimeException e) {
+                        // not a valid input for the existing clipper either
+                        continue;
+                    }
+
+                    final CombinedReadClipper clipper = new CombinedReadClipper(read);
+                    if (revert) {
+                        clipper.revertSoftClippedBases();
+                    } else {
+                        clipper.hardClipSoftClippedBases();
+                    }
+                    assertSameRead(clipper, first, description + " first step");
+                    clipper.hardClipLowQualEnds(LOW_QUAL);
+                    assertSameRead(clipper, lowQualClipped, description + " low quality ends");
+
+                    // the remaining steps as done in AssemblyBasedCallerUtils.finalizeRegion
+                    if (lowQualClipped.getStart() > lowQualClipped.getEnd() || lowQualClipped.isUnmapped()) {
+                        continue;
+                    }
+                    final GATKRead adaptorClipped;
+                    try {
+                        adaptorClipped = ReadClipper.hardClipAdaptorSequence(lowQualClipped);
+                    } catch (final RuntimeException e) {
+                        continue;
+                    }
+                    clipper.hardClipAdaptorSequence();
+                    assertSameRead(clipper, adaptorClipped, description + " adaptor");
+                    if (adaptorClipped.isEmpty() || adaptorClipped.getCigar().getReadLength() == 0) {
+                        continue;
+                    }
+
+                    final int regionStart = adaptorClipped.getStart() + 1;
+                    final int regionStop = adaptorClipped.getEnd() - 1;
+                    final GATKRead regionClipped;
+                    try {
+                        regionClipped = ReadClipper.hardClipToRegion(adaptorClipped, regionStart, regionStop);
+                    } catch (final RuntimeException e) {
+                        continue;
+                    }
+                    clipper.hardClipToRegion(regionStart, regionStop);
+                    assertSameRead(clipper, regionClipped, description + " region");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnclippedReadIsReturnedAsIs() {
+        final GATKRead read = ReadClipperTestUtils.makeReadFromCigar("10M");
+        final CombinedReadClipper clipper = new CombinedReadClipper(read)
+                .hardClipSoftClippedBases()
+                .hardClipLowQualEnds((byte) 0)
+                .hardClipAdaptorSequence();
+        Assert.assertSame(clipper.getClippedRead(), read);
+    }
+
+    @Test
+    public void testFullyClippedReadIsEmpty() {
+        final GATKRead read = ReadClipperTestUtils.makeReadFromCigar("10M");
+        final CombinedReadClipper clipper = new CombinedReadClipper(read).hardClipLowQualEnds(Byte.MAX_VALUE);
+        Assert.assertTrue(clipper.isEmpty());
+        Assert.assertTrue(clipper.isUnmapped());
+        final GATKRead clipped = clipper.getClippedRead();
+        Assert.assertTrue(clipped.isEmpty());
+        Assert.assertEquals(clipped.getSAMString(), ReadUtils.emptyRead(read).getSAMString());
+    }
+}
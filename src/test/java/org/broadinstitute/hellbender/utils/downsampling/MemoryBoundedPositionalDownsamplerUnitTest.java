@@ -0,0 +1,214 @@
+package org.broadinstitute.hellbender.utils.downsampling;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MemoryBoundedPositionalDownsamplerUnitTest extends GATKBaseTest {
+
+    private static final int READ_LENGTH = 100;
+    private static final long READ_BYTES = MemoryBoundedPositionalDownsampler.estimateReadSizeInBytes(
+            ArtificialReadUtils.createArtificialRead(ArtificialReadUtils.createArtificialSamHeader(), "foo", 0, 1, READ_LENGTH));
+
+    private final SAMFileHeader header = createHeaderWithSamples("sample1", "sample2");
+
+    private static SAMFileHeader createHeaderWithSamples( final String... samples ) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        for ( final String sample : samples ) {
+            final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(sample);
+            readGroup.setSample(sample);
+            header.addReadGroup(readGroup);
+        }
+        return header;
+    }
+
+    private List<GATKRead> createStackOfMappedReads( final int numReads, final String sample, final String contig, final int startPosition ) {
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 1; i <= numReads; ++i ) {
+            final byte[] bases = Utils.dupBytes((byte) 'A', READ_LENGTH);
+            final byte[] quals = Utils.dupBytes((byte) 30, READ_LENGTH);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, contig, startPosition, bases, quals);
+            read.setReadGroup(sample);
+            reads.add(read);
+        }
+        return reads;
+    }
+
+    private static List<GATKRead> downsample( final ReadsDownsampler downsampler, final List<GATKRead> reads ) {
+        Utils.resetRandomGenerator();
+        downsampler.submit(reads);
+        downsampler.signalEndOfInput();
+        return downsampler.consumeFinalizedItems();
+    }
+
+    @Test
+    public void testBehavesLikePositionalDownsamplerUnderBudget() {
+        final List<GATKRead> reads = new ArrayList<>();
+        reads.addAll(createStackOfMappedReads(10, "sample1", "1", 1));
+        reads.addAll(createStackOfMappedReads(3, "sample1", "1", 2));
+        reads.addAll(createStackOfMappedReads(10, "sample1", "2", 1));
+
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(5, Long.MAX_VALUE, 100, header);
+        Assert.assertTrue(downsampler.requiresCoordinateSortOrder());
+        final List<GATKRead> downsampled = downsample(downsampler, reads);
+
+        Assert.assertEquals(downsampled.size(), 13);
+        Assert.assertEquals(downsampler.getNumberOfDiscardedItems(), 10);
+        Assert.assertEquals(downsampler.getNumberOfBudgetHits(), 0);
+        Assert.assertEquals(downsampler.getSampleBudgetStatistics().get(0).getMinimumTargetCoverage(), 5);
+        assertSorted(downsampled);
+    }
+
+    @Test
+    public void testBudgetLimitsRetainedBytesPerSample() {
+        // room for 10 reads per sample within the window
+        final long budget = 10 * READ_BYTES;
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int start = 1; start <= 5; start++ ) {
+            reads.addAll(createStackOfMappedReads(20, "sample1", "1", start));
+            reads.addAll(createStackOfMappedReads(2, "sample2", "1", start));
+        }
+
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(20, budget, 100, header);
+        final List<GATKRead> downsampled = downsample(downsampler, reads);
+        assertSorted(downsampled);
+
+        final Map<String, Long> readsPerSample = downsampled.stream()
+                .collect(Collectors.groupingBy(read -> ReadUtils.getSampleName(read, header), Collectors.counting()));
+        // all of the positions are within the window, so no more than the budget can be kept for a sample
+        Assert.assertTrue(readsPerSample.get("sample1") <= 10);
+        Assert.assertEquals(readsPerSample.get("sample2").longValue(), 10L);
+
+        final MemoryBoundedPositionalDownsampler.SampleBudgetStatistics sample1Stats = downsampler.getSampleBudgetStatistics().get(0);
+        Assert.assertEquals(sample1Stats.getSample(), "sample1");
+        Assert.assertTrue(sample1Stats.getNumberOfBudgetHits() > 0);
+        Assert.assertTrue(sample1Stats.getReadsDiscardedForBudget() > 0);
+        Assert.assertTrue(sample1Stats.getMinimumTargetCoverage() < 20);
+        Assert.assertEquals(sample1Stats.getBudgetHitLoci().get(0), new SimpleInterval("1", 1, 1));
+
+        final MemoryBoundedPositionalDownsampler.SampleBudgetStatistics sample2Stats = downsampler.getSampleBudgetStatistics().get(1);
+        Assert.assertEquals(sample2Stats.getSample(), "sample2");
+        Assert.assertEquals(sample2Stats.getNumberOfBudgetHits(), 0);
+        Assert.assertTrue(sample2Stats.getBudgetHitLoci().isEmpty());
+    }
+
+    @Test
+    public void testUnlimitedTargetCoverageCountsOneBudgetHitPerRead() {
+        // room for 10 reads, and no limit on the reads per alignment start other than the budget
+        final long budget = 10 * READ_BYTES;
+        final List<GATKRead> reads = createStackOfMappedReads(15, "sample1", "1", 1);
+
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(Integer.MAX_VALUE, budget, 100, header);
+        final List<GATKRead> downsampled = downsample(downsampler, reads);
+
+        // the 11th read goes over the budget, and the target is halved from the 11 reads held rather than from the unlimited target
+        Assert.assertEquals(downsampled.size(), 5);
+        Assert.assertEquals(downsampler.getNumberOfBudgetHits(), 1);
+        Assert.assertEquals(downsampler.getSampleBudgetStatistics().get(0).getMinimumTargetCoverage(), 5);
+    }
+
+    @Test
+    public void testTargetCoverageRecoversAfterWindow() {
+        final long budget = 4 * READ_BYTES;
+        final List<GATKRead> reads = new ArrayList<>();
+        reads.addAll(createStackOfMappedReads(50, "sample1", "1", 1));
+        // far enough downstream that the reads from the first position have left the window
+        reads.addAll(createStackOfMappedReads(3, "sample1", "1", 1000));
+        reads.addAll(createStackOfMappedReads(3, "sample1", "1", 2000));
+        reads.addAll(createStackOfMappedReads(3, "sample1", "1", 3000));
+
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(3, budget, 100, header);
+        final List<GATKRead> downsampled = downsample(downsampler, reads);
+
+        final Map<Integer, Long> readsPerStart = downsampled.stream().collect(Collectors.groupingBy(GATKRead::getStart, Collectors.counting()));
+        Assert.assertEquals(readsPerStart.get(1).longValue(), 3L);
+        Assert.assertEquals(readsPerStart.get(3000).longValue(), 3L);
+        Assert.assertEquals(downsampler.getNumberOfBudgetHits(), 0);
+
+        // now a window that spans everything: once the budget is hit the later stacks are downsampled further
+        final MemoryBoundedPositionalDownsampler narrowBudget = new MemoryBoundedPositionalDownsampler(3, budget, 10000, header);
+        final List<GATKRead> downsampledNarrow = downsample(narrowBudget, reads);
+        Assert.assertTrue(downsampledNarrow.size() <= 4);
+        Assert.assertTrue(narrowBudget.getNumberOfBudgetHits() > 0);
+        Assert.assertEquals(narrowBudget.getSampleBudgetStatistics().get(0).getMinimumTargetCoverage(), 0);
+    }
+
+    @Test
+    public void testUnmappedReadsWithoutPositionPassThrough() {
+        final List<GATKRead> reads = new ArrayList<>(createStackOfMappedReads(10, "sample1", "1", 1));
+        for ( int i = 0; i < 100; i++ ) {
+            reads.add(ArtificialReadUtils.createArtificialUnmappedRead(header, Utils.dupBytes((byte) 'A', READ_LENGTH), Utils.dupBytes((byte) 30, READ_LENGTH)));
+        }
+
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(10, READ_BYTES, 100, header);
+        final List<GATKRead> downsampled = downsample(downsampler, reads);
+        Assert.assertEquals(downsampled.size(), 101);
+    }
+
+    @Test
+    public void testClearItems() {
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(5, Long.MAX_VALUE, 100, header);
+        downsampler.submit(createStackOfMappedReads(10, "sample1", "1", 1));
+        Assert.assertTrue(downsampler.hasPendingItems());
+        Assert.assertNotNull(downsampler.peekPending());
+        Assert.assertEquals(downsampler.size(), 5);
+
+        downsampler.clearItems();
+        Assert.assertFalse(downsampler.hasPendingItems());
+        Assert.assertFalse(downsampler.hasFinalizedItems());
+        Assert.assertNull(downsampler.peekPending());
+        Assert.assertNull(downsampler.peekFinalized());
+        Assert.assertEquals(downsampler.size(), 0);
+    }
+
+    @Test
+    public void testSignalNoMoreReadsBefore() {
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(5, Long.MAX_VALUE, 100, header);
+        downsampler.submit(createStackOfMappedReads(10, "sample1", "1", 1));
+        Assert.assertFalse(downsampler.hasFinalizedItems());
+
+        downsampler.signalNoMoreReadsBefore(createStackOfMappedReads(1, "sample1", "1", 2).get(0));
+        Assert.assertTrue(downsampler.hasFinalizedItems());
+        Assert.assertFalse(downsampler.hasPendingItems());
+        Assert.assertEquals(downsampler.consumeFinalizedItems().size(), 5);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnsortedInput() {
+        final MemoryBoundedPositionalDownsampler downsampler = new MemoryBoundedPositionalDownsampler(5, Long.MAX_VALUE, 100, header);
+        downsampler.submit(Arrays.asList(createStackOfMappedReads(1, "sample1", "1", 10).get(0), createStackOfMappedReads(1, "sample1", "1", 5).get(0)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidTargetCoverage() {
+        new MemoryBoundedPositionalDownsampler(0, 100, 100, header);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBudget() {
+        new MemoryBoundedPositionalDownsampler(5, 0, 100, header);
+    }
+
+    private void assertSorted( final List<GATKRead> reads ) {
+        final List<GATKRead> sorted = new ArrayList<>(reads);
+        Collections.sort(sorted, new ReadCoordinateComparator(header));
+        for ( int i = 0; i < reads.size(); i++ ) {
+            Assert.assertEquals(ReadCoordinateComparator.compareCoordinates(reads.get(i), sorted.get(i), header), 0);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.broadinstitute.hellbender.utils.jexl;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.JexlMissingValueTreatment;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.VariantContextUtils;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class CompiledJexlVCMatchExpUnitTest extends GATKBaseTest {
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele ALT_SNP = Allele.create("C", false);
+    private static final Allele ALT_INS = Allele.create("AT", false);
+
+    private static List<VariantContext> makeVariantContexts() {
+        final List<VariantContext> vcs = new ArrayList<>();
+        final Object[] qdValues = {null, "1.5", "2.0", "12", 1.5, 2.0f, 3, "abc", Arrays.asList("1.0", "3.0")};
+        final Object[] dpValues = {null, 5, "15", 10.0};
+        for (final Object qd : qdValues) {
+            for (final Object dp : dpValues) {
+                for (final Allele alt : Arrays.asList(ALT_SNP, ALT_INS)) {
+                    final VariantContextBuilder builder = new VariantContextBuilder("test", "1", 100, 100, Arrays.asList(REF, alt));
+                    if (qd != null) {
+                        builder.attribute("QD", qd);
+                    }
+                    if (dp != null) {
+                        builder.attribute("DP", dp);
+                    }
+                    builder.attribute("culprit", "FS");
+                    builder.attribute("FS", 70.5);
+                    vcs.add(builder.make());
+                    // a filter with the same name as a missing attribute
+                    vcs.add(builder.filter("QD").make());
+                }
+            }
+        }
+        return vcs;
+    }
+
+    @DataProvider(name = "siteExpressions")
+    public Object[][] siteExpressions() {
+        return new Object[][] {
+                {"QD < 2.0", true},
+                {"QD < 2", true},
+                {"QD <= 2.0 && DP > 10", true},
+                {"QD lt 2.0 or DP ge 10", true},
+                {"FS > 60.0 || QD < 2.0", true},
+                {"QD < 2.0 || FS > 60.0", true},
+                {"!(QD == 2.0)", true},
+                {"not QD != 12", true},
+                {"2.0 > QD", true},
+                {"QD > -1", true},
+                {"culprit == 'FS'", true},
+                {"culprit != \"QD\"", true},
+                {"vc.isSNP() && DP < 10", true},
+                {"vc.isIndel() || QD < 2.0", true},
+                {"QUAL > 30.0", false},
+                {"QD < 2.0 && vc.getType() == 'SNP'", false},
+                {"QD * 2 < 4", false},
+                {"QD =~ '1.*'", false},
+                {"QD", false},
+                {"QD < 1e3", false},
+        };
+    }
+
+    @Test(dataProvider = "siteExpressions")
+    public void testMatchesJexlForVariantContexts(final String expression, final boolean expectCompiled) {
+        final VariantContextUtils.JexlVCMatchExp jexl = VariantContextUtils.initializeMatchExps(
+                Collections.singletonList("test"), Collections.singletonList(expression)).get(0);
+        final CompiledJexlVCMatchExp compiled = new CompiledJexlVCMatchExp(jexl);
+        Assert.assertEquals(compiled.isCompiledForVariantContexts(), expectCompiled);
+        Assert.assertEquals(compiled.name, jexl.name);
+        Assert.assertSame(compiled.exp, jexl.exp);
+
+        for (final VariantContext vc : makeVariantContexts()) {
+            for (final JexlMissingValueTreatment treatment : Arrays.asList(JexlMissingValueTreatment.TREAT_AS_MATCH, JexlMissingValueTreatment.TREAT_AS_MISMATCH)) {
+                final Boolean expected = evaluate(() -> VariantContextUtils.match(vc, null, jexl, treatment));
+                final Boolean actual = evaluate(() -> CompiledJexlVCMatchExp.match(vc, null, compiled, treatment));
+                Assert.assertEquals(actual, expected, expression + " on " + vc);
+            }
+            Assert.assertEquals(evaluate(() -> CompiledJexlVCMatchExp.match(vc, compiled)),
+                    evaluate(() -> VariantContextUtils.match(vc, jexl)), expression + " on " + vc);
+        }
+    }
+
+    @DataProvider(name = "genotypeExpressions")
+    public Object[][] genotypeExpressions() {
+        return new Object[][] {
+                {"DP < 10", true},
+                {"GQ < 20 && DP > 5", true},
+                {"g.isHet()", true},
+                {"!g.isHomVar() && XX == 'a'", true},
+                {"isHet == 1", false},
+                {"vc.isSNP()", false},
+        };
+    }
+
+    @Test(dataProvider = "genotypeExpressions")
+    public void testMatchesJexlForGenotypes(final String expression, final boolean expectCompiled) {
+        final VariantContextUtils.JexlVCMatchExp jexl = VariantContextUtils.initializeMatchExps(
+                Collections.singletonList("test"), Collections.singletonList(expression)).get(0);
+        final CompiledJexlVCMatchExp compiled = new CompiledJexlVCMatchExp(jexl);
+        Assert.assertEquals(compiled.isCompiledForGenotypes(), expectCompiled);
+
+        for (final VariantContext site : makeVariantContexts()) {
+            for (final List<Allele> alleles : Arrays.asList(Arrays.asList(REF, REF), Arrays.asList(REF, ALT_SNP), Arrays.asList(ALT_SNP, ALT_SNP))) {
+                for (final int dp : new int[]{-1, 3, 10, 30}) {
+                    final GenotypeBuilder genotypeBuilder = new GenotypeBuilder("sample", alleles);
+                    if (dp >= 0) {
+                        genotypeBuilder.DP(dp).GQ(dp * 2).attribute("XX", dp < 10 ? "a" : "b");
+                    }
+                    final Genotype g = genotypeBuilder.make();
+                    final VariantContext vc = new VariantContextBuilder(site).alleles(Arrays.asList(REF, ALT_SNP)).genotypes(g).make();
+                    for (final JexlMissingValueTreatment treatment : Arrays.asList(JexlMissingValueTreatment.TREAT_AS_MATCH, JexlMissingValueTreatment.TREAT_AS_MISMATCH)) {
+                        final Boolean expected = evaluate(() -> VariantContextUtils.match(vc, g, jexl, treatment));
+                        final Boolean actual = evaluate(() -> CompiledJexlVCMatchExp.match(vc, g, compiled, treatment));
+                        Assert.assertEquals(actual, expected, expression + " on " + g + " at " + vc);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInitializeMatchExps() {
+        final List<VariantContextUtils.JexlVCMatchExp> exps = CompiledJexlVCMatchExp.initializeMatchExps(
+                Arrays.asList("lowQD", "highFS"), Arrays.asList("QD < 2.0", "FS > 60.0"));
+        Assert.assertEquals(exps.size(), 2);
+        Assert.assertEquals(exps.get(0).name, "lowQD");
+        Assert.assertEquals(exps.get(1).name, "highFS");
+        Assert.assertTrue(exps.stream().allMatch(exp -> exp instanceof CompiledJexlVCMatchExp));
+    }
+
+    /**
+     * @return the result of the match, or null if it threw an exception
+     */
+    private static Boolean evaluate(final java.util.function.BooleanSupplier match) {
+        try {
+            return match.getAsBoolean();
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+}
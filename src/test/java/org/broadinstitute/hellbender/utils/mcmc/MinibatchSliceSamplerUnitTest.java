@@ -108,6 +108,34 @@ public final class MinibatchSliceSamplerUnitTest {
         Assert.assertEquals(relativeError(sampleStandardDeviation, Math.sqrt(variance)), 0., 0.05);
     }
 
+    /**
+     * Tests that a sampler given the likelihood of each data point by index draws the same samples as one given the
+     * list of data, for a normal posterior as in {@link #testSliceSamplingOfNormalPosterior}.
+     */
+    @Test
+    public void testIndexedLogLikelihoodMatchesListOfData() {
+        rng.setSeed(RANDOM_SEED);
+
+        final double standardDeviation = 0.75;
+        final double[] data = new NormalDistribution(rng, 5., standardDeviation).sample(NUM_DATA_POINTS);
+        final BiFunction<Double, Double, Double> normalLogLikelihood =
+                (d, x) -> new NormalDistribution(null, x, standardDeviation).logDensity(d);
+
+        final double xInitial = 1.;
+        final double xMin = Double.NEGATIVE_INFINITY;
+        final double xMax = Double.POSITIVE_INFINITY;
+        final double width = 0.5;
+        final int numSamples = 200;
+        final List<Double> listSamples = new MinibatchSliceSampler<>(
+                RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED)), Doubles.asList(data), UNIFORM_LOG_PRIOR, normalLogLikelihood,
+                xMin, xMax, width, MINIBATCH_SIZE, APPROX_THRESHOLD).sample(xInitial, numSamples);
+        final List<Double> indexedSamples = new MinibatchSliceSampler<>(
+                RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED)), data.length, UNIFORM_LOG_PRIOR,
+                (index, x) -> normalLogLikelihood.apply(data[index], x),
+                xMin, xMax, width, MINIBATCH_SIZE, APPROX_THRESHOLD).sample(xInitial, numSamples);
+        Assert.assertEquals(indexedSamples, listSamples);
+    }
+
     /**
      * Tests slice sampling of a uniform prior with no data points.
      * Checks that mean and standard deviation are recovered from the samples
@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class StreamingDuplicateMarkerUnitTest extends GATKBaseTest {
+
+    private static final String READ_GROUP = "rg";
+    private static final int READ_LENGTH = 50;
+
+    private static SAMFileHeader makeHeader() {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setLibrary("lib");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return header;
+    }
+
+    private static List<GATKRead> makePair(final SAMFileHeader header, final String name, final int leftStart, final int rightStart) {
+        final List<GATKRead> pair = ArtificialReadUtils.createPair(header, name, READ_LENGTH, leftStart, rightStart, true, false);
+        pair.forEach(read -> read.setReadGroup(READ_GROUP));
+        return pair;
+    }
+
+    private StreamingDuplicateMarker makeMarker(final SAMFileHeader header, final int maxReadsWaitingForMates, final List<GATKRead> output) {
+        return new StreamingDuplicateMarker(header, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES,
+                new OpticalDuplicateFinder(OpticalDuplicateFinder.DEFAULT_READ_NAME_REGEX, OpticalDuplicateFinder.DEFAULT_OPTICAL_DUPLICATE_DISTANCE, null),
+                true, MarkDuplicates.DuplicateTaggingPolicy.DontTag, -1, 100, maxReadsWaitingForMates,
+                Collections.singletonList(createTempDir("streamingDuplicateMarker").toPath()), output::add);
+    }
+
+    @Test
+    public void testReadWithMissingMateIsPassedThroughUnmarked() {
+        final SAMFileHeader header = makeHeader();
+        final List<GATKRead> first = makePair(header, "first", 100, 300);
+        final List<GATKRead> second = makePair(header, "second", 100, 300);
+        // the mate of this read, at 250, is not in the input
+        final GATKRead orphan = makePair(header, "orphan", 150, 250).get(0);
+        final List<GATKRead> input = Arrays.asList(first.get(0), second.get(0), orphan, first.get(1), second.get(1));
+
+        final List<GATKRead> output = new ArrayList<>();
+        try (final StreamingDuplicateMarker marker = makeMarker(header, 100, output)) {
+            input.forEach(marker::addRead);
+            marker.finish();
+            Assert.assertEquals(marker.getNumReadsWaitingForMates(), 0);
+        }
+
+        Assert.assertEquals(names(output), names(input));
+        Assert.assertFalse(output.get(2).isDuplicate());
+        Assert.assertEquals(output.stream().filter(GATKRead::isDuplicate).count(), 2L);
+        Assert.assertEquals(output.get(0).isDuplicate(), output.get(3).isDuplicate());
+        Assert.assertNotEquals(output.get(0).isDuplicate(), output.get(1).isDuplicate());
+    }
+
+    @DataProvider(name = "maxReadsWaitingForMates")
+    public Object[][] maxReadsWaitingForMates() {
+        return new Object[][]{
+                // every read waiting for its mate fits in memory
+                {4, 0L},
+                // the reads whose mates are farthest away are spilled to disk, and read back when their mates arrive
+                {2, 2L},
+                {1, 4L},
+        };
+    }
+
+    @Test(dataProvider = "maxReadsWaitingForMates")
+    public void testReadsWaitingForMatesAreSpilled(final int maxReadsWaitingForMates, final long expectedSpilled) {
+        final SAMFileHeader header = makeHeader();
+        final List<GATKRead> first = makePair(header, "first", 100, 300);
+        final List<GATKRead> second = makePair(header, "second", 100, 300);
+        final List<GATKRead> near = makePair(header, "near", 120, 200);
+        final List<GATKRead> nearDuplicate = makePair(header, "nearDuplicate", 120, 200);
+        final List<GATKRead> input = Arrays.asList(first.get(0), second.get(0), near.get(0), nearDuplicate.get(0),
+                near.get(1), nearDuplicate.get(1), first.get(1), second.get(1));
+
+        final List<GATKRead> output = new ArrayList<>();
+        long maxSpilled = 0;
+        try (final StreamingDuplicateMarker marker = makeMarker(header, maxReadsWaitingForMates, output)) {
+            for (final GATKRead read : input) {
+                marker.addRead(read);
+                Assert.assertTrue(marker.getNumReadsWaitingForMates() <= maxReadsWaitingForMates);
+                maxSpilled = Math.max(maxSpilled, marker.getNumSpilledReadsWaitingForMates());
+            }
+            marker.finish();
+            Assert.assertEquals(marker.getNumReadsWaitingForMates(), 0);
+            Assert.assertEquals(marker.getNumSpilledReadsWaitingForMates(), 0L);
+        }
+        Assert.assertEquals(maxSpilled, expectedSpilled);
+
+        // spilling does not change the result: one pair at each position is marked as a duplicate of the other
+        Assert.assertEquals(names(output), names(input));
+        Assert.assertEquals(output.stream().filter(GATKRead::isDuplicate).count(), 4L);
+        Assert.assertNotEquals(output.get(0).isDuplicate(), output.get(1).isDuplicate());
+        Assert.assertNotEquals(output.get(2).isDuplicate(), output.get(3).isDuplicate());
+        Assert.assertEquals(output.get(0).isDuplicate(), output.get(6).isDuplicate());
+        Assert.assertEquals(output.get(2).isDuplicate(), output.get(4).isDuplicate());
+    }
+
+    private static List<String> names(final List<GATKRead> reads) {
+        return reads.stream().map(GATKRead::getName).collect(Collectors.toList());
+    }
+}
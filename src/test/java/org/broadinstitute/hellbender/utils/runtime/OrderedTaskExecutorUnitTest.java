@@ -0,0 +1,79 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class OrderedTaskExecutorUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testResultsAreConsumedInSubmissionOrder() {
+        final int numTasks = 500;
+        final int numThreads = 4;
+        final int maxPendingTasksPerThread = 3;
+        final Random random = new Random(13);
+        final List<Integer> results = new ArrayList<>();
+        final AtomicInteger numRunningOrPending = new AtomicInteger();
+
+        try (final OrderedTaskExecutor<Integer> executor = new OrderedTaskExecutor<>("test-thread-%d", numThreads, maxPendingTasksPerThread,
+                result -> {
+                    results.add(result);
+                    numRunningOrPending.decrementAndGet();
+                })) {
+            for (int i = 0; i < numTasks; i++) {
+                final int task = i;
+                final long sleepMillis = random.nextInt(3);
+                Assert.assertTrue(executor.getNumPendingTasks() <= numThreads * maxPendingTasksPerThread);
+                numRunningOrPending.incrementAndGet();
+                executor.submit(() -> {
+                    Thread.sleep(sleepMillis);
+                    return task;
+                }, () -> "running task " + task);
+                Assert.assertTrue(numRunningOrPending.get() <= numThreads * maxPendingTasksPerThread);
+            }
+            executor.consumeAllResults();
+            Assert.assertEquals(executor.getNumPendingTasks(), 0);
+        }
+
+        Assert.assertEquals(results, IntStream.range(0, numTasks).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "task failed")
+    public void testUncheckedExceptionIsRethrown() {
+        try (final OrderedTaskExecutor<Integer> executor = new OrderedTaskExecutor<>("test-thread-%d", 2, 1, result -> { })) {
+            executor.submit(() -> 1, () -> "running task 1");
+            executor.submit(() -> {
+                throw new IllegalStateException("task failed");
+            }, () -> "running task 2");
+            executor.consumeAllResults();
+        }
+    }
+
+    @Test
+    public void testCheckedExceptionIsWrapped() {
+        try (final OrderedTaskExecutor<Integer> executor = new OrderedTaskExecutor<>("test-thread-%d", 2, 1, result -> { })) {
+            executor.submit(() -> {
+                throw new IOException("task failed");
+            }, () -> "running task 1");
+            executor.consumeAllResults();
+            Assert.fail("expected an exception");
+        } catch (final GATKException e) {
+            Assert.assertTrue(e.getMessage().contains("running task 1"), e.getMessage());
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveThreads() {
+        new OrderedTaskExecutor<Integer>("test-thread-%d", 0, 1, result -> { });
+    }
+}
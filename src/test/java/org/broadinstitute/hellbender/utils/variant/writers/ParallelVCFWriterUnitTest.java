@@ -0,0 +1,220 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.commons.lang3.tuple.Pair;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.testng.Assert;
+import org.testng.TestException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public final class ParallelVCFWriterUnitTest extends GATKBaseTest {
+    private static final String TRIO_GVCF = toolsTestDir + "walkers/annotator/VariantAnnotator/trioGGVCF.vcf.gz";
+    private static final String VCF_WITH_GENOTYPES = publicTestDir + "org/broadinstitute/hellbender/engine/vcf_with_genotypes.vcf";
+
+    @DataProvider(name = "outputs")
+    public Object[][] outputs() {
+        final List<Object[]> tests = new ArrayList<>();
+        for (final int numThreads : new int[]{1, 4}) {
+            for (final boolean decodeGenotypes : new boolean[]{false, true}) {
+                tests.add(new Object[]{TRIO_GVCF, FileExtensions.COMPRESSED_VCF, numThreads, decodeGenotypes, new Options[]{Options.INDEX_ON_THE_FLY}});
+                tests.add(new Object[]{TRIO_GVCF, FileExtensions.COMPRESSED_VCF, numThreads, decodeGenotypes, new Options[]{Options.DO_NOT_WRITE_GENOTYPES}});
+                tests.add(new Object[]{VCF_WITH_GENOTYPES, FileExtensions.COMPRESSED_VCF, numThreads, decodeGenotypes, new Options[]{}});
+                tests.add(new Object[]{VCF_WITH_GENOTYPES, FileExtensions.VCF, numThreads, decodeGenotypes, new Options[]{}});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "outputs")
+    public void testOutputMatchesSerialWriter(final String input, final String extension, final int numThreads,
+                                              final boolean decodeGenotypes, final Options[] options) {
+        final Pair<VCFHeader, List<VariantContext>> vcf = VariantContextTestUtils.readEntireVCFIntoMemory(input);
+        final VCFHeader header = vcf.getKey();
+        final SAMSequenceDictionary dictionary = header.getSequenceDictionary();
+        // records read from a file keep their genotypes lazily parsed, unless they are copied
+        final List<VariantContext> records = decodeGenotypes ?
+                vcf.getValue().stream().map(vc -> new VariantContextBuilder(vc).genotypes(GenotypesContext.copy(vc.getGenotypes())).make()).collect(Collectors.toList()) :
+                vcf.getValue();
+
+        final File outputDir = createTempDir("parallelVCFWriter");
+        final Path expectedPath = new File(outputDir, "expected" + extension).toPath();
+        final Path actualPath = new File(outputDir, "actual" + extension).toPath();
+        Assert.assertTrue(ParallelVCFWriter.canWrite(actualPath, false, options));
+        try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(expectedPath, dictionary, false, options)) {
+            writer.writeHeader(header);
+            records.forEach(writer::add);
+        }
+        try (final VariantContextWriter writer = new ParallelVCFWriter(actualPath, dictionary, numThreads, options)) {
+            writer.writeHeader(header);
+            records.forEach(writer::add);
+        }
+
+        Assert.assertEquals(readLines(actualPath), readLines(expectedPath));
+        final List<VariantContext> actualRecords = VariantContextTestUtils.readEntireVCFIntoMemory(actualPath.toString()).getValue();
+        Assert.assertEquals(actualRecords.size(), records.size());
+
+        if (Arrays.asList(options).contains(Options.INDEX_ON_THE_FLY)) {
+            Assert.assertTrue(new File(actualPath + FileExtensions.TABIX_INDEX).exists());
+            // query windows around several records, and check that the index finds all of the overlapping records
+            try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(actualPath.toString())) {
+                for (int i = 0; i < records.size(); i += records.size() / 7) {
+                    final VariantContext center = records.get(i);
+                    final SimpleInterval window = new SimpleInterval(center.getContig(), Math.max(1, center.getStart() - 500), center.getEnd() + 500);
+                    final List<String> expected = records.stream().filter(vc -> vc.overlaps(window)).map(VariantContext::toString).collect(Collectors.toList());
+                    final List<String> actual = source.queryAndPrefetch(window).stream().map(VariantContext::toString).collect(Collectors.toList());
+                    Assert.assertEquals(actual, expected, "query " + window);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReorderedSamples() {
+        final Pair<VCFHeader, List<VariantContext>> vcf = VariantContextTestUtils.readEntireVCFIntoMemory(TRIO_GVCF);
+        final List<String> reversedSamples = new ArrayList<>(vcf.getKey().getGenotypeSamples());
+        Collections.reverse(reversedSamples);
+        final VCFHeader header = new VCFHeader(vcf.getKey().getMetaDataInInputOrder(), reversedSamples);
+        // the genotypes of the records are still lazily parsed, in the sample order of the input
+        final List<VariantContext> records = vcf.getValue();
+        final List<VariantContext> decodedRecords = VariantContextTestUtils.readEntireVCFIntoMemory(TRIO_GVCF).getValue().stream()
+                .map(vc -> new VariantContextBuilder(vc).genotypes(GenotypesContext.copy(vc.getGenotypes())).make())
+                .collect(Collectors.toList());
+
+        final File outputDir = createTempDir("parallelVCFWriter");
+        final Path expectedPath = new File(outputDir, "expected" + FileExtensions.COMPRESSED_VCF).toPath();
+        final Path actualPath = new File(outputDir, "actual" + FileExtensions.COMPRESSED_VCF).toPath();
+        try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(expectedPath, header.getSequenceDictionary(), false)) {
+            writer.writeHeader(header);
+            decodedRecords.forEach(writer::add);
+        }
+        try (final VariantContextWriter writer = new ParallelVCFWriter(actualPath, header.getSequenceDictionary(), 4)) {
+            writer.writeHeader(header);
+            records.forEach(writer::add);
+        }
+
+        Assert.assertEquals(readLines(actualPath), readLines(expectedPath));
+        final Pair<VCFHeader, List<VariantContext>> actual = VariantContextTestUtils.readEntireVCFIntoMemory(actualPath.toString());
+        Assert.assertEquals(actual.getKey().getGenotypeSamples(), reversedSamples);
+        Assert.assertEquals(actual.getValue().size(), decodedRecords.size());
+        for (int i = 0; i < decodedRecords.size(); i++) {
+            for (final String sample : reversedSamples) {
+                Assert.assertEquals(actual.getValue().get(i).getGenotype(sample).toString(), decodedRecords.get(i).getGenotype(sample).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testNoRecords() {
+        final VCFHeader header = VariantContextTestUtils.readEntireVCFIntoMemory(TRIO_GVCF).getKey();
+        final Path output = new File(createTempDir("parallelVCFWriter"), "empty" + FileExtensions.COMPRESSED_VCF).toPath();
+        try (final VariantContextWriter writer = new ParallelVCFWriter(output, header.getSequenceDictionary(), 2, Options.INDEX_ON_THE_FLY)) {
+            writer.writeHeader(header);
+        }
+        final Pair<VCFHeader, List<VariantContext>> vcf = VariantContextTestUtils.readEntireVCFIntoMemory(output.toString());
+        Assert.assertEquals(vcf.getKey().getGenotypeSamples(), header.getGenotypeSamples());
+        Assert.assertTrue(vcf.getValue().isEmpty());
+    }
+
+    @Test
+    public void testCheckErrorAfterWorkerFailure() {
+        final Pair<VCFHeader, List<VariantContext>> vcf = VariantContextTestUtils.readEntireVCFIntoMemory(VCF_WITH_GENOTYPES);
+        final VCFHeader header = vcf.getKey();
+        // the encoder refuses INFO keys that are not in the header
+        final VariantContext badRecord = new VariantContextBuilder(vcf.getValue().get(0)).attribute("NOT_IN_HEADER", 1).make();
+        final Path output = new File(createTempDir("parallelVCFWriter"), "out" + FileExtensions.COMPRESSED_VCF).toPath();
+
+        final ParallelVCFWriter writer = new ParallelVCFWriter(output, header.getSequenceDictionary(), 2);
+        writer.writeHeader(header);
+        Assert.assertFalse(writer.checkError());
+        // the exception is thrown by whichever call collects the failed batch
+        Assert.expectThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 1000; i++) {
+                writer.add(badRecord);
+            }
+            writer.close();
+        });
+        Assert.assertTrue(writer.checkError());
+    }
+
+    @Test
+    public void testCompressBlock() throws IOException {
+        final Random random = new Random(13);
+        final byte[] compressible = new byte[50000];
+        Arrays.fill(compressible, (byte) 'A');
+        // random bytes do not compress, so they are stored in the block
+        final byte[] incompressible = new byte[0xff00];
+        random.nextBytes(incompressible);
+
+        for (final byte[] data : Arrays.asList(compressible, incompressible, new byte[]{'x'})) {
+            final byte[] block = ParallelVCFWriter.compressBlock(data, BlockCompressedOutputStream.getDefaultCompressionLevel());
+            Assert.assertTrue(block.length <= BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE);
+            final ByteArrayOutputStream file = new ByteArrayOutputStream();
+            file.write(block);
+            file.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            try (final BlockCompressedInputStream in = new BlockCompressedInputStream(new ByteArrayInputStream(file.toByteArray()))) {
+                final byte[] decompressed = new byte[data.length];
+                int read = 0;
+                while (read < data.length) {
+                    final int count = in.read(decompressed, read, data.length - read);
+                    Assert.assertTrue(count > 0);
+                    read += count;
+                }
+                Assert.assertEquals(decompressed, data);
+                Assert.assertEquals(in.read(), -1);
+            }
+        }
+    }
+
+    @Test
+    public void testCanWrite() {
+        final Path dir = createTempDir("parallelVCFWriter").toPath();
+        Assert.assertTrue(ParallelVCFWriter.canWrite(dir.resolve("out.vcf.gz"), false, Options.INDEX_ON_THE_FLY, Options.ALLOW_MISSING_FIELDS_IN_HEADER));
+        Assert.assertTrue(ParallelVCFWriter.canWrite(dir.resolve("out.vcf"), false, Options.DO_NOT_WRITE_GENOTYPES));
+        Assert.assertFalse(ParallelVCFWriter.canWrite(dir.resolve("out.vcf"), false, Options.INDEX_ON_THE_FLY));
+        Assert.assertFalse(ParallelVCFWriter.canWrite(dir.resolve("out.bcf"), false));
+        Assert.assertFalse(ParallelVCFWriter.canWrite(dir.resolve("out.vcf.gz"), true));
+        Assert.assertFalse(ParallelVCFWriter.canWrite(dir.resolve("out.vcf.gz"), false, Options.USE_ASYNC_IO));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIndexingRequiresDictionary() {
+        new ParallelVCFWriter(new File(createTempDir("parallelVCFWriter"), "out.vcf.gz").toPath(), null, 2, Options.INDEX_ON_THE_FLY);
+    }
+
+    private static List<String> readLines(final Path path) {
+        try (final BufferedReader reader = new BufferedReader(IOUtils.makeReaderMaybeGzipped(path))) {
+            return reader.lines().collect(Collectors.toList());
+        } catch (final IOException e) {
+            throw new TestException(e);
+        }
+    }
+}